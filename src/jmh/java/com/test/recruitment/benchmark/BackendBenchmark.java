@@ -0,0 +1,180 @@
+package com.test.recruitment.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tomcat.jdbc.pool.DataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.test.recruitment.config.HsqldbConfiguration;
+import com.test.recruitment.dao.TransactionCursor;
+import com.test.recruitment.dao.TransactionRepository;
+import com.test.recruitment.dao.TransactionSortField;
+import com.test.recruitment.dao.TransactionSummary;
+import com.test.recruitment.dao.impl.JdbcTransactionRepository;
+import com.test.recruitment.dao.impl.TransactionRepositoryImpl;
+import com.test.recruitment.entity.Transaction;
+
+/**
+ * Transaction storage benchmark : the in-memory repository against the
+ * HSQLDB repository of the <code>hsqldb</code> profile, on
+ * {@value #TRANSACTIONS} transactions spread over {@value #ACCOUNTS}
+ * accounts. The database is in-memory, so that only the JDBC and SQL costs
+ * are compared.
+ *
+ * @author A525125
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx3g",
+		"-Dlogback.configurationFile=src/jmh/resources/logback-benchmark.xml" })
+@State(Scope.Benchmark)
+public class BackendBenchmark {
+
+	private static final int TRANSACTIONS = 1_000_000;
+
+	private static final int ACCOUNTS = 100;
+
+	private static final int BATCH = 10_000;
+
+	private static final int PAGE_SIZE = 20;
+
+	private static final int WRITE_BATCH = 1_000;
+
+	private static final String ACCOUNT_ID = "A0";
+
+	@Param({ "object", "hsqldb" })
+	public String storage;
+
+	private TransactionRepository repository;
+
+	private DataSource dataSource;
+
+	private String[] ids;
+
+	private int deepPage;
+
+	private TransactionCursor middle;
+
+	private Random random = new Random(21);
+
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		if ("hsqldb".equals(storage)) {
+			dataSource = new HsqldbConfiguration().dataSource(
+					"jdbc:hsqldb:mem:benchmark;hsqldb.tx=mvcc", 4, 64, 5000);
+			JdbcTransactionRepository jdbcRepository = new JdbcTransactionRepository(
+					dataSource);
+			jdbcRepository.afterPropertiesSet();
+			repository = jdbcRepository;
+		} else {
+			TransactionRepositoryImpl objectRepository = new TransactionRepositoryImpl();
+			objectRepository.afterPropertiesSet();
+			repository = objectRepository;
+		}
+		Random random = new Random(42);
+		for (int i = 0; i < TRANSACTIONS; i += BATCH) {
+			List<Transaction> batch = new ArrayList<>(BATCH);
+			for (int j = i; j < i + BATCH; j++) {
+				batch.add(transaction("A" + j % ACCOUNTS, j, random));
+			}
+			repository.saveAll(batch);
+		}
+		ids = new String[1024];
+		for (int i = 0; i < ids.length; i++) {
+			// Generated ids, after those of the built-in transactions
+			ids[i] = String.valueOf(4 + random.nextInt(TRANSACTIONS));
+		}
+		int perAccount = TRANSACTIONS / ACCOUNTS;
+		deepPage = perAccount / PAGE_SIZE - 1;
+		List<Transaction> sorted = repository.getTransactionsByAccount(
+				ACCOUNT_ID,
+				new PageRequest(perAccount / 2 / PAGE_SIZE, PAGE_SIZE,
+						new Sort(Direction.ASC, "balance"))).getContent();
+		middle = TransactionCursor.first(TransactionSortField.BALANCE,
+				Direction.ASC).after(sorted.get(0));
+	}
+
+	@Benchmark
+	public Transaction findById() {
+		return repository.findById(ids[next++ & (ids.length - 1)]);
+	}
+
+	@Benchmark
+	public Page<Transaction> getFirstPage() {
+		return repository.getTransactionsByAccount(ACCOUNT_ID,
+				new PageRequest(0, PAGE_SIZE));
+	}
+
+	@Benchmark
+	public Page<Transaction> getLastPageByBalance() {
+		return repository.getTransactionsByAccount(ACCOUNT_ID,
+				new PageRequest(deepPage, PAGE_SIZE, new Sort(Direction.DESC,
+						"balance")));
+	}
+
+	@Benchmark
+	public Slice<Transaction> getMiddleSliceByBalance() {
+		return repository.getTransactionsByAccount(ACCOUNT_ID, middle,
+				PAGE_SIZE);
+	}
+
+	@Benchmark
+	public TransactionSummary getSummary() {
+		return repository.getSummary(ACCOUNT_ID);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public void saveAll() {
+		List<Transaction> batch = new ArrayList<>(WRITE_BATCH);
+		for (int i = 0; i < WRITE_BATCH; i++) {
+			batch.add(transaction("W" + next++ % ACCOUNTS, next, random));
+		}
+		repository.saveAll(batch);
+	}
+
+	@TearDown(Level.Trial)
+	public void shutdown() {
+		if (null != dataSource) {
+			new JdbcTemplate(dataSource).execute("SHUTDOWN");
+			dataSource.close();
+		}
+	}
+
+	private static Transaction transaction(String accountId, long number,
+			Random random) {
+		Transaction transaction = new Transaction();
+		transaction.setAccountId(accountId);
+		transaction.setNumber(String.valueOf(12151885120L + number));
+		transaction.setBalance(BigDecimal.valueOf(
+				random.nextInt(2_000_000) - 1_000_000, 2));
+		return transaction;
+	}
+}
@@ -0,0 +1,82 @@
+package com.test.recruitment.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.test.recruitment.dao.impl.AccountRepositoryImpl;
+import com.test.recruitment.dao.impl.TransactionRepositoryImpl;
+import com.test.recruitment.entity.Account;
+import com.test.recruitment.entity.Transaction;
+
+/**
+ * Benchmark dataset : {@value #ACCOUNTS} accounts, one of them holding the
+ * configured number of transactions
+ *
+ * @author A525125
+ *
+ */
+@State(Scope.Benchmark)
+public class BenchmarkData {
+
+	public static final int ACCOUNTS = 10_000;
+
+	public static final String ACCOUNT_ID = "A0";
+
+	@Param({ "10", "10000", "1000000" })
+	public int transactionsPerAccount;
+
+	public AccountRepositoryImpl accountRepository;
+
+	public TransactionRepositoryImpl transactionRepository;
+
+	public String[] accountIds;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		accountRepository = new AccountRepositoryImpl();
+		accountRepository.afterPropertiesSet();
+		for (int i = 0; i < ACCOUNTS; i++) {
+			accountRepository.save(account("A" + i, i));
+		}
+
+		transactionRepository = new TransactionRepositoryImpl();
+		transactionRepository.afterPropertiesSet();
+		Random random = new Random(42);
+		List<Transaction> transactions = new ArrayList<>(
+				transactionsPerAccount);
+		for (int i = 0; i < transactionsPerAccount; i++) {
+			Transaction transaction = new Transaction();
+			transaction.setAccountId(ACCOUNT_ID);
+			transaction.setNumber(String.valueOf(12151885120L + i));
+			transaction.setBalance(BigDecimal.valueOf(
+					random.nextInt(2_000_000) - 1_000_000, 2));
+			transactions.add(transaction);
+		}
+		transactionRepository.saveAll(transactions);
+
+		accountIds = new String[1024];
+		for (int i = 0; i < accountIds.length; i++) {
+			accountIds[i] = "A" + random.nextInt(ACCOUNTS);
+		}
+	}
+
+	private static Account account(String id, int number) {
+		Account account = new Account();
+		account.setId(id);
+		account.setNumber(String.format("%011d", number));
+		account.setType(number % 2 == 0 ? "SAVING" : "CURRENT");
+		account.setBalance(BigDecimal.valueOf(number, 2));
+		account.setCreationDate(new Date());
+		account.setActive(true);
+		return account;
+	}
+}
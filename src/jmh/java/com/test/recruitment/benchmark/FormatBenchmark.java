@@ -0,0 +1,81 @@
+package com.test.recruitment.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.test.recruitment.entity.Transaction;
+import com.test.recruitment.json.ResponseFormat;
+import com.test.recruitment.json.writer.TransactionJsonWriter;
+
+/**
+ * Serialization of a transaction page in each response format, as it is
+ * written by the list endpoints, plain or gzipped. The bytes on the wire of
+ * the page are printed by the setup of each format. A page holds
+ * {@value #PAGE_SIZE} rows.
+ *
+ * @author A525125
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Thread)
+public class FormatBenchmark {
+
+	private static final int PAGE_SIZE = 100;
+
+	@Param({ "JSON", "CBOR", "SMILE" })
+	public ResponseFormat format;
+
+	private ObjectWriter writer;
+
+	private Page<Transaction> page;
+
+	@Setup(Level.Trial)
+	public void setup(BenchmarkData data) throws Exception {
+		writer = Jackson2ObjectMapperBuilder.json()
+				.modulesToInstall(new SimpleModule()
+						.addSerializer(new TransactionJsonWriter())).build()
+				.writer();
+		page = data.transactionRepository.getTransactionsByAccount(
+				BenchmarkData.ACCOUNT_ID, new PageRequest(0, PAGE_SIZE));
+		System.out.printf("%n%s page of %d rows : %d bytes, %d bytes gzipped%n",
+				format, page.getNumberOfElements(), writePage().length,
+				writeGzippedPage().length);
+	}
+
+	@Benchmark
+	public byte[] writePage() throws Exception {
+		return format.write(writer, page);
+	}
+
+	@Benchmark
+	public byte[] writeGzippedPage() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(format.write(writer, page));
+		}
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,154 @@
+package com.test.recruitment.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.test.recruitment.dao.AccountRepository;
+import com.test.recruitment.dao.TransactionRepository;
+import com.test.recruitment.dao.impl.AccountRepositoryImpl;
+import com.test.recruitment.dao.impl.ColumnarTransactionRepository;
+import com.test.recruitment.dao.impl.TransactionRepositoryImpl;
+import com.test.recruitment.dao.journal.Journal;
+import com.test.recruitment.dao.journal.JournaledAccountRepository;
+import com.test.recruitment.dao.journal.JournaledTransactionRepository;
+import com.test.recruitment.entity.Account;
+import com.test.recruitment.entity.Transaction;
+
+/**
+ * Startup recovery benchmark : a snapshot holding 90% of the transactions
+ * followed by a journal holding the last 10%, spread over
+ * {@value #ACCOUNTS} accounts
+ *
+ * @author A525125
+ *
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class RecoveryBenchmark {
+
+	private static final int ACCOUNTS = 1_000;
+
+	private static final int BATCH = 10_000;
+
+	@Param({ "10000000" })
+	public int transactions;
+
+	@Param({ "object", "columnar" })
+	public String storage;
+
+	private Path directory;
+
+	private AccountRepositoryImpl accountRepository;
+
+	private TransactionRepository transactionRepository;
+
+	@Setup(Level.Trial)
+	public void write() throws Exception {
+		directory = Files.createTempDirectory("recovery");
+		Journal journal = open();
+		AccountRepository accounts = new JournaledAccountRepository(
+				accountRepository, journal);
+		TransactionRepository journaled = new JournaledTransactionRepository(
+				transactionRepository, journal);
+		for (int i = 0; i < ACCOUNTS; i++) {
+			Account account = new Account();
+			account.setId("A" + i);
+			account.setNumber(String.format("%011d", i));
+			account.setType("SAVING");
+			account.setBalance(BigDecimal.ZERO);
+			account.setActive(true);
+			accounts.save(account);
+		}
+		Random random = new Random(42);
+		int snapshotted = transactions / 10 * 9;
+		for (int i = 0; i < transactions; i += BATCH) {
+			if (i == snapshotted) {
+				journal.snapshot();
+			}
+			List<Transaction> batch = new ArrayList<>(BATCH);
+			for (int j = i; j < Math.min(i + BATCH, transactions); j++) {
+				Transaction transaction = new Transaction();
+				transaction.setAccountId("A" + random.nextInt(ACCOUNTS));
+				transaction.setNumber(String.valueOf(12151885120L + j));
+				transaction.setBalance(BigDecimal.valueOf(
+						random.nextInt(2_000_000) - 1_000_000, 2));
+				batch.add(transaction);
+			}
+			journaled.saveAll(batch);
+		}
+		journal.destroy();
+	}
+
+	/**
+	 * Empty repositories before each recovery
+	 */
+	@Setup(Level.Iteration)
+	public void clear() throws Exception {
+		accountRepository = null;
+		transactionRepository = null;
+		System.gc();
+	}
+
+	@Benchmark
+	public TransactionRepository recover() throws Exception {
+		open().destroy();
+		return transactionRepository;
+	}
+
+	@TearDown(Level.Trial)
+	public void delete() throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).map(Path::toFile)
+					.forEach(File::delete);
+		}
+	}
+
+	/**
+	 * Recover new repositories from the journal
+	 */
+	private Journal open() throws Exception {
+		accountRepository = new AccountRepositoryImpl();
+		accountRepository.afterPropertiesSet();
+		if ("columnar".equals(storage)) {
+			ColumnarTransactionRepository columnar = new ColumnarTransactionRepository();
+			columnar.afterPropertiesSet();
+			transactionRepository = columnar;
+		} else {
+			TransactionRepositoryImpl object = new TransactionRepositoryImpl();
+			object.afterPropertiesSet();
+			transactionRepository = object;
+		}
+		Journal journal = new Journal(true, directory.toString(), 0, false);
+		journal.attach(accountRepository);
+		journal.attach(transactionRepository);
+		journal.recover();
+		return journal;
+	}
+}
@@ -0,0 +1,102 @@
+package com.test.recruitment.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.test.recruitment.dao.impl.AccountRepositoryImpl;
+import com.test.recruitment.dao.impl.ColumnarTransactionRepository;
+import com.test.recruitment.entity.Account;
+import com.test.recruitment.entity.Transaction;
+import com.test.recruitment.json.AccountReportLine;
+import com.test.recruitment.service.ReportService;
+
+/**
+ * Cross-account report benchmark : totals by account type and status of the
+ * transactions stored in columns, spread over {@value #ACCOUNTS} accounts,
+ * computed by 1 to 8 threads
+ *
+ * @author A525125
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class ReportBenchmark {
+
+	private static final int ACCOUNTS = 10_000;
+
+	private static final int BATCH = 10_000;
+
+	private static final String[] TYPES = { "SAVING", "CURRENT", "JOINT" };
+
+	@Param({ "50000000" })
+	public int transactions;
+
+	@Param({ "1", "2", "4", "8" })
+	public int parallelism;
+
+	private ReportService reportService;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		AccountRepositoryImpl accountRepository = new AccountRepositoryImpl();
+		accountRepository.afterPropertiesSet();
+		ColumnarTransactionRepository transactionRepository = new ColumnarTransactionRepository();
+		transactionRepository.afterPropertiesSet();
+		Random random = new Random(19);
+		for (int i = 0; i < ACCOUNTS; i++) {
+			Account account = new Account();
+			account.setId("A" + i);
+			account.setNumber(String.format("%011d", i));
+			account.setType(TYPES[random.nextInt(TYPES.length)]);
+			account.setBalance(BigDecimal.valueOf(random.nextInt(2_000_000),
+					2));
+			account.setActive(random.nextBoolean());
+			accountRepository.save(account);
+		}
+		for (int i = 0; i < transactions; i += BATCH) {
+			List<Transaction> batch = new ArrayList<>(BATCH);
+			for (int j = i; j < Math.min(i + BATCH, transactions); j++) {
+				Transaction transaction = new Transaction();
+				transaction.setAccountId("A" + random.nextInt(ACCOUNTS));
+				transaction.setNumber(String.valueOf(12151885120L + j));
+				transaction.setBalance(BigDecimal.valueOf(
+						random.nextInt(2_000_000) - 1_000_000, 2));
+				batch.add(transaction);
+			}
+			transactionRepository.saveAll(batch);
+		}
+		reportService = new ReportService(accountRepository,
+				transactionRepository, parallelism);
+	}
+
+	@Benchmark
+	public List<AccountReportLine> accountReport() {
+		return reportService.getAccountReport();
+	}
+
+	@TearDown(Level.Trial)
+	public void shutdown() throws Exception {
+		reportService.destroy();
+	}
+}
@@ -0,0 +1,61 @@
+package com.test.recruitment.benchmark;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+
+import com.test.recruitment.entity.Account;
+import com.test.recruitment.entity.Transaction;
+
+/**
+ * In-memory repository benchmarks
+ *
+ * @author A525125
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Thread)
+public class RepositoryBenchmark {
+
+	private static final int PAGE_SIZE = 20;
+
+	private int next;
+
+	@Benchmark
+	public Optional<Account> findAccountById(BenchmarkData data) {
+		return data.accountRepository.findById(data.accountIds[next++
+				& (data.accountIds.length - 1)]);
+	}
+
+	@Benchmark
+	public Page<Transaction> getFirstTransactionPage(BenchmarkData data) {
+		return data.transactionRepository.getTransactionsByAccount(
+				BenchmarkData.ACCOUNT_ID, new PageRequest(0, PAGE_SIZE));
+	}
+
+	@Benchmark
+	public Page<Transaction> getLastTransactionPageByBalance(
+			BenchmarkData data) {
+		return data.transactionRepository.getTransactionsByAccount(
+				BenchmarkData.ACCOUNT_ID, new PageRequest(
+						(data.transactionsPerAccount - 1) / PAGE_SIZE,
+						PAGE_SIZE, new Sort(Direction.DESC, "balance")));
+	}
+}
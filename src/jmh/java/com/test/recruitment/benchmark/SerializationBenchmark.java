@@ -0,0 +1,101 @@
+package com.test.recruitment.benchmark;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.test.recruitment.entity.Transaction;
+import com.test.recruitment.json.TransactionResponse;
+import com.test.recruitment.json.writer.FieldSet;
+import com.test.recruitment.json.writer.TransactionJsonWriter;
+
+/**
+ * Jackson serialization of a transaction page, with the object mapper
+ * configuration used by Spring MVC : through response objects or written
+ * straight from the entities, with all their fields or a sparse fieldset. A
+ * page holds {@value #PAGE_SIZE} rows, divide the allocation rate of the gc
+ * profiler by it for the cost of a row.
+ *
+ * @author A525125
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+	private static final int PAGE_SIZE = 20;
+
+	private ObjectMapper objectMapper;
+
+	/**
+	 * Writes the id and balance of the transactions
+	 */
+	private ObjectWriter projected;
+
+	private Page<Transaction> entities;
+
+	private Page<TransactionResponse> page;
+
+	@Setup(Level.Trial)
+	public void setup(BenchmarkData data) {
+		objectMapper = Jackson2ObjectMapperBuilder.json()
+				.modulesToInstall(new SimpleModule()
+						.addSerializer(new TransactionJsonWriter())).build();
+		projected = new FieldSet(new TreeSet<>(Arrays.asList("id",
+				"balance")), objectMapper.writer()).getWriter();
+		entities = data.transactionRepository.getTransactionsByAccount(
+				BenchmarkData.ACCOUNT_ID, new PageRequest(0, PAGE_SIZE));
+		page = entities.map(SerializationBenchmark::map);
+	}
+
+	@Benchmark
+	public byte[] serializeTransactionPage() throws Exception {
+		return objectMapper.writeValueAsBytes(page);
+	}
+
+	@Benchmark
+	public byte[] mapAndSerializeTransactionPage() throws Exception {
+		return objectMapper.writeValueAsBytes(entities
+				.map(SerializationBenchmark::map));
+	}
+
+	@Benchmark
+	public byte[] writeTransactionPage() throws Exception {
+		return objectMapper.writeValueAsBytes(entities);
+	}
+
+	@Benchmark
+	public byte[] writeProjectedTransactionPage() throws Exception {
+		return projected.writeValueAsBytes(entities);
+	}
+
+	private static TransactionResponse map(Transaction transaction) {
+		TransactionResponse response = new TransactionResponse();
+		response.setId(transaction.getId());
+		response.setNumber(transaction.getNumber());
+		response.setBalance(transaction.getBalance());
+		return response;
+	}
+}
@@ -0,0 +1,73 @@
+package com.test.recruitment.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.test.recruitment.entity.Transaction;
+
+/**
+ * Cost of a write against the number of transactions of the account, all
+ * its orders being sorted. Run with <code>-prof gc</code> to see the
+ * allocation per write.
+ *
+ * @author A525125
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Thread)
+public class WriteBenchmark {
+
+	private String[] ids;
+
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup(BenchmarkData data) {
+		data.transactionRepository.buildIndexes(BenchmarkData.ACCOUNT_ID);
+		ids = data.transactionRepository
+				.streamTransactionsByAccount(BenchmarkData.ACCOUNT_ID)
+				.limit(1024).map(Transaction::getId).toArray(String[]::new);
+	}
+
+	/**
+	 * Insert a transaction, then delete it : the account keeps its size
+	 */
+	@Benchmark
+	public void insertAndDeleteTransaction(BenchmarkData data) {
+		Transaction transaction = transaction(null, next++);
+		data.transactionRepository.save(transaction);
+		data.transactionRepository.delete(transaction.getId());
+	}
+
+	@Benchmark
+	public Transaction updateTransaction(BenchmarkData data) {
+		return data.transactionRepository.save(transaction(ids[next++
+				% ids.length], next));
+	}
+
+	private static Transaction transaction(String id, int balance) {
+		Transaction transaction = new Transaction();
+		transaction.setId(id);
+		transaction.setAccountId(BenchmarkData.ACCOUNT_ID);
+		transaction.setNumber(String.valueOf(12151885120L + balance));
+		transaction.setBalance(BigDecimal.valueOf(balance % 2_000_000
+				- 1_000_000, 2));
+		return transaction;
+	}
+}
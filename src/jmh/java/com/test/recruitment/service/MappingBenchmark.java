@@ -0,0 +1,76 @@
+package com.test.recruitment.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import com.test.recruitment.benchmark.BenchmarkData;
+import com.test.recruitment.entity.Account;
+import com.test.recruitment.entity.Transaction;
+import com.test.recruitment.json.AccountDetailsResponse;
+import com.test.recruitment.json.TransactionResponse;
+import com.test.recruitment.metrics.LatencyTimers;
+
+/**
+ * Entity to json representation mapping benchmarks
+ *
+ * @author A525125
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Thread)
+public class MappingBenchmark {
+
+	private AccountService accountService;
+
+	private TransactionService transactionService;
+
+	private Account account;
+
+	private Page<Transaction> page;
+
+	@Setup(Level.Trial)
+	public void setup(BenchmarkData data) {
+		accountService = new AccountService(data.accountRepository,
+				new AccountDetailsCache(10_000, 60_000, System::nanoTime),
+				new AccountVersions(), new LatencyTimers());
+		transactionService = new TransactionService(accountService,
+				data.transactionRepository, new AccountLocks(),
+				new TransactionFeed());
+		account = data.accountRepository.findById(BenchmarkData.ACCOUNT_ID)
+				.get();
+		page = data.transactionRepository.getTransactionsByAccount(
+				BenchmarkData.ACCOUNT_ID, new PageRequest(0, 20));
+	}
+
+	@Benchmark
+	public AccountDetailsResponse mapToAccountDetailsResponse() {
+		return accountService.mapToAccountDetailsResponse(account);
+	}
+
+	@Benchmark
+	public AccountDetailsResponse cachedAccountDetails() {
+		return accountService.getAccountDetails(BenchmarkData.ACCOUNT_ID);
+	}
+
+	@Benchmark
+	public Page<TransactionResponse> mapTransactionPage() {
+		return page.map(transactionService::map);
+	}
+}
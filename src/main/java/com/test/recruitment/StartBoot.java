@@ -1,21 +1,38 @@
 package com.test.recruitment;
 
+import java.util.Arrays;
+
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+import com.test.recruitment.service.TransactionImportRunner;
 
 /**
- * Application entry point
+ * Application entry point. With <code>--recruitment.import.file</code>, the
+ * application imports the file without starting the web server, then exits.
+ * <p>
+ * The data source is only created by the <code>hsqldb</code> profile.
  * 
  * @author A525125
  *
  */
-@SpringBootApplication
+@SpringBootApplication(exclude = DataSourceAutoConfiguration.class)
 @Slf4j
 public class StartBoot {
 
 	public static void main(String[] args) {
+		if (Arrays.stream(args).anyMatch(
+				arg -> arg.startsWith("--"
+						+ TransactionImportRunner.FILE_PROPERTY + "="))) {
+			log.info("Start import ...");
+			new SpringApplicationBuilder(StartBoot.class).web(false)
+					.run(args).close();
+			return;
+		}
 		log.info("Start application ...");
 		SpringApplication.run(StartBoot.class, args);
 	}
@@ -0,0 +1,43 @@
+package com.test.recruitment.config;
+
+import java.util.Arrays;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+import com.test.recruitment.service.AdmissionControl;
+
+/**
+ * Sheds the requests under overload when
+ * <code>recruitment.admission.enabled</code> is set (see
+ * {@link AdmissionControl})
+ *
+ * @author A525125
+ *
+ */
+@Configuration
+@ConditionalOnProperty("recruitment.admission.enabled")
+public class AdmissionConfiguration extends WebMvcConfigurerAdapter {
+
+	private AdmissionControl admissionControl;
+
+	private String[] trustedProxies;
+
+	@Autowired
+	public AdmissionConfiguration(
+			AdmissionControl admissionControl,
+			@Value("${recruitment.admission.trusted-proxies:}") String[] trustedProxies) {
+		this.admissionControl = admissionControl;
+		this.trustedProxies = trustedProxies;
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new AdmissionInterceptor(admissionControl,
+				Arrays.asList(trustedProxies)));
+	}
+}
@@ -0,0 +1,162 @@
+package com.test.recruitment.config;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import com.test.recruitment.controller.Admission;
+import com.test.recruitment.controller.AdmissionClass;
+import com.test.recruitment.exception.OverloadedException;
+import com.test.recruitment.service.AdmissionControl;
+import com.test.recruitment.service.TokenBucket;
+
+/**
+ * Admits the controller requests through the {@link AdmissionControl} before
+ * any work is done, so that a shed request costs almost nothing. The class of
+ * an endpoint is read from the {@link Admission} annotation of its method.
+ * The client is identified by its address, or by the {@value #CLIENT_HEADER}
+ * header when the request comes from a trusted proxy : any other client
+ * could change the header on each request to escape its rate. A shed request
+ * fails with an {@link OverloadedException}.
+ *
+ * @author A525125
+ *
+ */
+public class AdmissionInterceptor extends HandlerInterceptorAdapter {
+
+	/**
+	 * Header identifying the client, set by a trusted proxy
+	 */
+	public static final String CLIENT_HEADER = "X-Client-Id";
+
+	private static final String ADMITTED_ATTRIBUTE = AdmissionInterceptor.class
+			.getName() + ".admitted";
+
+	/**
+	 * Class and bucket of an endpoint
+	 */
+	private static final class Endpoint {
+
+		private final AdmissionClass admissionClass;
+
+		private final TokenBucket bucket;
+
+		private Endpoint(AdmissionClass admissionClass, TokenBucket bucket) {
+			this.admissionClass = admissionClass;
+			this.bucket = bucket;
+		}
+	}
+
+	private final AdmissionControl admissionControl;
+
+	private final Set<String> trustedProxies;
+
+	private final Map<Method, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+	/**
+	 * @param admissionControl
+	 *            the admission control
+	 * @param trustedProxies
+	 *            the addresses of the proxies allowed to set the
+	 *            {@value #CLIENT_HEADER} header
+	 */
+	public AdmissionInterceptor(AdmissionControl admissionControl,
+			Collection<String> trustedProxies) {
+		this.admissionControl = admissionControl;
+		this.trustedProxies = new HashSet<>(trustedProxies);
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request,
+			HttpServletResponse response, Object handler) throws Exception {
+		// Called again on the asynchronous dispatch : admitted once
+		if (!(handler instanceof HandlerMethod)
+				|| null != request.getAttribute(ADMITTED_ATTRIBUTE)) {
+			return true;
+		}
+		Endpoint endpoint = endpoint((HandlerMethod) handler);
+		admissionControl.acquire(endpoint.admissionClass, endpoint.bucket,
+				client(request));
+		request.setAttribute(ADMITTED_ATTRIBUTE, Boolean.TRUE);
+		return true;
+	}
+
+	/**
+	 * An event stream is only in progress while it is set up : once started,
+	 * it stays open without any work for the server
+	 */
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request,
+			HttpServletResponse response, Object handler) throws Exception {
+		if (handler instanceof HandlerMethod
+				&& ResponseBodyEmitter.class
+						.isAssignableFrom(((HandlerMethod) handler).getMethod()
+								.getReturnType())
+				&& Boolean.TRUE.equals(request.getAttribute(ADMITTED_ATTRIBUTE))) {
+			// Still set : not admitted again on the asynchronous dispatch
+			request.setAttribute(ADMITTED_ATTRIBUTE, Boolean.FALSE);
+			admissionControl.release();
+		}
+	}
+
+	/**
+	 * Called once, at the end of the request or of its asynchronous dispatch
+	 */
+	@Override
+	public void afterCompletion(HttpServletRequest request,
+			HttpServletResponse response, Object handler, Exception ex)
+			throws Exception {
+		Object admitted = request.getAttribute(ADMITTED_ATTRIBUTE);
+		if (null != admitted) {
+			request.removeAttribute(ADMITTED_ATTRIBUTE);
+			if (Boolean.TRUE.equals(admitted)) {
+				admissionControl.release();
+			}
+		}
+	}
+
+	private Endpoint endpoint(HandlerMethod handler) {
+		Endpoint endpoint = endpoints.get(handler.getMethod());
+		if (null == endpoint) {
+			endpoint = endpoints.computeIfAbsent(handler.getMethod(),
+					method -> {
+						Admission admission = handler
+								.getMethodAnnotation(Admission.class);
+						AdmissionClass admissionClass = null == admission
+								? AdmissionClass.NORMAL : admission.value();
+						return new Endpoint(admissionClass, admissionControl
+								.createEndpointBucket(admissionClass));
+					});
+		}
+		return endpoint;
+	}
+
+	/**
+	 * Identify the client of a request
+	 *
+	 * @param request
+	 *            the request
+	 * @return the {@value #CLIENT_HEADER} header if the request comes from a
+	 *         trusted proxy, else the address of the client
+	 */
+	public String client(HttpServletRequest request) {
+		String address = request.getRemoteAddr();
+		if (null != address && trustedProxies.contains(address)) {
+			String client = request.getHeader(CLIENT_HEADER);
+			if (null != client && !client.isEmpty()) {
+				return client;
+			}
+		}
+		return null == address ? "" : address;
+	}
+}
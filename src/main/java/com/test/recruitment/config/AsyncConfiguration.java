@@ -0,0 +1,51 @@
+package com.test.recruitment.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import com.test.recruitment.service.RequestExecutor;
+
+/**
+ * Registers the {@link CompletableFutureReturnValueHandler} before the
+ * default handlers, which would otherwise always process futures
+ * asynchronously. Not loaded without web server, e.g. for a command line
+ * import.
+ *
+ * @author A525125
+ *
+ */
+@Configuration
+@ConditionalOnWebApplication
+public class AsyncConfiguration implements InitializingBean {
+
+	private RequestMappingHandlerAdapter handlerAdapter;
+
+	private RequestExecutor requestExecutor;
+
+	@Autowired
+	public AsyncConfiguration(
+			@Qualifier("requestMappingHandlerAdapter") RequestMappingHandlerAdapter handlerAdapter,
+			RequestExecutor requestExecutor) {
+		this.handlerAdapter = handlerAdapter;
+		this.requestExecutor = requestExecutor;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		List<HandlerMethodReturnValueHandler> defaults = new ArrayList<>(
+				handlerAdapter.getReturnValueHandlers());
+		List<HandlerMethodReturnValueHandler> handlers = new ArrayList<>();
+		handlers.add(new CompletableFutureReturnValueHandler(defaults,
+				requestExecutor.getTimeout()));
+		handlers.addAll(defaults);
+		handlerAdapter.setReturnValueHandlers(handlers);
+	}
+}
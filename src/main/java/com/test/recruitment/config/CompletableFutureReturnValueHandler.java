@@ -0,0 +1,151 @@
+package com.test.recruitment.config;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.method.support.AsyncHandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import com.test.recruitment.exception.ServiceException;
+import com.test.recruitment.json.ErrorCode;
+import com.test.recruitment.service.RequestExecutor;
+
+/**
+ * Handles the {@link CompletableFuture} returned by the controllers. A
+ * future which is already completed is handled synchronously, as its value
+ * would be, without any async dispatch ; any other future is waited for
+ * asynchronously, with a timeout.
+ * <p>
+ * On timeout, a task still queued is cancelled and answered with a 503,
+ * which the client can safely retry. A write already running cannot be
+ * stopped and will be applied : it is answered with a 202, its outcome
+ * being unknown, so that a retry does not apply it twice.
+ *
+ * @author A525125
+ *
+ */
+public class CompletableFutureReturnValueHandler implements
+		AsyncHandlerMethodReturnValueHandler {
+
+	/**
+	 * Return type of a method, seen as the value type of its future
+	 */
+	private static final class ValueReturnType extends MethodParameter {
+
+		private final ResolvableType type;
+
+		private ValueReturnType(MethodParameter returnType) {
+			super(returnType);
+			type = ResolvableType.forMethodParameter(returnType).getGeneric(0);
+		}
+
+		@Override
+		public Class<?> getParameterType() {
+			return type.resolve(Object.class);
+		}
+
+		@Override
+		public Type getGenericParameterType() {
+			return type.getType();
+		}
+	}
+
+	/**
+	 * The handlers of synchronous values
+	 */
+	private final List<HandlerMethodReturnValueHandler> delegates;
+
+	/**
+	 * Timeout of an asynchronous request in milliseconds
+	 */
+	private final long timeout;
+
+	/**
+	 * @param delegates
+	 *            the handlers of synchronous values
+	 * @param timeout
+	 *            the timeout of an asynchronous request in milliseconds
+	 */
+	public CompletableFutureReturnValueHandler(
+			List<HandlerMethodReturnValueHandler> delegates, long timeout) {
+		this.delegates = delegates;
+		this.timeout = timeout;
+	}
+
+	@Override
+	public boolean supportsReturnType(MethodParameter returnType) {
+		return CompletableFuture.class.isAssignableFrom(returnType
+				.getParameterType());
+	}
+
+	/**
+	 * Futures are async values, which only async handlers are asked to
+	 * handle
+	 */
+	@Override
+	public boolean isAsyncReturnValue(Object returnValue,
+			MethodParameter returnType) {
+		return returnValue instanceof CompletableFuture;
+	}
+
+	@Override
+	public void handleReturnValue(Object returnValue,
+			MethodParameter returnType, ModelAndViewContainer mavContainer,
+			NativeWebRequest webRequest) throws Exception {
+		CompletableFuture<?> future = (CompletableFuture<?>) returnValue;
+		if (null == future) {
+			mavContainer.setRequestHandled(true);
+			return;
+		}
+		if (future.isDone() && !future.isCompletedExceptionally()) {
+			MethodParameter valueType = new ValueReturnType(returnType);
+			for (HandlerMethodReturnValueHandler delegate : delegates) {
+				if (delegate.supportsReturnType(valueType)) {
+					delegate.handleReturnValue(future.join(), valueType,
+							mavContainer, webRequest);
+					return;
+				}
+			}
+			throw new IllegalStateException("No handler for "
+					+ valueType.getGenericParameterType());
+		}
+		HttpMethod method = HttpMethod.resolve(webRequest.getNativeRequest(
+				HttpServletRequest.class).getMethod());
+		boolean write = HttpMethod.GET != method && HttpMethod.HEAD != method;
+		DeferredResult<Object> result = new DeferredResult<>(timeout);
+		result.onTimeout(() -> {
+			ServiceException e = new ServiceException(
+					ErrorCode.SERVICE_UNAVAILABLE_TIMEOUT, "Request timed out");
+			// Skip the task if it is still queued
+			boolean cancelled = future instanceof RequestExecutor.Task
+					? ((RequestExecutor.Task<?>) future).cancelQueued(e)
+					: future.completeExceptionally(e);
+			if (!cancelled && write) {
+				e = new ServiceException(ErrorCode.ACCEPTED_IN_PROGRESS,
+						"The request is still in progress");
+			}
+			result.setErrorResult(e);
+		});
+		future.whenComplete((value, e) -> {
+			if (null == e) {
+				result.setResult(value);
+			} else {
+				result.setErrorResult(e instanceof CompletionException
+						&& null != e.getCause() ? e.getCause() : e);
+			}
+		});
+		WebAsyncUtils.getAsyncManager(webRequest).startDeferredResultProcessing(
+				result, mavContainer);
+	}
+}
@@ -0,0 +1,43 @@
+package com.test.recruitment.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.embedded.ConfigurableEmbeddedServletContainer;
+import org.springframework.boot.context.embedded.EmbeddedServletContainerCustomizer;
+import org.springframework.boot.context.embedded.tomcat.TomcatEmbeddedServletContainerFactory;
+import org.springframework.context.annotation.Configuration;
+
+import com.test.recruitment.service.TransactionFeed;
+
+/**
+ * The subscribers of the {@link TransactionFeed} each hold a connection
+ * open : raises the maximum number of connections of Tomcat, 10000 by
+ * default, above the expected subscribers. Not loaded without web server,
+ * e.g. for a command line import.
+ *
+ * @author A525125
+ *
+ */
+@Configuration
+@ConditionalOnWebApplication
+public class FeedConfiguration implements EmbeddedServletContainerCustomizer {
+
+	private int maxConnections;
+
+	@Autowired
+	public FeedConfiguration(
+			@Value("${recruitment.feed.max-connections:20000}") int maxConnections) {
+		this.maxConnections = maxConnections;
+	}
+
+	@Override
+	public void customize(ConfigurableEmbeddedServletContainer container) {
+		if (container instanceof TomcatEmbeddedServletContainerFactory) {
+			((TomcatEmbeddedServletContainerFactory) container)
+					.addConnectorCustomizers(connector -> connector
+							.setProperty("maxConnections",
+									String.valueOf(maxConnections)));
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package com.test.recruitment.config;
+
+import org.apache.tomcat.jdbc.pool.DataSource;
+import org.apache.tomcat.jdbc.pool.PoolProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import com.test.recruitment.dao.impl.JdbcAccountRepository;
+import com.test.recruitment.dao.impl.JdbcTransactionRepository;
+
+/**
+ * Connection pool of the <code>hsqldb</code> profile, which stores the
+ * accounts and transactions in a HSQLDB database (see
+ * {@link JdbcAccountRepository} and {@link JdbcTransactionRepository})
+ *
+ * @author A525125
+ *
+ */
+@Configuration
+@Profile("hsqldb")
+public class HsqldbConfiguration {
+
+	/**
+	 * Get the pool. All its connections are opened on startup and kept, so
+	 * that a request never waits for a new connection, and each connection
+	 * caches its prepared statements.
+	 *
+	 * @param url
+	 *            the database url
+	 * @param poolSize
+	 *            the number of connections
+	 * @param statementCacheSize
+	 *            the number of prepared statements cached by each
+	 *            connection
+	 * @param maxWait
+	 *            the maximum wait for a connection in milliseconds
+	 * @return the pool
+	 */
+	@Bean(destroyMethod = "close")
+	public DataSource dataSource(
+			@Value("${recruitment.hsqldb.url:jdbc:hsqldb:file:data/hsqldb/recruitment;hsqldb.tx=mvcc;hsqldb.default_table_type=cached;shutdown=true}") String url,
+			@Value("${recruitment.hsqldb.pool-size:16}") int poolSize,
+			@Value("${recruitment.hsqldb.statement-cache-size:64}") int statementCacheSize,
+			@Value("${recruitment.hsqldb.max-wait:5000}") int maxWait) {
+		PoolProperties properties = new PoolProperties();
+		properties.setDriverClassName("org.hsqldb.jdbc.JDBCDriver");
+		properties.setUrl(url);
+		properties.setUsername("SA");
+		properties.setPassword("");
+		properties.setInitialSize(poolSize);
+		properties.setMinIdle(poolSize);
+		properties.setMaxIdle(poolSize);
+		properties.setMaxActive(poolSize);
+		properties.setMaxWait(maxWait);
+		// Idle connections are checked in background, not on each borrow
+		properties.setTestOnBorrow(false);
+		properties.setTestWhileIdle(true);
+		properties.setValidationQuery("VALUES 1");
+		properties.setValidationInterval(30_000);
+		properties.setJdbcInterceptors("StatementCache(prepared=true,callable=false,max="
+				+ statementCacheSize + ")");
+		properties.setJmxEnabled(false);
+		return new DataSource(properties);
+	}
+}
@@ -0,0 +1,81 @@
+package com.test.recruitment.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.test.recruitment.json.ResponseFormat;
+import com.test.recruitment.metrics.LatencyInterceptor;
+import com.test.recruitment.metrics.LatencyTimers;
+import com.test.recruitment.metrics.RepositoryLatencyPostProcessor;
+import com.test.recruitment.metrics.TimedBinaryHttpMessageConverter;
+import com.test.recruitment.metrics.TimedJsonHttpMessageConverter;
+
+/**
+ * Records the latency of the controllers, the repositories and the json,
+ * CBOR and Smile serialization (see {@link LatencyTimers})
+ *
+ * @author A525125
+ *
+ */
+@Configuration
+public class LatencyConfiguration extends WebMvcConfigurerAdapter {
+
+	private LatencyTimers latencyTimers;
+
+	@Autowired
+	public LatencyConfiguration(LatencyTimers latencyTimers) {
+		this.latencyTimers = latencyTimers;
+	}
+
+	/**
+	 * Static, as a post processor is created before the other beans
+	 */
+	@Bean
+	public static RepositoryLatencyPostProcessor repositoryLatencyPostProcessor(
+			LatencyTimers latencyTimers) {
+		return new RepositoryLatencyPostProcessor(latencyTimers);
+	}
+
+	/**
+	 * Replaces the json converter of Spring Boot
+	 */
+	@Bean
+	public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(
+			ObjectMapper objectMapper) {
+		return new TimedJsonHttpMessageConverter(objectMapper, latencyTimers);
+	}
+
+	/**
+	 * CBOR and Smile responses, written like the json ones. They follow the
+	 * json converter : json stays the format of the requests accepting any
+	 * type and of the errors.
+	 */
+	@Override
+	public void extendMessageConverters(
+			List<HttpMessageConverter<?>> converters) {
+		for (int i = 0; i < converters.size(); i++) {
+			if (converters.get(i) instanceof TimedJsonHttpMessageConverter) {
+				ObjectMapper objectMapper = ((TimedJsonHttpMessageConverter)
+						converters.get(i)).getObjectMapper();
+				converters.add(i + 1, new TimedBinaryHttpMessageConverter(
+						objectMapper, ResponseFormat.SMILE, latencyTimers));
+				converters.add(i + 1, new TimedBinaryHttpMessageConverter(
+						objectMapper, ResponseFormat.CBOR, latencyTimers));
+				return;
+			}
+		}
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new LatencyInterceptor(latencyTimers));
+	}
+}
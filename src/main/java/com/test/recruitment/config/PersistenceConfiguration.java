@@ -0,0 +1,27 @@
+package com.test.recruitment.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.test.recruitment.dao.journal.Journal;
+import com.test.recruitment.dao.journal.JournalPostProcessor;
+
+/**
+ * Loads the repository data on startup, and makes the repositories durable
+ * when <code>recruitment.persistence.enabled</code> is set (see
+ * {@link Journal})
+ *
+ * @author A525125
+ *
+ */
+@Configuration
+public class PersistenceConfiguration {
+
+	/**
+	 * Static, as a post processor is created before the other beans
+	 */
+	@Bean
+	public static JournalPostProcessor journalPostProcessor(Journal journal) {
+		return new JournalPostProcessor(journal);
+	}
+}
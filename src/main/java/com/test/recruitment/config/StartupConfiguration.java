@@ -0,0 +1,26 @@
+package com.test.recruitment.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.test.recruitment.metrics.BeanCreationTimer;
+import com.test.recruitment.metrics.StartupReport;
+
+/**
+ * Reports the startup time by phase (see {@link StartupReport})
+ *
+ * @author A525125
+ *
+ */
+@Configuration
+public class StartupConfiguration {
+
+	/**
+	 * Static, as a post processor is created before the other beans
+	 */
+	@Bean
+	public static BeanCreationTimer beanCreationTimer(
+			StartupReport startupReport) {
+		return new BeanCreationTimer(startupReport);
+	}
+}
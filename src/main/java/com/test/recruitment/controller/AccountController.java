@@ -1,46 +1,127 @@
 package com.test.recruitment.controller;
 
-import org.springframework.data.domain.Page;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 
+import com.test.recruitment.json.AccountDetailsBatchItem;
 import com.test.recruitment.json.AccountDetailsResponse;
 import com.test.recruitment.json.AccountResponse;
+import com.test.recruitment.json.AccountSummaryResponse;
+import com.test.recruitment.json.AccountTransactionsResponse;
+import com.test.recruitment.json.ResponseFormat;
 
 /**
- * Account controller
+ * Account controller. The GET requests take a <code>fields</code> parameter
+ * selecting the properties of the accounts and transactions to write.
  * 
  * @author A525125
  *
  */
-@RequestMapping(value = "/accounts", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequestMapping(value = "/accounts", produces = {
+		MediaType.APPLICATION_JSON_VALUE, ResponseFormat.CBOR_VALUE,
+		ResponseFormat.SMILE_VALUE })
 public interface AccountController {
 
 	/**
-	 * Get account list
+	 * Get account list, gzipped if the client accepts it
 	 * 
 	 * @param p
 	 *            the pageable information
-	 * @return the account list
+	 * @param fields
+	 *            the fields to write, comma separated, all by default
+	 * @param request
+	 *            the request, for the Accept-Encoding header
+	 * @return the account list, encoded as a page of {@link AccountResponse}
 	 */
+	@Admission(AdmissionClass.BULK)
 	@RequestMapping(value = "", method = RequestMethod.GET)
-	ResponseEntity<Page<AccountResponse>> getAccounts(
-			@PageableDefault Pageable p);
+	CompletableFuture<ResponseEntity<byte[]>> getAccounts(
+			@PageableDefault Pageable p,
+			@RequestParam(value = "fields", required = false) String fields,
+			WebRequest request);
 
 	/**
-	 * Get account details
+	 * Get account details, or 304 if they match the If-None-Match header
 	 * 
 	 * @param accountId
 	 *            the account id
+	 * @param fields
+	 *            the fields to write, comma separated, all by default
+	 * @param request
+	 *            the request, for the conditional headers
 	 * @return the account details
 	 */
+	@Admission(AdmissionClass.CRITICAL)
 	@RequestMapping(value = "/{accountId}", method = RequestMethod.GET)
-	ResponseEntity<AccountDetailsResponse> getAccountDetails(
-			@PathVariable("accountId") String accountId);
+	CompletableFuture<ResponseEntity<AccountDetailsResponse>> getAccountDetails(
+			@PathVariable("accountId") String accountId,
+			@RequestParam(value = "fields", required = false) String fields,
+			WebRequest request);
+
+	/**
+	 * Get account details with the first page of their transactions, or 304
+	 * if they match the If-None-Match header
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @param expand
+	 *            the embedded resource, only transactions
+	 * @param p
+	 *            the pageable information of the transactions
+	 * @param fields
+	 *            the fields to write, comma separated, all by default
+	 * @param request
+	 *            the request, for the conditional headers
+	 * @return the account details and transactions
+	 */
+	@Admission(AdmissionClass.BULK)
+	@RequestMapping(value = "/{accountId}", method = RequestMethod.GET, params = "expand")
+	CompletableFuture<ResponseEntity<AccountTransactionsResponse>> getAccountDetails(
+			@PathVariable("accountId") String accountId,
+			@RequestParam("expand") String expand,
+			@PageableDefault Pageable p,
+			@RequestParam(value = "fields", required = false) String fields,
+			WebRequest request);
+
+	/**
+	 * Get the transaction count, sum, min and max balance of an account, or
+	 * 304 if they match the If-None-Match header
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @param fields
+	 *            the fields to write, comma separated, all by default
+	 * @param request
+	 *            the request, for the conditional headers
+	 * @return the transaction aggregates
+	 */
+	@Admission(AdmissionClass.CRITICAL)
+	@RequestMapping(value = "/{accountId}/summary", method = RequestMethod.GET)
+	CompletableFuture<ResponseEntity<AccountSummaryResponse>> getAccountSummary(
+			@PathVariable("accountId") String accountId,
+			@RequestParam(value = "fields", required = false) String fields,
+			WebRequest request);
+
+	/**
+	 * Get the details of several accounts in one call
+	 * 
+	 * @param accountIds
+	 *            the account ids
+	 * @return the details or the error of each account, in request order
+	 */
+	@RequestMapping(value = "/batch", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE)
+	CompletableFuture<ResponseEntity<List<AccountDetailsBatchItem>>> getAccountDetails(
+			@RequestBody List<String> accountIds);
 
 }
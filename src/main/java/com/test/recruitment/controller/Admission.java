@@ -0,0 +1,22 @@
+package com.test.recruitment.controller;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Admission class of an endpoint, {@link AdmissionClass#NORMAL} when absent
+ * 
+ * @author A525125
+ *
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Admission {
+
+	AdmissionClass value();
+
+}
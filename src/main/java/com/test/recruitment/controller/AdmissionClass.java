@@ -0,0 +1,25 @@
+package com.test.recruitment.controller;
+
+/**
+ * Priority of the requests of an endpoint under overload
+ * 
+ * @author A525125
+ *
+ */
+public enum AdmissionClass {
+
+	/**
+	 * Cheap lookups, never shed
+	 */
+	CRITICAL,
+
+	/**
+	 * Writes and other calls, shed once the server is saturated
+	 */
+	NORMAL,
+
+	/**
+	 * Lists, exports, imports and reports, shed first
+	 */
+	BULK;
+}
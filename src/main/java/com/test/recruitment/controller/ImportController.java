@@ -0,0 +1,55 @@
+package com.test.recruitment.controller;
+
+import java.io.InputStream;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import com.test.recruitment.json.ImportResponse;
+import com.test.recruitment.json.ResponseFormat;
+
+/**
+ * Bulk import controller
+ * 
+ * @author A525125
+ *
+ */
+@RequestMapping(value = "/imports", produces = {
+		MediaType.APPLICATION_JSON_VALUE, ResponseFormat.CBOR_VALUE,
+		ResponseFormat.SMILE_VALUE })
+public interface ImportController {
+
+	/**
+	 * Csv media type
+	 */
+	String CSV_VALUE = "text/csv";
+
+	/**
+	 * Import transactions from a json array or newline delimited json, read
+	 * while it is received
+	 * 
+	 * @param body
+	 *            the objects holding the accountId, number and balance of
+	 *            each transaction
+	 * @return the import report
+	 */
+	@Admission(AdmissionClass.BULK)
+	@RequestMapping(value = "/transactions", method = RequestMethod.POST, consumes = {
+			MediaType.APPLICATION_JSON_VALUE, TransactionController.NDJSON_VALUE })
+	ResponseEntity<ImportResponse> importTransactions(InputStream body);
+
+	/**
+	 * Import transactions from csv, read while it is received
+	 * 
+	 * @param body
+	 *            the lines holding the accountId, number and balance of each
+	 *            transaction, after an optional header line
+	 * @return the import report
+	 */
+	@Admission(AdmissionClass.BULK)
+	@RequestMapping(value = "/transactions", method = RequestMethod.POST, consumes = CSV_VALUE)
+	ResponseEntity<ImportResponse> importTransactionsCsv(InputStream body);
+
+}
@@ -0,0 +1,35 @@
+package com.test.recruitment.controller;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import com.test.recruitment.json.AccountReportLine;
+import com.test.recruitment.json.ResponseFormat;
+
+/**
+ * Report controller
+ * 
+ * @author A525125
+ *
+ */
+@RequestMapping(value = "/reports", produces = {
+		MediaType.APPLICATION_JSON_VALUE, ResponseFormat.CBOR_VALUE,
+		ResponseFormat.SMILE_VALUE })
+public interface ReportController {
+
+	/**
+	 * Get the totals of the account balances and of the transactions by
+	 * account type and status
+	 * 
+	 * @return the totals, by type then inactive before active
+	 */
+	@Admission(AdmissionClass.BULK)
+	@RequestMapping(value = "/accounts", method = RequestMethod.GET)
+	CompletableFuture<ResponseEntity<List<AccountReportLine>>> getAccountReport();
+
+}
@@ -1,36 +1,173 @@
 package com.test.recruitment.controller;
 
-import org.springframework.data.domain.Page;
+import java.util.concurrent.CompletableFuture;
+
+import javax.validation.Valid;
+
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.test.recruitment.entity.Transaction;
+import com.test.recruitment.json.CursorPageResponse;
+import com.test.recruitment.json.ResponseFormat;
+import com.test.recruitment.json.TransactionEvent;
+import com.test.recruitment.json.TransactionRequest;
 import com.test.recruitment.json.TransactionResponse;
 
 /**
- * Transaction controller
+ * Transaction controller. The GET requests take a <code>fields</code>
+ * parameter selecting the properties of the transactions to write.
  * 
  * @author A525125
  *
  */
-@RequestMapping(value = "/accounts/{accountId}/transactions", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequestMapping(value = "/accounts/{accountId}/transactions", produces = {
+		MediaType.APPLICATION_JSON_VALUE, ResponseFormat.CBOR_VALUE,
+		ResponseFormat.SMILE_VALUE })
 public interface TransactionController {
 
 	/**
-	 * Get transaction list by account
+	 * Newline delimited json media type
+	 */
+	String NDJSON_VALUE = "application/x-ndjson";
+
+	/**
+	 * Server-sent events media type
+	 */
+	String EVENT_STREAM_VALUE = "text/event-stream";
+
+	/**
+	 * Get transaction list by account, or 304 if it matches the
+	 * If-None-Match header. The first page is gzipped if the client accepts
+	 * it.
 	 * 
 	 * @param accountId
 	 *            the account id
 	 * @param p
 	 *            the pageable information
-	 * @return the transaction list
+	 * @param fields
+	 *            the fields to write, comma separated, all by default
+	 * @param request
+	 *            the request, for the conditional and Accept-Encoding headers
+	 * @return the transaction list, encoded as a page of
+	 *         {@link TransactionResponse}
 	 */
+	@Admission(AdmissionClass.BULK)
 	@RequestMapping(value = "", method = RequestMethod.GET)
-	ResponseEntity<Page<TransactionResponse>> getTransactionsByAccount(
+	CompletableFuture<ResponseEntity<byte[]>> getTransactionsByAccount(
+			@PathVariable("accountId") String accountId,
+			@PageableDefault Pageable p,
+			@RequestParam(value = "fields", required = false) String fields,
+			WebRequest request);
+
+	/**
+	 * Get transaction list by account with keyset pagination
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @param cursor
+	 *            the next cursor of the previous page, empty for the first
+	 *            page
+	 * @param p
+	 *            the pageable information
+	 * @param fields
+	 *            the fields to write, comma separated, all by default
+	 * @param request
+	 *            the request, for the conditional headers
+	 * @return the transaction list, written as {@link TransactionResponse},
+	 *         and the cursor of the next page
+	 */
+	@Admission(AdmissionClass.BULK)
+	@RequestMapping(value = "", method = RequestMethod.GET, params = "cursor")
+	CompletableFuture<ResponseEntity<CursorPageResponse<Transaction>>> getTransactionsByAccount(
+			@PathVariable("accountId") String accountId,
+			@RequestParam("cursor") String cursor, @PageableDefault Pageable p,
+			@RequestParam(value = "fields", required = false) String fields,
+			WebRequest request);
+
+	/**
+	 * Export all the transactions of an account as newline delimited json,
+	 * streamed to the client while they are read
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @param fields
+	 *            the fields to write, comma separated, all by default
+	 * @return the transaction stream
+	 */
+	@Admission(AdmissionClass.BULK)
+	@RequestMapping(value = "/export", method = RequestMethod.GET, produces = TransactionController.NDJSON_VALUE)
+	ResponseEntity<StreamingResponseBody> exportTransactionsByAccount(
+			@PathVariable("accountId") String accountId,
+			@RequestParam(value = "fields", required = false) String fields);
+
+	/**
+	 * Subscribe to the changes of the transactions of an account : each
+	 * created, updated or deleted transaction is pushed as a server-sent
+	 * event named after its {@link TransactionEvent.Type}. A subscriber too
+	 * slow to read the events gets a <code>lag</code> event in place of the
+	 * missed ones, and is disconnected if it keeps falling behind.
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @return the event stream, open until the client leaves or the timeout
+	 */
+	@RequestMapping(value = "/events", method = RequestMethod.GET, produces = TransactionController.EVENT_STREAM_VALUE)
+	SseEmitter subscribeTransactionsByAccount(
+			@PathVariable("accountId") String accountId);
+
+	/**
+	 * Add a transaction on an account
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @param request
+	 *            the transaction to add
+	 * @return the created transaction
+	 */
+	@RequestMapping(value = "", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE)
+	CompletableFuture<ResponseEntity<TransactionResponse>> addTransaction(
+			@PathVariable("accountId") String accountId,
+			@Valid @RequestBody TransactionRequest request);
+
+	/**
+	 * Update a transaction of an account
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @param transactionId
+	 *            the transaction id
+	 * @param request
+	 *            the new values of the transaction
+	 * @return no content
+	 */
+	@RequestMapping(value = "/{transactionId}", method = RequestMethod.PUT, consumes = MediaType.APPLICATION_JSON_VALUE)
+	CompletableFuture<ResponseEntity<Void>> updateTransaction(
+			@PathVariable("accountId") String accountId,
+			@PathVariable("transactionId") String transactionId,
+			@Valid @RequestBody TransactionRequest request);
+
+	/**
+	 * Delete a transaction of an account
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @param transactionId
+	 *            the transaction id
+	 * @return no content
+	 */
+	@RequestMapping(value = "/{transactionId}", method = RequestMethod.DELETE)
+	CompletableFuture<ResponseEntity<Void>> deleteTransaction(
 			@PathVariable("accountId") String accountId,
-			@PageableDefault Pageable p);
+			@PathVariable("transactionId") String transactionId);
 }
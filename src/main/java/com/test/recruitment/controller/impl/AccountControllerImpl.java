@@ -1,20 +1,39 @@
 package com.test.recruitment.controller.impl;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.test.recruitment.controller.AccountController;
+import com.test.recruitment.entity.Account;
+import com.test.recruitment.exception.ServiceException;
+import com.test.recruitment.json.AccountDetailsBatchItem;
 import com.test.recruitment.json.AccountDetailsResponse;
-import com.test.recruitment.json.AccountResponse;
+import com.test.recruitment.json.AccountSummaryResponse;
+import com.test.recruitment.json.AccountTransactionsResponse;
+import com.test.recruitment.json.ErrorCode;
+import com.test.recruitment.json.ResponseFormat;
+import com.test.recruitment.json.writer.FieldSet;
 import com.test.recruitment.service.AccountService;
+import com.test.recruitment.service.EncodedResponse;
+import com.test.recruitment.service.Projections;
+import com.test.recruitment.service.RequestExecutor;
+import com.test.recruitment.service.ResponseCache;
+import com.test.recruitment.service.TransactionService;
 
 /**
  * Implementation of {@link AccountController}
@@ -26,29 +45,122 @@ import com.test.recruitment.service.AccountService;
 @RestController
 public class AccountControllerImpl implements AccountController {
 
+	/**
+	 * Value of the expand parameter embedding the transactions
+	 */
+	private static final String EXPAND_TRANSACTIONS = "transactions";
+
 	private AccountService accountService;
 
+	private TransactionService transactionService;
+
+	private RequestExecutor requestExecutor;
+
+	private ResponseCache responseCache;
+
+	private Projections projections;
+
 	@Autowired
-	public AccountControllerImpl(AccountService accountService) {
+	public AccountControllerImpl(AccountService accountService,
+			TransactionService transactionService,
+			RequestExecutor requestExecutor, ResponseCache responseCache,
+			Projections projections) {
 		this.accountService = accountService;
+		this.transactionService = transactionService;
+		this.requestExecutor = requestExecutor;
+		this.responseCache = responseCache;
+		this.projections = projections;
+	}
+
+	@Override
+	public CompletableFuture<ResponseEntity<byte[]>> getAccounts(
+			@PageableDefault Pageable p,
+			@RequestParam(value = "fields", required = false) String fields,
+			WebRequest request) {
+		FieldSet fieldSet = projections.get(fields);
+		ResponseFormat format = EncodedResponse.negotiate(request);
+		String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+		return requestExecutor.submit(() -> {
+			// Read before the accounts
+			long version = accountService.getAccountsVersion();
+			EncodedResponse response = responseCache.get(
+					ResponseCache.key("accounts", p, fieldSet, format),
+					version, () -> {
+						Page<Account> page = accountService.getAccounts(p);
+						return page.getTotalElements() == 0 ? null : page;
+					}, projections.writer(fieldSet), format);
+			if (null == response) {
+				log.debug("Cannot find account");
+				return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
+			}
+			return response.toResponseEntity(acceptEncoding);
+		});
+	}
+
+	@Override
+	public CompletableFuture<ResponseEntity<AccountDetailsResponse>> getAccountDetails(
+			@PathVariable("accountId") String accountId,
+			@RequestParam(value = "fields", required = false) String fields,
+			WebRequest request) {
+		projections.select(fields, request);
+		if (request.checkNotModified(accountService.getAccountETag(accountId,
+				EncodedResponse.negotiate(request)))) {
+			// 304 and ETag already set on the response
+			return null;
+		}
+		return requestExecutor.submit(() -> ResponseEntity.ok().body(
+				accountService.getAccountDetails(accountId)));
+	}
+
+	@Override
+	public CompletableFuture<ResponseEntity<AccountTransactionsResponse>> getAccountDetails(
+			@PathVariable("accountId") String accountId,
+			@RequestParam("expand") String expand,
+			@PageableDefault Pageable p,
+			@RequestParam(value = "fields", required = false) String fields,
+			WebRequest request) {
+		if (!EXPAND_TRANSACTIONS.equals(expand)) {
+			throw new ServiceException(ErrorCode.BAD_REQUEST_EXPAND,
+					"Cannot expand " + expand);
+		}
+		projections.select(fields, request);
+		ResponseFormat format = EncodedResponse.negotiate(request);
+		// Only a revalidation checks the account before reading it
+		if (null != request.getHeader(HttpHeaders.IF_NONE_MATCH)
+				&& request.checkNotModified(accountService.getAccountETag(
+						accountId, format))) {
+			// 304 and ETag already set on the response
+			return null;
+		}
+		return requestExecutor.submit(() -> {
+			// Read before the account and transactions
+			String etag = accountService.getUncheckedAccountETag(accountId,
+					format);
+			return ResponseEntity.ok().eTag(etag).body(
+					transactionService.getAccountWithTransactions(accountId, p));
+		});
 	}
 
 	@Override
-	public ResponseEntity<Page<AccountResponse>> getAccounts(
-			@PageableDefault Pageable p) {
-		Page<AccountResponse> page = accountService.getAccounts(p);
-		if (null == page || page.getTotalElements() == 0) {
-			log.debug("Cannot find account");
-			return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
+	public CompletableFuture<ResponseEntity<AccountSummaryResponse>> getAccountSummary(
+			@PathVariable("accountId") String accountId,
+			@RequestParam(value = "fields", required = false) String fields,
+			WebRequest request) {
+		projections.select(fields, request);
+		if (request.checkNotModified(transactionService.getETag(accountId,
+				EncodedResponse.negotiate(request)))) {
+			// 304 and ETag already set on the response
+			return null;
 		}
-		return ResponseEntity.ok().body(page);
+		return requestExecutor.submit(() -> ResponseEntity.ok().body(
+				transactionService.getSummary(accountId)));
 	}
 
 	@Override
-	public ResponseEntity<AccountDetailsResponse> getAccountDetails(
-			@PathVariable("accountId") String accountId) {
-		return ResponseEntity.ok().body(
-				accountService.getAccountDetails(accountId));
+	public CompletableFuture<ResponseEntity<List<AccountDetailsBatchItem>>> getAccountDetails(
+			@RequestBody List<String> accountIds) {
+		return requestExecutor.submit(() -> ResponseEntity.ok().body(
+				accountService.getAccountDetails(accountIds)));
 	}
 
 }
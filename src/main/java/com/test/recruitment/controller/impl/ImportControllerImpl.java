@@ -0,0 +1,41 @@
+package com.test.recruitment.controller.impl;
+
+import java.io.InputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.test.recruitment.controller.ImportController;
+import com.test.recruitment.json.ImportResponse;
+import com.test.recruitment.service.TransactionImporter;
+
+/**
+ * Implementation of {@link ImportController}. An import runs on the
+ * container thread, which reads the request body.
+ * 
+ * @author A525125
+ *
+ */
+@RestController
+public class ImportControllerImpl implements ImportController {
+
+	private TransactionImporter transactionImporter;
+
+	@Autowired
+	public ImportControllerImpl(TransactionImporter transactionImporter) {
+		this.transactionImporter = transactionImporter;
+	}
+
+	@Override
+	public ResponseEntity<ImportResponse> importTransactions(InputStream body) {
+		return ResponseEntity.ok().body(transactionImporter.importJson(body));
+	}
+
+	@Override
+	public ResponseEntity<ImportResponse> importTransactionsCsv(
+			InputStream body) {
+		return ResponseEntity.ok().body(transactionImporter.importCsv(body));
+	}
+
+}
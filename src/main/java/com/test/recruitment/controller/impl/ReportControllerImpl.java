@@ -0,0 +1,43 @@
+package com.test.recruitment.controller.impl;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.test.recruitment.controller.ReportController;
+import com.test.recruitment.json.AccountReportLine;
+import com.test.recruitment.service.ReportService;
+import com.test.recruitment.service.RequestExecutor;
+
+/**
+ * Implementation of {@link ReportController}
+ * 
+ * @author A525125
+ *
+ */
+@RestController
+public class ReportControllerImpl implements ReportController {
+
+	private ReportService reportService;
+
+	private RequestExecutor requestExecutor;
+
+	@Autowired
+	public ReportControllerImpl(ReportService reportService,
+			RequestExecutor requestExecutor) {
+		this.reportService = reportService;
+		this.requestExecutor = requestExecutor;
+	}
+
+	@Override
+	public CompletableFuture<ResponseEntity<List<AccountReportLine>>> getAccountReport() {
+		return requestExecutor.submit(() -> ResponseEntity.ok()
+				.varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+				.body(reportService.getAccountReport()));
+	}
+
+}
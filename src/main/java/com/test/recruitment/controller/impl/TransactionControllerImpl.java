@@ -1,16 +1,51 @@
 package com.test.recruitment.controller.impl;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import javax.validation.Valid;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.test.recruitment.controller.TransactionController;
+import com.test.recruitment.entity.Transaction;
+import com.test.recruitment.json.CursorPageResponse;
+import com.test.recruitment.json.ResponseFormat;
+import com.test.recruitment.json.TransactionRequest;
 import com.test.recruitment.json.TransactionResponse;
+import com.test.recruitment.json.writer.FieldSet;
+import com.test.recruitment.service.EncodedResponse;
+import com.test.recruitment.service.Projections;
+import com.test.recruitment.service.RequestExecutor;
+import com.test.recruitment.service.ResponseCache;
+import com.test.recruitment.service.TransactionFeed;
 import com.test.recruitment.service.TransactionService;
 
 import lombok.extern.slf4j.Slf4j;
@@ -25,23 +60,223 @@ import lombok.extern.slf4j.Slf4j;
 @RestController
 public class TransactionControllerImpl implements TransactionController {
 
+	/**
+	 * The data of the events is already json : it is written as text
+	 */
+	private static final MediaType EVENT_DATA = new MediaType("text",
+			"plain", StandardCharsets.UTF_8);
+
 	private TransactionService transactionService;
 
+	private RequestExecutor requestExecutor;
+
+	private ResponseCache responseCache;
+
+	private Projections projections;
+
+	private ObjectWriter transactionWriter;
+
+	/**
+	 * Number of exported transactions sent to the client at once
+	 */
+	private int exportChunkSize;
+
+	/**
+	 * Maximum duration of a subscription in milliseconds
+	 */
+	private long feedTimeout;
+
 	@Autowired
-	public TransactionControllerImpl(TransactionService transactionService) {
+	public TransactionControllerImpl(TransactionService transactionService,
+			RequestExecutor requestExecutor, ResponseCache responseCache,
+			Projections projections, ObjectMapper objectMapper,
+			@Value("${recruitment.export.chunk-size:1000}") int exportChunkSize,
+			@Value("${recruitment.feed.timeout:1800000}") long feedTimeout) {
 		this.transactionService = transactionService;
+		this.requestExecutor = requestExecutor;
+		this.responseCache = responseCache;
+		this.projections = projections;
+		// Flushed by chunk, not after each transaction
+		this.transactionWriter = objectMapper.writerFor(Transaction.class)
+				.without(
+						SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		this.exportChunkSize = exportChunkSize;
+		this.feedTimeout = feedTimeout;
+	}
+
+	@Override
+	public CompletableFuture<ResponseEntity<byte[]>> getTransactionsByAccount(
+			@PathVariable("accountId") String accountId,
+			@PageableDefault Pageable p,
+			@RequestParam(value = "fields", required = false) String fields,
+			WebRequest request) {
+		FieldSet fieldSet = projections.get(fields);
+		ResponseFormat format = EncodedResponse.negotiate(request);
+		String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+		String etag = transactionService.getETag(accountId, format);
+		// Only checked if held : the tag of a new response is set with its body
+		String held = EncodedResponse.getHeldETag(etag,
+				request.getHeader(HttpHeaders.IF_NONE_MATCH), acceptEncoding);
+		if (null != held && request.checkNotModified(held)) {
+			// 304 and ETag already set on the response
+			return null;
+		}
+		return requestExecutor.submit(() -> {
+			// Read before the transactions
+			long version = transactionService.getVersion(accountId);
+			Supplier<Page<Transaction>> loader = () -> {
+				Page<Transaction> page = transactionService
+						.getTransactionsByAccount(accountId, p);
+				return page.getTotalElements() == 0 ? null : page;
+			};
+			// Only the first page is frequent enough to be cached
+			ObjectWriter writer = projections.writer(fieldSet);
+			EncodedResponse response = 0 == p.getPageNumber() ? responseCache
+					.get(ResponseCache.key("transactions/" + accountId, p,
+							fieldSet, format), version, loader, writer, format)
+					: responseCache.encode(loader.get(), writer, format);
+			if (null == response) {
+				log.debug("Cannot find transaction for account {}", accountId);
+				return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
+			}
+			return response.toResponseEntity(acceptEncoding, etag);
+		});
+	}
+
+	@Override
+	public CompletableFuture<ResponseEntity<CursorPageResponse<Transaction>>> getTransactionsByAccount(
+			@PathVariable("accountId") String accountId,
+			@RequestParam("cursor") String cursor, @PageableDefault Pageable p,
+			@RequestParam(value = "fields", required = false) String fields,
+			WebRequest request) {
+		projections.select(fields, request);
+		if (request.checkNotModified(transactionService.getETag(accountId,
+				EncodedResponse.negotiate(request)))) {
+			// 304 and ETag already set on the response
+			return null;
+		}
+		return requestExecutor.submit(() -> {
+			CursorPageResponse<Transaction> page = transactionService
+					.getTransactionsByAccount(accountId, cursor, p);
+			if (page.getContent().isEmpty()) {
+				log.debug("Cannot find transaction for account {}", accountId);
+				return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
+			}
+			return ResponseEntity.ok().body(page);
+		});
 	}
 
 	@Override
-	public ResponseEntity<Page<TransactionResponse>> getTransactionsByAccount(
+	public ResponseEntity<StreamingResponseBody> exportTransactionsByAccount(
 			@PathVariable("accountId") String accountId,
-			@PageableDefault Pageable p) {
-		Page<TransactionResponse> page = transactionService
-				.getTransactionsByAccount(accountId, p);
-		if (null == page || page.getTotalElements() == 0) {
-			log.debug("Cannot find transaction for account {}", accountId);
-			return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
+			@RequestParam(value = "fields", required = false) String fields) {
+		FieldSet fieldSet = projections.get(fields);
+		ObjectWriter writer = null == fieldSet ? transactionWriter
+				: transactionWriter.withAttribute(FieldSet.ATTRIBUTE, fieldSet);
+		Stream<Transaction> transactions = transactionService
+				.streamTransactionsByAccount(accountId);
+		return ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType(NDJSON_VALUE))
+				.body(out -> writeNdjson(accountId, transactions, writer, out));
+	}
+
+	@Override
+	public SseEmitter subscribeTransactionsByAccount(
+			@PathVariable("accountId") String accountId) {
+		SseEmitter emitter = new SseEmitter(feedTimeout);
+		TransactionFeed.Subscription subscription = transactionService
+				.subscribe(accountId, new TransactionFeed.Sink() {
+
+					@Override
+					public void send(String id, String name, String data)
+							throws IOException {
+						SseEventBuilder event = SseEmitter.event().name(name)
+								.data(data, EVENT_DATA);
+						emitter.send(null == id ? event : event.id(id));
+					}
+
+					@Override
+					public void close() {
+						emitter.complete();
+					}
+				});
+		emitter.onCompletion(subscription::close);
+		emitter.onTimeout(subscription::close);
+		log.debug("Subscribed to the transactions of account {}", accountId);
+		return emitter;
+	}
+
+	/**
+	 * Write transactions as newline delimited json, flushing every chunk
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @param transactions
+	 *            the transactions
+	 * @param writer
+	 *            the writer of a transaction
+	 * @param out
+	 *            the response stream
+	 */
+	private void writeNdjson(String accountId,
+			Stream<Transaction> transactions, ObjectWriter writer,
+			OutputStream out) {
+		try (JsonGenerator generator = writer.getFactory()
+				.createGenerator(out)) {
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			Iterator<Transaction> iterator = transactions.iterator();
+			int count = 0;
+			while (iterator.hasNext()) {
+				writer.writeValue(generator, iterator.next());
+				generator.writeRaw('\n');
+				if (++count % exportChunkSize == 0) {
+					generator.flush();
+				}
+			}
+			log.debug("Exported {} transactions for account {}", count,
+					accountId);
+		} catch (IOException e) {
+			// The stream is lazy : nothing more is read from the repository
+			log.debug("Export of account {} interrupted : {}", accountId,
+					e.getMessage());
 		}
-		return ResponseEntity.ok().body(page);
+	}
+
+	@Override
+	public CompletableFuture<ResponseEntity<TransactionResponse>> addTransaction(
+			@PathVariable("accountId") String accountId,
+			@Valid @RequestBody TransactionRequest request) {
+		// Built on the container thread, which holds the current request
+		UriComponentsBuilder location = ServletUriComponentsBuilder
+				.fromCurrentRequest().path("/{transactionId}");
+		return requestExecutor.submit(() -> {
+			TransactionResponse transaction = transactionService
+					.addTransaction(accountId, request);
+			return ResponseEntity.created(
+					location.buildAndExpand(transaction.getId()).toUri())
+					.body(transaction);
+		});
+	}
+
+	@Override
+	public CompletableFuture<ResponseEntity<Void>> updateTransaction(
+			@PathVariable("accountId") String accountId,
+			@PathVariable("transactionId") String transactionId,
+			@Valid @RequestBody TransactionRequest request) {
+		return requestExecutor.submit(() -> {
+			transactionService.updateTransaction(accountId, transactionId,
+					request);
+			return ResponseEntity.noContent().build();
+		});
+	}
+
+	@Override
+	public CompletableFuture<ResponseEntity<Void>> deleteTransaction(
+			@PathVariable("accountId") String accountId,
+			@PathVariable("transactionId") String transactionId) {
+		return requestExecutor.submit(() -> {
+			transactionService.deleteTransaction(accountId, transactionId);
+			return ResponseEntity.noContent().build();
+		});
 	}
 }
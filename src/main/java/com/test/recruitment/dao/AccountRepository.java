@@ -1,5 +1,7 @@
 package com.test.recruitment.dao;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
@@ -19,8 +21,9 @@ public interface AccountRepository {
 	 * Get account by user
 	 * 
 	 * @param p
-	 *            the pageable information
-	 * @return the account list
+	 *            the pageable information, null for all the accounts. The
+	 *            in-memory repository always returns all the accounts.
+	 * @return the account list, in creation order
 	 */
 	Page<Account> findAll(Pageable p);
 
@@ -33,6 +36,15 @@ public interface AccountRepository {
 	 */
 	Optional<Account> findById(String accountId);
 
+	/**
+	 * Get accounts in a single pass
+	 * 
+	 * @param accountIds
+	 *            the account ids
+	 * @return the existing accounts by id
+	 */
+	Map<String, Account> findAllById(Collection<String> accountIds);
+
 	/**
 	 * Check if an account exists
 	 * 
@@ -41,4 +53,13 @@ public interface AccountRepository {
 	 * @return true if the account exists
 	 */
 	boolean exists(String accountId);
+
+	/**
+	 * Save an account, replacing any account with the same id
+	 * 
+	 * @param account
+	 *            the account to save
+	 * @return the saved account
+	 */
+	Account save(Account account);
 }
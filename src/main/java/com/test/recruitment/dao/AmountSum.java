@@ -0,0 +1,106 @@
+package com.test.recruitment.dao;
+
+import java.math.BigDecimal;
+
+/**
+ * Exact sum of amounts, accumulated in a long of hundredths : the usual
+ * amounts, with up to 2 decimals, are added without any allocation. Amounts
+ * with more decimals, and the part of the sum beyond the range of a long,
+ * are accumulated in a {@link BigDecimal}.
+ * <p>
+ * Not thread-safe : each thread accumulates its own sum, and the sums are
+ * merged with {@link #add(AmountSum)}.
+ *
+ * @author A525125
+ *
+ */
+public final class AmountSum {
+
+	private static final int SCALE = 2;
+
+	private static final long[] FACTORS = { 100, 10, 1 };
+
+	/**
+	 * Bound of the amounts converted through a double : below it, the
+	 * rounding errors of the conversion stay under half a hundredth
+	 */
+	private static final double MAX_EXACT_DOUBLE = 1e13;
+
+	/**
+	 * Bound of the unscaled values converted to hundredths without overflow
+	 */
+	private static final long MAX_EXACT_LONG = Long.MAX_VALUE / 100;
+
+	private long hundredths;
+
+	/**
+	 * Part of the sum which does not fit in {@link #hundredths}
+	 */
+	private BigDecimal remainder = BigDecimal.ZERO;
+
+	/**
+	 * Add an amount
+	 *
+	 * @param amount
+	 *            the amount
+	 */
+	public void add(BigDecimal amount) {
+		int scale = amount.scale();
+		if (scale >= 0 && scale <= SCALE) {
+			// Computed from the compact unscaled value, no allocation
+			double value = amount.doubleValue();
+			if (Math.abs(value) < MAX_EXACT_DOUBLE) {
+				addHundredths(Math.round(value * FACTORS[0]));
+				return;
+			}
+		}
+		remainder = remainder.add(amount);
+	}
+
+	/**
+	 * Add an amount given as an unscaled value and a scale
+	 *
+	 * @param unscaled
+	 *            the unscaled value
+	 * @param scale
+	 *            the scale
+	 */
+	public void add(long unscaled, int scale) {
+		if (scale >= 0 && scale <= SCALE && unscaled > -MAX_EXACT_LONG
+				&& unscaled < MAX_EXACT_LONG) {
+			addHundredths(unscaled * FACTORS[scale]);
+		} else {
+			remainder = remainder.add(BigDecimal.valueOf(unscaled, scale));
+		}
+	}
+
+	/**
+	 * Add another sum
+	 *
+	 * @param other
+	 *            the sum to add
+	 */
+	public void add(AmountSum other) {
+		addHundredths(other.hundredths);
+		if (0 != other.remainder.signum()) {
+			remainder = remainder.add(other.remainder);
+		}
+	}
+
+	/**
+	 * @return the sum, with at least 2 decimals
+	 */
+	public BigDecimal get() {
+		return BigDecimal.valueOf(hundredths, SCALE).add(remainder);
+	}
+
+	private void addHundredths(long value) {
+		long result = hundredths + value;
+		if (((hundredths ^ result) & (value ^ result)) < 0) {
+			// Overflow
+			remainder = remainder.add(BigDecimal.valueOf(value, SCALE));
+		} else {
+			hundredths = result;
+		}
+	}
+}
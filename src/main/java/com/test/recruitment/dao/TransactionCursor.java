@@ -0,0 +1,164 @@
+package com.test.recruitment.dao;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Base64;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import org.springframework.data.domain.Sort.Direction;
+
+import com.test.recruitment.entity.Transaction;
+
+/**
+ * Position in a sorted transaction list, used for keyset pagination : a
+ * page starts right after the last sort key of the previous page, whatever
+ * its depth and the transactions inserted meanwhile.
+ *
+ * @author A525125
+ *
+ */
+@Data
+@AllArgsConstructor
+public class TransactionCursor {
+
+	private final TransactionSortField field;
+
+	private final Direction direction;
+
+	/**
+	 * Sort key of the last transaction of the previous page, null for the
+	 * first page
+	 */
+	private final String key;
+
+	/**
+	 * Id of the last transaction of the previous page, null for the first
+	 * page
+	 */
+	private final String id;
+
+	/**
+	 * Get the cursor of the first page
+	 *
+	 * @param field
+	 *            the sort field
+	 * @param direction
+	 *            the sort direction
+	 * @return the cursor
+	 */
+	public static TransactionCursor first(TransactionSortField field,
+			Direction direction) {
+		return new TransactionCursor(field, direction, null, null);
+	}
+
+	/**
+	 * Get the cursor of the page following a transaction
+	 *
+	 * @param transaction
+	 *            the last transaction of the page
+	 * @return the cursor
+	 */
+	public TransactionCursor after(Transaction transaction) {
+		return new TransactionCursor(field, direction, key(transaction),
+				transaction.getId());
+	}
+
+	/**
+	 * @return true if this cursor starts the list
+	 */
+	public boolean isFirst() {
+		return null == id;
+	}
+
+	/**
+	 * Get a transaction holding the sort key of this cursor, which can be
+	 * compared with the field comparator
+	 *
+	 * @return the transaction
+	 */
+	public Transaction toProbe() {
+		Transaction probe = new Transaction();
+		probe.setId(id);
+		switch (field) {
+		case NUMBER:
+			probe.setNumber(key);
+			break;
+		case BALANCE:
+			probe.setBalance(new BigDecimal(key));
+			break;
+		default:
+			break;
+		}
+		return probe;
+	}
+
+	/**
+	 * Encode this cursor as an opaque url-safe token
+	 *
+	 * @return the token
+	 */
+	public String encode() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeUTF(field.getProperty());
+			out.writeBoolean(Direction.ASC == direction);
+			out.writeBoolean(isFirst());
+			if (!isFirst()) {
+				out.writeUTF(key);
+				out.writeUTF(id);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(bytes.toByteArray());
+	}
+
+	/**
+	 * Decode a token built by {@link #encode()}
+	 *
+	 * @param token
+	 *            the token
+	 * @return the cursor
+	 * @throws IllegalArgumentException
+	 *             if the token is not valid
+	 */
+	public static TransactionCursor decode(String token) {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+				Base64.getUrlDecoder().decode(token)))) {
+			TransactionSortField field = TransactionSortField.of(in.readUTF());
+			Direction direction = in.readBoolean() ? Direction.ASC
+					: Direction.DESC;
+			if (null == field) {
+				throw new IllegalArgumentException("Invalid cursor " + token);
+			}
+			if (in.readBoolean()) {
+				return first(field, direction);
+			}
+			TransactionCursor cursor = new TransactionCursor(field, direction,
+					in.readUTF(), in.readUTF());
+			// Fail now on keys which cannot be compared
+			cursor.toProbe();
+			return cursor;
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Invalid cursor " + token, e);
+		}
+	}
+
+	private String key(Transaction transaction) {
+		switch (field) {
+		case NUMBER:
+			return transaction.getNumber();
+		case BALANCE:
+			return transaction.getBalance().toString();
+		default:
+			return transaction.getId();
+		}
+	}
+}
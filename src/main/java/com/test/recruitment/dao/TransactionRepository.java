@@ -1,7 +1,11 @@
 package com.test.recruitment.dao;
 
+import java.util.Collection;
+import java.util.stream.Stream;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import com.test.recruitment.entity.Transaction;
 
@@ -24,13 +28,103 @@ public interface TransactionRepository {
 	Transaction findById(String id);
 
 	/**
-	 * Get transactions by account
+	 * Get transactions by account. The page is sorted on the first order of
+	 * the pageable sort, which must be a {@link TransactionSortField}, or in
+	 * insertion order when there is no sort.
 	 * 
 	 * @param accountId
 	 *            the account id
 	 * @param p
-	 *            the pageable information
-	 * @return
+	 *            the pageable information, or null for all the transactions
+	 * @return the page of transactions
 	 */
 	Page<Transaction> getTransactionsByAccount(String accountId, Pageable p);
+
+	/**
+	 * Get the transactions of an account following a cursor (keyset
+	 * pagination)
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @param cursor
+	 *            the position after which the slice starts
+	 * @param size
+	 *            the maximum number of transactions
+	 * @return the slice of transactions
+	 */
+	Slice<Transaction> getTransactionsByAccount(String accountId,
+			TransactionCursor cursor, int size);
+
+	/**
+	 * Stream all the transactions of an account, in insertion order, without
+	 * copying them
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @return the transactions
+	 */
+	Stream<Transaction> streamTransactionsByAccount(String accountId);
+
+	/**
+	 * Get the aggregates of the transactions of an account, maintained on
+	 * every write so that the call does not depend on the number of
+	 * transactions
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @return the aggregates, {@link TransactionSummary#EMPTY} without
+	 *         transactions
+	 */
+	TransactionSummary getSummary(String accountId);
+
+	/**
+	 * Add the transactions of an account to totals, without building
+	 * {@link Transaction} instances when the storage allows it. Reads the
+	 * transactions of the account as of the call.
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @param totals
+	 *            the totals to add to
+	 */
+	void addTotals(String accountId, TransactionTotals totals);
+
+	/**
+	 * Build the indexes of an account ahead of their first use, for
+	 * instance after a bulk load. Optional : the indexes are built on demand
+	 * otherwise.
+	 * 
+	 * @param accountId
+	 *            the account id
+	 */
+	void buildIndexes(String accountId);
+
+	/**
+	 * Save a transaction, replacing any transaction with the same id. A new
+	 * id is generated if the transaction has none. The saved instance is
+	 * owned by the repository and must not be modified afterwards.
+	 * 
+	 * @param transaction
+	 *            the transaction to save
+	 * @return the saved transaction
+	 */
+	Transaction save(Transaction transaction);
+
+	/**
+	 * Save transactions in bulk. Same as {@link #save(Transaction)} for each
+	 * transaction, but the index of an account is rebuilt once for the whole
+	 * batch instead of once per transaction.
+	 * 
+	 * @param transactions
+	 *            the transactions to save
+	 */
+	void saveAll(Collection<Transaction> transactions);
+
+	/**
+	 * Delete a transaction
+	 * 
+	 * @param id
+	 *            id of the transaction to delete
+	 */
+	void delete(String id);
 }
@@ -0,0 +1,70 @@
+package com.test.recruitment.dao;
+
+import java.util.Comparator;
+
+import lombok.Getter;
+
+import com.test.recruitment.entity.Transaction;
+
+/**
+ * Transaction properties on which a transaction list can be sorted. Each
+ * ordering is made total by breaking ties on the transaction id.
+ * <p>
+ * Ids are compared by length, then as strings (see {@link #ID_ORDER}) : the
+ * numeric ids are in numeric order ("2" sorts before "10"). Cursors hold
+ * this order, so it must stay the same in every repository.
+ *
+ * @author A525125
+ *
+ */
+public enum TransactionSortField {
+
+	ID("id", Comparator.comparing(Transaction::getId, Order.IDS)),
+	NUMBER("number", Comparator.comparing(Transaction::getNumber)
+			.thenComparing(Transaction::getId, Order.IDS)),
+	BALANCE("balance", Comparator.comparing(Transaction::getBalance)
+			.thenComparing(Transaction::getId, Order.IDS));
+
+	/**
+	 * Order of the ids : by length, then as strings
+	 */
+	public static final Comparator<String> ID_ORDER = Order.IDS;
+
+	/**
+	 * Holds the id order, which the constants cannot refer to as a static
+	 * field of their enum
+	 */
+	private static final class Order {
+
+		private static final Comparator<String> IDS = Comparator.comparingInt(
+				String::length).thenComparing(Comparator.naturalOrder());
+	}
+
+	@Getter
+	private final String property;
+
+	@Getter
+	private final Comparator<Transaction> comparator;
+
+	private TransactionSortField(String property,
+			Comparator<Transaction> comparator) {
+		this.property = property;
+		this.comparator = comparator;
+	}
+
+	/**
+	 * Get the sort field of a property
+	 *
+	 * @param property
+	 *            the property name
+	 * @return the sort field or null if the property is not sortable
+	 */
+	public static TransactionSortField of(String property) {
+		for (TransactionSortField field : values()) {
+			if (field.property.equals(property)) {
+				return field;
+			}
+		}
+		return null;
+	}
+}
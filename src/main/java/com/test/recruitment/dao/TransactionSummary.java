@@ -0,0 +1,41 @@
+package com.test.recruitment.dao;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Aggregates of the transactions of an account, maintained by the
+ * repository as the transactions are written
+ *
+ * @author A525125
+ *
+ */
+@Data
+@AllArgsConstructor
+public class TransactionSummary {
+
+	/**
+	 * Summary of an account without transactions
+	 */
+	public static final TransactionSummary EMPTY = new TransactionSummary(0,
+			BigDecimal.ZERO, null, null);
+
+	private final int count;
+
+	/**
+	 * Sum of the transaction balances
+	 */
+	private final BigDecimal sum;
+
+	/**
+	 * Lowest transaction balance, null without transactions
+	 */
+	private final BigDecimal min;
+
+	/**
+	 * Highest transaction balance, null without transactions
+	 */
+	private final BigDecimal max;
+}
@@ -0,0 +1,97 @@
+package com.test.recruitment.dao;
+
+import java.math.BigDecimal;
+
+/**
+ * Totals of a set of transactions : count, sum of the credits and sum of the
+ * debits, accumulated in primitive sums. Filled by
+ * {@link TransactionRepository#addTotals(String, TransactionTotals)}.
+ * <p>
+ * Not thread-safe : each thread accumulates its own totals, and the totals
+ * are merged with {@link #add(TransactionTotals)}.
+ *
+ * @author A525125
+ *
+ */
+public final class TransactionTotals {
+
+	private long count;
+
+	private final AmountSum credits = new AmountSum();
+
+	private final AmountSum debits = new AmountSum();
+
+	/**
+	 * Add a transaction
+	 *
+	 * @param balance
+	 *            the transaction balance
+	 */
+	public void add(BigDecimal balance) {
+		count++;
+		(balance.signum() < 0 ? debits : credits).add(balance);
+	}
+
+	/**
+	 * Add a transaction whose balance is given as an unscaled value and a
+	 * scale
+	 *
+	 * @param unscaled
+	 *            the unscaled balance
+	 * @param scale
+	 *            the scale of the balance
+	 */
+	public void add(long unscaled, int scale) {
+		count++;
+		(unscaled < 0 ? debits : credits).add(unscaled, scale);
+	}
+
+	/**
+	 * Add transactions already summed by the storage
+	 *
+	 * @param count
+	 *            the number of transactions
+	 * @param credits
+	 *            the sum of their positive balances
+	 * @param debits
+	 *            the sum of their negative balances
+	 */
+	public void add(long count, BigDecimal credits, BigDecimal debits) {
+		this.count += count;
+		this.credits.add(credits);
+		this.debits.add(debits);
+	}
+
+	/**
+	 * Add other totals
+	 *
+	 * @param other
+	 *            the totals to add
+	 */
+	public void add(TransactionTotals other) {
+		count += other.count;
+		credits.add(other.credits);
+		debits.add(other.debits);
+	}
+
+	/**
+	 * @return the number of transactions
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return the sum of the positive balances
+	 */
+	public BigDecimal getCredits() {
+		return credits.get();
+	}
+
+	/**
+	 * @return the sum of the negative balances, negative
+	 */
+	public BigDecimal getDebits() {
+		return debits.get();
+	}
+}
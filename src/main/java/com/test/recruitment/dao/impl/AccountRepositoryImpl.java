@@ -1,12 +1,20 @@
 package com.test.recruitment.dao.impl;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -22,51 +30,85 @@ import com.test.recruitment.entity.Account;
  *
  */
 @Repository
+@Profile("!hsqldb")
 public class AccountRepositoryImpl implements AccountRepository,
 		InitializingBean {
 
-	private List<Account> accounts;
+	/**
+	 * Accounts indexed by id
+	 */
+	private Map<String, Account> accounts;
+
+	/**
+	 * Account ids in insertion order, for listing. Only written when an
+	 * account is created, not when it is updated.
+	 */
+	private Queue<String> accountIds;
 
 	@Override
 	public void afterPropertiesSet() throws Exception {
-		accounts = new ArrayList<>();
+		accounts = new ConcurrentHashMap<>();
+		accountIds = new ConcurrentLinkedQueue<>();
+		initialAccounts().forEach(this::save);
+	}
 
-		{
-			Account account = new Account();
-			account.setId("1");
-			account.setCreationDate(new Date());
-			account.setActive(true);
-			account.setType("SAVING");
-			account.setNumber("01000251215");
-			account.setBalance(BigDecimal.valueOf(4210.42));
-			accounts.add(account);
-		}
-		{
-			Account account = new Account();
-			account.setId("2");
-			account.setCreationDate(new Date());
-			account.setActive(false);
-			account.setType("CURRENT");
-			account.setNumber("01000251216");
-			account.setBalance(BigDecimal.valueOf(25.12));
-			accounts.add(account);
-		}
+	/**
+	 * @return the accounts every repository starts with
+	 */
+	static List<Account> initialAccounts() {
+		return Arrays.asList(
+				account("1", "01000251215", "SAVING", true,
+						BigDecimal.valueOf(4210.42)),
+				account("2", "01000251216", "CURRENT", false,
+						BigDecimal.valueOf(25.12)));
+	}
 
+	private static Account account(String id, String number, String type,
+			boolean active, BigDecimal balance) {
+		Account account = new Account();
+		account.setId(id);
+		account.setCreationDate(new Date());
+		account.setActive(active);
+		account.setType(type);
+		account.setNumber(number);
+		account.setBalance(balance);
+		return account;
 	}
 
 	@Override
 	public Page<Account> findAll(Pageable p) {
-		return new PageImpl<Account>(accounts);
+		return new PageImpl<Account>(accountIds.stream().map(accounts::get)
+				.collect(Collectors.toList()));
 	}
 
 	@Override
 	public Optional<Account> findById(String accountId) {
-		return accounts.stream().filter(a -> a.getId().equals(accountId))
-				.findFirst();
+		return Optional.ofNullable(accounts.get(accountId));
+	}
+
+	@Override
+	public Map<String, Account> findAllById(Collection<String> accountIds) {
+		Map<String, Account> result = new HashMap<>();
+		for (String accountId : accountIds) {
+			Account account = null == accountId ? null : accounts
+					.get(accountId);
+			if (null != account) {
+				result.put(accountId, account);
+			}
+		}
+		return result;
 	}
 
 	@Override
 	public boolean exists(String accountId) {
-		return accounts.stream().anyMatch(a -> a.getId().equals(accountId));
+		return accounts.containsKey(accountId);
+	}
+
+	@Override
+	public Account save(Account account) {
+		if (null == accounts.put(account.getId(), account)) {
+			accountIds.add(account.getId());
+		}
+		return account;
 	}
 }
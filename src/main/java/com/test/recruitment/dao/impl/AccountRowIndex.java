@@ -0,0 +1,423 @@
+package com.test.recruitment.dao.impl;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.IntFunction;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+
+import com.test.recruitment.dao.TransactionCursor;
+import com.test.recruitment.dao.TransactionSortField;
+import com.test.recruitment.dao.TransactionSummary;
+import com.test.recruitment.entity.Transaction;
+
+/**
+ * Immutable index of the transactions of one account in a columnar store :
+ * same layout as {@link AccountTransactionIndex}, with row numbers instead
+ * of transaction instances, and orders sorted on their first use as well.
+ * The amounts of the rows are read from the store to maintain the sum of
+ * the balances.
+ *
+ * @author A525125
+ *
+ */
+final class AccountRowIndex {
+
+	/**
+	 * Comparison of two rows of the columnar store
+	 */
+	@FunctionalInterface
+	interface RowComparator {
+
+		int compare(int row, int other);
+	}
+
+	static final AccountRowIndex EMPTY = new AccountRowIndex(new int[0],
+			new int[TransactionSortField.values().length][0], BigDecimal.ZERO,
+			null);
+
+	private final int[] inserted;
+
+	/**
+	 * Orders by {@link TransactionSortField} ordinal, null until sorted.
+	 * Replaced as a whole when an order is sorted.
+	 */
+	private volatile int[][] sorted;
+
+	/**
+	 * Sum of the balances of the rows
+	 */
+	private final BigDecimal sum;
+
+	/**
+	 * Comparators of the store, to sort the orders on their first use
+	 */
+	private final RowComparator[] comparators;
+
+	private AccountRowIndex(int[] inserted, int[][] sorted, BigDecimal sum,
+			RowComparator[] comparators) {
+		this.inserted = inserted;
+		this.sorted = sorted;
+		this.sum = sum;
+		this.comparators = comparators;
+	}
+
+	/**
+	 * @return the number of transactions
+	 */
+	int size() {
+		return inserted.length;
+	}
+
+	/**
+	 * Get the aggregates of the rows
+	 *
+	 * @param amounts
+	 *            reads the amount of a row
+	 * @return the aggregates
+	 */
+	TransactionSummary summary(IntFunction<BigDecimal> amounts) {
+		if (0 == inserted.length) {
+			return TransactionSummary.EMPTY;
+		}
+		int[] byBalance = sorted(TransactionSortField.BALANCE);
+		return new TransactionSummary(inserted.length, sum,
+				amounts.apply(byBalance[0]),
+				amounts.apply(byBalance[byBalance.length - 1]));
+	}
+
+	/**
+	 * @return the rows in insertion order, not to be modified
+	 */
+	int[] inserted() {
+		return inserted;
+	}
+
+	/**
+	 * Get the rows sorted on a field, sorting them on the first use
+	 *
+	 * @param field
+	 *            the field
+	 * @return the ascending rows, not to be modified
+	 */
+	int[] sorted(TransactionSortField field) {
+		int[] array = sorted[field.ordinal()];
+		if (null == array) {
+			array = inserted.clone();
+			sort(array, comparators[field.ordinal()]);
+			int[][] updated = sorted.clone();
+			updated[field.ordinal()] = array;
+			sorted = updated;
+		}
+		return array;
+	}
+
+	/**
+	 * Sort all the orders which are not sorted yet, ahead of their first
+	 * use
+	 */
+	void prepare() {
+		for (TransactionSortField field : TransactionSortField.values()) {
+			sorted(field);
+		}
+	}
+
+	/**
+	 * Get a copy of this index with a new row
+	 *
+	 * @param row
+	 *            the row to add
+	 * @param comparators
+	 *            the comparators of each sort field
+	 * @param amounts
+	 *            reads the amount of a row
+	 * @return the new index
+	 */
+	AccountRowIndex with(int row, RowComparator[] comparators,
+			IntFunction<BigDecimal> amounts) {
+		int[] newInserted = Arrays.copyOf(inserted, inserted.length + 1);
+		newInserted[inserted.length] = row;
+		return new AccountRowIndex(newInserted, sortedWith(sorted, row,
+				comparators), sum.add(amounts.apply(row)), comparators);
+	}
+
+	/**
+	 * Get a copy of this index with new rows, without sorting them : the
+	 * orders of the copy are sorted on their first use
+	 *
+	 * @param rows
+	 *            the rows to add
+	 * @param comparators
+	 *            the comparators of each sort field
+	 * @param amounts
+	 *            reads the amount of a row
+	 * @return the new index
+	 */
+	AccountRowIndex withAll(int[] rows, RowComparator[] comparators,
+			IntFunction<BigDecimal> amounts) {
+		BigDecimal newSum = sum;
+		for (int row : rows) {
+			newSum = newSum.add(amounts.apply(row));
+		}
+		return new AccountRowIndex(concat(inserted, rows),
+				new int[comparators.length][], newSum, comparators);
+	}
+
+	/**
+	 * Get a copy of this index without a row
+	 *
+	 * @param row
+	 *            the row to remove
+	 * @param comparators
+	 *            the comparators of each sort field
+	 * @param amounts
+	 *            reads the amount of a row
+	 * @return the new index
+	 */
+	AccountRowIndex without(int row, RowComparator[] comparators,
+			IntFunction<BigDecimal> amounts) {
+		if (inserted.length == 1) {
+			return EMPTY;
+		}
+		return new AccountRowIndex(remove(inserted, indexOf(inserted, row)),
+				sortedWithout(sorted, row, comparators), sum.subtract(amounts
+						.apply(row)), comparators);
+	}
+
+	/**
+	 * Get a copy of this index where a row replaces another one, at the same
+	 * insertion position
+	 *
+	 * @param previous
+	 *            the row to replace
+	 * @param row
+	 *            the new row
+	 * @param comparators
+	 *            the comparators of each sort field
+	 * @param amounts
+	 *            reads the amount of a row
+	 * @return the new index
+	 */
+	AccountRowIndex replace(int previous, int row,
+			RowComparator[] comparators, IntFunction<BigDecimal> amounts) {
+		int[] newInserted = inserted.clone();
+		newInserted[indexOf(inserted, previous)] = row;
+		return new AccountRowIndex(newInserted, sortedWith(
+				sortedWithout(sorted, previous, comparators), row,
+				comparators), sum.subtract(amounts.apply(previous)).add(
+				amounts.apply(row)), comparators);
+	}
+
+	/**
+	 * Get a copy of this index on a compacted store : the rows keep their
+	 * values under new numbers, so the sorted orders stay sorted
+	 *
+	 * @param moved
+	 *            the new number of each row
+	 * @param comparators
+	 *            the comparators of the compacted store
+	 * @return the new index
+	 */
+	AccountRowIndex remap(int[] moved, RowComparator[] comparators) {
+		int[][] current = sorted;
+		int[][] newSorted = new int[current.length][];
+		for (int i = 0; i < current.length; i++) {
+			if (null != current[i]) {
+				newSorted[i] = remap(current[i], moved);
+			}
+		}
+		return new AccountRowIndex(remap(inserted, moved), newSorted, sum,
+				comparators);
+	}
+
+	/**
+	 * Get a slice of the rows
+	 *
+	 * @param order
+	 *            the order, or null for insertion order
+	 * @param offset
+	 *            the position of the first row
+	 * @param size
+	 *            the maximum number of rows
+	 * @return the rows
+	 */
+	int[] slice(Sort.Order order, int offset, int size) {
+		int[] array = null == order ? inserted : sorted(TransactionSortField
+				.of(order.getProperty()));
+		int from = Math.min(offset, array.length);
+		int length = Math.min(size, array.length - from);
+		if (null == order || order.isAscending()) {
+			return Arrays.copyOfRange(array, from, from + length);
+		}
+		int[] result = new int[length];
+		for (int i = 0; i < length; i++) {
+			result[i] = array[array.length - 1 - from - i];
+		}
+		return result;
+	}
+
+	/**
+	 * Get the position of the first row following a cursor
+	 *
+	 * @param cursor
+	 *            the cursor
+	 * @param rows
+	 *            materializes a row, to compare it with the cursor
+	 * @return the offset of the next page in the cursor order
+	 */
+	int offsetAfter(TransactionCursor cursor, IntFunction<Transaction> rows) {
+		if (cursor.isFirst()) {
+			return 0;
+		}
+		int[] array = sorted(cursor.getField());
+		Transaction probe = cursor.toProbe();
+		Comparator<Transaction> comparator = cursor.getField()
+				.getComparator();
+		int low = 0;
+		int high = array.length - 1;
+		int position = -1;
+		while (low <= high && position < 0) {
+			int middle = (low + high) >>> 1;
+			int comparison = comparator.compare(rows.apply(array[middle]),
+					probe);
+			if (comparison < 0) {
+				low = middle + 1;
+			} else if (comparison > 0) {
+				high = middle - 1;
+			} else {
+				position = middle;
+			}
+		}
+		if (Direction.ASC == cursor.getDirection()) {
+			return position >= 0 ? position + 1 : low;
+		}
+		return array.length - (position >= 0 ? position : low);
+	}
+
+	private static int[][] sortedWith(int[][] sorted, int row,
+			RowComparator[] comparators) {
+		int[][] result = new int[sorted.length][];
+		for (int i = 0; i < sorted.length; i++) {
+			int[] array = sorted[i];
+			if (null == array) {
+				continue;
+			}
+			int position = -binarySearch(array, row, comparators[i]) - 1;
+			int[] copy = new int[array.length + 1];
+			System.arraycopy(array, 0, copy, 0, position);
+			copy[position] = row;
+			System.arraycopy(array, position, copy, position + 1,
+					array.length - position);
+			result[i] = copy;
+		}
+		return result;
+	}
+
+	private static int[][] sortedWithout(int[][] sorted, int row,
+			RowComparator[] comparators) {
+		int[][] result = new int[sorted.length][];
+		for (int i = 0; i < sorted.length; i++) {
+			if (null == sorted[i]) {
+				continue;
+			}
+			result[i] = remove(sorted[i], binarySearch(sorted[i], row,
+					comparators[i]));
+		}
+		return result;
+	}
+
+	/**
+	 * Same contract as {@link Arrays#binarySearch(int[], int)}, with a row
+	 * comparator
+	 */
+	private static int binarySearch(int[] array, int row,
+			RowComparator comparator) {
+		int low = 0;
+		int high = array.length - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = comparator.compare(array[middle], row);
+			if (comparison < 0) {
+				low = middle + 1;
+			} else if (comparison > 0) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -(low + 1);
+	}
+
+	/**
+	 * Stable merge sort of rows, without boxing them
+	 *
+	 * @param rows
+	 *            the rows to sort
+	 * @param comparator
+	 *            the row comparator
+	 */
+	static void sort(int[] rows, RowComparator comparator) {
+		int[] buffer = new int[rows.length];
+		int[] source = rows;
+		int[] target = buffer;
+		for (int width = 1; width < rows.length; width *= 2) {
+			for (int low = 0; low < rows.length; low += 2 * width) {
+				int middle = Math.min(low + width, rows.length);
+				int high = Math.min(low + 2 * width, rows.length);
+				int left = low;
+				int right = middle;
+				for (int i = low; i < high; i++) {
+					if (left < middle
+							&& (right >= high || comparator.compare(
+									source[left], source[right]) <= 0)) {
+						target[i] = source[left++];
+					} else {
+						target[i] = source[right++];
+					}
+				}
+			}
+			int[] swap = source;
+			source = target;
+			target = swap;
+		}
+		if (source != rows) {
+			System.arraycopy(source, 0, rows, 0, rows.length);
+		}
+	}
+
+	private static int[] remap(int[] rows, int[] moved) {
+		int[] result = new int[rows.length];
+		for (int i = 0; i < rows.length; i++) {
+			result[i] = moved[rows[i]];
+		}
+		return result;
+	}
+
+	private static int[] concat(int[] array, int[] added) {
+		int[] result = Arrays.copyOf(array, array.length + added.length);
+		System.arraycopy(added, 0, result, array.length, added.length);
+		return result;
+	}
+
+	private static int[] remove(int[] array, int position) {
+		if (position < 0 || position >= array.length) {
+			throw new IllegalStateException("Row is not indexed");
+		}
+		int[] result = new int[array.length - 1];
+		System.arraycopy(array, 0, result, 0, position);
+		System.arraycopy(array, position + 1, result, position, array.length
+				- position - 1);
+		return result;
+	}
+
+	private static int indexOf(int[] array, int row) {
+		for (int i = 0; i < array.length; i++) {
+			if (array[i] == row) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,326 @@
+package com.test.recruitment.dao.impl;
+
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+
+import com.test.recruitment.dao.TransactionCursor;
+import com.test.recruitment.dao.TransactionSortField;
+import com.test.recruitment.dao.TransactionSummary;
+import com.test.recruitment.dao.TransactionTotals;
+import com.test.recruitment.entity.Transaction;
+
+/**
+ * Immutable index of the transactions of one account. The transactions are
+ * kept in insertion order and sorted on every {@link TransactionSortField},
+ * so that a page in any order is a direct slice of a list and the total
+ * count is known without scanning. The sum of the balances is carried from
+ * one copy to the next, and the extreme balances are the ends of the
+ * balance order : the summary of the account is read without scanning
+ * either.
+ * <p>
+ * The orders are materialized lazily : a bulk insert only appends the
+ * transactions, and each order is sorted on its first use, then maintained
+ * by the following copies. Only the cached orders are mutable state, each
+ * one published once fully sorted.
+ * <p>
+ * The lists are {@link ChunkedList}s : a copy shares all the chunks but
+ * the ones it changes, so a write allocates about a chunk and a chunk table
+ * per list, whatever the size of the account. Finding the replaced or
+ * removed instance in insertion order still scans the list, without
+ * allocating.
+ *
+ * @author A525125
+ *
+ */
+final class AccountTransactionIndex {
+
+	static final AccountTransactionIndex EMPTY = new AccountTransactionIndex(
+			ChunkedList.empty(), orders(), BigDecimal.ZERO);
+
+	private final ChunkedList<Transaction> inserted;
+
+	/**
+	 * Orders by {@link TransactionSortField} ordinal, null until sorted.
+	 * Replaced as a whole when an order is sorted.
+	 */
+	private volatile ChunkedList<Transaction>[] sorted;
+
+	/**
+	 * Sum of the balances of the transactions
+	 */
+	private final BigDecimal sum;
+
+	private AccountTransactionIndex(ChunkedList<Transaction> inserted,
+			ChunkedList<Transaction>[] sorted, BigDecimal sum) {
+		this.inserted = inserted;
+		this.sorted = sorted;
+		this.sum = sum;
+	}
+
+	/**
+	 * @return the number of transactions
+	 */
+	int size() {
+		return inserted.size();
+	}
+
+	/**
+	 * @return the aggregates of the transactions
+	 */
+	TransactionSummary summary() {
+		if (0 == inserted.size()) {
+			return TransactionSummary.EMPTY;
+		}
+		ChunkedList<Transaction> byBalance = sorted(
+				TransactionSortField.BALANCE);
+		return new TransactionSummary(inserted.size(), sum, byBalance.get(0)
+				.getBalance(), byBalance.get(byBalance.size() - 1)
+				.getBalance());
+	}
+
+	/**
+	 * Add the transactions to totals
+	 *
+	 * @param totals
+	 *            the totals to add to
+	 */
+	void addTotals(TransactionTotals totals) {
+		inserted.forEach(transaction -> totals.add(transaction.getBalance()));
+	}
+
+	/**
+	 * @return the transactions in insertion order
+	 */
+	Stream<Transaction> stream() {
+		return inserted.stream();
+	}
+
+	/**
+	 * Sort all the orders which are not sorted yet, ahead of their first
+	 * use
+	 */
+	void prepare() {
+		for (TransactionSortField field : TransactionSortField.values()) {
+			sorted(field);
+		}
+	}
+
+	/**
+	 * Get a copy of this index with a new transaction
+	 *
+	 * @param transaction
+	 *            the transaction to add
+	 * @return the new index
+	 */
+	AccountTransactionIndex with(Transaction transaction) {
+		return new AccountTransactionIndex(inserted.insert(inserted.size(),
+				transaction), sortedWith(sorted, transaction),
+				sum.add(transaction.getBalance()));
+	}
+
+	/**
+	 * Get a copy of this index with new transactions, without sorting them :
+	 * the orders of the copy are sorted on their first use
+	 *
+	 * @param transactions
+	 *            the transactions to add
+	 * @return the new index
+	 */
+	AccountTransactionIndex withAll(Collection<Transaction> transactions) {
+		Transaction[] added = transactions.toArray(new Transaction[0]);
+		BigDecimal newSum = sum;
+		for (Transaction transaction : added) {
+			newSum = newSum.add(transaction.getBalance());
+		}
+		return new AccountTransactionIndex(inserted.appendAll(added),
+				orders(), newSum);
+	}
+
+	/**
+	 * Get a copy of this index without a transaction
+	 *
+	 * @param transaction
+	 *            the indexed instance to remove
+	 * @return the new index
+	 */
+	AccountTransactionIndex without(Transaction transaction) {
+		if (inserted.size() == 1) {
+			return EMPTY;
+		}
+		return new AccountTransactionIndex(remove(inserted,
+				inserted.indexOf(transaction)), sortedWithout(sorted,
+				transaction), sum.subtract(transaction.getBalance()));
+	}
+
+	/**
+	 * Get a copy of this index where a transaction replaces another one with
+	 * the same id
+	 *
+	 * @param previous
+	 *            the indexed instance to replace
+	 * @param transaction
+	 *            the new transaction
+	 * @return the new index
+	 */
+	AccountTransactionIndex replace(Transaction previous,
+			Transaction transaction) {
+		int position = inserted.indexOf(previous);
+		if (position < 0) {
+			throw new IllegalStateException("Transaction is not indexed");
+		}
+		return new AccountTransactionIndex(inserted.set(position,
+				transaction), sortedWith(sortedWithout(sorted, previous),
+				transaction), sum.subtract(previous.getBalance()).add(
+				transaction.getBalance()));
+	}
+
+	/**
+	 * Get a slice of the transactions
+	 *
+	 * @param order
+	 *            the order, or null for insertion order
+	 * @param offset
+	 *            the position of the first transaction
+	 * @param size
+	 *            the maximum number of transactions
+	 * @return the transactions, as a view on this index
+	 */
+	List<Transaction> slice(Sort.Order order, int offset, int size) {
+		ChunkedList<Transaction> list = null == order ? inserted
+				: sorted(field(order));
+		boolean descending = null != order && !order.isAscending();
+		int from = Math.min(offset, list.size());
+		int length = Math.min(size, list.size() - from);
+		return new AbstractList<Transaction>() {
+
+			@Override
+			public Transaction get(int index) {
+				if (index < 0 || index >= length) {
+					throw new IndexOutOfBoundsException(String.valueOf(index));
+				}
+				return descending ? list.get(list.size() - 1 - from - index)
+						: list.get(from + index);
+			}
+
+			@Override
+			public int size() {
+				return length;
+			}
+		};
+	}
+
+	/**
+	 * Get the transactions following a cursor. The start of the slice is
+	 * found by binary search, so the cost does not depend on the depth of
+	 * the page.
+	 *
+	 * @param cursor
+	 *            the cursor
+	 * @param size
+	 *            the maximum number of transactions
+	 * @return the transactions, as a view on this index
+	 */
+	Slice<Transaction> seek(TransactionCursor cursor, int size) {
+		TransactionSortField field = cursor.getField();
+		Sort.Order order = new Sort.Order(cursor.getDirection(),
+				field.getProperty());
+		ChunkedList<Transaction> list = sorted(field);
+		int offset = 0;
+		if (!cursor.isFirst()) {
+			int position = list.binarySearch(cursor.toProbe(),
+					field.getComparator());
+			if (Direction.ASC == cursor.getDirection()) {
+				offset = position >= 0 ? position + 1 : -position - 1;
+			} else {
+				offset = list.size()
+						- (position >= 0 ? position : -position - 1);
+			}
+		}
+		List<Transaction> content = slice(order, offset, size);
+		return new SliceImpl<Transaction>(content, new PageRequest(0, size,
+				new Sort(order)), offset + content.size() < list.size());
+	}
+
+	/**
+	 * Get an order, sorting it on its first use. Concurrent first uses may
+	 * both sort it, with the same result.
+	 */
+	private ChunkedList<Transaction> sorted(TransactionSortField field) {
+		ChunkedList<Transaction> list = sorted[field.ordinal()];
+		if (null == list) {
+			Transaction[] array = inserted.toArray(new Transaction[inserted
+					.size()]);
+			Arrays.sort(array, field.getComparator());
+			list = ChunkedList.of(array);
+			ChunkedList<Transaction>[] updated = sorted.clone();
+			updated[field.ordinal()] = list;
+			sorted = updated;
+		}
+		return list;
+	}
+
+	private static ChunkedList<Transaction>[] sortedWith(
+			ChunkedList<Transaction>[] sorted, Transaction transaction) {
+		ChunkedList<Transaction>[] result = orders();
+		for (TransactionSortField field : TransactionSortField.values()) {
+			ChunkedList<Transaction> list = sorted[field.ordinal()];
+			if (null == list) {
+				continue;
+			}
+			int position = -list.binarySearch(transaction,
+					field.getComparator()) - 1;
+			result[field.ordinal()] = list.insert(position, transaction);
+		}
+		return result;
+	}
+
+	private static ChunkedList<Transaction>[] sortedWithout(
+			ChunkedList<Transaction>[] sorted, Transaction transaction) {
+		ChunkedList<Transaction>[] result = orders();
+		for (TransactionSortField field : TransactionSortField.values()) {
+			ChunkedList<Transaction> list = sorted[field.ordinal()];
+			if (null == list) {
+				continue;
+			}
+			result[field.ordinal()] = remove(list, list.binarySearch(
+					transaction, field.getComparator()));
+		}
+		return result;
+	}
+
+	private static TransactionSortField field(Sort.Order order) {
+		TransactionSortField field = TransactionSortField.of(order
+				.getProperty());
+		if (null == field) {
+			throw new IllegalArgumentException("Cannot sort transactions on "
+					+ order.getProperty());
+		}
+		return field;
+	}
+
+	private static ChunkedList<Transaction> remove(
+			ChunkedList<Transaction> list, int position) {
+		if (position < 0 || position >= list.size()) {
+			throw new IllegalStateException("Transaction is not indexed");
+		}
+		return list.remove(position);
+	}
+
+	/**
+	 * @return orders, none of them sorted
+	 */
+	@SuppressWarnings("unchecked")
+	private static ChunkedList<Transaction>[] orders() {
+		return new ChunkedList[TransactionSortField.values().length];
+	}
+}
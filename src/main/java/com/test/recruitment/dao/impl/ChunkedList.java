@@ -0,0 +1,326 @@
+package com.test.recruitment.dao.impl;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Immutable list held in chunks of at most {@value #MAX_CHUNK_SIZE}
+ * elements. A copy with one element added, removed or replaced only copies
+ * the chunk of the element and the table of the chunks, the other chunks
+ * being shared : a write costs about the chunk size plus the number of
+ * chunks, instead of the size of the list. An element is found by position
+ * with a binary search on the ends of the chunks.
+ *
+ * @author A525125
+ *
+ * @param <T>
+ *            the type of the elements
+ */
+final class ChunkedList<T> {
+
+	/**
+	 * Size of the chunks built from an array or by a split
+	 */
+	static final int CHUNK_SIZE = 512;
+
+	/**
+	 * Size beyond which a chunk is split in two
+	 */
+	static final int MAX_CHUNK_SIZE = 2 * CHUNK_SIZE;
+
+	private static final ChunkedList<Object> EMPTY = new ChunkedList<>(
+			new Object[0][], new int[0]);
+
+	/**
+	 * The chunks, none of them empty
+	 */
+	private final Object[][] chunks;
+
+	/**
+	 * Number of elements up to the end of each chunk
+	 */
+	private final int[] ends;
+
+	private ChunkedList(Object[][] chunks, int[] ends) {
+		this.chunks = chunks;
+		this.ends = ends;
+	}
+
+	/**
+	 * @return the empty list
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> ChunkedList<T> empty() {
+		return (ChunkedList<T>) EMPTY;
+	}
+
+	/**
+	 * Get a list of the elements of an array
+	 *
+	 * @param array
+	 *            the elements
+	 * @return the list
+	 */
+	static <T> ChunkedList<T> of(T[] array) {
+		return ChunkedList.<T> empty().appendAll(array);
+	}
+
+	/**
+	 * @return the number of elements
+	 */
+	int size() {
+		return 0 == ends.length ? 0 : ends[ends.length - 1];
+	}
+
+	/**
+	 * Get an element
+	 *
+	 * @param index
+	 *            the position of the element
+	 * @return the element
+	 */
+	@SuppressWarnings("unchecked")
+	T get(int index) {
+		int chunk = chunk(index);
+		return (T) chunks[chunk][index - start(chunk)];
+	}
+
+	/**
+	 * Get a copy of this list with an element inserted, the chunk receiving
+	 * it being split in two beyond {@value #MAX_CHUNK_SIZE} elements
+	 *
+	 * @param index
+	 *            the position of the element, at most the size of the list
+	 * @param element
+	 *            the element
+	 * @return the new list
+	 */
+	ChunkedList<T> insert(int index, T element) {
+		if (0 == chunks.length) {
+			return new ChunkedList<>(new Object[][] { { element } },
+					new int[] { 1 });
+		}
+		// At the end : appended to the last chunk
+		int chunk = index == size() ? chunks.length - 1 : chunk(index);
+		Object[] old = chunks[chunk];
+		int offset = index - start(chunk);
+		Object[] grown = new Object[old.length + 1];
+		System.arraycopy(old, 0, grown, 0, offset);
+		grown[offset] = element;
+		System.arraycopy(old, offset, grown, offset + 1, old.length - offset);
+		if (grown.length <= MAX_CHUNK_SIZE) {
+			Object[][] newChunks = chunks.clone();
+			newChunks[chunk] = grown;
+			return new ChunkedList<>(newChunks, shift(ends, chunk, 1));
+		}
+		Object[][] newChunks = new Object[chunks.length + 1][];
+		int[] newEnds = new int[ends.length + 1];
+		System.arraycopy(chunks, 0, newChunks, 0, chunk);
+		System.arraycopy(ends, 0, newEnds, 0, chunk);
+		int half = grown.length / 2;
+		newChunks[chunk] = Arrays.copyOf(grown, half);
+		newChunks[chunk + 1] = Arrays.copyOfRange(grown, half, grown.length);
+		newEnds[chunk] = start(chunk) + half;
+		System.arraycopy(chunks, chunk + 1, newChunks, chunk + 2,
+				chunks.length - chunk - 1);
+		for (int i = chunk; i < ends.length; i++) {
+			newEnds[i + 1] = ends[i] + 1;
+		}
+		return new ChunkedList<>(newChunks, newEnds);
+	}
+
+	/**
+	 * Get a copy of this list with elements appended, in new chunks
+	 *
+	 * @param added
+	 *            the elements to append
+	 * @return the new list
+	 */
+	ChunkedList<T> appendAll(T[] added) {
+		if (0 == added.length) {
+			return this;
+		}
+		int count = (added.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		Object[][] newChunks = Arrays.copyOf(chunks, chunks.length + count);
+		int[] newEnds = Arrays.copyOf(ends, ends.length + count);
+		int end = size();
+		for (int i = 0; i < count; i++) {
+			int from = i * CHUNK_SIZE;
+			int to = Math.min(added.length, from + CHUNK_SIZE);
+			newChunks[chunks.length + i] = Arrays.copyOfRange(added, from, to,
+					Object[].class);
+			end += to - from;
+			newEnds[ends.length + i] = end;
+		}
+		return new ChunkedList<>(newChunks, newEnds);
+	}
+
+	/**
+	 * Get a copy of this list without an element
+	 *
+	 * @param index
+	 *            the position of the element
+	 * @return the new list
+	 */
+	ChunkedList<T> remove(int index) {
+		int chunk = chunk(index);
+		Object[] old = chunks[chunk];
+		if (1 == old.length) {
+			Object[][] newChunks = new Object[chunks.length - 1][];
+			int[] newEnds = new int[ends.length - 1];
+			System.arraycopy(chunks, 0, newChunks, 0, chunk);
+			System.arraycopy(chunks, chunk + 1, newChunks, chunk,
+					newChunks.length - chunk);
+			System.arraycopy(ends, 0, newEnds, 0, chunk);
+			for (int i = chunk; i < newEnds.length; i++) {
+				newEnds[i] = ends[i + 1] - 1;
+			}
+			return new ChunkedList<>(newChunks, newEnds);
+		}
+		int offset = index - start(chunk);
+		Object[] shrunk = new Object[old.length - 1];
+		System.arraycopy(old, 0, shrunk, 0, offset);
+		System.arraycopy(old, offset + 1, shrunk, offset, shrunk.length
+				- offset);
+		Object[][] newChunks = chunks.clone();
+		newChunks[chunk] = shrunk;
+		return new ChunkedList<>(newChunks, shift(ends, chunk, -1));
+	}
+
+	/**
+	 * Get a copy of this list with an element replaced
+	 *
+	 * @param index
+	 *            the position of the element
+	 * @param element
+	 *            the new element
+	 * @return the new list
+	 */
+	ChunkedList<T> set(int index, T element) {
+		int chunk = chunk(index);
+		Object[] copy = chunks[chunk].clone();
+		copy[index - start(chunk)] = element;
+		Object[][] newChunks = chunks.clone();
+		newChunks[chunk] = copy;
+		return new ChunkedList<>(newChunks, ends);
+	}
+
+	/**
+	 * Search an element in this list, sorted by a comparator, as
+	 * {@link Arrays#binarySearch(Object[], Object, Comparator)} would
+	 *
+	 * @param key
+	 *            the element
+	 * @param comparator
+	 *            the order of the list
+	 * @return the position of the element if it is found, else
+	 *         <code>-(insertion point) - 1</code>
+	 */
+	@SuppressWarnings("unchecked")
+	int binarySearch(T key, Comparator<? super T> comparator) {
+		// First chunk whose last element is not before the key
+		int low = 0;
+		int high = chunks.length - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			Object[] chunk = chunks[middle];
+			if (comparator.compare((T) chunk[chunk.length - 1], key) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		if (low == chunks.length) {
+			return -size() - 1;
+		}
+		int start = start(low);
+		int position = Arrays.binarySearch((T[]) chunks[low], key, comparator);
+		return position >= 0 ? start + position : position - start;
+	}
+
+	/**
+	 * Find the position of an instance (identity, not equality, so that
+	 * duplicated values cannot be mixed up)
+	 *
+	 * @param element
+	 *            the instance
+	 * @return the position, -1 if the instance is not in the list
+	 */
+	int indexOf(T element) {
+		for (int chunk = 0; chunk < chunks.length; chunk++) {
+			Object[] elements = chunks[chunk];
+			for (int i = 0; i < elements.length; i++) {
+				if (elements[i] == element) {
+					return start(chunk) + i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param action
+	 *            the action run on each element, in order
+	 */
+	@SuppressWarnings("unchecked")
+	void forEach(Consumer<? super T> action) {
+		for (Object[] chunk : chunks) {
+			for (Object element : chunk) {
+				action.accept((T) element);
+			}
+		}
+	}
+
+	/**
+	 * @return the elements in order
+	 */
+	@SuppressWarnings("unchecked")
+	Stream<T> stream() {
+		return Arrays.stream(chunks).flatMap(
+				chunk -> Arrays.stream((T[]) chunk));
+	}
+
+	/**
+	 * Copy the elements to an array
+	 *
+	 * @param array
+	 *            an array of the size of the list
+	 * @return the array
+	 */
+	T[] toArray(T[] array) {
+		for (int chunk = 0; chunk < chunks.length; chunk++) {
+			System.arraycopy(chunks[chunk], 0, array, start(chunk),
+					chunks[chunk].length);
+		}
+		return array;
+	}
+
+	/**
+	 * @return the chunk holding a position
+	 */
+	private int chunk(int index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException(String.valueOf(index));
+		}
+		int position = Arrays.binarySearch(ends, index);
+		// On an end, the position starts the next chunk
+		return position >= 0 ? position + 1 : -position - 1;
+	}
+
+	private int start(int chunk) {
+		return 0 == chunk ? 0 : ends[chunk - 1];
+	}
+
+	/**
+	 * Copy the ends, shifting the ones from a chunk
+	 */
+	private static int[] shift(int[] ends, int from, int delta) {
+		int[] result = ends.clone();
+		for (int i = from; i < result.length; i++) {
+			result[i] += delta;
+		}
+		return result;
+	}
+}
@@ -0,0 +1,836 @@
+package com.test.recruitment.dao.impl;
+
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+
+import com.test.recruitment.dao.TransactionCursor;
+import com.test.recruitment.dao.TransactionRepository;
+import com.test.recruitment.dao.TransactionSortField;
+import com.test.recruitment.dao.TransactionSummary;
+import com.test.recruitment.dao.TransactionTotals;
+import com.test.recruitment.dao.impl.AccountRowIndex.RowComparator;
+import com.test.recruitment.entity.Transaction;
+
+/**
+ * Columnar implementation of {@link TransactionRepository}, enabled with
+ * <code>recruitment.repository.transaction-storage=columnar</code>.
+ * <p>
+ * Transactions are stored as rows of primitive columns, in fixed-size
+ * chunks : no object per transaction, and {@link Transaction} instances are
+ * only built for the rows returned to the caller. Ids and numbers made of
+ * up to 17 digits are packed in a long, other strings go to a dictionary ;
+ * balances are stored as an unscaled long and a scale.
+ * <p>
+ * Rows are immutable and append-only : an update appends a new row and a
+ * delete only unindexes the row, so that a reader holding an old account
+ * index never sees a row change. Once the dead rows outnumber both
+ * {@value #MIN_DEAD_ROWS} and the live rows, the live rows are copied to a
+ * new table with their dictionary entries and overflow amounts, and the
+ * old table is dropped : the heap stays within about twice the live data.
+ * Readers keep the table they started with, the writes wait for the copy.
+ * Appends are serialized by a single lock ; reads are lock-free, and
+ * writes on the same account must be serialized by the caller.
+ *
+ * @author A525125
+ *
+ */
+@Repository
+@Profile("!hsqldb")
+@ConditionalOnProperty(name = "recruitment.repository.transaction-storage",
+		havingValue = "columnar")
+public class ColumnarTransactionRepository implements TransactionRepository,
+		InitializingBean {
+
+	private static final int CHUNK_SHIFT = 14;
+
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	/**
+	 * Longest digit string packed in a long code
+	 */
+	private static final int MAX_PACKED_DIGITS = 17;
+
+	private static final int LENGTH_SHIFT = 57;
+
+	private static final long PACKED_VALUE_MASK = (1L << LENGTH_SHIFT) - 1;
+
+	/**
+	 * Amount of a row whose balance does not fit in a long and a byte scale
+	 */
+	private static final long OVERFLOW = Long.MIN_VALUE;
+
+	/**
+	 * Number of dead rows below which a table is never compacted
+	 */
+	private static final int MIN_DEAD_ROWS = CHUNK_SIZE;
+
+	private static final long[] POWERS_OF_TEN = new long[19];
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+
+	/**
+	 * Column chunks, replaced as a whole when a chunk is added. The chunks
+	 * themselves are written in place, each row once before being indexed.
+	 */
+	private static final class Chunks {
+
+		private final long[][] ids;
+
+		private final long[][] numbers;
+
+		private final long[][] amounts;
+
+		private final byte[][] scales;
+
+		private final int[][] accounts;
+
+		private Chunks(int length) {
+			ids = new long[length][];
+			numbers = new long[length][];
+			amounts = new long[length][];
+			scales = new byte[length][];
+			accounts = new int[length][];
+		}
+
+		private Chunks grow() {
+			Chunks grown = new Chunks(ids.length + 1);
+			System.arraycopy(ids, 0, grown.ids, 0, ids.length);
+			System.arraycopy(numbers, 0, grown.numbers, 0, ids.length);
+			System.arraycopy(amounts, 0, grown.amounts, 0, ids.length);
+			System.arraycopy(scales, 0, grown.scales, 0, ids.length);
+			System.arraycopy(accounts, 0, grown.accounts, 0, ids.length);
+			grown.ids[ids.length] = new long[CHUNK_SIZE];
+			grown.numbers[ids.length] = new long[CHUNK_SIZE];
+			grown.amounts[ids.length] = new long[CHUNK_SIZE];
+			grown.scales[ids.length] = new byte[CHUNK_SIZE];
+			grown.accounts[ids.length] = new int[CHUNK_SIZE];
+			return grown;
+		}
+	}
+
+	/**
+	 * Rows, dictionary and indexes, replaced as a whole by a compaction
+	 */
+	private volatile Table table;
+
+	/**
+	 * Held shared by the writes and exclusively by a compaction, so that no
+	 * write is lost on the replaced table. Reads do not take it : they keep
+	 * working on the table they started with.
+	 */
+	private StampedLock compaction;
+
+	/**
+	 * Last generated id
+	 */
+	private AtomicLong sequence;
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		table = new Table();
+		compaction = new StampedLock();
+		sequence = new AtomicLong();
+		TransactionRepositoryImpl.initialTransactions().forEach(this::save);
+	}
+
+	@Override
+	public Transaction findById(String id) {
+		Table t = table;
+		int row = t.findRow(id);
+		return LongIntHashMap.NO_VALUE == row ? null : t.materialize(row);
+	}
+
+	@Override
+	public Page<Transaction> getTransactionsByAccount(String accountId,
+			Pageable p) {
+		Table t = table;
+		AccountRowIndex index = t.rowsByAccount.getOrDefault(accountId,
+				AccountRowIndex.EMPTY);
+		if (null == p) {
+			return new PageImpl<Transaction>(t.materialize(index.inserted()));
+		}
+		Sort.Order order = null == p.getSort() ? null : p.getSort()
+				.iterator().next();
+		return new PageImpl<Transaction>(t.materialize(index.slice(order,
+				p.getOffset(), p.getPageSize())), p, index.size());
+	}
+
+	@Override
+	public Slice<Transaction> getTransactionsByAccount(String accountId,
+			TransactionCursor cursor, int size) {
+		Table t = table;
+		AccountRowIndex index = t.rowsByAccount.getOrDefault(accountId,
+				AccountRowIndex.EMPTY);
+		Sort.Order order = new Sort.Order(cursor.getDirection(), cursor
+				.getField().getProperty());
+		int offset = index.offsetAfter(cursor, t::materialize);
+		List<Transaction> content = t.materialize(index.slice(order, offset,
+				size));
+		return new SliceImpl<Transaction>(content, new PageRequest(0, size,
+				new Sort(order)), offset + content.size() < index.size());
+	}
+
+	@Override
+	public Stream<Transaction> streamTransactionsByAccount(String accountId) {
+		Table t = table;
+		return Arrays.stream(
+				t.rowsByAccount.getOrDefault(accountId, AccountRowIndex.EMPTY)
+						.inserted()).mapToObj(t::materialize);
+	}
+
+	@Override
+	public TransactionSummary getSummary(String accountId) {
+		Table t = table;
+		return t.rowsByAccount.getOrDefault(accountId, AccountRowIndex.EMPTY)
+				.summary(t.rowAmounts);
+	}
+
+	@Override
+	public void addTotals(String accountId, TransactionTotals totals) {
+		Table t = table;
+		int[] rowsOfAccount = t.rowsByAccount.getOrDefault(accountId,
+				AccountRowIndex.EMPTY).inserted();
+		// Read after the index : the chunks hold all of its rows
+		Chunks c = t.chunks;
+		for (int row : rowsOfAccount) {
+			long unscaled = c.amounts[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+			if (OVERFLOW == unscaled) {
+				totals.add(t.overflowAmounts.get(row));
+			} else {
+				totals.add(unscaled, c.scales[row >>> CHUNK_SHIFT][row
+						& CHUNK_MASK]);
+			}
+		}
+	}
+
+	@Override
+	public void buildIndexes(String accountId) {
+		AccountRowIndex index = table.rowsByAccount.get(accountId);
+		if (null != index) {
+			index.prepare();
+		}
+	}
+
+	@Override
+	public Transaction save(Transaction transaction) {
+		assignId(transaction);
+		Table t;
+		long guard = compaction.readLock();
+		try {
+			t = table;
+			t.save(transaction);
+		} finally {
+			compaction.unlockRead(guard);
+		}
+		compactIfNeeded(t);
+		return transaction;
+	}
+
+	@Override
+	public void saveAll(Collection<Transaction> transactions) {
+		// Last one wins if the batch holds the same id twice
+		Map<String, Transaction> batch = new LinkedHashMap<>();
+		for (Transaction transaction : transactions) {
+			assignId(transaction);
+			batch.put(transaction.getId(), transaction);
+		}
+		Table t;
+		long guard = compaction.readLock();
+		try {
+			t = table;
+			t.saveAll(batch.values());
+		} finally {
+			compaction.unlockRead(guard);
+		}
+		compactIfNeeded(t);
+	}
+
+	@Override
+	public void delete(String id) {
+		Table t;
+		long guard = compaction.readLock();
+		try {
+			t = table;
+			t.delete(id);
+		} finally {
+			compaction.unlockRead(guard);
+		}
+		compactIfNeeded(t);
+	}
+
+	/**
+	 * @return the number of stored rows, dead ones included
+	 */
+	public int getRows() {
+		return table.rows;
+	}
+
+	/**
+	 * Replace a table holding too many dead rows by a copy of its live rows
+	 *
+	 * @param t
+	 *            the table just written
+	 */
+	private void compactIfNeeded(Table t) {
+		if (!t.needsCompaction()) {
+			return;
+		}
+		long guard = compaction.writeLock();
+		try {
+			// Another write may have compacted it already
+			if (table == t && t.needsCompaction()) {
+				table = t.compact();
+			}
+		} finally {
+			compaction.unlockWrite(guard);
+		}
+	}
+
+	/**
+	 * Columns, dictionary and indexes of the rows. Rows are appended ; a
+	 * replaced or deleted row stays in the columns as a dead row until the
+	 * table is compacted.
+	 */
+	private static final class Table {
+
+		private volatile Chunks chunks = new Chunks(0);
+
+		/**
+		 * Number of appended rows, guarded by {@link #lock}
+		 */
+		private int rows;
+
+		/**
+		 * Number of replaced or deleted rows, guarded by {@link #lock}
+		 */
+		private int dead;
+
+		/**
+		 * Balances of the {@link #OVERFLOW} rows
+		 */
+		private final Map<Integer, BigDecimal> overflowAmounts =
+				new ConcurrentHashMap<>();
+
+		/**
+		 * Dictionary of the strings which cannot be packed : codes by string
+		 * and strings by code
+		 */
+		private final Map<String, Integer> stringCodes =
+				new ConcurrentHashMap<>();
+
+		private volatile String[] strings = new String[16];
+
+		/**
+		 * Primary index : rows by id code, guarded by {@link #lock}
+		 */
+		private final LongIntHashMap rowsById = new LongIntHashMap(CHUNK_SIZE);
+
+		/**
+		 * Secondary index : rows by account id, in insertion order and
+		 * sorted on every sortable field
+		 */
+		private final Map<String, AccountRowIndex> rowsByAccount =
+				new ConcurrentHashMap<>();
+
+		private final StampedLock lock = new StampedLock();
+
+		/**
+		 * Row comparators by {@link TransactionSortField} ordinal
+		 */
+		private final RowComparator[] comparators = Arrays
+				.stream(TransactionSortField.values()).map(this::comparator)
+				.toArray(RowComparator[]::new);
+
+		/**
+		 * Amount of a row, to maintain the sums of the account indexes
+		 */
+		private final IntFunction<BigDecimal> rowAmounts = this::amount;
+
+		private void save(Transaction transaction) {
+			int row;
+			int previous;
+			long stamp = lock.writeLock();
+			try {
+				row = append(transaction);
+				previous = rowsById.put(id(row), row);
+				if (LongIntHashMap.NO_VALUE != previous) {
+					dead++;
+				}
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+			if (LongIntHashMap.NO_VALUE != previous
+					&& account(previous).equals(transaction.getAccountId())) {
+				// Same account : keep the position of the replaced row
+				rowsByAccount.computeIfPresent(transaction.getAccountId(), (k,
+						index) -> index.replace(previous, row, comparators,
+						rowAmounts));
+				return;
+			}
+			if (LongIntHashMap.NO_VALUE != previous) {
+				unindex(previous);
+			}
+			rowsByAccount.compute(transaction.getAccountId(), (k,
+					index) -> (null == index ? AccountRowIndex.EMPTY : index)
+					.with(row, comparators, rowAmounts));
+		}
+
+		private void saveAll(Collection<Transaction> batch) {
+			int[] added = new int[batch.size()];
+			int[] previous = new int[batch.size()];
+			long stamp = lock.writeLock();
+			try {
+				int i = 0;
+				for (Transaction transaction : batch) {
+					added[i] = append(transaction);
+					previous[i] = rowsById.put(id(added[i]), added[i]);
+					if (LongIntHashMap.NO_VALUE != previous[i]) {
+						dead++;
+					}
+					i++;
+				}
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+			for (int row : previous) {
+				if (LongIntHashMap.NO_VALUE != row) {
+					unindex(row);
+				}
+			}
+			Map<String, int[]> byAccount = new HashMap<>();
+			Map<String, Integer> counts = new HashMap<>();
+			for (int row : added) {
+				counts.merge(account(row), 1, Integer::sum);
+			}
+			counts.forEach((accountId, count) -> byAccount.put(accountId,
+					new int[count]));
+			counts.clear();
+			for (int row : added) {
+				String accountId = account(row);
+				int position = counts.merge(accountId, 1, Integer::sum) - 1;
+				byAccount.get(accountId)[position] = row;
+			}
+			byAccount.forEach((accountId, rowsOfAccount) -> rowsByAccount
+					.compute(accountId, (k, index) -> (null == index
+							? AccountRowIndex.EMPTY : index).withAll(
+							rowsOfAccount, comparators, rowAmounts)));
+		}
+
+		private void delete(String id) {
+			long code = lookup(id);
+			if (0 == code) {
+				return;
+			}
+			int previous;
+			long stamp = lock.writeLock();
+			try {
+				previous = rowsById.remove(code);
+				if (LongIntHashMap.NO_VALUE != previous) {
+					dead++;
+				}
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+			if (LongIntHashMap.NO_VALUE != previous) {
+				unindex(previous);
+			}
+		}
+
+		/**
+		 * Whether the dead rows are more than {@link #MIN_DEAD_ROWS} and
+		 * than the live rows. Read without the lock by the thread which has
+		 * just written, then again under the compaction lock.
+		 */
+		private boolean needsCompaction() {
+			return dead >= MIN_DEAD_ROWS && dead > rows - dead;
+		}
+
+		/**
+		 * Copy the live rows to a new table, account by account, with only
+		 * the dictionary entries and overflow amounts they use. Runs with
+		 * the writes excluded.
+		 *
+		 * @return the new table
+		 */
+		private Table compact() {
+			Table compacted = new Table();
+			int[] moved = new int[rows];
+			rowsByAccount.forEach((accountId, index) -> {
+				for (int row : index.inserted()) {
+					moved[row] = compacted.append(materialize(row));
+					compacted.rowsById.put(compacted.id(moved[row]),
+							moved[row]);
+				}
+				compacted.rowsByAccount.put(accountId, index.remap(moved,
+						compacted.comparators));
+			});
+			return compacted;
+		}
+
+		/**
+		 * Get the live row of an id
+		 *
+		 * @param id
+		 *            the transaction id
+		 * @return the row or {@link LongIntHashMap#NO_VALUE}
+		 */
+		private int findRow(String id) {
+			long code = lookup(id);
+			if (0 == code) {
+				return LongIntHashMap.NO_VALUE;
+			}
+			long stamp = lock.tryOptimisticRead();
+			int row = rowsById.get(code);
+			if (!lock.validate(stamp)) {
+				stamp = lock.readLock();
+				try {
+					row = rowsById.get(code);
+				} finally {
+					lock.unlockRead(stamp);
+				}
+			}
+			return row;
+		}
+
+		/**
+		 * Remove a row from the index of its account
+		 *
+		 * @param row
+		 *            the indexed row
+		 */
+		private void unindex(int row) {
+			rowsByAccount.computeIfPresent(account(row), (k, index) -> index
+					.size() == 1 ? null : index.without(row, comparators,
+					rowAmounts));
+		}
+
+		/**
+		 * Append a row, under the write lock
+		 *
+		 * @param transaction
+		 *            the transaction to store
+		 * @return the row
+		 */
+		private int append(Transaction transaction) {
+			if (null == transaction.getBalance()) {
+				throw new IllegalArgumentException("Transaction "
+						+ transaction.getId() + " has no balance");
+			}
+			int row = rows;
+			Chunks c = chunks;
+			if (row >>> CHUNK_SHIFT == c.ids.length) {
+				c = c.grow();
+				chunks = c;
+			}
+			int chunk = row >>> CHUNK_SHIFT;
+			int offset = row & CHUNK_MASK;
+			c.ids[chunk][offset] = encode(transaction.getId());
+			c.numbers[chunk][offset] = encode(transaction.getNumber());
+			c.accounts[chunk][offset] = intern(transaction.getAccountId());
+			BigDecimal balance = transaction.getBalance();
+			long unscaled = balance.unscaledValue().bitLength() < Long.SIZE
+					? balance.unscaledValue().longValue() : OVERFLOW;
+			if (OVERFLOW == unscaled
+					|| balance.scale() != (byte) balance.scale()) {
+				c.amounts[chunk][offset] = OVERFLOW;
+				overflowAmounts.put(row, balance);
+			} else {
+				c.amounts[chunk][offset] = unscaled;
+				c.scales[chunk][offset] = (byte) balance.scale();
+			}
+			rows = row + 1;
+			return row;
+		}
+
+		private Transaction materialize(int row) {
+			Transaction transaction = new Transaction();
+			transaction.setId(decode(id(row)));
+			transaction.setAccountId(account(row));
+			transaction.setNumber(decode(number(row)));
+			transaction.setBalance(amount(row));
+			return transaction;
+		}
+
+		private List<Transaction> materialize(int[] rowsToMaterialize) {
+			return new AbstractList<Transaction>() {
+
+				@Override
+				public Transaction get(int index) {
+					return materialize(rowsToMaterialize[index]);
+				}
+
+				@Override
+				public int size() {
+					return rowsToMaterialize.length;
+				}
+			};
+		}
+
+		private long id(int row) {
+			return chunks.ids[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+		}
+
+		private long number(int row) {
+			return chunks.numbers[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+		}
+
+		private String account(int row) {
+			return strings[chunks.accounts[row >>> CHUNK_SHIFT][row & CHUNK_MASK]];
+		}
+
+		private BigDecimal amount(int row) {
+			Chunks c = chunks;
+			long unscaled = c.amounts[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+			if (OVERFLOW == unscaled) {
+				return overflowAmounts.get(row);
+			}
+			return BigDecimal.valueOf(unscaled,
+					c.scales[row >>> CHUNK_SHIFT][row & CHUNK_MASK]);
+		}
+
+		/**
+		 * Get the row comparator equivalent to
+		 * {@link TransactionSortField#getComparator()}
+		 *
+		 * @param field
+		 *            the sort field
+		 * @return the comparator
+		 */
+		private RowComparator comparator(TransactionSortField field) {
+			switch (field) {
+			case NUMBER:
+				return (row, other) -> {
+					int comparison = compareStrings(number(row), number(other));
+					return 0 != comparison ? comparison : compareIds(row, other);
+				};
+			case BALANCE:
+				return (row, other) -> {
+					int comparison = compareAmounts(row, other);
+					return 0 != comparison ? comparison : compareIds(row, other);
+				};
+			default:
+				return this::compareIds;
+			}
+		}
+
+		/**
+		 * Compare the ids of two rows as {@link TransactionSortField#ID_ORDER}
+		 * would
+		 */
+		private int compareIds(int row, int other) {
+			long code = id(row);
+			long otherCode = id(other);
+			if (code <= 0 || otherCode <= 0) {
+				return TransactionSortField.ID_ORDER.compare(decode(code),
+						decode(otherCode));
+			}
+			int length = (int) (code >>> LENGTH_SHIFT);
+			int otherLength = (int) (otherCode >>> LENGTH_SHIFT);
+			return length != otherLength ? Integer.compare(length, otherLength)
+					: Long.compare(code & PACKED_VALUE_MASK, otherCode
+							& PACKED_VALUE_MASK);
+		}
+
+		/**
+		 * Compare two string codes as {@link String#compareTo(String)} would
+		 * compare the strings
+		 */
+		private int compareStrings(long code, long other) {
+			if (code <= 0 || other <= 0) {
+				return decode(code).compareTo(decode(other));
+			}
+			int length = (int) (code >>> LENGTH_SHIFT);
+			int otherLength = (int) (other >>> LENGTH_SHIFT);
+			long value = code & PACKED_VALUE_MASK;
+			long otherValue = other & PACKED_VALUE_MASK;
+			if (length == otherLength) {
+				return Long.compare(value, otherValue);
+			}
+			// Pad the shorter string with zeros : on equality it is a prefix
+			if (length < otherLength) {
+				int comparison = Long.compare(value
+						* POWERS_OF_TEN[otherLength - length], otherValue);
+				return 0 != comparison ? comparison : -1;
+			}
+			int comparison = Long.compare(value, otherValue
+					* POWERS_OF_TEN[length - otherLength]);
+			return 0 != comparison ? comparison : 1;
+		}
+
+		/**
+		 * Compare the balances of two rows as
+		 * {@link BigDecimal#compareTo(BigDecimal)} would
+		 */
+		private int compareAmounts(int row, int other) {
+			Chunks c = chunks;
+			long unscaled = c.amounts[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+			long otherUnscaled = c.amounts[other >>> CHUNK_SHIFT][other
+					& CHUNK_MASK];
+			if (OVERFLOW != unscaled && OVERFLOW != otherUnscaled) {
+				int scale = c.scales[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+				int otherScale = c.scales[other >>> CHUNK_SHIFT][other
+						& CHUNK_MASK];
+				if (scale == otherScale) {
+					return Long.compare(unscaled, otherUnscaled);
+				}
+				try {
+					if (scale < otherScale) {
+						return Long.compare(rescale(unscaled, otherScale - scale),
+								otherUnscaled);
+					}
+					return Long.compare(unscaled,
+							rescale(otherUnscaled, scale - otherScale));
+				} catch (ArithmeticException e) {
+					// Does not fit in a long, compare as big decimals
+				}
+			}
+			return amount(row).compareTo(amount(other));
+		}
+
+		/**
+		 * Encode a string, adding it to the dictionary if needed, under the
+		 * write lock
+		 *
+		 * @param value
+		 *            the string
+		 * @return the code, 0 for null
+		 */
+		private long encode(String value) {
+			if (null == value) {
+				return 0;
+			}
+			long packed = pack(value);
+			return 0 != packed ? packed : -intern(value) - 1L;
+		}
+
+		/**
+		 * Get the position of a string in the dictionary, adding it if needed,
+		 * under the write lock
+		 *
+		 * @param value
+		 *            the string
+		 * @return the position
+		 */
+		private int intern(String value) {
+			Integer code = stringCodes.get(value);
+			if (null == code) {
+				code = stringCodes.size();
+				String[] s = strings;
+				if (code == s.length) {
+					s = Arrays.copyOf(s, s.length * 2);
+				}
+				s[code] = value;
+				strings = s;
+				stringCodes.put(value, code);
+			}
+			return code;
+		}
+
+		/**
+		 * Get the code of a string without adding it to the dictionary
+		 *
+		 * @param value
+		 *            the string
+		 * @return the code, 0 if the string has never been stored
+		 */
+		private long lookup(String value) {
+			if (null == value) {
+				return 0;
+			}
+			long packed = pack(value);
+			if (0 != packed) {
+				return packed;
+			}
+			Integer code = stringCodes.get(value);
+			return null == code ? 0 : -code - 1L;
+		}
+
+		private String decode(long code) {
+			if (0 == code) {
+				return null;
+			}
+			if (code < 0) {
+				return strings[(int) (-code - 1)];
+			}
+			char[] digits = new char[(int) (code >>> LENGTH_SHIFT)];
+			long value = code & PACKED_VALUE_MASK;
+			for (int i = digits.length - 1; i >= 0; i--) {
+				digits[i] = (char) ('0' + value % 10);
+				value /= 10;
+			}
+			return new String(digits);
+		}
+	}
+
+	private static long rescale(long unscaled, int digits) {
+		if (digits >= POWERS_OF_TEN.length) {
+			throw new ArithmeticException("long overflow");
+		}
+		return Math.multiplyExact(unscaled, POWERS_OF_TEN[digits]);
+	}
+
+	/**
+	 * Pack a digit string with its length, so that leading zeros are kept
+	 *
+	 * @param value
+	 *            the string
+	 * @return the code, 0 if the string cannot be packed
+	 */
+	private static long pack(String value) {
+		int length = value.length();
+		if (0 == length || length > MAX_PACKED_DIGITS) {
+			return 0;
+		}
+		long packed = 0;
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < '0' || c > '9') {
+				return 0;
+			}
+			packed = packed * 10 + c - '0';
+		}
+		return (long) length << LENGTH_SHIFT | packed;
+	}
+
+	private void assignId(Transaction transaction) {
+		if (null == transaction.getId()) {
+			transaction.setId(String.valueOf(sequence.incrementAndGet()));
+		} else if (0 != pack(transaction.getId())) {
+			// Generated ids must never collide with a numeric id
+			long value = Long.parseLong(transaction.getId());
+			if (value > sequence.get()) {
+				sequence.accumulateAndGet(value, Math::max);
+			}
+		}
+	}
+}
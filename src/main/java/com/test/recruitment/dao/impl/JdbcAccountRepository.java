@@ -0,0 +1,197 @@
+package com.test.recruitment.dao.impl;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import com.test.recruitment.dao.AccountRepository;
+import com.test.recruitment.entity.Account;
+
+/**
+ * Database implementation of {@link AccountRepository}, enabled by the
+ * <code>hsqldb</code> profile. Accounts are listed in creation order, a page
+ * at a time.
+ *
+ * @author A525125
+ *
+ */
+@Repository
+@Profile("hsqldb")
+public class JdbcAccountRepository implements AccountRepository,
+		InitializingBean {
+
+	private static final String[] SCHEMA = {
+			"CREATE TABLE ACCOUNTS (ID VARCHAR(64) NOT NULL PRIMARY KEY,"
+					+ " SEQ BIGINT NOT NULL, NUMBER VARCHAR(64),"
+					+ " TYPE VARCHAR(64), BALANCE DECIMAL("
+					+ JdbcTransactionRepository.STORED_PRECISION + ","
+					+ JdbcTransactionRepository.STORED_SCALE + "),"
+					+ " BALANCE_SCALE SMALLINT, CREATION_DATE TIMESTAMP,"
+					+ " ACTIVE BOOLEAN NOT NULL)",
+			"CREATE UNIQUE INDEX ACCOUNTS_BY_SEQ ON ACCOUNTS (SEQ)" };
+
+	private static final String COLUMNS = "ID, NUMBER, TYPE, BALANCE, BALANCE_SCALE, CREATION_DATE, ACTIVE, SEQ";
+
+	private static final String SELECT = "SELECT " + COLUMNS
+			+ " FROM ACCOUNTS";
+
+	private static final String FIND_ALL = SELECT + " ORDER BY SEQ";
+
+	private static final String FIND_PAGE = FIND_ALL
+			+ " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+
+	private static final String COUNT = "SELECT COUNT(*) FROM ACCOUNTS";
+
+	private static final String FIND_BY_ID = SELECT + " WHERE ID = ?";
+
+	private static final String FIND_ALL_BY_ID = SELECT
+			+ " WHERE ID IN (UNNEST(?))";
+
+	private static final String EXISTS = "SELECT COUNT(*) FROM ACCOUNTS WHERE ID = ?";
+
+	private static final String INSERT = "INSERT INTO ACCOUNTS (" + COLUMNS
+			+ ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private static final String UPDATE = "UPDATE ACCOUNTS SET NUMBER = ?,"
+			+ " TYPE = ?, BALANCE = ?, BALANCE_SCALE = ?, CREATION_DATE = ?,"
+			+ " ACTIVE = ? WHERE ID = ?";
+
+	private static final RowMapper<Account> ROW_MAPPER = (rs, row) -> account(rs);
+
+	private final JdbcTemplate jdbcTemplate;
+
+	/**
+	 * Last creation position
+	 */
+	private final AtomicLong positions = new AtomicLong();
+
+	@Autowired
+	public JdbcAccountRepository(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		if (JdbcSchema.create(jdbcTemplate, "ACCOUNTS", SCHEMA)) {
+			AccountRepositoryImpl.initialAccounts().forEach(this::save);
+		}
+		Long last = jdbcTemplate.queryForObject("SELECT MAX(SEQ) FROM ACCOUNTS",
+				Long.class);
+		positions.set(null == last ? 0 : last);
+	}
+
+	@Override
+	public Page<Account> findAll(Pageable p) {
+		if (null == p) {
+			return new PageImpl<Account>(jdbcTemplate.query(FIND_ALL,
+					ROW_MAPPER));
+		}
+		List<Account> content = jdbcTemplate.query(FIND_PAGE, ROW_MAPPER,
+				p.getOffset(), p.getPageSize());
+		long total = 0 == p.getOffset() && content.size() < p.getPageSize()
+				? content.size() : jdbcTemplate.queryForObject(COUNT,
+						Long.class);
+		return new PageImpl<Account>(content, p, total);
+	}
+
+	@Override
+	public Optional<Account> findById(String accountId) {
+		List<Account> result = jdbcTemplate.query(FIND_BY_ID, ROW_MAPPER,
+				accountId);
+		return result.isEmpty() ? Optional.empty() : Optional.of(result
+				.get(0));
+	}
+
+	/**
+	 * Read the accounts with a single statement, the ids being bound as an
+	 * array
+	 */
+	@Override
+	public Map<String, Account> findAllById(Collection<String> accountIds) {
+		Map<String, Account> result = new HashMap<>();
+		Object[] ids = accountIds.stream().filter(Objects::nonNull).toArray();
+		if (0 == ids.length) {
+			return result;
+		}
+		// Array created on the connection : see JdbcTransactionRepository
+		return jdbcTemplate.execute((Connection connection) -> {
+			Array array = connection.createArrayOf("VARCHAR", ids);
+			try (PreparedStatement ps = connection
+					.prepareStatement(FIND_ALL_BY_ID)) {
+				ps.setArray(1, array);
+				try (ResultSet rs = ps.executeQuery()) {
+					while (rs.next()) {
+						Account account = account(rs);
+						result.put(account.getId(), account);
+					}
+				}
+			} finally {
+				array.free();
+			}
+			return result;
+		});
+	}
+
+	@Override
+	public boolean exists(String accountId) {
+		return 0 != jdbcTemplate.queryForObject(EXISTS, Integer.class,
+				accountId);
+	}
+
+	@Override
+	public Account save(Account account) {
+		BigDecimal balance = null == account.getBalance() ? null
+				: JdbcTransactionRepository.stored(account.getBalance());
+		Integer scale = null == account.getBalance() ? null : account
+				.getBalance().scale();
+		Timestamp creationDate = null == account.getCreationDate() ? null
+				: new Timestamp(account.getCreationDate().getTime());
+		if (0 == jdbcTemplate.update(UPDATE, account.getNumber(),
+				account.getType(), balance, scale, creationDate,
+				account.isActive(), account.getId())) {
+			jdbcTemplate.update(INSERT, account.getId(), account.getNumber(),
+					account.getType(), balance, scale, creationDate,
+					account.isActive(), positions.incrementAndGet());
+		}
+		return account;
+	}
+
+	private static Account account(ResultSet rs) throws SQLException {
+		Account account = new Account();
+		account.setId(rs.getString(1));
+		account.setNumber(rs.getString(2));
+		account.setType(rs.getString(3));
+		BigDecimal balance = rs.getBigDecimal(4);
+		account.setBalance(null == balance ? null
+				: JdbcTransactionRepository.restored(balance, rs.getInt(5)));
+		Timestamp creationDate = rs.getTimestamp(6);
+		account.setCreationDate(null == creationDate ? null : new Date(
+				creationDate.getTime()));
+		account.setActive(rs.getBoolean(7));
+		return account;
+	}
+}
@@ -0,0 +1,69 @@
+package com.test.recruitment.dao.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Schema of the database repositories, created on the first start
+ *
+ * @author A525125
+ *
+ */
+@Slf4j
+final class JdbcSchema {
+
+	private JdbcSchema() {
+	}
+
+	/**
+	 * Create a table and its indexes if it does not exist yet
+	 *
+	 * @param jdbcTemplate
+	 *            the database
+	 * @param table
+	 *            the table
+	 * @param schema
+	 *            the DDL statements of the table
+	 * @return true if the table was created
+	 */
+	static boolean create(JdbcTemplate jdbcTemplate, String table,
+			String[] schema) {
+		Integer tables = jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES"
+						+ " WHERE TABLE_NAME = ?", Integer.class, table);
+		if (0 != tables) {
+			return false;
+		}
+		log.info("Creating table {}", table);
+		jdbcTemplate.batchUpdate(schema);
+		return true;
+	}
+
+	/**
+	 * Add a column to a table created before it, with the indexes using it
+	 *
+	 * @param jdbcTemplate
+	 *            the database
+	 * @param table
+	 *            the existing table
+	 * @param column
+	 *            the column
+	 * @param upgrade
+	 *            the DDL statements adding the column and its indexes
+	 * @return true if the column was added
+	 */
+	static boolean addColumn(JdbcTemplate jdbcTemplate, String table,
+			String column, String[] upgrade) {
+		Integer columns = jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS"
+						+ " WHERE TABLE_NAME = ? AND COLUMN_NAME = ?",
+				Integer.class, table, column);
+		if (0 != columns) {
+			return false;
+		}
+		log.info("Adding column {} to table {}", column, table);
+		jdbcTemplate.batchUpdate(upgrade);
+		return true;
+	}
+}
@@ -0,0 +1,642 @@
+package com.test.recruitment.dao.impl;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.test.recruitment.dao.TransactionCursor;
+import com.test.recruitment.dao.TransactionRepository;
+import com.test.recruitment.dao.TransactionSortField;
+import com.test.recruitment.dao.TransactionSummary;
+import com.test.recruitment.dao.TransactionTotals;
+import com.test.recruitment.entity.Transaction;
+
+/**
+ * Database implementation of {@link TransactionRepository}, enabled by the
+ * <code>hsqldb</code> profile.
+ * <p>
+ * Pages are read with an indexed ORDER BY and OFFSET / FETCH, cursors with
+ * an indexed range condition, and summaries are aggregated by the
+ * database. The page totals are counted once between two writes. All the
+ * statements are prepared from a fixed set of SQL strings, so that the
+ * statement cache of the pool reuses them ; bulk writes are sent as JDBC
+ * batches in a single database transaction.
+ * <p>
+ * Balances are stored as a DECIMAL with {@value #STORED_SCALE} decimals and
+ * their original scale, restored on read.
+ *
+ * @author A525125
+ *
+ */
+@Repository
+@Profile("hsqldb")
+public class JdbcTransactionRepository implements TransactionRepository,
+		InitializingBean {
+
+	/**
+	 * Decimals of the stored balances
+	 */
+	static final int STORED_SCALE = 12;
+
+	/**
+	 * Digits of the stored balances
+	 */
+	static final int STORED_PRECISION = 32;
+
+	/**
+	 * Rows read at once by a stream
+	 */
+	private static final int STREAM_CHUNK = 10_000;
+
+	/**
+	 * Rows sent to the database at once by a bulk write
+	 */
+	private static final int BATCH_SIZE = 1_000;
+
+	/**
+	 * Indexes of the sorted orders. Each one is led by its own copy of the
+	 * account id : HSQLDB picks the first index matching the account
+	 * condition, and only reads rows in index order when the ORDER BY lists
+	 * all the columns of that index. The ids are ordered by ID_LENGTH, a
+	 * column generated from the id, then ID, as
+	 * {@link TransactionSortField#ID_ORDER}.
+	 */
+	private static final String[] SORT_INDEXES = {
+			"CREATE INDEX TRANSACTIONS_BY_ID ON TRANSACTIONS"
+					+ " (ACCOUNT_BY_ID, ID_LENGTH, ID)",
+			"CREATE INDEX TRANSACTIONS_BY_NUMBER ON TRANSACTIONS"
+					+ " (ACCOUNT_BY_NUMBER, NUMBER, ID_LENGTH, ID)",
+			"CREATE INDEX TRANSACTIONS_BY_BALANCE ON TRANSACTIONS"
+					+ " (ACCOUNT_BY_BALANCE, BALANCE, ID_LENGTH, ID)" };
+
+	private static final String ID_LENGTH = "ID_LENGTH SMALLINT"
+			+ " GENERATED ALWAYS AS (CHAR_LENGTH(ID))";
+
+	private static final String[] SCHEMA = concat(new String[] {
+			"CREATE TABLE TRANSACTIONS (ID VARCHAR(64) NOT NULL PRIMARY KEY,"
+					+ " SEQ BIGINT NOT NULL, ACCOUNT_ID VARCHAR(64) NOT NULL,"
+					+ " NUMBER VARCHAR(64), BALANCE DECIMAL("
+					+ STORED_PRECISION + "," + STORED_SCALE + ") NOT NULL,"
+					+ " BALANCE_SCALE SMALLINT NOT NULL,"
+					+ " ACCOUNT_BY_ID VARCHAR(64) NOT NULL,"
+					+ " ACCOUNT_BY_NUMBER VARCHAR(64) NOT NULL,"
+					+ " ACCOUNT_BY_BALANCE VARCHAR(64) NOT NULL, "
+					+ ID_LENGTH + ")",
+			"CREATE INDEX TRANSACTIONS_BY_SEQ ON TRANSACTIONS (ACCOUNT_ID, SEQ)" },
+			SORT_INDEXES);
+
+	/**
+	 * Upgrade of a database created when the ids were sorted as strings
+	 */
+	private static final String[] ID_LENGTH_UPGRADE = concat(new String[] {
+			"ALTER TABLE TRANSACTIONS ADD COLUMN " + ID_LENGTH,
+			"DROP INDEX TRANSACTIONS_BY_ID",
+			"DROP INDEX TRANSACTIONS_BY_NUMBER",
+			"DROP INDEX TRANSACTIONS_BY_BALANCE" }, SORT_INDEXES);
+
+	private static final String COLUMNS = "ID, ACCOUNT_ID, NUMBER, BALANCE, BALANCE_SCALE, SEQ";
+
+	private static final String ACCOUNT_COPIES = "ACCOUNT_BY_ID, ACCOUNT_BY_NUMBER, ACCOUNT_BY_BALANCE";
+
+	private static final String SELECT = "SELECT " + COLUMNS
+			+ " FROM TRANSACTIONS";
+
+	private static final String FIND_BY_ID = SELECT + " WHERE ID = ?";
+
+	private static final String FIND_ALL_BY_ACCOUNT = SELECT
+			+ " WHERE ACCOUNT_ID = ? ORDER BY ACCOUNT_ID, SEQ";
+
+	private static final String PAGE = FIND_ALL_BY_ACCOUNT
+			+ " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+
+	private static final String STREAM_BY_ACCOUNT = SELECT
+			+ " WHERE ACCOUNT_ID = ? AND SEQ > ? ORDER BY ACCOUNT_ID, SEQ"
+			+ " FETCH FIRST " + STREAM_CHUNK + " ROWS ONLY";
+
+	private static final String LAST_NUMERIC_ID = "SELECT MAX(CAST(ID AS BIGINT))"
+			+ " FROM TRANSACTIONS WHERE REGEXP_MATCHES(ID, '[0-9]{1,18}')";
+
+	private static final String COUNT_BY_ACCOUNT = "SELECT COUNT(*) FROM TRANSACTIONS WHERE ACCOUNT_ID = ?";
+
+	private static final String SUMMARY = "SELECT COUNT(*), SUM(BALANCE),"
+			+ " MAX(BALANCE_SCALE) FROM TRANSACTIONS WHERE ACCOUNT_ID = ?";
+
+	private static final String TOTALS = "SELECT COUNT(*),"
+			+ " SUM(CASE WHEN BALANCE < 0 THEN 0 ELSE BALANCE END),"
+			+ " SUM(CASE WHEN BALANCE < 0 THEN BALANCE ELSE 0 END)"
+			+ " FROM TRANSACTIONS WHERE ACCOUNT_ID = ?";
+
+	private static final String INSERT = "INSERT INTO TRANSACTIONS ("
+			+ COLUMNS + ", " + ACCOUNT_COPIES
+			+ ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	/**
+	 * Keeps the position of a transaction replaced in the same account
+	 */
+	private static final String UPDATE = "UPDATE TRANSACTIONS SET"
+			+ " SEQ = CASE WHEN ACCOUNT_ID = ? THEN SEQ ELSE ? END,"
+			+ " ACCOUNT_ID = ?, NUMBER = ?, BALANCE = ?, BALANCE_SCALE = ?,"
+			+ " ACCOUNT_BY_ID = ?, ACCOUNT_BY_NUMBER = ?,"
+			+ " ACCOUNT_BY_BALANCE = ? WHERE ID = ?";
+
+	private static final String DELETE = "DELETE FROM TRANSACTIONS WHERE ID = ?";
+
+	/**
+	 * Page queries, by sort field and direction
+	 */
+	private static final String[][] PAGES = new String[TransactionSortField
+			.values().length][2];
+
+	/**
+	 * Cursor queries of the first slice, by sort field and direction
+	 */
+	private static final String[][] FIRST_SLICES = new String[TransactionSortField
+			.values().length][2];
+
+	/**
+	 * Cursor queries of the following slices, by sort field and direction.
+	 * The range on the sort key starts the index scan at the cursor.
+	 */
+	private static final String[][] NEXT_SLICES = new String[TransactionSortField
+			.values().length][2];
+
+	static {
+		for (TransactionSortField field : TransactionSortField.values()) {
+			for (Direction direction : Direction.values()) {
+				String suffix = Direction.ASC == direction ? "" : " DESC";
+				String after = Direction.ASC == direction ? " > ?" : " < ?";
+				String from = Direction.ASC == direction ? " >= ?" : " <= ?";
+				String column = field.name();
+				String account = "ACCOUNT_BY_" + column;
+				String orderBy;
+				String range;
+				String ids = "ID_LENGTH" + suffix + ", ID" + suffix;
+				// After the cursor id, in the id order
+				String idRange = "ID_LENGTH" + after
+						+ " OR ID_LENGTH = ? AND ID" + after;
+				if (TransactionSortField.ID == field) {
+					orderBy = account + suffix + ", " + ids;
+					range = "ID_LENGTH" + from + " AND (" + idRange + ")";
+				} else {
+					orderBy = account + suffix + ", " + column + suffix
+							+ ", " + ids;
+					range = column + from + " AND (" + column + after
+							+ " OR " + idRange + ")";
+				}
+				String where = SELECT + " WHERE " + account + " = ?";
+				int i = field.ordinal();
+				int j = direction.ordinal();
+				PAGES[i][j] = where + " ORDER BY " + orderBy
+						+ " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+				FIRST_SLICES[i][j] = where + " ORDER BY " + orderBy
+						+ " FETCH FIRST ? ROWS ONLY";
+				NEXT_SLICES[i][j] = where + " AND " + range + " ORDER BY "
+						+ orderBy + " FETCH FIRST ? ROWS ONLY";
+			}
+		}
+	}
+
+	private static final RowMapper<Transaction> ROW_MAPPER = (rs, row) -> transaction(rs);
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	/**
+	 * Last generated id
+	 */
+	private final AtomicLong sequence = new AtomicLong();
+
+	/**
+	 * Last insertion position
+	 */
+	private final AtomicLong positions = new AtomicLong();
+
+	/**
+	 * Number of writes, counted once they are committed
+	 */
+	private final AtomicLong writes = new AtomicLong();
+
+	/**
+	 * Transaction counts of the accounts, with the number of writes they
+	 * were read after. A count is valid as long as nothing was written :
+	 * the embedded database is only written by this repository.
+	 */
+	private final Map<String, long[]> counts = new ConcurrentHashMap<>();
+
+	@Autowired
+	public JdbcTransactionRepository(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.transactionTemplate = new TransactionTemplate(
+				new DataSourceTransactionManager(dataSource));
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		if (JdbcSchema.create(jdbcTemplate, "TRANSACTIONS", SCHEMA)) {
+			TransactionRepositoryImpl.initialTransactions().forEach(this::save);
+		} else {
+			JdbcSchema.addColumn(jdbcTemplate, "TRANSACTIONS", "ID_LENGTH",
+					ID_LENGTH_UPGRADE);
+		}
+		Long lastPosition = jdbcTemplate.queryForObject(
+				"SELECT MAX(SEQ) FROM TRANSACTIONS", Long.class);
+		positions.set(null == lastPosition ? 0 : lastPosition);
+		Long lastId = jdbcTemplate.queryForObject(LAST_NUMERIC_ID, Long.class);
+		sequence.set(null == lastId ? 0 : lastId);
+	}
+
+	@Override
+	public Transaction findById(String id) {
+		List<Transaction> result = jdbcTemplate.query(FIND_BY_ID, ROW_MAPPER,
+				id);
+		return result.isEmpty() ? null : result.get(0);
+	}
+
+	@Override
+	public Page<Transaction> getTransactionsByAccount(String accountId,
+			Pageable p) {
+		if (null == p) {
+			return new PageImpl<Transaction>(jdbcTemplate.query(
+					FIND_ALL_BY_ACCOUNT, ROW_MAPPER, accountId));
+		}
+		String sql;
+		if (null == p.getSort()) {
+			sql = PAGE;
+		} else {
+			Sort.Order order = p.getSort().iterator().next();
+			sql = PAGES[field(order).ordinal()][order.getDirection()
+					.ordinal()];
+		}
+		List<Transaction> content = jdbcTemplate.query(sql, ROW_MAPPER,
+				accountId, p.getOffset(), p.getPageSize());
+		// The count is only needed when the page does not tell it
+		long total = 0 == p.getOffset() && content.size() < p.getPageSize()
+				? content.size() : count(accountId);
+		return new PageImpl<Transaction>(content, p, total);
+	}
+
+	@Override
+	public Slice<Transaction> getTransactionsByAccount(String accountId,
+			TransactionCursor cursor, int size) {
+		TransactionSortField field = cursor.getField();
+		int i = field.ordinal();
+		int j = cursor.getDirection().ordinal();
+		List<Transaction> content;
+		// One more row tells if there is a next slice
+		if (cursor.isFirst()) {
+			content = jdbcTemplate.query(FIRST_SLICES[i][j], ROW_MAPPER,
+					accountId, size + 1);
+		} else if (TransactionSortField.ID == field) {
+			int length = cursor.getId().length();
+			content = jdbcTemplate.query(NEXT_SLICES[i][j], ROW_MAPPER,
+					accountId, length, length, length, cursor.getId(),
+					size + 1);
+		} else {
+			Object key = TransactionSortField.BALANCE == field
+					? new BigDecimal(cursor.getKey()) : cursor.getKey();
+			int length = cursor.getId().length();
+			content = jdbcTemplate.query(NEXT_SLICES[i][j], ROW_MAPPER,
+					accountId, key, key, length, length, cursor.getId(),
+					size + 1);
+		}
+		boolean hasNext = content.size() > size;
+		return new SliceImpl<Transaction>(hasNext ? content.subList(0, size)
+				: content, new PageRequest(0, size, new Sort(
+				cursor.getDirection(), field.getProperty())), hasNext);
+	}
+
+	/**
+	 * Reads the transactions by chunks of {@value #STREAM_CHUNK}, without
+	 * holding a connection between two chunks
+	 */
+	@Override
+	public Stream<Transaction> streamTransactionsByAccount(String accountId) {
+		return StreamSupport.stream(new Spliterators.AbstractSpliterator<Transaction>(
+				Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+
+			private List<Transaction> chunk = Collections.emptyList();
+
+			private int position;
+
+			private long lastSeq = Long.MIN_VALUE;
+
+			private boolean last;
+
+			@Override
+			public boolean tryAdvance(Consumer<? super Transaction> action) {
+				if (position == chunk.size()) {
+					if (last) {
+						return false;
+					}
+					List<Transaction> next = new ArrayList<>();
+					jdbcTemplate.query(STREAM_BY_ACCOUNT, rs -> {
+						next.add(transaction(rs));
+						lastSeq = rs.getLong(6);
+					}, accountId, lastSeq);
+					chunk = next;
+					position = 0;
+					last = next.size() < STREAM_CHUNK;
+					if (next.isEmpty()) {
+						return false;
+					}
+				}
+				action.accept(chunk.get(position++));
+				return true;
+			}
+		}, false);
+	}
+
+	@Override
+	public TransactionSummary getSummary(String accountId) {
+		TransactionSummary totals = jdbcTemplate.queryForObject(SUMMARY, (rs,
+				row) -> 0 == rs.getInt(1) ? TransactionSummary.EMPTY
+				// Scale of a sum of the balances, as if added one by one
+				: new TransactionSummary(rs.getInt(1), rs.getBigDecimal(2)
+						.setScale(Math.max(0, rs.getInt(3))), null, null),
+				accountId);
+		if (0 == totals.getCount()) {
+			return totals;
+		}
+		// Read from the balance index, like the sorted pages
+		int balance = TransactionSortField.BALANCE.ordinal();
+		List<Transaction> min = jdbcTemplate.query(
+				FIRST_SLICES[balance][Direction.ASC.ordinal()], ROW_MAPPER,
+				accountId, 1);
+		List<Transaction> max = jdbcTemplate.query(
+				FIRST_SLICES[balance][Direction.DESC.ordinal()], ROW_MAPPER,
+				accountId, 1);
+		if (min.isEmpty() || max.isEmpty()) {
+			// All deleted meanwhile
+			return TransactionSummary.EMPTY;
+		}
+		return new TransactionSummary(totals.getCount(), totals.getSum(), min
+				.get(0).getBalance(), max.get(0).getBalance());
+	}
+
+	@Override
+	public void addTotals(String accountId, TransactionTotals totals) {
+		jdbcTemplate.query(TOTALS, rs -> {
+			long count = rs.getLong(1);
+			if (0 != count) {
+				totals.add(count, rs.getBigDecimal(2).stripTrailingZeros(), rs
+						.getBigDecimal(3).stripTrailingZeros());
+			}
+		}, accountId);
+	}
+
+	/**
+	 * Nothing to do : the database maintains its indexes on every write
+	 */
+	@Override
+	public void buildIndexes(String accountId) {
+	}
+
+	@Override
+	public Transaction save(Transaction transaction) {
+		checkBalance(transaction);
+		long seq = positions.incrementAndGet();
+		if (null == transaction.getId()) {
+			transaction.setId(String.valueOf(sequence.incrementAndGet()));
+		} else {
+			updateSequence(transaction.getId());
+			String accountId = transaction.getAccountId();
+			if (0 != jdbcTemplate.update(UPDATE, accountId, seq, accountId,
+					transaction.getNumber(), stored(transaction.getBalance()),
+					transaction.getBalance().scale(), accountId, accountId,
+					accountId, transaction.getId())) {
+				writes.incrementAndGet();
+				return transaction;
+			}
+		}
+		jdbcTemplate.update(INSERT, ps -> bind(ps, transaction, seq));
+		writes.incrementAndGet();
+		return transaction;
+	}
+
+	/**
+	 * Replaced transactions are deleted then inserted again, at the end of
+	 * their account
+	 */
+	@Override
+	public void saveAll(Collection<Transaction> transactions) {
+		// Last one wins if the batch holds the same id twice
+		Map<String, Transaction> batch = new LinkedHashMap<>();
+		List<String> replaced = new ArrayList<>();
+		for (Transaction transaction : transactions) {
+			checkBalance(transaction);
+			if (null == transaction.getId()) {
+				transaction.setId(String.valueOf(sequence.incrementAndGet()));
+			} else {
+				updateSequence(transaction.getId());
+				replaced.add(transaction.getId());
+			}
+			batch.put(transaction.getId(), transaction);
+		}
+		List<Transaction> rows = new ArrayList<>(batch.values());
+		long first = positions.getAndAdd(rows.size()) + 1;
+		transactionTemplate.execute(status -> jdbcTemplate
+				.execute((Connection connection) -> {
+					if (!replaced.isEmpty()) {
+						batch(connection, DELETE, replaced.size(), (ps, i) -> ps
+								.setString(1, replaced.get(i)));
+					}
+					batch(connection, INSERT, rows.size(), (ps, i) -> bind(ps,
+							rows.get(i), first + i));
+					return null;
+				}));
+		writes.incrementAndGet();
+	}
+
+	@Override
+	public void delete(String id) {
+		jdbcTemplate.update(DELETE, id);
+		writes.incrementAndGet();
+	}
+
+	/**
+	 * Get the number of transactions of an account
+	 *
+	 * @param accountId
+	 *            the account id
+	 * @return the number of transactions
+	 */
+	private long count(String accountId) {
+		// Read before the count : a write committed meanwhile makes it stale
+		long written = writes.get();
+		long[] cached = counts.get(accountId);
+		if (null != cached && written == cached[0]) {
+			return cached[1];
+		}
+		long count = jdbcTemplate.queryForObject(COUNT_BY_ACCOUNT,
+				Long.class, accountId);
+		counts.put(accountId, new long[] { written, count });
+		return count;
+	}
+
+	/**
+	 * Get a balance as stored
+	 *
+	 * @param balance
+	 *            the balance
+	 * @return the balance with {@value #STORED_SCALE} decimals
+	 * @throws IllegalArgumentException
+	 *             if the balance cannot be stored without loss
+	 */
+	static BigDecimal stored(BigDecimal balance) {
+		if (balance.scale() > STORED_SCALE
+				|| balance.precision() - balance.scale() > STORED_PRECISION
+						- STORED_SCALE) {
+			throw new IllegalArgumentException("Balance " + balance
+					+ " cannot be stored");
+		}
+		return balance.setScale(STORED_SCALE);
+	}
+
+	/**
+	 * Get a stored balance with its original scale
+	 *
+	 * @param stored
+	 *            the stored balance
+	 * @param scale
+	 *            the original scale
+	 * @return the balance
+	 */
+	static BigDecimal restored(BigDecimal stored, int scale) {
+		return stored.setScale(scale);
+	}
+
+	private static Transaction transaction(ResultSet rs) throws SQLException {
+		Transaction transaction = new Transaction();
+		transaction.setId(rs.getString(1));
+		transaction.setAccountId(rs.getString(2));
+		transaction.setNumber(rs.getString(3));
+		transaction.setBalance(restored(rs.getBigDecimal(4), rs.getInt(5)));
+		return transaction;
+	}
+
+	private static void bind(PreparedStatement ps, Transaction transaction,
+			long seq) throws SQLException {
+		ps.setString(1, transaction.getId());
+		ps.setString(2, transaction.getAccountId());
+		ps.setString(3, transaction.getNumber());
+		ps.setBigDecimal(4, stored(transaction.getBalance()));
+		ps.setInt(5, transaction.getBalance().scale());
+		ps.setLong(6, seq);
+		ps.setString(7, transaction.getAccountId());
+		ps.setString(8, transaction.getAccountId());
+		ps.setString(9, transaction.getAccountId());
+	}
+
+	private static String[] concat(String[] statements, String[] more) {
+		String[] result = Arrays.copyOf(statements, statements.length
+				+ more.length);
+		System.arraycopy(more, 0, result, statements.length, more.length);
+		return result;
+	}
+
+	/**
+	 * Run a statement as JDBC batches of {@value #BATCH_SIZE} rows. The
+	 * statement is prepared on the connection itself : the statements of the
+	 * pool cache cannot tell their connection, which the batch support of
+	 * {@link JdbcTemplate} needs.
+	 *
+	 * @param connection
+	 *            the connection
+	 * @param sql
+	 *            the statement
+	 * @param rows
+	 *            the number of rows
+	 * @param setter
+	 *            binds the values of a row
+	 * @throws SQLException
+	 */
+	private static void batch(Connection connection, String sql, int rows,
+			ParameterizedPreparedStatementSetter<Integer> setter)
+			throws SQLException {
+		try (PreparedStatement ps = connection.prepareStatement(sql)) {
+			for (int i = 0; i < rows; i++) {
+				setter.setValues(ps, i);
+				ps.addBatch();
+				if (0 == (i + 1) % BATCH_SIZE || i + 1 == rows) {
+					ps.executeBatch();
+				}
+			}
+		}
+	}
+
+	private static void checkBalance(Transaction transaction) {
+		if (null == transaction.getBalance()) {
+			throw new IllegalArgumentException("Transaction "
+					+ transaction.getId() + " has no balance");
+		}
+	}
+
+	private static TransactionSortField field(Sort.Order order) {
+		TransactionSortField field = TransactionSortField.of(order
+				.getProperty());
+		if (null == field) {
+			throw new IllegalArgumentException("Cannot sort transactions on "
+					+ order.getProperty());
+		}
+		return field;
+	}
+
+	/**
+	 * Make sure that generated ids never collide with a numeric id saved by
+	 * the caller
+	 * 
+	 * @param id
+	 *            the saved id
+	 */
+	private void updateSequence(String id) {
+		if (id.isEmpty() || id.length() > 18) {
+			return;
+		}
+		for (int i = 0; i < id.length(); i++) {
+			if (!Character.isDigit(id.charAt(i))) {
+				return;
+			}
+		}
+		long value = Long.parseLong(id);
+		if (value > sequence.get()) {
+			sequence.accumulateAndGet(value, Math::max);
+		}
+	}
+}
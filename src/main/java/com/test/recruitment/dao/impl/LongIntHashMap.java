@@ -0,0 +1,166 @@
+package com.test.recruitment.dao.impl;
+
+/**
+ * Open addressing hash map from non-zero long keys to non-negative int
+ * values, without boxing. Writes must be serialized by the caller ; a read
+ * running concurrently with a write never fails, but may return a wrong
+ * result and must be validated (see
+ * {@link java.util.concurrent.locks.StampedLock#tryOptimisticRead()}).
+ *
+ * @author A525125
+ *
+ */
+final class LongIntHashMap {
+
+	static final int NO_VALUE = -1;
+
+	private static final long EMPTY = 0L;
+
+	/**
+	 * Keys and values are replaced together, so that a reader never sees a
+	 * key array and a value array of different sizes
+	 */
+	private static final class Table {
+
+		private final long[] keys;
+
+		private final int[] values;
+
+		private Table(int capacity) {
+			keys = new long[capacity];
+			values = new int[capacity];
+		}
+	}
+
+	private Table table;
+
+	private int size;
+
+	LongIntHashMap(int expectedSize) {
+		int capacity = 16;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		table = new Table(capacity);
+	}
+
+	/**
+	 * @return the number of entries
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Get the value of a key
+	 *
+	 * @param key
+	 *            the key, not 0
+	 * @return the value or {@link #NO_VALUE}
+	 */
+	int get(long key) {
+		Table t = table;
+		int mask = t.keys.length - 1;
+		int slot = hash(key) & mask;
+		for (int probes = 0; probes <= mask; probes++) {
+			long current = t.keys[slot];
+			if (current == key) {
+				return t.values[slot];
+			}
+			if (current == EMPTY) {
+				return NO_VALUE;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return NO_VALUE;
+	}
+
+	/**
+	 * Associate a value to a key
+	 *
+	 * @param key
+	 *            the key, not 0
+	 * @param value
+	 *            the value, not negative
+	 * @return the previous value or {@link #NO_VALUE}
+	 */
+	int put(long key, int value) {
+		if ((size + 1) * 2 > table.keys.length) {
+			resize(table.keys.length * 2);
+		}
+		Table t = table;
+		int mask = t.keys.length - 1;
+		int slot = hash(key) & mask;
+		while (t.keys[slot] != EMPTY) {
+			if (t.keys[slot] == key) {
+				int previous = t.values[slot];
+				t.values[slot] = value;
+				return previous;
+			}
+			slot = (slot + 1) & mask;
+		}
+		// Value first : a concurrent reader matching the key reads a value
+		t.values[slot] = value;
+		t.keys[slot] = key;
+		size++;
+		return NO_VALUE;
+	}
+
+	/**
+	 * Remove a key
+	 *
+	 * @param key
+	 *            the key, not 0
+	 * @return the removed value or {@link #NO_VALUE}
+	 */
+	int remove(long key) {
+		Table t = table;
+		int mask = t.keys.length - 1;
+		int slot = hash(key) & mask;
+		while (t.keys[slot] != key) {
+			if (t.keys[slot] == EMPTY) {
+				return NO_VALUE;
+			}
+			slot = (slot + 1) & mask;
+		}
+		int previous = t.values[slot];
+		// Backward shift deletion : keep the probe sequences without holes
+		int gap = slot;
+		int next = (gap + 1) & mask;
+		while (t.keys[next] != EMPTY) {
+			int home = hash(t.keys[next]) & mask;
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				t.values[gap] = t.values[next];
+				t.keys[gap] = t.keys[next];
+				gap = next;
+			}
+			next = (next + 1) & mask;
+		}
+		t.keys[gap] = EMPTY;
+		size--;
+		return previous;
+	}
+
+	private void resize(int capacity) {
+		Table old = table;
+		Table t = new Table(capacity);
+		int mask = capacity - 1;
+		for (int i = 0; i < old.keys.length; i++) {
+			long key = old.keys[i];
+			if (key != EMPTY) {
+				int slot = hash(key) & mask;
+				while (t.keys[slot] != EMPTY) {
+					slot = (slot + 1) & mask;
+				}
+				t.keys[slot] = key;
+				t.values[slot] = old.values[i];
+			}
+		}
+		table = t;
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
@@ -2,72 +2,236 @@ package com.test.recruitment.dao.impl;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Repository;
 
+import com.test.recruitment.dao.TransactionCursor;
 import com.test.recruitment.dao.TransactionRepository;
+import com.test.recruitment.dao.TransactionSummary;
+import com.test.recruitment.dao.TransactionTotals;
 import com.test.recruitment.entity.Transaction;
 
 /**
- * Implementation of {@link TransactionRepository}
+ * Implementation of {@link TransactionRepository}. Reads are lock-free :
+ * writes publish new immutable account indexes, so readers always see a
+ * complete index. Writes on the same account must be serialized by the
+ * caller.
  * 
  * @author A525125
  *
  */
 @Repository
+@Profile("!hsqldb")
+@ConditionalOnProperty(name = "recruitment.repository.transaction-storage",
+		havingValue = "object", matchIfMissing = true)
 public class TransactionRepositoryImpl implements TransactionRepository,
 		InitializingBean {
 
-	private List<Transaction> transactions;
+	/**
+	 * Primary index : transactions by id
+	 */
+	private Map<String, Transaction> transactions;
+
+	/**
+	 * Secondary index : transactions by account id, in insertion order and
+	 * sorted on every sortable field
+	 */
+	private Map<String, AccountTransactionIndex> transactionsByAccount;
+
+	/**
+	 * Last generated id
+	 */
+	private AtomicLong sequence;
 
 	@Override
 	public void afterPropertiesSet() throws Exception {
-		transactions = new ArrayList<>();
-		{
-			Transaction transaction = new Transaction();
-			transaction.setAccountId("1");
-			transaction.setBalance(BigDecimal.valueOf(42.12));
-			transaction.setId("1");
-			transaction.setNumber("12151885120");
-			transactions.add(transaction);
-		}
-		{
-			Transaction transaction = new Transaction();
-			transaction.setAccountId("1");
-			transaction.setBalance(BigDecimal.valueOf(456.00));
-			transaction.setId("2");
-			transaction.setNumber("12151885121");
-			transactions.add(transaction);
-		}
-		{
-			Transaction transaction = new Transaction();
-			transaction.setAccountId("1");
-			transaction.setBalance(BigDecimal.valueOf(-12.12));
-			transaction.setId("3");
-			transaction.setNumber("12151885122");
-			transactions.add(transaction);
-		}
+		transactions = new ConcurrentHashMap<>();
+		transactionsByAccount = new ConcurrentHashMap<>();
+		sequence = new AtomicLong();
+		initialTransactions().forEach(this::save);
+	}
+
+	/**
+	 * @return the transactions every repository starts with
+	 */
+	static List<Transaction> initialTransactions() {
+		return Arrays.asList(
+				transaction("1", "1", "12151885120", BigDecimal.valueOf(42.12)),
+				transaction("2", "1", "12151885121", BigDecimal.valueOf(456.00)),
+				transaction("3", "1", "12151885122", BigDecimal.valueOf(-12.12)));
+	}
+
+	private static Transaction transaction(String id, String accountId,
+			String number, BigDecimal balance) {
+		Transaction transaction = new Transaction();
+		transaction.setAccountId(accountId);
+		transaction.setBalance(balance);
+		transaction.setId(id);
+		transaction.setNumber(number);
+		return transaction;
 	}
 
 	@Override
 	public Transaction findById(String id) {
-		return transactions.stream()
-				.filter(transaction -> transaction.getId().equals(id))
-				.findFirst().orElse(null);
+		return transactions.get(id);
 	}
 
 	@Override
 	public Page<Transaction> getTransactionsByAccount(String accountId,
 			Pageable p) {
-		return new PageImpl<Transaction>(transactions.stream()
-				.filter(t -> t.getAccountId().equals(accountId))
-				.collect(Collectors.toList()));
+		AccountTransactionIndex index = transactionsByAccount.getOrDefault(
+				accountId, AccountTransactionIndex.EMPTY);
+		if (null == p) {
+			return new PageImpl<Transaction>(index.slice(null, 0,
+					index.size()));
+		}
+		Sort.Order order = null == p.getSort() ? null : p.getSort()
+				.iterator().next();
+		return new PageImpl<Transaction>(index.slice(order, p.getOffset(),
+				p.getPageSize()), p, index.size());
+	}
+
+	@Override
+	public Slice<Transaction> getTransactionsByAccount(String accountId,
+			TransactionCursor cursor, int size) {
+		return transactionsByAccount.getOrDefault(accountId,
+				AccountTransactionIndex.EMPTY).seek(cursor, size);
+	}
+
+	@Override
+	public Stream<Transaction> streamTransactionsByAccount(String accountId) {
+		return transactionsByAccount.getOrDefault(accountId,
+				AccountTransactionIndex.EMPTY).stream();
+	}
+
+	@Override
+	public TransactionSummary getSummary(String accountId) {
+		return transactionsByAccount.getOrDefault(accountId,
+				AccountTransactionIndex.EMPTY).summary();
+	}
+
+	@Override
+	public void addTotals(String accountId, TransactionTotals totals) {
+		transactionsByAccount.getOrDefault(accountId,
+				AccountTransactionIndex.EMPTY).addTotals(totals);
 	}
 
+	@Override
+	public void buildIndexes(String accountId) {
+		AccountTransactionIndex index = transactionsByAccount.get(accountId);
+		if (null != index) {
+			index.prepare();
+		}
+	}
+
+	@Override
+	public Transaction save(Transaction transaction) {
+		if (null == transaction.getId()) {
+			transaction.setId(String.valueOf(sequence.incrementAndGet()));
+		} else {
+			updateSequence(transaction.getId());
+		}
+		Transaction previous = transactions.put(transaction.getId(),
+				transaction);
+		if (null != previous
+				&& previous.getAccountId().equals(transaction.getAccountId())) {
+			// Same account : keep the position of the replaced transaction
+			transactionsByAccount.computeIfPresent(previous.getAccountId(),
+					(k, index) -> index.replace(previous, transaction));
+			return transaction;
+		}
+		if (null != previous) {
+			unindex(previous);
+		}
+		transactionsByAccount.compute(transaction.getAccountId(), (k,
+				index) -> (null == index ? AccountTransactionIndex.EMPTY
+				: index).with(transaction));
+		return transaction;
+	}
+
+	@Override
+	public void saveAll(Collection<Transaction> transactions) {
+		// Last one wins if the batch holds the same id twice
+		Map<String, Transaction> batch = new LinkedHashMap<>();
+		for (Transaction transaction : transactions) {
+			if (null == transaction.getId()) {
+				transaction.setId(String.valueOf(sequence.incrementAndGet()));
+			} else {
+				updateSequence(transaction.getId());
+			}
+			batch.put(transaction.getId(), transaction);
+		}
+		Map<String, List<Transaction>> byAccount = new HashMap<>();
+		for (Transaction transaction : batch.values()) {
+			Transaction previous = this.transactions.put(transaction.getId(),
+					transaction);
+			if (null != previous) {
+				unindex(previous);
+			}
+			byAccount.computeIfAbsent(transaction.getAccountId(),
+					k -> new ArrayList<>()).add(transaction);
+		}
+		byAccount.forEach((accountId, added) -> transactionsByAccount
+				.compute(accountId, (k, index) -> (null == index
+						? AccountTransactionIndex.EMPTY : index).withAll(added)));
+	}
+
+	@Override
+	public void delete(String id) {
+		Transaction previous = transactions.remove(id);
+		if (null != previous) {
+			unindex(previous);
+		}
+	}
+
+	/**
+	 * Remove a transaction from the index of its account
+	 * 
+	 * @param transaction
+	 *            the indexed instance
+	 */
+	private void unindex(Transaction transaction) {
+		transactionsByAccount.computeIfPresent(transaction.getAccountId(), (
+				k, index) -> index.size() == 1 ? null : index
+				.without(transaction));
+	}
+
+	/**
+	 * Make sure that generated ids never collide with a numeric id saved by
+	 * the caller
+	 * 
+	 * @param id
+	 *            the saved id
+	 */
+	private void updateSequence(String id) {
+		if (id.isEmpty() || id.length() > 18) {
+			return;
+		}
+		for (int i = 0; i < id.length(); i++) {
+			if (!Character.isDigit(id.charAt(i))) {
+				return;
+			}
+		}
+		long value = Long.parseLong(id);
+		if (value > sequence.get()) {
+			sequence.accumulateAndGet(value, Math::max);
+		}
+	}
 }
@@ -0,0 +1,928 @@
+package com.test.recruitment.dao.journal;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.test.recruitment.dao.AccountRepository;
+import com.test.recruitment.dao.TransactionRepository;
+import com.test.recruitment.entity.Account;
+import com.test.recruitment.entity.Transaction;
+import com.test.recruitment.metrics.StartupReport;
+
+/**
+ * Append-only journal of the repository writes, making the in-memory store
+ * durable without slowing down its reads.
+ * <p>
+ * The writes are grouped in units (see {@link #atomically(Supplier)}), each
+ * one appended as a single frame : length, CRC-32 and records. A unit
+ * returns once its frame is synced to disk ; the units waiting meanwhile
+ * are synced together by the next one (group commit), so that a sync is
+ * shared by all the concurrent writers.
+ * <p>
+ * The journal is split in segments. Every <code>snapshot-interval</code>
+ * records, a new segment is started and the store is written to a snapshot
+ * of the start of this segment, in the background ; the older segments and
+ * snapshots are then deleted. On startup, the latest snapshot is loaded
+ * (memory-mapped) and the following segments are replayed. A torn frame at
+ * the end of the last segment, left by a crash during a write, is
+ * truncated : its unit had not returned.
+ * <p>
+ * A failure to write or sync a frame stops the journal : the unit waiting
+ * for it, the units appended meanwhile and all the following ones fail,
+ * as the frames after a failed write cannot be made durable in order. The
+ * store is then read-only until a restart recovers the durable frames.
+ * <p>
+ * The accounts written in a snapshot are the ones returned by
+ * {@link AccountRepository#findAll}, with the transactions of these
+ * accounts.
+ * <p>
+ * Without snapshot, the repositories start from their built-in data or,
+ * when <code>recruitment.seed.image</code> is set, from a seed image : a
+ * file in the snapshot format (a snapshot can be used as a seed image),
+ * loaded the same way, whether the journal is enabled or not. After a bulk
+ * load, the indexes of the accounts are built in parallel in the
+ * background ; until then, they are built on their first use. The load
+ * durations are reported to the {@link StartupReport}.
+ *
+ * @author A525125
+ *
+ */
+@Slf4j
+@Component
+public class Journal implements SmartInitializingSingleton, DisposableBean,
+		PublicMetrics {
+
+	private static final String SEGMENT_PREFIX = "journal-";
+
+	private static final String SEGMENT_SUFFIX = ".log";
+
+	private static final String SNAPSHOT_PREFIX = "snapshot-";
+
+	private static final String SNAPSHOT_SUFFIX = ".bin";
+
+	/**
+	 * Length and CRC of a frame
+	 */
+	private static final int FRAME_HEADER = 8;
+
+	private static final String METRIC_PREFIX = "journal.";
+
+	/**
+	 * Transactions replayed in one bulk save
+	 */
+	private static final int REPLAY_BATCH = 10_000;
+
+	/**
+	 * Byte buffer giving access to its content without copy
+	 */
+	private static final class Buffer extends ByteArrayOutputStream {
+
+		private Buffer() {
+			super(1 << 16);
+		}
+
+		private ByteBuffer content() {
+			return ByteBuffer.wrap(buf, 0, count);
+		}
+	}
+
+	/**
+	 * Records of the unit open on a thread
+	 */
+	private static final class Unit {
+
+		private final Buffer records = new Buffer();
+
+		private final DataOutputStream out = new DataOutputStream(records);
+
+		private int count;
+
+		private int depth;
+	}
+
+	private final boolean enabled;
+
+	private final Path directory;
+
+	private final long snapshotInterval;
+
+	private final boolean fsync;
+
+	private final Path seedImage;
+
+	private final StartupReport startupReport;
+
+	private AccountRepository accountRepository;
+
+	private TransactionRepository transactionRepository;
+
+	/**
+	 * Held for reading by the units while they write and append their frame,
+	 * and for writing by a snapshot to cut the store at a segment start
+	 */
+	private final ReentrantReadWriteLock cutLock = new ReentrantReadWriteLock();
+
+	/**
+	 * Guards the appended frames
+	 */
+	private final Object appendLock = new Object();
+
+	/**
+	 * Held by the thread writing and syncing the appended frames
+	 */
+	private final ReentrantLock flushLock = new ReentrantLock();
+
+	private final Object snapshotLock = new Object();
+
+	private final ThreadLocal<Unit> units = ThreadLocal.withInitial(Unit::new);
+
+	/**
+	 * Frames appended since the last flush, swapped with
+	 * {@link #flushedFrames} on each flush
+	 */
+	private Buffer appendedFrames = new Buffer();
+
+	private Buffer flushedFrames = new Buffer();
+
+	/**
+	 * Number of frames appended
+	 */
+	private long appended;
+
+	/**
+	 * Number of frames synced
+	 */
+	private volatile long durable;
+
+	/**
+	 * Failure of a write or sync, stopping the journal
+	 */
+	private volatile IOException failure;
+
+	private final AtomicLong syncs = new AtomicLong();
+
+	private final AtomicLong recordsSinceSnapshot = new AtomicLong();
+
+	private final AtomicBoolean snapshotRunning = new AtomicBoolean();
+
+	private ExecutorService snapshotExecutor;
+
+	private FileChannel channel;
+
+	private long segment;
+
+	/**
+	 * Disabled journal : units are run without being recorded
+	 */
+	public Journal() {
+		this(false, ".", 0, false);
+	}
+
+	/**
+	 * Journal without seed image
+	 *
+	 * @param enabled
+	 *            true to record the writes
+	 * @param directory
+	 *            the directory of the journal segments and snapshots
+	 * @param snapshotInterval
+	 *            the number of records between two snapshots, 0 to take
+	 *            snapshots only on demand
+	 * @param fsync
+	 *            false to write the frames without syncing them
+	 */
+	public Journal(boolean enabled, String directory, long snapshotInterval,
+			boolean fsync) {
+		this(enabled, directory, snapshotInterval, fsync, "",
+				new StartupReport());
+	}
+
+	/**
+	 * @param enabled
+	 *            true to record the writes
+	 * @param directory
+	 *            the directory of the journal segments and snapshots
+	 * @param snapshotInterval
+	 *            the number of records between two snapshots, 0 to take
+	 *            snapshots only on demand
+	 * @param fsync
+	 *            false to write the frames without syncing them, which only
+	 *            survives a crash of the process, not of the system
+	 * @param seedImage
+	 *            the image loaded without snapshot, empty for none
+	 * @param startupReport
+	 *            the report of the load durations
+	 */
+	@Autowired
+	public Journal(
+			@Value("${recruitment.persistence.enabled:false}") boolean enabled,
+			@Value("${recruitment.persistence.directory:data}") String directory,
+			@Value("${recruitment.persistence.snapshot-interval:1000000}") long snapshotInterval,
+			@Value("${recruitment.persistence.fsync:true}") boolean fsync,
+			@Value("${recruitment.seed.image:}") String seedImage,
+			StartupReport startupReport) {
+		this.enabled = enabled;
+		this.directory = Paths.get(directory);
+		this.snapshotInterval = snapshotInterval;
+		this.fsync = fsync;
+		this.seedImage = seedImage.isEmpty() ? null : Paths.get(seedImage);
+		this.startupReport = startupReport;
+	}
+
+	/**
+	 * @return true if the writes are recorded
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Set the account repository restored on startup and written in the
+	 * snapshots
+	 *
+	 * @param accountRepository
+	 *            the repository, without journaling
+	 */
+	public void attach(AccountRepository accountRepository) {
+		this.accountRepository = accountRepository;
+	}
+
+	/**
+	 * Set the transaction repository restored on startup and written in the
+	 * snapshots
+	 *
+	 * @param transactionRepository
+	 *            the repository, without journaling
+	 */
+	public void attach(TransactionRepository transactionRepository) {
+		this.transactionRepository = transactionRepository;
+	}
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		try {
+			if (enabled) {
+				recover();
+			} else if (null != seedImage) {
+				load(seedImage);
+				buildIndexes();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot load the data from "
+					+ (enabled ? directory : seedImage), e);
+		}
+	}
+
+	/**
+	 * Restore the attached repositories from the latest snapshot, or the
+	 * seed image, and the following segments, then open the last segment
+	 * for writing. The repositories must hold their built-in data, which a
+	 * snapshot or image replaces.
+	 *
+	 * @throws IOException
+	 */
+	public void recover() throws IOException {
+		if (null == accountRepository || null == transactionRepository) {
+			throw new IllegalStateException("No repository to recover");
+		}
+		long start = System.nanoTime();
+		Files.createDirectories(directory);
+		TreeMap<Long, Path> snapshots = list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+		TreeMap<Long, Path> segments = list(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+		long transactions = 0;
+		long base = 0;
+		if (!snapshots.isEmpty()) {
+			base = snapshots.lastKey();
+			transactions = load(snapshots.lastEntry().getValue());
+		} else if (null != seedImage) {
+			transactions = load(seedImage);
+		}
+		long replay = System.nanoTime();
+		segment = segments.isEmpty() ? base : Math.max(base,
+				segments.lastKey());
+		long records = 0;
+		for (Path path : segments.tailMap(base).values()) {
+			records += replay(path, path.equals(segments.lastEntry()
+					.getValue()));
+		}
+		channel = openSegment(segmentPath(segment));
+		deleteBefore(base);
+		snapshotExecutor = Executors
+				.newSingleThreadExecutor(new CustomizableThreadFactory(
+						"journal-snapshot-"));
+		recordsSinceSnapshot.set(records);
+		startupReport.record("data.replay", System.nanoTime() - replay);
+		log.info("Recovered {} snapshot transactions and {} journal records"
+				+ " from {} in {} ms", transactions, records, directory,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		buildIndexes();
+	}
+
+	/**
+	 * Run a unit of writes : the records logged while it runs are appended
+	 * as a single frame, atomically replayed, and the unit returns once they
+	 * are durable. A unit run inside another one joins it.
+	 * <p>
+	 * A unit that throws is still appended : the store has no rollback, and
+	 * a record is only logged once its write is applied, so the frame holds
+	 * exactly the writes the readers may already see. Skipping it would
+	 * lose them on restart while they were served before.
+	 *
+	 * @param unit
+	 *            the writes, applied to the store and logged
+	 * @return the result of the unit
+	 * @throws UncheckedIOException
+	 *             if the journal failed, before running the unit, or if its
+	 *             frame cannot be made durable
+	 */
+	public <T> T atomically(Supplier<T> unit) {
+		if (!enabled) {
+			return unit.get();
+		}
+		Unit current = units.get();
+		if (current.depth > 0) {
+			current.depth++;
+			try {
+				return unit.get();
+			} finally {
+				current.depth--;
+			}
+		}
+		checkFailure();
+		long frame = 0;
+		cutLock.readLock().lock();
+		current.depth = 1;
+		try {
+			return unit.get();
+		} finally {
+			current.depth = 0;
+			try {
+				// Also when the unit threw : its writes were applied
+				frame = append(current);
+			} finally {
+				cutLock.readLock().unlock();
+			}
+			awaitDurable(frame);
+		}
+	}
+
+	/**
+	 * Log an account saved in the current unit
+	 *
+	 * @param account
+	 *            the saved account
+	 */
+	public void logAccount(Account account) {
+		Unit unit = currentUnit();
+		try {
+			unit.out.writeByte(JournalCodec.ACCOUNT);
+			JournalCodec.writeAccount(unit.out, account);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		unit.count++;
+	}
+
+	/**
+	 * Log transactions saved in the current unit
+	 *
+	 * @param transactions
+	 *            the saved transactions, with their id
+	 */
+	public void logTransactions(Collection<Transaction> transactions) {
+		Unit unit = currentUnit();
+		try {
+			for (Transaction transaction : transactions) {
+				unit.out.writeByte(JournalCodec.TRANSACTION);
+				JournalCodec.writeTransaction(unit.out, transaction);
+				unit.count++;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Log a transaction deleted in the current unit
+	 *
+	 * @param id
+	 *            the id of the deleted transaction
+	 */
+	public void logDelete(String id) {
+		Unit unit = currentUnit();
+		try {
+			unit.out.writeByte(JournalCodec.DELETE);
+			JournalCodec.writeString(unit.out, id);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		unit.count++;
+	}
+
+	/**
+	 * Start a new segment and write the snapshot of its start. The units are
+	 * only blocked while the segment is switched : the snapshot is written
+	 * from the immutable indexes of the store.
+	 *
+	 * @throws IOException
+	 */
+	public void snapshot() throws IOException {
+		synchronized (snapshotLock) {
+			long next;
+			List<Account> accounts;
+			List<Stream<Transaction>> transactions;
+			cutLock.writeLock().lock();
+			try {
+				flushLock.lock();
+				try {
+					flush();
+					channel.close();
+					next = segment + 1;
+					channel = openSegment(segmentPath(next));
+					segment = next;
+				} finally {
+					flushLock.unlock();
+				}
+				accounts = new ArrayList<>(accountRepository.findAll(null)
+						.getContent());
+				transactions = accounts
+						.stream()
+						.map(account -> transactionRepository
+								.streamTransactionsByAccount(account.getId()))
+						.collect(Collectors.toList());
+				recordsSinceSnapshot.set(0);
+			} finally {
+				cutLock.writeLock().unlock();
+			}
+			long start = System.nanoTime();
+			long count = Snapshots.write(
+					directory.resolve(SNAPSHOT_PREFIX + next + SNAPSHOT_SUFFIX),
+					next, accounts, transactions);
+			syncDirectory();
+			deleteBefore(next);
+			log.info("Snapshot of {} accounts and {} transactions in {} ms",
+					accounts.size(), count, TimeUnit.NANOSECONDS
+							.toMillis(System.nanoTime() - start));
+		}
+	}
+
+	/**
+	 * Write a seed image of repositories, in the snapshot format
+	 *
+	 * @param target
+	 *            the image file
+	 * @param accountRepository
+	 *            the accounts to write
+	 * @param transactionRepository
+	 *            the transactions of the accounts
+	 * @return the number of transactions written
+	 * @throws IOException
+	 */
+	public static long writeImage(Path target,
+			AccountRepository accountRepository,
+			TransactionRepository transactionRepository) throws IOException {
+		List<Account> accounts = accountRepository.findAll(null).getContent();
+		return Snapshots.write(target, 0, accounts, accounts
+				.stream()
+				.map(account -> transactionRepository
+						.streamTransactionsByAccount(account.getId()))
+				.collect(Collectors.toList()));
+	}
+
+	/**
+	 * @return the number of frames appended
+	 */
+	public long getFrames() {
+		synchronized (appendLock) {
+			return appended;
+		}
+	}
+
+	/**
+	 * @return the number of syncs, each one making one or more frames
+	 *         durable
+	 */
+	public long getSyncs() {
+		return syncs.get();
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		Collection<Metric<?>> metrics = new ArrayList<>();
+		if (enabled) {
+			metrics.add(new Metric<Long>(METRIC_PREFIX + "frames",
+					getFrames()));
+			metrics.add(new Metric<Long>(METRIC_PREFIX + "syncs", getSyncs()));
+			metrics.add(new Metric<Long>(METRIC_PREFIX + "segment", segment));
+		}
+		return metrics;
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if (null == channel) {
+			return;
+		}
+		snapshotExecutor.shutdown();
+		snapshotExecutor.awaitTermination(1, TimeUnit.MINUTES);
+		flushLock.lock();
+		try {
+			if (null == failure) {
+				flush();
+			}
+			channel.close();
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	/**
+	 * Open a segment for appending
+	 *
+	 * @param path
+	 *            the segment
+	 * @return the channel the frames are written to
+	 * @throws IOException
+	 */
+	protected FileChannel openSegment(Path path) throws IOException {
+		return FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+	}
+
+	/**
+	 * @throws UncheckedIOException
+	 *             if the journal failed
+	 */
+	private void checkFailure() {
+		IOException cause = failure;
+		if (null != cause) {
+			throw new UncheckedIOException("The journal failed", cause);
+		}
+	}
+
+	private Unit currentUnit() {
+		Unit unit = units.get();
+		if (0 == unit.depth) {
+			throw new IllegalStateException("No journal unit running");
+		}
+		return unit;
+	}
+
+	/**
+	 * Append the frame of a unit
+	 *
+	 * @param unit
+	 *            the unit, reset for the next one
+	 * @return the number of the frame, 0 if the unit logged nothing
+	 */
+	private long append(Unit unit) {
+		if (0 == unit.count) {
+			return 0;
+		}
+		checkFailure();
+		int records = unit.count;
+		ByteBuffer content = unit.records.content();
+		CRC32 crc = new CRC32();
+		crc.update(content.array(), 0, content.limit());
+		long frame;
+		synchronized (appendLock) {
+			DataOutputStream out = new DataOutputStream(appendedFrames);
+			try {
+				out.writeInt(content.limit());
+				out.writeInt((int) crc.getValue());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			appendedFrames.write(content.array(), 0, content.limit());
+			frame = ++appended;
+		}
+		unit.records.reset();
+		unit.count = 0;
+		if (snapshotInterval > 0
+				&& recordsSinceSnapshot.addAndGet(records) >= snapshotInterval
+				&& snapshotRunning.compareAndSet(false, true)) {
+			snapshotExecutor.execute(() -> {
+				try {
+					snapshot();
+				} catch (IOException | RuntimeException e) {
+					log.error("Snapshot failed", e);
+				} finally {
+					snapshotRunning.set(false);
+				}
+			});
+		}
+		return frame;
+	}
+
+	/**
+	 * Wait for a frame to be durable, syncing it along with the frames
+	 * appended meanwhile if no other thread does
+	 *
+	 * @param frame
+	 *            the frame number, 0 for none
+	 * @throws UncheckedIOException
+	 *             if the journal failed before the frame was durable
+	 */
+	private void awaitDurable(long frame) {
+		while (durable < frame) {
+			checkFailure();
+			flushLock.lock();
+			try {
+				if (durable < frame) {
+					flush();
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException("Cannot write the journal", e);
+			} finally {
+				flushLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Write and sync the appended frames, holding the flush lock. On a
+	 * failure, the journal is stopped : the frames are not durable, and
+	 * none is written after a frame that may be torn.
+	 *
+	 * @throws IOException
+	 *             if the frames cannot be written and synced, or if the
+	 *             journal failed before
+	 */
+	private void flush() throws IOException {
+		if (null != failure) {
+			throw new IOException("The journal failed", failure);
+		}
+		Buffer frames;
+		long upTo;
+		synchronized (appendLock) {
+			frames = appendedFrames;
+			appendedFrames = flushedFrames;
+			flushedFrames = frames;
+			upTo = appended;
+		}
+		if (frames.size() > 0) {
+			ByteBuffer content = frames.content();
+			try {
+				while (content.hasRemaining()) {
+					channel.write(content);
+				}
+				if (fsync) {
+					channel.force(false);
+				}
+			} catch (IOException e) {
+				failure = e;
+				log.error("Journal stopped after frame {}", durable, e);
+				throw e;
+			}
+			syncs.incrementAndGet();
+			frames.reset();
+		}
+		durable = upTo;
+	}
+
+	/**
+	 * Replay a segment
+	 *
+	 * @param path
+	 *            the segment
+	 * @param last
+	 *            true for the last segment, whose torn tail is truncated
+	 * @return the number of replayed records
+	 * @throws IOException
+	 * @throws IllegalStateException
+	 *             if a segment before the last one is corrupted
+	 */
+	private long replay(Path path, boolean last) throws IOException {
+		long records = 0;
+		long valid = 0;
+		try (FileChannel file = FileChannel.open(path,
+				StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long size = file.size();
+			DataInputStream in = new DataInputStream(new BufferedInputStream(
+					Channels.newInputStream(file), 1 << 16));
+			List<Transaction> batch = new ArrayList<>();
+			CRC32 crc = new CRC32();
+			try {
+				while (valid + FRAME_HEADER <= size) {
+					int length = in.readInt();
+					int checksum = in.readInt();
+					if (length <= 0 || valid + FRAME_HEADER + length > size) {
+						break;
+					}
+					byte[] content = new byte[length];
+					in.readFully(content);
+					crc.reset();
+					crc.update(content);
+					if ((int) crc.getValue() != checksum) {
+						break;
+					}
+					records += apply(ByteBuffer.wrap(content), batch);
+					valid += FRAME_HEADER + length;
+				}
+			} catch (EOFException e) {
+				// Torn frame
+			}
+			saveAll(batch);
+			if (valid < size) {
+				if (!last) {
+					throw new IllegalStateException("Corrupted journal : "
+							+ path);
+				}
+				log.warn("Truncate the torn tail of {} : {} bytes", path, size
+						- valid);
+				file.truncate(valid);
+				file.force(true);
+			}
+		}
+		return records;
+	}
+
+	/**
+	 * Apply the records of a frame, buffering the transactions to save them
+	 * in bulk
+	 *
+	 * @return the number of records
+	 */
+	private int apply(ByteBuffer frame, List<Transaction> batch) {
+		int records = 0;
+		while (frame.hasRemaining()) {
+			byte type = frame.get();
+			switch (type) {
+			case JournalCodec.ACCOUNT:
+				saveAll(batch);
+				accountRepository.save(JournalCodec.readAccount(frame));
+				break;
+			case JournalCodec.TRANSACTION:
+				batch.add(JournalCodec.readTransaction(frame));
+				if (batch.size() == REPLAY_BATCH) {
+					saveAll(batch);
+				}
+				break;
+			case JournalCodec.DELETE:
+				saveAll(batch);
+				transactionRepository.delete(JournalCodec.readString(frame));
+				break;
+			default:
+				throw new IllegalStateException("Unknown journal record "
+						+ type);
+			}
+			records++;
+		}
+		return records;
+	}
+
+	private void saveAll(List<Transaction> batch) {
+		if (!batch.isEmpty()) {
+			transactionRepository.saveAll(batch);
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Load a snapshot or seed image in place of the built-in transactions
+	 *
+	 * @return the number of transactions loaded
+	 */
+	private long load(Path image) throws IOException {
+		long start = System.nanoTime();
+		clearTransactions();
+		long transactions = Snapshots.load(image, accountRepository,
+				transactionRepository);
+		startupReport.record("data.load", System.nanoTime() - start);
+		log.info("Loaded {} transactions from {}", transactions, image);
+		return transactions;
+	}
+
+	/**
+	 * Build the indexes of all the accounts in parallel, in the background
+	 */
+	private void buildIndexes() {
+		List<String> accountIds = accountRepository.findAll(null)
+				.getContent().stream().map(Account::getId)
+				.collect(Collectors.toList());
+		CompletableFuture.runAsync(() -> {
+			long start = System.nanoTime();
+			accountIds.parallelStream().forEach(
+					transactionRepository::buildIndexes);
+			startupReport.record("data.indexes", System.nanoTime() - start);
+		}).exceptionally(e -> {
+			log.error("Index build failed", e);
+			return null;
+		});
+	}
+
+	/**
+	 * Delete the built-in transactions, before a snapshot is loaded
+	 */
+	private void clearTransactions() {
+		for (Account account : accountRepository.findAll(null)) {
+			List<String> ids = transactionRepository
+					.streamTransactionsByAccount(account.getId())
+					.map(Transaction::getId).collect(Collectors.toList());
+			ids.forEach(transactionRepository::delete);
+		}
+	}
+
+	private Path segmentPath(long number) {
+		return directory.resolve(SEGMENT_PREFIX + number + SEGMENT_SUFFIX);
+	}
+
+	/**
+	 * List the files of a kind by number
+	 */
+	private TreeMap<Long, Path> list(String prefix, String suffix)
+			throws IOException {
+		TreeMap<Long, Path> result = new TreeMap<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+				prefix + "*" + suffix)) {
+			for (Path file : files) {
+				String name = file.getFileName().toString();
+				try {
+					result.put(Long.valueOf(name.substring(prefix.length(),
+							name.length() - suffix.length())), file);
+				} catch (NumberFormatException e) {
+					log.warn("Ignore {}", file);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Delete the segments and snapshots older than a snapshot, and the
+	 * snapshots left incomplete
+	 */
+	private void deleteBefore(long number) throws IOException {
+		for (Path path : list(SEGMENT_PREFIX, SEGMENT_SUFFIX).headMap(number)
+				.values()) {
+			Files.delete(path);
+		}
+		for (Path path : list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).headMap(
+				number).values()) {
+			Files.delete(path);
+		}
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+				SNAPSHOT_PREFIX + "*.tmp")) {
+			for (Path file : files) {
+				if (!file.getFileName().toString()
+						.equals(SNAPSHOT_PREFIX + segment + SNAPSHOT_SUFFIX
+								+ ".tmp")) {
+					Files.delete(file);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Make the rename of a snapshot durable
+	 */
+	private void syncDirectory() {
+		try (FileChannel dir = FileChannel.open(directory,
+				StandardOpenOption.READ)) {
+			dir.force(true);
+		} catch (IOException e) {
+			// Not supported on every system
+			log.debug("Cannot sync {}", directory, e);
+		}
+	}
+}
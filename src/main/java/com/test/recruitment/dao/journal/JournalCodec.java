@@ -0,0 +1,141 @@
+package com.test.recruitment.dao.journal;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import com.test.recruitment.entity.Account;
+import com.test.recruitment.entity.Transaction;
+
+/**
+ * Binary encoding of the entities, shared by the journal and the snapshots.
+ * Big-endian, as written by {@link DataOutput} ; a null string has a length
+ * of -1 and a null date a time of {@link Long#MIN_VALUE}.
+ *
+ * @author A525125
+ *
+ */
+final class JournalCodec {
+
+	/**
+	 * An account saved
+	 */
+	static final byte ACCOUNT = 1;
+
+	/**
+	 * A transaction saved
+	 */
+	static final byte TRANSACTION = 2;
+
+	/**
+	 * A transaction deleted, by id
+	 */
+	static final byte DELETE = 3;
+
+	private JournalCodec() {
+	}
+
+	static void writeAccount(DataOutput out, Account account)
+			throws IOException {
+		writeString(out, account.getId());
+		writeString(out, account.getNumber());
+		writeString(out, account.getType());
+		writeDecimal(out, account.getBalance());
+		out.writeLong(null == account.getCreationDate() ? Long.MIN_VALUE
+				: account.getCreationDate().getTime());
+		out.writeBoolean(account.isActive());
+	}
+
+	static Account readAccount(ByteBuffer in) {
+		Account account = new Account();
+		account.setId(readString(in));
+		account.setNumber(readString(in));
+		account.setType(readString(in));
+		account.setBalance(readDecimal(in));
+		long time = in.getLong();
+		account.setCreationDate(Long.MIN_VALUE == time ? null : new Date(time));
+		account.setActive(0 != in.get());
+		return account;
+	}
+
+	static void writeTransaction(DataOutput out, Transaction transaction)
+			throws IOException {
+		writeString(out, transaction.getId());
+		writeString(out, transaction.getAccountId());
+		writeString(out, transaction.getNumber());
+		writeDecimal(out, transaction.getBalance());
+	}
+
+	static Transaction readTransaction(ByteBuffer in) {
+		Transaction transaction = new Transaction();
+		transaction.setId(readString(in));
+		transaction.setAccountId(readString(in));
+		transaction.setNumber(readString(in));
+		transaction.setBalance(readDecimal(in));
+		return transaction;
+	}
+
+	static void writeString(DataOutput out, String value) throws IOException {
+		if (null == value) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	static String readString(ByteBuffer in) {
+		int length = in.getInt();
+		if (length < 0) {
+			return null;
+		}
+		if (in.hasArray()) {
+			String value = new String(in.array(), in.arrayOffset()
+					+ in.position(), length, StandardCharsets.UTF_8);
+			in.position(in.position() + length);
+			return value;
+		}
+		byte[] bytes = new byte[length];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeDecimal(DataOutput out, BigDecimal value)
+			throws IOException {
+		if (null == value) {
+			out.writeByte(-1);
+			return;
+		}
+		byte[] unscaled = value.unscaledValue().toByteArray();
+		if (unscaled.length > Byte.MAX_VALUE) {
+			throw new IllegalArgumentException("Amount out of range : "
+					+ value);
+		}
+		out.writeByte(unscaled.length);
+		out.write(unscaled);
+		out.writeInt(value.scale());
+	}
+
+	private static BigDecimal readDecimal(ByteBuffer in) {
+		int length = in.get();
+		if (length < 0) {
+			return null;
+		}
+		if (length <= 8) {
+			// Sign-extended long, without the byte array of a big integer
+			long unscaled = 0 == length ? 0 : in.get();
+			for (int i = 1; i < length; i++) {
+				unscaled = unscaled << 8 | in.get() & 0xFF;
+			}
+			return BigDecimal.valueOf(unscaled, in.getInt());
+		}
+		byte[] unscaled = new byte[length];
+		in.get(unscaled);
+		return new BigDecimal(new BigInteger(unscaled), in.getInt());
+	}
+}
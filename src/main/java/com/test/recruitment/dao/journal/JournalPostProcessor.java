@@ -0,0 +1,57 @@
+package com.test.recruitment.dao.journal;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+
+import com.test.recruitment.dao.AccountRepository;
+import com.test.recruitment.dao.TransactionRepository;
+
+/**
+ * Attaches the repository beans to the {@link Journal}, which loads their
+ * data on startup, and wraps them in the decorators recording their writes
+ * when the journal is enabled. Runs before the other post processors, so
+ * that the journal loads the repositories themselves.
+ *
+ * @author A525125
+ *
+ */
+public class JournalPostProcessor implements BeanPostProcessor, Ordered {
+
+	private final Journal journal;
+
+	/**
+	 * @param journal
+	 *            the journal
+	 */
+	public JournalPostProcessor(Journal journal) {
+		this.journal = journal;
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE;
+	}
+
+	@Override
+	public Object postProcessBeforeInitialization(Object bean, String beanName)
+			throws BeansException {
+		return bean;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName)
+			throws BeansException {
+		if (bean instanceof AccountRepository) {
+			journal.attach((AccountRepository) bean);
+			return journal.isEnabled() ? new JournaledAccountRepository(
+					(AccountRepository) bean, journal) : bean;
+		}
+		if (bean instanceof TransactionRepository) {
+			journal.attach((TransactionRepository) bean);
+			return journal.isEnabled() ? new JournaledTransactionRepository(
+					(TransactionRepository) bean, journal) : bean;
+		}
+		return bean;
+	}
+}
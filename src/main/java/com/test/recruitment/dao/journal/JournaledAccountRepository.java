@@ -0,0 +1,66 @@
+package com.test.recruitment.dao.journal;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import com.test.recruitment.dao.AccountRepository;
+import com.test.recruitment.entity.Account;
+
+/**
+ * {@link AccountRepository} recording the saves of another one in the
+ * {@link Journal}
+ *
+ * @author A525125
+ *
+ */
+public class JournaledAccountRepository implements AccountRepository {
+
+	private final AccountRepository delegate;
+
+	private final Journal journal;
+
+	/**
+	 * @param delegate
+	 *            the journaled repository
+	 * @param journal
+	 *            the journal
+	 */
+	public JournaledAccountRepository(AccountRepository delegate,
+			Journal journal) {
+		this.delegate = delegate;
+		this.journal = journal;
+	}
+
+	@Override
+	public Page<Account> findAll(Pageable p) {
+		return delegate.findAll(p);
+	}
+
+	@Override
+	public Optional<Account> findById(String accountId) {
+		return delegate.findById(accountId);
+	}
+
+	@Override
+	public Map<String, Account> findAllById(Collection<String> accountIds) {
+		return delegate.findAllById(accountIds);
+	}
+
+	@Override
+	public boolean exists(String accountId) {
+		return delegate.exists(accountId);
+	}
+
+	@Override
+	public Account save(Account account) {
+		return journal.atomically(() -> {
+			Account saved = delegate.save(account);
+			journal.logAccount(saved);
+			return saved;
+		});
+	}
+}
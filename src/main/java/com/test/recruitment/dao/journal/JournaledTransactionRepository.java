@@ -0,0 +1,106 @@
+package com.test.recruitment.dao.journal;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import com.test.recruitment.dao.TransactionCursor;
+import com.test.recruitment.dao.TransactionRepository;
+import com.test.recruitment.dao.TransactionSummary;
+import com.test.recruitment.dao.TransactionTotals;
+import com.test.recruitment.entity.Transaction;
+
+/**
+ * {@link TransactionRepository} recording the writes of another one in the
+ * {@link Journal}. A bulk save is a single unit, replayed all or nothing.
+ *
+ * @author A525125
+ *
+ */
+public class JournaledTransactionRepository implements TransactionRepository {
+
+	private final TransactionRepository delegate;
+
+	private final Journal journal;
+
+	/**
+	 * @param delegate
+	 *            the journaled repository
+	 * @param journal
+	 *            the journal
+	 */
+	public JournaledTransactionRepository(TransactionRepository delegate,
+			Journal journal) {
+		this.delegate = delegate;
+		this.journal = journal;
+	}
+
+	@Override
+	public Transaction findById(String id) {
+		return delegate.findById(id);
+	}
+
+	@Override
+	public Page<Transaction> getTransactionsByAccount(String accountId,
+			Pageable p) {
+		return delegate.getTransactionsByAccount(accountId, p);
+	}
+
+	@Override
+	public Slice<Transaction> getTransactionsByAccount(String accountId,
+			TransactionCursor cursor, int size) {
+		return delegate.getTransactionsByAccount(accountId, cursor, size);
+	}
+
+	@Override
+	public Stream<Transaction> streamTransactionsByAccount(String accountId) {
+		return delegate.streamTransactionsByAccount(accountId);
+	}
+
+	@Override
+	public TransactionSummary getSummary(String accountId) {
+		return delegate.getSummary(accountId);
+	}
+
+	@Override
+	public void addTotals(String accountId, TransactionTotals totals) {
+		delegate.addTotals(accountId, totals);
+	}
+
+	@Override
+	public void buildIndexes(String accountId) {
+		delegate.buildIndexes(accountId);
+	}
+
+	@Override
+	public Transaction save(Transaction transaction) {
+		return journal.atomically(() -> {
+			Transaction saved = delegate.save(transaction);
+			journal.logTransactions(Collections.singleton(saved));
+			return saved;
+		});
+	}
+
+	@Override
+	public void saveAll(Collection<Transaction> transactions) {
+		journal.atomically(() -> {
+			delegate.saveAll(transactions);
+			// The ids are generated in place
+			journal.logTransactions(transactions);
+			return null;
+		});
+	}
+
+	@Override
+	public void delete(String id) {
+		journal.atomically(() -> {
+			delegate.delete(id);
+			journal.logDelete(id);
+			return null;
+		});
+	}
+}
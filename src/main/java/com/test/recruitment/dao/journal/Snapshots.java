@@ -0,0 +1,181 @@
+package com.test.recruitment.dao.journal;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import com.test.recruitment.dao.AccountRepository;
+import com.test.recruitment.dao.TransactionRepository;
+import com.test.recruitment.entity.Account;
+import com.test.recruitment.entity.Transaction;
+
+/**
+ * Snapshot files : the whole store at the start of a journal segment.
+ * <p>
+ * Layout : magic, version, segment number, account count and accounts, then
+ * each transaction preceded by a 1 byte and a final 0 byte, and the CRC-32
+ * of all the previous bytes. A snapshot is written to a temporary file which
+ * is renamed once synced, so that a snapshot file is always complete.
+ * <p>
+ * A snapshot is memory-mapped to be loaded, and its transactions are saved
+ * by rounds of {@value #LOAD_BATCH} : the transactions of a round are
+ * grouped by account and the groups saved in parallel, each group building
+ * the index of its account. A transaction appears once in a snapshot, so
+ * the order of the groups does not matter.
+ *
+ * @author A525125
+ *
+ */
+final class Snapshots {
+
+	private static final int MAGIC = 0x52534E50;
+
+	private static final int VERSION = 1;
+
+	/**
+	 * Transactions saved in one round while loading
+	 */
+	private static final int LOAD_BATCH = 1 << 20;
+
+	private Snapshots() {
+	}
+
+	/**
+	 * Write a snapshot
+	 *
+	 * @param target
+	 *            the snapshot file
+	 * @param segment
+	 *            the number of the journal segment following the snapshot
+	 * @param accounts
+	 *            the accounts
+	 * @param transactions
+	 *            the transactions, read while writing
+	 * @return the number of transactions written
+	 * @throws IOException
+	 */
+	static long write(Path target, long segment, List<Account> accounts,
+			List<Stream<Transaction>> transactions) throws IOException {
+		Path temporary = target.resolveSibling(target.getFileName()
+				+ ".tmp");
+		CRC32 crc = new CRC32();
+		long count = 0;
+		try (FileChannel channel = FileChannel.open(temporary,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE)) {
+			DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+					new BufferedOutputStream(Channels.newOutputStream(channel),
+							1 << 16), crc));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(segment);
+			out.writeInt(accounts.size());
+			for (Account account : accounts) {
+				JournalCodec.writeAccount(out, account);
+			}
+			for (Stream<Transaction> stream : transactions) {
+				for (Iterator<Transaction> i = stream.iterator(); i.hasNext();) {
+					out.writeByte(1);
+					JournalCodec.writeTransaction(out, i.next());
+					count++;
+				}
+			}
+			out.writeByte(0);
+			out.writeLong(crc.getValue());
+			out.flush();
+			channel.force(true);
+		}
+		Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+		return count;
+	}
+
+	/**
+	 * Load a snapshot into repositories without transactions
+	 *
+	 * @param source
+	 *            the snapshot file
+	 * @param accountRepository
+	 *            the account repository
+	 * @param transactionRepository
+	 *            the transaction repository
+	 * @return the number of transactions loaded
+	 * @throws IOException
+	 * @throws IllegalStateException
+	 *             if the file is corrupted, or over 2 GB
+	 */
+	static long load(Path source, AccountRepository accountRepository,
+			TransactionRepository transactionRepository) throws IOException {
+		try (FileChannel channel = FileChannel.open(source,
+				StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IllegalStateException("Snapshot over 2 GB : "
+						+ source);
+			}
+			MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY,
+					0, size);
+			checkCrc(source, map);
+			if (MAGIC != map.getInt() || VERSION != map.getInt()) {
+				throw new IllegalStateException("Not a snapshot : " + source);
+			}
+			map.getLong();
+			for (int i = map.getInt(); i > 0; i--) {
+				accountRepository.save(JournalCodec.readAccount(map));
+			}
+			long count = 0;
+			int pending = 0;
+			Map<String, List<Transaction>> byAccount = new LinkedHashMap<>();
+			while (0 != map.get()) {
+				Transaction transaction = JournalCodec.readTransaction(map);
+				byAccount.computeIfAbsent(transaction.getAccountId(),
+						k -> new ArrayList<>()).add(transaction);
+				if (++pending == LOAD_BATCH) {
+					save(byAccount, transactionRepository);
+					count += pending;
+					pending = 0;
+				}
+			}
+			save(byAccount, transactionRepository);
+			return count + pending;
+		}
+	}
+
+	/**
+	 * Save a round of transactions, one account per task
+	 */
+	private static void save(Map<String, List<Transaction>> byAccount,
+			TransactionRepository transactionRepository) {
+		byAccount.values().parallelStream()
+				.forEach(transactionRepository::saveAll);
+		byAccount.clear();
+	}
+
+	private static void checkCrc(Path source, ByteBuffer map) {
+		if (map.limit() < Long.BYTES) {
+			throw new IllegalStateException("Corrupted snapshot : " + source);
+		}
+		ByteBuffer content = map.duplicate();
+		content.limit(map.limit() - Long.BYTES);
+		CRC32 crc = new CRC32();
+		crc.update(content);
+		if (crc.getValue() != map.getLong(map.limit() - Long.BYTES)) {
+			throw new IllegalStateException("Corrupted snapshot : " + source);
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package com.test.recruitment.exception;
+
+import lombok.Getter;
+
+import com.test.recruitment.json.ErrorCode;
+
+/**
+ * Request shed under overload, to be retried later
+ * 
+ * @author A525125
+ *
+ */
+public class OverloadedException extends ServiceException {
+
+	private static final long serialVersionUID = -2871530470254427716L;
+
+	/**
+	 * Delay before a retry in seconds
+	 */
+	@Getter
+	private final long retryAfter;
+
+	public OverloadedException(String message, long retryAfter) {
+		super(ErrorCode.SERVICE_UNAVAILABLE_OVERLOADED, message);
+		this.retryAfter = retryAfter;
+	}
+}
@@ -0,0 +1,29 @@
+package com.test.recruitment.json;
+
+import java.io.Serializable;
+
+import javax.validation.constraints.NotNull;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Result of one account of a batch details request : the details, or the
+ * error if the account cannot be read
+ * 
+ * @author A525125
+ *
+ */
+@Data
+@AllArgsConstructor
+public class AccountDetailsBatchItem implements Serializable {
+
+	private static final long serialVersionUID = -2081349286130815733L;
+
+	@NotNull
+	private String id;
+
+	private AccountDetailsResponse account;
+
+	private ErrorResponse error;
+}
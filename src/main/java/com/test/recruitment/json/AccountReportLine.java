@@ -0,0 +1,53 @@
+package com.test.recruitment.json;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+import lombok.Data;
+
+/**
+ * Totals of the accounts of a type and status json representation
+ * 
+ * @author A525125
+ *
+ */
+@Data
+public class AccountReportLine implements Serializable {
+
+	private static final long serialVersionUID = 2093148757210426917L;
+
+	private String type;
+
+	private boolean active;
+
+	/**
+	 * Number of accounts
+	 */
+	private long accounts;
+
+	/**
+	 * Sum of the account balances
+	 */
+	private BigDecimal balance;
+
+	/**
+	 * Number of transactions
+	 */
+	private long transactions;
+
+	/**
+	 * Sum of the positive transaction balances
+	 */
+	private BigDecimal credits;
+
+	/**
+	 * Sum of the negative transaction balances, negative
+	 */
+	private BigDecimal debits;
+
+	/**
+	 * Sum of the absolute transaction balances
+	 */
+	private BigDecimal volume;
+
+}
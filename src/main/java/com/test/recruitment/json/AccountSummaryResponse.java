@@ -0,0 +1,45 @@
+package com.test.recruitment.json;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+import javax.validation.constraints.NotNull;
+
+import lombok.Data;
+
+/**
+ * Transaction aggregates of an account json representation
+ * 
+ * @author A525125
+ *
+ */
+@Data
+public class AccountSummaryResponse implements Serializable {
+
+	private static final long serialVersionUID = 4127395049186213521L;
+
+	@NotNull
+	private String id;
+
+	/**
+	 * Number of transactions
+	 */
+	private int count;
+
+	/**
+	 * Sum of the transaction balances
+	 */
+	@NotNull
+	private BigDecimal sum;
+
+	/**
+	 * Lowest transaction balance, null without transactions
+	 */
+	private BigDecimal min;
+
+	/**
+	 * Highest transaction balance, null without transactions
+	 */
+	private BigDecimal max;
+
+}
@@ -0,0 +1,37 @@
+package com.test.recruitment.json;
+
+import java.io.Serializable;
+
+import javax.validation.constraints.NotNull;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import org.springframework.data.domain.Page;
+
+import com.test.recruitment.entity.Transaction;
+import com.test.recruitment.json.writer.TransactionJsonWriter;
+
+/**
+ * Account details json representation, with the first page of its
+ * transactions
+ * 
+ * @author A525125
+ *
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class AccountTransactionsResponse extends AccountDetailsResponse
+		implements Serializable {
+
+	private static final long serialVersionUID = 4713702219467302584L;
+
+	/**
+	 * The transactions, written as {@link TransactionResponse} by the
+	 * {@link TransactionJsonWriter}
+	 */
+	@NotNull
+	private Page<Transaction> transactions;
+}
@@ -0,0 +1,32 @@
+package com.test.recruitment.json;
+
+import java.io.Serializable;
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Page of a keyset paginated list
+ * 
+ * @author A525125
+ *
+ * @param <T>
+ *            the element type
+ */
+@Data
+@AllArgsConstructor
+public class CursorPageResponse<T> implements Serializable {
+
+	private static final long serialVersionUID = -1586624380318471725L;
+
+	@NotNull
+	private List<T> content;
+
+	/**
+	 * Opaque cursor of the next page, null on the last page
+	 */
+	private String next;
+}
@@ -14,9 +14,19 @@ import lombok.Getter;
 @AllArgsConstructor
 public enum ErrorCode {
 
+	ACCEPTED_IN_PROGRESS(HttpStatus.ACCEPTED),
 	NOT_FOUND_ACCOUNT(HttpStatus.NOT_FOUND),
 	NOT_FOUND_TRANSACTION(HttpStatus.NOT_FOUND),
-	FORBIDDEN_TRANSACTION(HttpStatus.FORBIDDEN);
+	FORBIDDEN_TRANSACTION(HttpStatus.FORBIDDEN),
+	BAD_REQUEST_SORT(HttpStatus.BAD_REQUEST),
+	BAD_REQUEST_CURSOR(HttpStatus.BAD_REQUEST),
+	BAD_REQUEST_BATCH(HttpStatus.BAD_REQUEST),
+	BAD_REQUEST_IMPORT(HttpStatus.BAD_REQUEST),
+	BAD_REQUEST_EXPAND(HttpStatus.BAD_REQUEST),
+	BAD_REQUEST_FIELDS(HttpStatus.BAD_REQUEST),
+	SERVICE_UNAVAILABLE_BUSY(HttpStatus.SERVICE_UNAVAILABLE),
+	SERVICE_UNAVAILABLE_TIMEOUT(HttpStatus.SERVICE_UNAVAILABLE),
+	SERVICE_UNAVAILABLE_OVERLOADED(HttpStatus.SERVICE_UNAVAILABLE);
 
 	@Getter
 	private HttpStatus httpStatus;
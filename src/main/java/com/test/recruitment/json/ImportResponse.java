@@ -0,0 +1,52 @@
+package com.test.recruitment.json;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * Bulk import report json representation
+ * 
+ * @author A525125
+ *
+ */
+@Data
+public class ImportResponse implements Serializable {
+
+	private static final long serialVersionUID = -4417960317262150844L;
+
+	/**
+	 * Number of rows read
+	 */
+	private long rows;
+
+	/**
+	 * Number of rows saved
+	 */
+	private long imported;
+
+	/**
+	 * Number of invalid rows, or rows of an unknown account
+	 */
+	private long rejected;
+
+	/**
+	 * Number of accounts which received transactions
+	 */
+	private int accounts;
+
+	/**
+	 * Duration of the import, index build included
+	 */
+	private long durationMillis;
+
+	private long rowsPerSecond;
+
+	/**
+	 * Reasons of the first rejections
+	 */
+	private List<String> errors = new ArrayList<>();
+
+}
@@ -0,0 +1,126 @@
+package com.test.recruitment.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import lombok.Getter;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Encoding of the response bodies. The binary formats write the same
+ * structure as json, with the writers and the configuration of the json
+ * object mapper : only the generator changes.
+ *
+ * @author A525125
+ *
+ */
+public enum ResponseFormat {
+
+	JSON(MediaType.APPLICATION_JSON_UTF8, null),
+	CBOR(MediaType.valueOf(ResponseFormat.CBOR_VALUE), new CBORFactory()),
+	SMILE(MediaType.valueOf(ResponseFormat.SMILE_VALUE), new SmileFactory());
+
+	/**
+	 * CBOR media type value
+	 */
+	public static final String CBOR_VALUE = "application/cbor";
+
+	/**
+	 * Smile media type value
+	 */
+	public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+	@Getter
+	private final MediaType mediaType;
+
+	/**
+	 * Factory of the generators, null for the factory of the writer
+	 */
+	private final JsonFactory factory;
+
+	private ResponseFormat(MediaType mediaType, JsonFactory factory) {
+		this.mediaType = mediaType;
+		this.factory = factory;
+	}
+
+	/**
+	 * Create a generator in this format
+	 *
+	 * @param writer
+	 *            the writer which will write to the generator
+	 * @param out
+	 *            the output
+	 * @return the generator
+	 * @throws IOException
+	 *             if the generator cannot be created
+	 */
+	public JsonGenerator createGenerator(ObjectWriter writer, OutputStream out)
+			throws IOException {
+		return null == factory ? writer.getFactory().createGenerator(out,
+				JsonEncoding.UTF8) : factory.createGenerator(out);
+	}
+
+	/**
+	 * Encode a value in this format
+	 *
+	 * @param writer
+	 *            the writer of the value
+	 * @param value
+	 *            the value
+	 * @return the encoded value
+	 * @throws IOException
+	 *             if the value cannot be written
+	 */
+	public byte[] write(ObjectWriter writer, Object value) throws IOException {
+		if (null == factory) {
+			return writer.writeValueAsBytes(value);
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+		try (JsonGenerator generator = factory.createGenerator(out)) {
+			writer.writeValue(generator, value);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Select the format of a response
+	 *
+	 * @param accept
+	 *            the Accept header of the request, may be null
+	 * @return the first accepted format by quality, json if none is accepted
+	 */
+	public static ResponseFormat of(String accept) {
+		if (null == accept || accept.isEmpty()) {
+			return JSON;
+		}
+		List<MediaType> mediaTypes;
+		try {
+			mediaTypes = MediaType.parseMediaTypes(accept);
+		} catch (InvalidMediaTypeException e) {
+			return JSON;
+		}
+		MediaType.sortBySpecificityAndQuality(mediaTypes);
+		for (MediaType mediaType : mediaTypes) {
+			if (0 == mediaType.getQualityValue()) {
+				continue;
+			}
+			for (ResponseFormat format : values()) {
+				if (mediaType.includes(format.mediaType)) {
+					return format;
+				}
+			}
+		}
+		return JSON;
+	}
+}
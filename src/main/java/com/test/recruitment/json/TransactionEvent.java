@@ -0,0 +1,60 @@
+package com.test.recruitment.json;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+import lombok.Data;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+/**
+ * Transaction change event json representation, pushed to the subscribers
+ * of an account
+ * 
+ * @author A525125
+ *
+ */
+@Data
+@JsonInclude(Include.NON_NULL)
+public class TransactionEvent implements Serializable {
+
+	private static final long serialVersionUID = 5329177003212893408L;
+
+	/**
+	 * Type of a change
+	 */
+	public enum Type {
+
+		CREATED,
+
+		UPDATED,
+
+		/**
+		 * The event holds the values of the deleted transaction
+		 */
+		DELETED,
+
+		/**
+		 * The subscriber missed some events and must read the transactions
+		 * again
+		 */
+		LAG;
+	}
+
+	private Type type;
+
+	private String accountId;
+
+	private String id;
+
+	private String number;
+
+	private BigDecimal balance;
+
+	/**
+	 * Number of missed events, for a {@link Type#LAG} event
+	 */
+	private Long missed;
+
+}
@@ -0,0 +1,23 @@
+package com.test.recruitment.json;
+
+import java.io.Serializable;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Transaction creation / update json representation
+ * 
+ * @author A525125
+ *
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class TransactionRequest extends AbstractTransaction implements
+		Serializable {
+
+	private static final long serialVersionUID = 3346094787520924305L;
+
+}
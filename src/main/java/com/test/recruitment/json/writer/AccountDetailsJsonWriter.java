@@ -0,0 +1,54 @@
+package com.test.recruitment.json.writer;
+
+import java.util.Date;
+
+import org.springframework.boot.jackson.JsonComponent;
+
+import com.test.recruitment.json.AccountDetailsResponse;
+
+/**
+ * Writes an {@link AccountDetailsResponse}, with the properties and the
+ * order of its bean serialization
+ *
+ * @author A525125
+ *
+ */
+@JsonComponent
+public class AccountDetailsJsonWriter extends
+		ProjectingWriter<AccountDetailsResponse> {
+
+	private static final long serialVersionUID = 2871602961430262409L;
+
+	public AccountDetailsJsonWriter() {
+		super(AccountDetailsResponse.class);
+		declareDetails(this);
+	}
+
+	/**
+	 * Declare the properties of the account details
+	 *
+	 * @param writer
+	 *            the writer of the details or of a subclass
+	 */
+	static <T extends AccountDetailsResponse> void declareDetails(
+			ProjectingWriter<T> writer) {
+		writer.property("id", (account, generator, provider) -> generator
+				.writeString(account.getId()));
+		writer.property("number", (account, generator, provider) -> generator
+				.writeString(account.getNumber()));
+		writer.property("type", (account, generator, provider) -> generator
+				.writeString(account.getType()));
+		writer.property("balance", (account, generator, provider) -> generator
+				.writeNumber(account.getBalance()));
+		writer.property("creationDate", (account, generator, provider) -> {
+			Date creationDate = account.getCreationDate();
+			if (null == creationDate) {
+				generator.writeNull();
+			} else {
+				provider.defaultSerializeDateValue(creationDate, generator);
+			}
+		});
+		writer.property("active", (account, generator, provider) -> generator
+				.writeBoolean(account.isActive()));
+	}
+}
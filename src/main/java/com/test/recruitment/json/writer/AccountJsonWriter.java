@@ -0,0 +1,31 @@
+package com.test.recruitment.json.writer;
+
+import org.springframework.boot.jackson.JsonComponent;
+
+import com.test.recruitment.entity.Account;
+import com.test.recruitment.json.AccountResponse;
+
+/**
+ * Writes an {@link Account} straight to the response stream, with the json
+ * contract of {@link AccountResponse}
+ *
+ * @author A525125
+ *
+ */
+@JsonComponent
+public class AccountJsonWriter extends ProjectingWriter<Account> {
+
+	private static final long serialVersionUID = 4425188409373946580L;
+
+	public AccountJsonWriter() {
+		super(Account.class);
+		property("id", (account, generator, provider) -> generator
+				.writeString(account.getId()));
+		property("number", (account, generator, provider) -> generator
+				.writeString(account.getNumber()));
+		property("type", (account, generator, provider) -> generator
+				.writeString(account.getType()));
+		property("balance", (account, generator, provider) -> generator
+				.writeNumber(account.getBalance()));
+	}
+}
@@ -0,0 +1,33 @@
+package com.test.recruitment.json.writer;
+
+import org.springframework.boot.jackson.JsonComponent;
+
+import com.test.recruitment.json.AccountSummaryResponse;
+
+/**
+ * Writes an {@link AccountSummaryResponse}, with the properties and the
+ * order of its bean serialization
+ *
+ * @author A525125
+ *
+ */
+@JsonComponent
+public class AccountSummaryJsonWriter extends
+		ProjectingWriter<AccountSummaryResponse> {
+
+	private static final long serialVersionUID = 7742213583318914035L;
+
+	public AccountSummaryJsonWriter() {
+		super(AccountSummaryResponse.class);
+		property("id", (summary, generator, provider) -> generator
+				.writeString(summary.getId()));
+		property("count", (summary, generator, provider) -> generator
+				.writeNumber(summary.getCount()));
+		property("sum", (summary, generator, provider) -> generator
+				.writeNumber(summary.getSum()));
+		property("min", (summary, generator, provider) -> generator
+				.writeNumber(summary.getMin()));
+		property("max", (summary, generator, provider) -> generator
+				.writeNumber(summary.getMax()));
+	}
+}
@@ -0,0 +1,26 @@
+package com.test.recruitment.json.writer;
+
+import org.springframework.boot.jackson.JsonComponent;
+
+import com.test.recruitment.json.AccountTransactionsResponse;
+
+/**
+ * Writes an {@link AccountTransactionsResponse} : the account details then
+ * the page of transactions
+ *
+ * @author A525125
+ *
+ */
+@JsonComponent
+public class AccountTransactionsJsonWriter extends
+		ProjectingWriter<AccountTransactionsResponse> {
+
+	private static final long serialVersionUID = -3185950467209414368L;
+
+	public AccountTransactionsJsonWriter() {
+		super(AccountTransactionsResponse.class);
+		AccountDetailsJsonWriter.declareDetails(this);
+		property("transactions", (account, generator, provider) -> provider
+				.defaultSerializeValue(account.getTransactions(), generator));
+	}
+}
@@ -0,0 +1,68 @@
+package com.test.recruitment.json.writer;
+
+import java.util.Collections;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Fields requested with the <code>fields</code> parameter. A field set is
+ * shared by the requests selecting the same fields : the
+ * {@link ProjectingWriter}s compile their projection once per field set.
+ *
+ * @author A525125
+ *
+ */
+public final class FieldSet {
+
+	/**
+	 * Name of the request and serialization attribute holding the field set
+	 */
+	public static final String ATTRIBUTE = FieldSet.class.getName();
+
+	private final String key;
+
+	private final Set<String> names;
+
+	private final ObjectWriter writer;
+
+	/**
+	 * @param names
+	 *            the field names, sorted
+	 * @param writer
+	 *            the writer of the responses, without field set
+	 */
+	public FieldSet(Set<String> names, ObjectWriter writer) {
+		this.key = String.join(",", names);
+		this.names = Collections.unmodifiableSet(names);
+		this.writer = writer.withAttribute(ATTRIBUTE, this);
+	}
+
+	/**
+	 * @return the sorted field names, comma separated
+	 */
+	public String getKey() {
+		return key;
+	}
+
+	/**
+	 * @param name
+	 *            the field name
+	 * @return true if the field is selected
+	 */
+	public boolean contains(String name) {
+		return names.contains(name);
+	}
+
+	/**
+	 * @return the writer of the responses, projected on the field set
+	 */
+	public ObjectWriter getWriter() {
+		return writer;
+	}
+
+	@Override
+	public String toString() {
+		return key;
+	}
+}
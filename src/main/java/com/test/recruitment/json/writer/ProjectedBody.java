@@ -0,0 +1,19 @@
+package com.test.recruitment.json.writer;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Response body to be written with the writer of a {@link FieldSet}
+ *
+ * @author A525125
+ *
+ */
+@Getter
+@AllArgsConstructor
+public class ProjectedBody {
+
+	private final Object value;
+
+	private final FieldSet fields;
+}
@@ -0,0 +1,142 @@
+package com.test.recruitment.json.writer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Writes an object straight to the response stream as a json object of
+ * declared properties. The field names are encoded once.
+ * <p>
+ * If the request selected a {@link FieldSet}, only its properties are read
+ * and written : the projection of each field set is compiled into an array
+ * of properties on first use, then reused by every object written with it.
+ *
+ * @author A525125
+ *
+ * @param <T>
+ *            the written type
+ */
+public abstract class ProjectingWriter<T> extends StdSerializer<T> {
+
+	private static final long serialVersionUID = -4263712404783650618L;
+
+	/**
+	 * Reads a property of an object and writes its value
+	 *
+	 * @param <T>
+	 *            the written type
+	 */
+	@FunctionalInterface
+	protected interface PropertyWriter<T> {
+
+		/**
+		 * @param value
+		 *            the object
+		 * @param generator
+		 *            the generator, after the field name
+		 * @param provider
+		 *            the provider, for the configured formats
+		 * @throws IOException
+		 *             if the value cannot be written
+		 */
+		void write(T value, JsonGenerator generator,
+				SerializerProvider provider) throws IOException;
+	}
+
+	private static final class Property<T> {
+
+		private final SerializedString name;
+
+		private final PropertyWriter<T> writer;
+
+		private Property(String name, PropertyWriter<T> writer) {
+			this.name = new SerializedString(name);
+			this.writer = writer;
+		}
+	}
+
+	private final List<Property<T>> declared = new ArrayList<>();
+
+	private final ConcurrentMap<FieldSet, Property<T>[]> projections = new ConcurrentHashMap<>();
+
+	private Property<T>[] all = toArray(declared);
+
+	/**
+	 * @param type
+	 *            the written type
+	 */
+	protected ProjectingWriter(Class<T> type) {
+		super(type);
+	}
+
+	/**
+	 * Declare a property, written after the previous ones
+	 *
+	 * @param name
+	 *            the field name
+	 * @param writer
+	 *            reads and writes the value
+	 */
+	protected void property(String name, PropertyWriter<T> writer) {
+		declared.add(new Property<T>(name, writer));
+		all = toArray(declared);
+	}
+
+	/**
+	 * @return the declared field names
+	 */
+	public Set<String> getFieldNames() {
+		Set<String> names = new LinkedHashSet<>();
+		for (Property<T> property : all) {
+			names.add(property.name.getValue());
+		}
+		return Collections.unmodifiableSet(names);
+	}
+
+	@Override
+	public void serialize(T value, JsonGenerator generator,
+			SerializerProvider provider) throws IOException {
+		FieldSet fields = (FieldSet) provider.getAttribute(FieldSet.ATTRIBUTE);
+		Property<T>[] properties = null == fields ? all : projection(fields);
+		generator.writeStartObject();
+		for (Property<T> property : properties) {
+			generator.writeFieldName(property.name);
+			property.writer.write(value, generator, provider);
+		}
+		generator.writeEndObject();
+	}
+
+	private Property<T>[] projection(FieldSet fields) {
+		Property<T>[] properties = projections.get(fields);
+		if (null == properties) {
+			properties = projections.computeIfAbsent(fields, this::compile);
+		}
+		return properties;
+	}
+
+	private Property<T>[] compile(FieldSet fields) {
+		List<Property<T>> selected = new ArrayList<>();
+		for (Property<T> property : all) {
+			if (fields.contains(property.name.getValue())) {
+				selected.add(property);
+			}
+		}
+		return toArray(selected);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> Property<T>[] toArray(List<Property<T>> properties) {
+		return properties.toArray(new Property[properties.size()]);
+	}
+}
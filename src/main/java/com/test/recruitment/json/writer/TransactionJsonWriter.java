@@ -0,0 +1,29 @@
+package com.test.recruitment.json.writer;
+
+import org.springframework.boot.jackson.JsonComponent;
+
+import com.test.recruitment.entity.Transaction;
+import com.test.recruitment.json.TransactionResponse;
+
+/**
+ * Writes a {@link Transaction} straight to the response stream, with the
+ * json contract of {@link TransactionResponse} : the account id is left out
+ *
+ * @author A525125
+ *
+ */
+@JsonComponent
+public class TransactionJsonWriter extends ProjectingWriter<Transaction> {
+
+	private static final long serialVersionUID = -6153374861036580452L;
+
+	public TransactionJsonWriter() {
+		super(Transaction.class);
+		property("number", (transaction, generator, provider) -> generator
+				.writeString(transaction.getNumber()));
+		property("balance", (transaction, generator, provider) -> generator
+				.writeNumber(transaction.getBalance()));
+		property("id", (transaction, generator, provider) -> generator
+				.writeString(transaction.getId()));
+	}
+}
@@ -0,0 +1,83 @@
+package com.test.recruitment.metrics;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+
+/**
+ * Times the creation of each bean, from its instantiation to the end of its
+ * initialization, into the {@link StartupReport}. The creation of the
+ * dependencies of a bean is counted in their own time, not in the time of
+ * the bean. Registered first, so that only the post processors created
+ * before it are not timed.
+ *
+ * @author A525125
+ *
+ */
+public class BeanCreationTimer extends
+		InstantiationAwareBeanPostProcessorAdapter implements PriorityOrdered {
+
+	/**
+	 * Bean being created, with the time spent creating its dependencies
+	 */
+	private static final class Creation {
+
+		private final String name;
+
+		private final long start = System.nanoTime();
+
+		private long dependencies;
+
+		private Creation(String name) {
+			this.name = name;
+		}
+	}
+
+	private final StartupReport startupReport;
+
+	/**
+	 * Beans being created by the current thread, the innermost first
+	 */
+	private final ThreadLocal<Deque<Creation>> creations = ThreadLocal
+			.withInitial(ArrayDeque::new);
+
+	/**
+	 * @param startupReport
+	 *            the report of the creation times
+	 */
+	public BeanCreationTimer(StartupReport startupReport) {
+		this.startupReport = startupReport;
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE;
+	}
+
+	@Override
+	public Object postProcessBeforeInstantiation(Class<?> beanClass,
+			String beanName) throws BeansException {
+		creations.get().push(new Creation(beanName));
+		return null;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName)
+			throws BeansException {
+		Deque<Creation> current = creations.get();
+		// Also called for the objects of factory beans, never instantiated
+		if (!current.isEmpty() && current.peek().name.equals(beanName)) {
+			Creation creation = current.pop();
+			long elapsed = System.nanoTime() - creation.start;
+			startupReport.recordBean(beanName, elapsed - creation.dependencies);
+			if (!current.isEmpty()) {
+				current.peek().dependencies += elapsed;
+			}
+		}
+		return bean;
+	}
+}
@@ -0,0 +1,50 @@
+package com.test.recruitment.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint publishing the latency histograms at
+ * <code>/latency</code>. For each operation it gives the number of calls,
+ * the mean rate in calls per second, and the mean, p50, p99, p999 and
+ * maximum durations in milliseconds.
+ *
+ * @author A525125
+ *
+ */
+@Component
+public class LatencyEndpoint extends
+		AbstractEndpoint<Map<String, Map<String, Object>>> {
+
+	private static final double NANOS_PER_MILLI = 1_000_000d;
+
+	private LatencyTimers latencyTimers;
+
+	@Autowired
+	public LatencyEndpoint(LatencyTimers latencyTimers) {
+		super("latency", false);
+		this.latencyTimers = latencyTimers;
+	}
+
+	@Override
+	public Map<String, Map<String, Object>> invoke() {
+		Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+		latencyTimers.getTimers().forEach((name, histogram) -> {
+			LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+			Map<String, Object> values = new LinkedHashMap<>();
+			values.put("count", snapshot.getCount());
+			values.put("rate", snapshot.getRate());
+			values.put("mean", snapshot.getMean() / NANOS_PER_MILLI);
+			values.put("p50", snapshot.getPercentile(50) / NANOS_PER_MILLI);
+			values.put("p99", snapshot.getPercentile(99) / NANOS_PER_MILLI);
+			values.put("p999", snapshot.getPercentile(99.9) / NANOS_PER_MILLI);
+			values.put("max", snapshot.getMax() / NANOS_PER_MILLI);
+			result.put(name, values);
+		});
+		return result;
+	}
+}
@@ -0,0 +1,217 @@
+package com.test.recruitment.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations in nanoseconds, with a bounded relative error. As in
+ * HdrHistogram, each power of two is split in a fixed number of linear
+ * sub-buckets : a recorded value is counted in the sub-bucket holding it, so
+ * that a percentile is read within 1/64 (1.6%) of the exact value.
+ * <p>
+ * Recording is lock-free and does not allocate : it only increments atomic
+ * counters, and can be called from any thread on the hot path. Durations
+ * above {@link #MAX_VALUE} (about 18 minutes) are counted as the maximum.
+ *
+ * @author A525125
+ *
+ */
+public class LatencyHistogram {
+
+	/**
+	 * Number of bits of a value kept below its highest bit
+	 */
+	private static final int SUB_BUCKET_BITS = 6;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * Highest value told apart from the others
+	 */
+	public static final long MAX_VALUE = (1L << 40) - 1;
+
+	private final String name;
+
+	private final long startTime;
+
+	private final AtomicLongArray counts;
+
+	private final LongAdder count = new LongAdder();
+
+	private final LongAdder sum = new LongAdder();
+
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * @param name
+	 *            the name of the measured operation
+	 */
+	public LatencyHistogram(String name) {
+		this.name = name;
+		this.startTime = System.nanoTime();
+		this.counts = new AtomicLongArray(index(MAX_VALUE) + 1);
+	}
+
+	/**
+	 * @return the name of the measured operation
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Record the duration of an operation started at the given time
+	 *
+	 * @param start
+	 *            the start of the operation, read from
+	 *            {@link System#nanoTime()}
+	 */
+	public void recordSince(long start) {
+		record(System.nanoTime() - start);
+	}
+
+	/**
+	 * Record a duration
+	 *
+	 * @param nanos
+	 *            the duration in nanoseconds
+	 */
+	public void record(long nanos) {
+		long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+		counts.incrementAndGet(index(value));
+		count.increment();
+		sum.add(value);
+		long current;
+		while (value > (current = max.get())
+				&& !max.compareAndSet(current, value)) {
+			// Retry against the new maximum
+		}
+	}
+
+	/**
+	 * Take a snapshot of the recorded durations. Values recorded during the
+	 * copy may or may not be part of it.
+	 *
+	 * @return the snapshot
+	 */
+	public Snapshot snapshot() {
+		long[] copy = new long[counts.length()];
+		long total = 0;
+		for (int i = 0; i < copy.length; i++) {
+			copy[i] = counts.get(i);
+			total += copy[i];
+		}
+		return new Snapshot(copy, total, sum.sum(), max.get(),
+				System.nanoTime() - startTime);
+	}
+
+	/**
+	 * @param value
+	 *            a value between 0 and {@link #MAX_VALUE}
+	 * @return the index of the sub-bucket counting the value
+	 */
+	static int index(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+		return (shift + 1 << SUB_BUCKET_BITS)
+				+ (int) (value >>> shift & SUB_BUCKETS - 1);
+	}
+
+	/**
+	 * @param index
+	 *            the index of a sub-bucket
+	 * @return the highest value counted in the sub-bucket
+	 */
+	static long highestValue(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = (index >>> SUB_BUCKET_BITS) - 1;
+		long lowest = (long) (SUB_BUCKETS + (index & SUB_BUCKETS - 1)) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+	/**
+	 * Durations recorded by a histogram up to a point in time
+	 */
+	public static final class Snapshot {
+
+		private final long[] counts;
+
+		private final long count;
+
+		private final long sum;
+
+		private final long max;
+
+		private final long elapsed;
+
+		private Snapshot(long[] counts, long count, long sum, long max,
+				long elapsed) {
+			this.counts = counts;
+			this.count = count;
+			this.sum = sum;
+			this.max = max;
+			this.elapsed = elapsed;
+		}
+
+		/**
+		 * @return the number of recorded durations
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return the mean number of recorded durations per second since the
+		 *         histogram creation
+		 */
+		public double getRate() {
+			return elapsed <= 0 ? 0 : (double) count
+					* TimeUnit.SECONDS.toNanos(1) / elapsed;
+		}
+
+		/**
+		 * @return the mean duration in nanoseconds, 0 if none was recorded
+		 */
+		public double getMean() {
+			return 0 == count ? 0 : (double) sum / count;
+		}
+
+		/**
+		 * @return the longest duration in nanoseconds
+		 */
+		public long getMax() {
+			return max;
+		}
+
+		/**
+		 * Get a percentile of the durations
+		 *
+		 * @param percentile
+		 *            the percentile, between 0 and 100
+		 * @return the duration in nanoseconds below which lie the given
+		 *         percentage of the durations, 0 if none was recorded
+		 */
+		public long getPercentile(double percentile) {
+			if (0 == count) {
+				return 0;
+			}
+			long rank = Math.max(1,
+					(long) Math.ceil(percentile / 100 * count));
+			long seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					return Math.min(highestValue(i), max);
+				}
+			}
+			return max;
+		}
+	}
+}
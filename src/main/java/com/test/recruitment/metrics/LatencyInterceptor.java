@@ -0,0 +1,109 @@
+package com.test.recruitment.metrics;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * Records the latency of each controller method, from the start of the
+ * request handling to the end of the response, asynchronous processing and
+ * error handling included. The operation of a method is named after its
+ * mapping, for instance <code>http.GET /accounts/{accountId}</code>.
+ *
+ * @author A525125
+ *
+ */
+public class LatencyInterceptor extends HandlerInterceptorAdapter {
+
+	private static final String START_ATTRIBUTE = LatencyInterceptor.class
+			.getName() + ".start";
+
+	/**
+	 * Placeholder of the handlers which are not timed
+	 */
+	private static final LatencyHistogram NOT_TIMED = new LatencyHistogram(
+			"");
+
+	private final LatencyTimers latencyTimers;
+
+	private final Map<Method, LatencyHistogram> timers = new ConcurrentHashMap<>();
+
+	/**
+	 * @param latencyTimers
+	 *            the registry of the histograms
+	 */
+	public LatencyInterceptor(LatencyTimers latencyTimers) {
+		this.latencyTimers = latencyTimers;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request,
+			HttpServletResponse response, Object handler) throws Exception {
+		// Called again on the asynchronous dispatch : keep the first start
+		if (null == request.getAttribute(START_ATTRIBUTE)) {
+			request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+		}
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request,
+			HttpServletResponse response, Object handler, Exception ex)
+			throws Exception {
+		Object start = request.getAttribute(START_ATTRIBUTE);
+		if (null == start || !(handler instanceof HandlerMethod)) {
+			return;
+		}
+		LatencyHistogram timer = timer((HandlerMethod) handler);
+		if (NOT_TIMED != timer) {
+			timer.recordSince((Long) start);
+		}
+	}
+
+	private LatencyHistogram timer(HandlerMethod handler) {
+		LatencyHistogram timer = timers.get(handler.getMethod());
+		if (null == timer) {
+			timer = timers.computeIfAbsent(handler.getMethod(),
+					method -> createTimer(handler));
+		}
+		return timer;
+	}
+
+	private LatencyHistogram createTimer(HandlerMethod handler) {
+		if (!AnnotatedElementUtils.hasAnnotation(handler.getBeanType(),
+				RestController.class)) {
+			return NOT_TIMED;
+		}
+		RequestMapping type = AnnotatedElementUtils.findMergedAnnotation(
+				handler.getBeanType(), RequestMapping.class);
+		RequestMapping method = handler
+				.getMethodAnnotation(RequestMapping.class);
+		if (null == method) {
+			return NOT_TIMED;
+		}
+		StringBuilder name = new StringBuilder("http.");
+		name.append(StringUtils.arrayToDelimitedString(method.method(), ","));
+		name.append(' ');
+		if (null != type && type.path().length > 0) {
+			name.append(type.path()[0]);
+		}
+		if (method.path().length > 0) {
+			name.append(method.path()[0]);
+		}
+		if (method.params().length > 0) {
+			name.append('?').append(
+					StringUtils.arrayToDelimitedString(method.params(), "&"));
+		}
+		return latencyTimers.timer(name.toString());
+	}
+}
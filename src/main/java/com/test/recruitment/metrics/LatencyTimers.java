@@ -0,0 +1,39 @@
+package com.test.recruitment.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Registry of the latency histograms, by operation name. The histograms are
+ * meant to be looked up once and kept by the instrumented code, so that
+ * recording a duration never goes through the registry.
+ *
+ * @author A525125
+ *
+ */
+@Component
+public class LatencyTimers {
+
+	private final Map<String, LatencyHistogram> timers = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Get the histogram of an operation, created on the first call
+	 *
+	 * @param name
+	 *            the operation name
+	 * @return the histogram
+	 */
+	public LatencyHistogram timer(String name) {
+		return timers.computeIfAbsent(name, LatencyHistogram::new);
+	}
+
+	/**
+	 * @return the histograms by operation name, in name order
+	 */
+	public Map<String, LatencyHistogram> getTimers() {
+		return Collections.unmodifiableMap(timers);
+	}
+}
@@ -0,0 +1,47 @@
+package com.test.recruitment.metrics;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import com.test.recruitment.dao.AccountRepository;
+import com.test.recruitment.dao.TransactionRepository;
+
+/**
+ * Wraps the repository beans, whatever their implementation, in the
+ * decorators recording the latency of their calls
+ *
+ * @author A525125
+ *
+ */
+public class RepositoryLatencyPostProcessor implements BeanPostProcessor {
+
+	private final LatencyTimers latencyTimers;
+
+	/**
+	 * @param latencyTimers
+	 *            the registry of the histograms
+	 */
+	public RepositoryLatencyPostProcessor(LatencyTimers latencyTimers) {
+		this.latencyTimers = latencyTimers;
+	}
+
+	@Override
+	public Object postProcessBeforeInitialization(Object bean, String beanName)
+			throws BeansException {
+		return bean;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName)
+			throws BeansException {
+		if (bean instanceof AccountRepository) {
+			return new TimedAccountRepository((AccountRepository) bean,
+					latencyTimers);
+		}
+		if (bean instanceof TransactionRepository) {
+			return new TimedTransactionRepository(
+					(TransactionRepository) bean, latencyTimers);
+		}
+		return bean;
+	}
+}
@@ -0,0 +1,37 @@
+package com.test.recruitment.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint publishing the {@link StartupReport} at
+ * <code>/startup</code> : the duration of each startup phase and the
+ * creation time of the slowest beans, in milliseconds
+ *
+ * @author A525125
+ *
+ */
+@Component
+public class StartupEndpoint extends
+		AbstractEndpoint<Map<String, Map<String, Long>>> {
+
+	private StartupReport startupReport;
+
+	@Autowired
+	public StartupEndpoint(StartupReport startupReport) {
+		super("startup", false);
+		this.startupReport = startupReport;
+	}
+
+	@Override
+	public Map<String, Map<String, Long>> invoke() {
+		Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+		result.put("phases", startupReport.getPhases());
+		result.put("beans", startupReport.getSlowestBeans());
+		return result;
+	}
+}
@@ -0,0 +1,138 @@
+package com.test.recruitment.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.context.embedded.EmbeddedServletContainerInitializedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Breakdown of the startup time, in milliseconds, logged once the
+ * application is ready :
+ * <ul>
+ * <li><code>launch</code> : from the start of the JVM to the start of the
+ * context refresh</li>
+ * <li><code>context.refresh</code> : the context refresh, bean creation and
+ * data load included</li>
+ * <li><code>context.beans</code> : the creation of the beans, the slowest
+ * ones being listed apart (see {@link BeanCreationTimer})</li>
+ * <li><code>data.*</code> : the loading of the repository data</li>
+ * <li><code>server.start</code> : the start of the embedded server</li>
+ * <li><code>ready</code> : from the start of the JVM to the application
+ * ready to serve</li>
+ * </ul>
+ * Phases running in the background, such as the index builds following a
+ * bulk load, are added when they end.
+ *
+ * @author A525125
+ *
+ */
+@Slf4j
+@Component
+public class StartupReport {
+
+	/**
+	 * Number of beans listed apart
+	 */
+	private static final int SLOWEST_BEANS = 10;
+
+	private final Map<String, Long> phases = Collections
+			.synchronizedMap(new LinkedHashMap<>());
+
+	/**
+	 * Creation time of each bean, its dependencies excluded, in nanoseconds
+	 */
+	private final Map<String, Long> beans = new ConcurrentHashMap<>();
+
+	private long refreshStart;
+
+	private long refreshEnd;
+
+	/**
+	 * Record the duration of a phase
+	 *
+	 * @param phase
+	 *            the phase name
+	 * @param nanos
+	 *            the duration in nanoseconds
+	 */
+	public void record(String phase, long nanos) {
+		phases.put(phase, TimeUnit.NANOSECONDS.toMillis(nanos));
+	}
+
+	/**
+	 * Record the creation of a bean
+	 *
+	 * @param name
+	 *            the bean name
+	 * @param nanos
+	 *            the creation time, the creation of its dependencies
+	 *            excluded
+	 */
+	public void recordBean(String name, long nanos) {
+		beans.merge(name, nanos, Long::sum);
+	}
+
+	/**
+	 * @return the durations in milliseconds by phase, in recording order
+	 */
+	public Map<String, Long> getPhases() {
+		synchronized (phases) {
+			return new LinkedHashMap<>(phases);
+		}
+	}
+
+	/**
+	 * @return the creation times in milliseconds of the slowest beans,
+	 *         slowest first
+	 */
+	public Map<String, Long> getSlowestBeans() {
+		return beans
+				.entrySet()
+				.stream()
+				.sorted(Map.Entry.<String, Long> comparingByValue().reversed())
+				.limit(SLOWEST_BEANS)
+				.collect(Collectors.toMap(Map.Entry::getKey,
+						entry -> TimeUnit.NANOSECONDS.toMillis(entry
+								.getValue()), (a, b) -> a, LinkedHashMap::new));
+	}
+
+	@EventListener
+	public void onRefreshed(ContextRefreshedEvent event) {
+		if (null != event.getApplicationContext().getParent()) {
+			return;
+		}
+		refreshStart = event.getApplicationContext().getStartupDate();
+		refreshEnd = System.currentTimeMillis();
+		phases.put("launch", refreshStart
+				- ManagementFactory.getRuntimeMXBean().getStartTime());
+		phases.put("context.refresh", refreshEnd - refreshStart);
+		phases.put("context.beans", TimeUnit.NANOSECONDS.toMillis(beans
+				.values().stream().mapToLong(Long::longValue).sum()));
+	}
+
+	@EventListener
+	public void onServerStarted(EmbeddedServletContainerInitializedEvent event) {
+		if (null == event.getApplicationContext().getParent()) {
+			phases.put("server.start", System.currentTimeMillis()
+					- refreshEnd);
+		}
+	}
+
+	@EventListener
+	public void onReady(ApplicationReadyEvent event) {
+		phases.put("ready", ManagementFactory.getRuntimeMXBean().getUptime());
+		log.info("Startup : {} ; slowest beans : {}", getPhases(),
+				getSlowestBeans());
+	}
+}
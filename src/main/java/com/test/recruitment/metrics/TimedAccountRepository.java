@@ -0,0 +1,99 @@
+package com.test.recruitment.metrics;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import com.test.recruitment.dao.AccountRepository;
+import com.test.recruitment.entity.Account;
+
+/**
+ * {@link AccountRepository} recording the latency of each call of another
+ * one, as <code>repository.account.*</code> operations
+ *
+ * @author A525125
+ *
+ */
+public class TimedAccountRepository implements AccountRepository {
+
+	private final AccountRepository delegate;
+
+	private final LatencyHistogram findAll;
+
+	private final LatencyHistogram findById;
+
+	private final LatencyHistogram findAllById;
+
+	private final LatencyHistogram exists;
+
+	private final LatencyHistogram save;
+
+	/**
+	 * @param delegate
+	 *            the timed repository
+	 * @param latencyTimers
+	 *            the registry of the histograms
+	 */
+	public TimedAccountRepository(AccountRepository delegate,
+			LatencyTimers latencyTimers) {
+		this.delegate = delegate;
+		findAll = latencyTimers.timer("repository.account.findAll");
+		findById = latencyTimers.timer("repository.account.findById");
+		findAllById = latencyTimers.timer("repository.account.findAllById");
+		exists = latencyTimers.timer("repository.account.exists");
+		save = latencyTimers.timer("repository.account.save");
+	}
+
+	@Override
+	public Page<Account> findAll(Pageable p) {
+		long start = System.nanoTime();
+		try {
+			return delegate.findAll(p);
+		} finally {
+			findAll.recordSince(start);
+		}
+	}
+
+	@Override
+	public Optional<Account> findById(String accountId) {
+		long start = System.nanoTime();
+		try {
+			return delegate.findById(accountId);
+		} finally {
+			findById.recordSince(start);
+		}
+	}
+
+	@Override
+	public Map<String, Account> findAllById(Collection<String> accountIds) {
+		long start = System.nanoTime();
+		try {
+			return delegate.findAllById(accountIds);
+		} finally {
+			findAllById.recordSince(start);
+		}
+	}
+
+	@Override
+	public boolean exists(String accountId) {
+		long start = System.nanoTime();
+		try {
+			return delegate.exists(accountId);
+		} finally {
+			exists.recordSince(start);
+		}
+	}
+
+	@Override
+	public Account save(Account account) {
+		long start = System.nanoTime();
+		try {
+			return delegate.save(account);
+		} finally {
+			save.recordSince(start);
+		}
+	}
+}
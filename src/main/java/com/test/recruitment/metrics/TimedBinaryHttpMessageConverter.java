@@ -0,0 +1,74 @@
+package com.test.recruitment.metrics;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.test.recruitment.json.ResponseFormat;
+import com.test.recruitment.json.writer.ProjectedBody;
+
+/**
+ * Converter writing the response bodies in a binary {@link ResponseFormat},
+ * with the writers and the configuration of the json object mapper. It
+ * records the latency of the serialization as the
+ * <code>mapping.&lt;format&gt;</code> operation. A {@link ProjectedBody} is
+ * written with the writer of its field set.
+ *
+ * @author A525125
+ *
+ */
+public class TimedBinaryHttpMessageConverter extends
+		AbstractJackson2HttpMessageConverter {
+
+	private final ResponseFormat format;
+
+	private final LatencyHistogram write;
+
+	/**
+	 * @param objectMapper
+	 *            the json object mapper
+	 * @param format
+	 *            the binary format
+	 * @param latencyTimers
+	 *            the registry of the histograms
+	 */
+	public TimedBinaryHttpMessageConverter(ObjectMapper objectMapper,
+			ResponseFormat format, LatencyTimers latencyTimers) {
+		super(objectMapper, format.getMediaType());
+		// Binary formats have no charset
+		setDefaultCharset(null);
+		this.format = format;
+		this.write = latencyTimers.timer("mapping."
+				+ format.name().toLowerCase());
+	}
+
+	@Override
+	protected void writeInternal(Object object, Type type,
+			HttpOutputMessage outputMessage) throws IOException,
+			HttpMessageNotWritableException {
+		long start = System.nanoTime();
+		ObjectWriter writer = getObjectMapper().writer();
+		Object value = object;
+		if (object instanceof ProjectedBody) {
+			writer = ((ProjectedBody) object).getFields().getWriter();
+			value = ((ProjectedBody) object).getValue();
+		}
+		try (JsonGenerator generator = format.createGenerator(writer,
+				outputMessage.getBody())) {
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			writer.writeValue(generator, value);
+		} catch (JsonProcessingException e) {
+			throw new HttpMessageNotWritableException("Could not write "
+					+ format + ": " + e.getOriginalMessage(), e);
+		} finally {
+			write.recordSince(start);
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package com.test.recruitment.metrics;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.test.recruitment.json.writer.ProjectedBody;
+
+/**
+ * Json converter recording the latency of the serialization of the response
+ * bodies, as the <code>mapping.json</code> operation. A {@link ProjectedBody}
+ * is written with the writer of its field set.
+ *
+ * @author A525125
+ *
+ */
+public class TimedJsonHttpMessageConverter extends
+		MappingJackson2HttpMessageConverter {
+
+	private final LatencyHistogram write;
+
+	/**
+	 * @param objectMapper
+	 *            the object mapper
+	 * @param latencyTimers
+	 *            the registry of the histograms
+	 */
+	public TimedJsonHttpMessageConverter(ObjectMapper objectMapper,
+			LatencyTimers latencyTimers) {
+		super(objectMapper);
+		this.write = latencyTimers.timer("mapping.json");
+	}
+
+	@Override
+	protected void writeInternal(Object object, Type type,
+			HttpOutputMessage outputMessage) throws IOException,
+			HttpMessageNotWritableException {
+		long start = System.nanoTime();
+		try {
+			if (object instanceof ProjectedBody) {
+				writeProjected((ProjectedBody) object, outputMessage);
+			} else {
+				super.writeInternal(object, type, outputMessage);
+			}
+		} finally {
+			write.recordSince(start);
+		}
+	}
+
+	private void writeProjected(ProjectedBody body,
+			HttpOutputMessage outputMessage) throws IOException {
+		JsonGenerator generator = getObjectMapper().getFactory()
+				.createGenerator(outputMessage.getBody(), JsonEncoding.UTF8);
+		try {
+			body.getFields().getWriter().writeValue(generator, body.getValue());
+			generator.flush();
+		} catch (JsonProcessingException e) {
+			throw new HttpMessageNotWritableException("Could not write JSON: "
+					+ e.getOriginalMessage(), e);
+		}
+	}
+}
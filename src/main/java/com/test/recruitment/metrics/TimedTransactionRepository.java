@@ -0,0 +1,175 @@
+package com.test.recruitment.metrics;
+
+import java.util.Collection;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import com.test.recruitment.dao.TransactionCursor;
+import com.test.recruitment.dao.TransactionRepository;
+import com.test.recruitment.dao.TransactionSummary;
+import com.test.recruitment.dao.TransactionTotals;
+import com.test.recruitment.entity.Transaction;
+
+/**
+ * {@link TransactionRepository} recording the latency of each call of
+ * another one, as <code>repository.transaction.*</code> operations. The
+ * streamed transactions are read lazily, after the call : only the opening
+ * of the stream is timed.
+ *
+ * @author A525125
+ *
+ */
+public class TimedTransactionRepository implements TransactionRepository {
+
+	private final TransactionRepository delegate;
+
+	private final LatencyHistogram findById;
+
+	private final LatencyHistogram getPage;
+
+	private final LatencyHistogram getSlice;
+
+	private final LatencyHistogram stream;
+
+	private final LatencyHistogram summary;
+
+	private final LatencyHistogram addTotals;
+
+	private final LatencyHistogram buildIndexes;
+
+	private final LatencyHistogram save;
+
+	private final LatencyHistogram saveAll;
+
+	private final LatencyHistogram delete;
+
+	/**
+	 * @param delegate
+	 *            the timed repository
+	 * @param latencyTimers
+	 *            the registry of the histograms
+	 */
+	public TimedTransactionRepository(TransactionRepository delegate,
+			LatencyTimers latencyTimers) {
+		this.delegate = delegate;
+		findById = latencyTimers.timer("repository.transaction.findById");
+		getPage = latencyTimers
+				.timer("repository.transaction.getTransactionsByAccount");
+		getSlice = latencyTimers
+				.timer("repository.transaction.getTransactionsByAccount.cursor");
+		stream = latencyTimers
+				.timer("repository.transaction.streamTransactionsByAccount");
+		summary = latencyTimers.timer("repository.transaction.getSummary");
+		addTotals = latencyTimers.timer("repository.transaction.addTotals");
+		buildIndexes = latencyTimers
+				.timer("repository.transaction.buildIndexes");
+		save = latencyTimers.timer("repository.transaction.save");
+		saveAll = latencyTimers.timer("repository.transaction.saveAll");
+		delete = latencyTimers.timer("repository.transaction.delete");
+	}
+
+	@Override
+	public Transaction findById(String id) {
+		long start = System.nanoTime();
+		try {
+			return delegate.findById(id);
+		} finally {
+			findById.recordSince(start);
+		}
+	}
+
+	@Override
+	public Page<Transaction> getTransactionsByAccount(String accountId,
+			Pageable p) {
+		long start = System.nanoTime();
+		try {
+			return delegate.getTransactionsByAccount(accountId, p);
+		} finally {
+			getPage.recordSince(start);
+		}
+	}
+
+	@Override
+	public Slice<Transaction> getTransactionsByAccount(String accountId,
+			TransactionCursor cursor, int size) {
+		long start = System.nanoTime();
+		try {
+			return delegate.getTransactionsByAccount(accountId, cursor, size);
+		} finally {
+			getSlice.recordSince(start);
+		}
+	}
+
+	@Override
+	public Stream<Transaction> streamTransactionsByAccount(String accountId) {
+		long start = System.nanoTime();
+		try {
+			return delegate.streamTransactionsByAccount(accountId);
+		} finally {
+			stream.recordSince(start);
+		}
+	}
+
+	@Override
+	public TransactionSummary getSummary(String accountId) {
+		long start = System.nanoTime();
+		try {
+			return delegate.getSummary(accountId);
+		} finally {
+			summary.recordSince(start);
+		}
+	}
+
+	@Override
+	public void addTotals(String accountId, TransactionTotals totals) {
+		long start = System.nanoTime();
+		try {
+			delegate.addTotals(accountId, totals);
+		} finally {
+			addTotals.recordSince(start);
+		}
+	}
+
+	@Override
+	public void buildIndexes(String accountId) {
+		long start = System.nanoTime();
+		try {
+			delegate.buildIndexes(accountId);
+		} finally {
+			buildIndexes.recordSince(start);
+		}
+	}
+
+	@Override
+	public Transaction save(Transaction transaction) {
+		long start = System.nanoTime();
+		try {
+			return delegate.save(transaction);
+		} finally {
+			save.recordSince(start);
+		}
+	}
+
+	@Override
+	public void saveAll(Collection<Transaction> transactions) {
+		long start = System.nanoTime();
+		try {
+			delegate.saveAll(transactions);
+		} finally {
+			saveAll.recordSince(start);
+		}
+	}
+
+	@Override
+	public void delete(String id) {
+		long start = System.nanoTime();
+		try {
+			delegate.delete(id);
+		} finally {
+			delete.recordSince(start);
+		}
+	}
+}
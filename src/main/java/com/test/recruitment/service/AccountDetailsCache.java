@@ -0,0 +1,260 @@
+package com.test.recruitment.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import com.test.recruitment.json.AccountDetailsResponse;
+
+/**
+ * Bounded read-through cache of account details. Entries are evicted in
+ * least recently used order once the maximum size is reached, and expire
+ * after a fixed time to live. The cache is split in segments locked
+ * independently, each one holding an access-ordered map.
+ * <p>
+ * Cached responses are shared between requests and must not be modified.
+ * Hit, miss and eviction counters are published as
+ * <code>cache.account-details.*</code> metrics.
+ *
+ * @author A525125
+ *
+ */
+@Component
+public class AccountDetailsCache implements PublicMetrics {
+
+	private static final int SEGMENTS = 16;
+
+	private static final String METRIC_PREFIX = "cache.account-details.";
+
+	private static final class Entry {
+
+		private final AccountDetailsResponse response;
+
+		private final long expiresAt;
+
+		private Entry(AccountDetailsResponse response, long expiresAt) {
+			this.response = response;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	private final class Segment extends LinkedHashMap<String, Entry> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int maximumSize;
+
+		/**
+		 * Incremented on every invalidation, so that a value loaded before
+		 * an invalidation is not cached
+		 */
+		private long generation;
+
+		private Segment(int maximumSize) {
+			super(16, 0.75f, true);
+			this.maximumSize = maximumSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+			if (size() > maximumSize) {
+				evictions.increment();
+				return true;
+			}
+			return false;
+		}
+	}
+
+	private final Segment[] segments;
+
+	private final long ttl;
+
+	private final LongSupplier ticker;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	@Autowired
+	public AccountDetailsCache(
+			@Value("${recruitment.cache.account-details.maximum-size:10000}") int maximumSize,
+			@Value("${recruitment.cache.account-details.ttl:60000}") long ttl) {
+		this(maximumSize, ttl, System::nanoTime);
+	}
+
+	/**
+	 * @param maximumSize
+	 *            the maximum number of entries, 0 to disable the cache
+	 * @param ttl
+	 *            the time to live of an entry in milliseconds
+	 * @param ticker
+	 *            the time source in nanoseconds
+	 */
+	public AccountDetailsCache(int maximumSize, long ttl, LongSupplier ticker) {
+		int segmentSize = (maximumSize + SEGMENTS - 1) / SEGMENTS;
+		segments = new Segment[SEGMENTS];
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new Segment(segmentSize);
+		}
+		this.ttl = TimeUnit.MILLISECONDS.toNanos(ttl);
+		this.ticker = ticker;
+	}
+
+	/**
+	 * Get the details of an account, loading them on a miss
+	 *
+	 * @param accountId
+	 *            the account id
+	 * @param loader
+	 *            loads the details of an account, may throw
+	 * @return the details
+	 */
+	public AccountDetailsResponse get(String accountId,
+			Function<String, AccountDetailsResponse> loader) {
+		Segment segment = segment(accountId);
+		long generation;
+		synchronized (segment) {
+			Entry entry = segment.get(accountId);
+			if (null != entry && ticker.getAsLong() - entry.expiresAt < 0) {
+				hits.increment();
+				return entry.response;
+			}
+			if (null != entry) {
+				segment.remove(accountId);
+				evictions.increment();
+			}
+			generation = segment.generation;
+		}
+		misses.increment();
+		// Load outside of the lock : a slow load must not block the segment
+		AccountDetailsResponse response = loader.apply(accountId);
+		synchronized (segment) {
+			if (generation == segment.generation && segment.maximumSize > 0) {
+				segment.put(accountId, new Entry(response, ticker.getAsLong()
+						+ ttl));
+			}
+		}
+		return response;
+	}
+
+	/**
+	 * Get the details of several accounts, loading all the misses at once
+	 *
+	 * @param accountIds
+	 *            the account ids, without duplicates
+	 * @param loader
+	 *            loads the details of several accounts, omitting the missing
+	 *            ones
+	 * @return the details of the existing accounts by id
+	 */
+	public Map<String, AccountDetailsResponse> getAll(
+			Collection<String> accountIds,
+			Function<Collection<String>, Map<String, AccountDetailsResponse>> loader) {
+		Map<String, AccountDetailsResponse> result = new HashMap<>();
+		Map<String, Long> generations = new HashMap<>();
+		long now = ticker.getAsLong();
+		for (String accountId : accountIds) {
+			Segment segment = segment(accountId);
+			synchronized (segment) {
+				Entry entry = segment.get(accountId);
+				if (null != entry && now - entry.expiresAt < 0) {
+					hits.increment();
+					result.put(accountId, entry.response);
+					continue;
+				}
+				if (null != entry) {
+					segment.remove(accountId);
+					evictions.increment();
+				}
+				generations.put(accountId, segment.generation);
+			}
+			misses.increment();
+		}
+		if (generations.isEmpty()) {
+			return result;
+		}
+		Map<String, AccountDetailsResponse> loaded = loader.apply(generations
+				.keySet());
+		long expiresAt = ticker.getAsLong() + ttl;
+		loaded.forEach((accountId, response) -> {
+			Segment segment = segment(accountId);
+			synchronized (segment) {
+				if (generations.get(accountId) == segment.generation
+						&& segment.maximumSize > 0) {
+					segment.put(accountId, new Entry(response, expiresAt));
+				}
+			}
+		});
+		result.putAll(loaded);
+		return result;
+	}
+
+	/**
+	 * Invalidate the details of an account, after any write on it
+	 *
+	 * @param accountId
+	 *            the account id
+	 */
+	public void invalidate(String accountId) {
+		Segment segment = segment(accountId);
+		synchronized (segment) {
+			segment.remove(accountId);
+			segment.generation++;
+		}
+	}
+
+	/**
+	 * @return the number of lookups served from the cache
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of lookups which loaded the details
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return the number of entries evicted on size or expiry
+	 */
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		long hitCount = getHits();
+		long missCount = getMisses();
+		long lookups = hitCount + missCount;
+		Collection<Metric<?>> metrics = new ArrayList<>();
+		metrics.add(new Metric<Long>(METRIC_PREFIX + "hits", hitCount));
+		metrics.add(new Metric<Long>(METRIC_PREFIX + "misses", missCount));
+		metrics.add(new Metric<Long>(METRIC_PREFIX + "evictions",
+				getEvictions()));
+		metrics.add(new Metric<Double>(METRIC_PREFIX + "hit-ratio",
+				0 == lookups ? 0 : (double) hitCount / lookups));
+		return metrics;
+	}
+
+	private Segment segment(String accountId) {
+		int hash = accountId.hashCode();
+		return segments[(hash ^ hash >>> 16) & SEGMENTS - 1];
+	}
+}
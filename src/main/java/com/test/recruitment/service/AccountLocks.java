@@ -0,0 +1,91 @@
+package com.test.recruitment.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.test.recruitment.dao.journal.Journal;
+
+/**
+ * Write locks striped by account : one lock per account, so that writes on
+ * different accounts never contend. Reads do not take any lock. The writes
+ * run under a lock form a single {@link Journal} unit, so that a
+ * transaction and the balance it changes are recovered together.
+ * 
+ * @author A525125
+ *
+ */
+@Component
+public class AccountLocks {
+
+	private final ConcurrentMap<String, Lock> locks = new ConcurrentHashMap<>();
+
+	private final Journal journal;
+
+	/**
+	 * Locks without journal
+	 */
+	public AccountLocks() {
+		this(new Journal());
+	}
+
+	/**
+	 * @param journal
+	 *            the journal of the writes
+	 */
+	@Autowired
+	public AccountLocks(Journal journal) {
+		this.journal = journal;
+	}
+
+	/**
+	 * Run an action while holding the lock of an account
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @param action
+	 *            the action
+	 * @return the result of the action
+	 */
+	public <T> T withLock(String accountId, Supplier<T> action) {
+		return withLock(accountId, action, result -> {
+		});
+	}
+
+	/**
+	 * Run an action while holding the lock of an account, then pass its
+	 * result to a callback once its writes are durable, still under the lock
+	 * so that the callbacks of an account keep the order of its writes. The
+	 * callback is not called when the action fails.
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @param action
+	 *            the action
+	 * @param durable
+	 *            called with the result once the writes of the action are
+	 *            durable
+	 * @return the result of the action
+	 */
+	public <T> T withLock(String accountId, Supplier<T> action,
+			Consumer<? super T> durable) {
+		Lock lock = locks.get(accountId);
+		if (null == lock) {
+			lock = locks.computeIfAbsent(accountId, k -> new ReentrantLock());
+		}
+		lock.lock();
+		try {
+			T result = journal.atomically(action);
+			durable.accept(result);
+			return result;
+		} finally {
+			lock.unlock();
+		}
+	}
+}
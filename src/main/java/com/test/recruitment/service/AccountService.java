@@ -1,19 +1,33 @@
 package com.test.recruitment.service;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import com.test.recruitment.dao.AccountRepository;
 import com.test.recruitment.entity.Account;
+import com.test.recruitment.json.AccountDetailsBatchItem;
 import com.test.recruitment.json.AccountDetailsResponse;
 import com.test.recruitment.json.AccountResponse;
 import com.test.recruitment.json.ErrorCode;
+import com.test.recruitment.json.ErrorResponse;
+import com.test.recruitment.json.ResponseFormat;
+import com.test.recruitment.json.writer.AccountJsonWriter;
 import com.test.recruitment.exception.ServiceException;
+import com.test.recruitment.metrics.LatencyHistogram;
+import com.test.recruitment.metrics.LatencyTimers;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -27,24 +41,64 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 public class AccountService {
 
+	/**
+	 * Maximum number of accounts of a batch details request
+	 */
+	public static final int MAX_BATCH_SIZE = 1000;
+
 	private AccountRepository accountRepository;
 
+	private AccountDetailsCache accountDetailsCache;
+
+	private AccountVersions accountVersions;
+
+	/**
+	 * Latency of the mapping of the details of one or more accounts
+	 */
+	private LatencyHistogram detailsMapping;
+
 	@Autowired
-	public AccountService(AccountRepository accountRepository) {
+	public AccountService(AccountRepository accountRepository,
+			AccountDetailsCache accountDetailsCache,
+			AccountVersions accountVersions, LatencyTimers latencyTimers) {
 		this.accountRepository = accountRepository;
+		this.accountDetailsCache = accountDetailsCache;
+		this.accountVersions = accountVersions;
+		this.detailsMapping = latencyTimers.timer("mapping.account-details");
 	}
 
 	/**
-	 * Get account by user
+	 * Get account by user. The accounts are not mapped : they are written
+	 * as {@link AccountResponse} by the {@link AccountJsonWriter}.
 	 * 
 	 * @param p
 	 *            the pageable information
 	 * @return the account list
 	 */
-	public Page<AccountResponse> getAccounts(Pageable p) {
-		return new PageImpl<AccountResponse>(accountRepository.findAll(p)
-				.getContent().stream().map(this::mapToAccountResponse)
-				.collect(Collectors.toList()));
+	public Page<Account> getAccounts(Pageable p) {
+		return accountRepository.findAll(p);
+	}
+
+	/**
+	 * Get the version of all the accounts. It must be read before the
+	 * accounts.
+	 * 
+	 * @return the version
+	 */
+	public long getAccountsVersion() {
+		return accountVersions.getAll();
+	}
+
+	/**
+	 * Get the version of an account and its transactions. It must be read
+	 * before the versioned data.
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @return the version
+	 */
+	public long getAccountVersion(String accountId) {
+		return accountVersions.get(accountId);
 	}
 
 	/**
@@ -59,34 +113,133 @@ public class AccountService {
 	}
 
 	/**
-	 * Get account details
+	 * Get the entity tag of an account and its transactions. It must be read
+	 * before the tagged data.
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @param format
+	 *            the format of the response
+	 * @return the entity tag
+	 */
+	public String getAccountETag(String accountId, ResponseFormat format) {
+		if (!isAccountExist(accountId)) {
+			throw new ServiceException(ErrorCode.NOT_FOUND_ACCOUNT,
+					"Account doesn't exist");
+		}
+		return accountVersions.getETag(accountId, format);
+	}
+
+	/**
+	 * Get the entity tag of an account and its transactions without checking
+	 * that the account exists : the tagged data must be read after it, and
+	 * its absence reported then. It must be read before the tagged data.
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @param format
+	 *            the format of the response
+	 * @return the entity tag
+	 */
+	public String getUncheckedAccountETag(String accountId,
+			ResponseFormat format) {
+		return accountVersions.getETag(accountId, format);
+	}
+
+	/**
+	 * Get account details, from the cache if possible. The result is shared
+	 * and must not be modified.
 	 * 
 	 * @param accountId
 	 *            the account id
 	 * @return
 	 */
 	public AccountDetailsResponse getAccountDetails(String accountId) {
+		return accountDetailsCache.get(accountId, this::loadAccountDetails);
+	}
+
+	/**
+	 * Get the details of several accounts, from the cache if possible and
+	 * else in a single repository call. A missing account does not fail the
+	 * whole batch.
+	 * 
+	 * @param accountIds
+	 *            the account ids
+	 * @return the details or the error of each account, in request order
+	 */
+	public List<AccountDetailsBatchItem> getAccountDetails(
+			List<String> accountIds) {
+		if (null == accountIds || accountIds.isEmpty()
+				|| accountIds.size() > MAX_BATCH_SIZE) {
+			throw new ServiceException(ErrorCode.BAD_REQUEST_BATCH,
+					"A batch must hold 1 to " + MAX_BATCH_SIZE + " accounts");
+		}
+		Set<String> distinct = accountIds.stream().filter(Objects::nonNull)
+				.collect(Collectors.toCollection(LinkedHashSet::new));
+		Map<String, AccountDetailsResponse> details = accountDetailsCache
+				.getAll(distinct, this::loadAccountDetails);
+		List<AccountDetailsBatchItem> result = new ArrayList<>(
+				accountIds.size());
+		for (String accountId : accountIds) {
+			AccountDetailsResponse account = null == accountId ? null
+					: details.get(accountId);
+			result.add(new AccountDetailsBatchItem(accountId, account,
+					null != account ? null : new ErrorResponse(
+							ErrorCode.NOT_FOUND_ACCOUNT,
+							"Account doesn't exist")));
+		}
+		return result;
+	}
+
+	private Map<String, AccountDetailsResponse> loadAccountDetails(
+			Collection<String> accountIds) {
+		log.debug("Find {} accounts", accountIds.size());
+		Map<String, Account> accounts = accountRepository
+				.findAllById(accountIds);
+		long start = System.nanoTime();
+		Map<String, AccountDetailsResponse> result = new HashMap<>();
+		accounts.forEach((accountId, account) -> result.put(accountId,
+				mapToAccountDetailsResponse(account)));
+		detailsMapping.recordSince(start);
+		return result;
+	}
+
+	private AccountDetailsResponse loadAccountDetails(String accountId) {
 		log.debug("Find account {}", accountId);
 		Account account = accountRepository.findById(accountId).orElseThrow(
 				() -> new ServiceException(ErrorCode.NOT_FOUND_ACCOUNT,
 						"Account doesn't exist"));
-		return mapToAccountDetailsResponse(account);
+		long start = System.nanoTime();
+		AccountDetailsResponse result = mapToAccountDetailsResponse(account);
+		detailsMapping.recordSince(start);
+		return result;
 	}
 
 	/**
-	 * Map {@link Account} to {@link AccountResponse}
+	 * Add an amount to the balance of an account. The caller must hold the
+	 * account lock (see {@link AccountLocks}). Every transaction write goes
+	 * through this method, which also increments the account version.
 	 * 
-	 * @param account
-	 *            the entity
-	 * @return the response
+	 * @param accountId
+	 *            the account id
+	 * @param amount
+	 *            the amount to add, negative to withdraw
 	 */
-	private AccountResponse mapToAccountResponse(Account account) {
-		AccountResponse result = new AccountResponse();
-		result.setBalance(account.getBalance());
-		result.setId(account.getId());
-		result.setNumber(account.getNumber());
-		result.setType(account.getType());
-		return result;
+	public void addToBalance(String accountId, BigDecimal amount) {
+		Account account = accountRepository.findById(accountId).orElseThrow(
+				() -> new ServiceException(ErrorCode.NOT_FOUND_ACCOUNT,
+						"Account doesn't exist"));
+		// Readers may hold the current instance : publish a new one
+		Account updated = new Account();
+		updated.setId(account.getId());
+		updated.setNumber(account.getNumber());
+		updated.setType(account.getType());
+		updated.setCreationDate(account.getCreationDate());
+		updated.setActive(account.isActive());
+		updated.setBalance(account.getBalance().add(amount));
+		accountRepository.save(updated);
+		accountDetailsCache.invalidate(accountId);
+		accountVersions.increment(accountId);
 	}
 
 	/**
@@ -96,7 +249,7 @@ public class AccountService {
 	 *            the entity
 	 * @return the response
 	 */
-	private AccountDetailsResponse mapToAccountDetailsResponse(Account account) {
+	AccountDetailsResponse mapToAccountDetailsResponse(Account account) {
 		AccountDetailsResponse result = new AccountDetailsResponse();
 		result.setActive(account.isActive());
 		result.setCreationDate(account.getCreationDate());
@@ -0,0 +1,89 @@
+package com.test.recruitment.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.test.recruitment.json.ResponseFormat;
+
+/**
+ * Monotonic version of each account, incremented on every change of the
+ * account or of its transactions. Versions are used as entity tags : a
+ * version must be read before the data it tags, so that a tag is never
+ * newer than its data. Each {@link ResponseFormat} of the data has its own
+ * tag.
+ *
+ * @author A525125
+ *
+ */
+@Component
+public class AccountVersions {
+
+	/**
+	 * Versions restart at 0 with the application : the start time keeps the
+	 * tags of different runs apart
+	 */
+	private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+	private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+	/**
+	 * Version of all the accounts, incremented with each of them
+	 */
+	private final AtomicLong all = new AtomicLong();
+
+	/**
+	 * Get the version of an account
+	 *
+	 * @param accountId
+	 *            the account id
+	 * @return the version, 0 if the account never changed
+	 */
+	public long get(String accountId) {
+		AtomicLong version = versions.get(accountId);
+		return null == version ? 0 : version.get();
+	}
+
+	/**
+	 * Get the version of all the accounts
+	 *
+	 * @return the version, 0 if no account ever changed
+	 */
+	public long getAll() {
+		return all.get();
+	}
+
+	/**
+	 * Increment the version of an account, after a change
+	 *
+	 * @param accountId
+	 *            the account id
+	 */
+	public void increment(String accountId) {
+		AtomicLong version = versions.get(accountId);
+		if (null == version) {
+			version = versions.computeIfAbsent(accountId,
+					k -> new AtomicLong());
+		}
+		version.incrementAndGet();
+		all.incrementAndGet();
+	}
+
+	/**
+	 * Get the strong entity tag of the current version of an account in a
+	 * format
+	 *
+	 * @param accountId
+	 *            the account id
+	 * @param format
+	 *            the format of the response
+	 * @return the entity tag, quoted, suffixed by the format unless json
+	 */
+	public String getETag(String accountId, ResponseFormat format) {
+		return "\"" + epoch + "-" + get(accountId)
+				+ (ResponseFormat.JSON == format ? "" : "-"
+						+ format.name().toLowerCase()) + "\"";
+	}
+}
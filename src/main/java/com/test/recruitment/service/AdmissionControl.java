@@ -0,0 +1,316 @@
+package com.test.recruitment.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import com.test.recruitment.controller.AdmissionClass;
+import com.test.recruitment.exception.OverloadedException;
+
+/**
+ * Admission control of the requests, so that an overload is answered at once
+ * with a 503 instead of slowing down every request. A request is shed when :
+ * <ul>
+ * <li>its client exceeded its rate, unless it is a
+ * {@link AdmissionClass#CRITICAL} request, which skips the client lookup
+ * ;</li>
+ * <li>its endpoint exceeded the rate of its class, {@link AdmissionClass#BULK}
+ * endpoints having a lower rate than the {@link AdmissionClass#NORMAL} ones
+ * and {@link AdmissionClass#CRITICAL} endpoints none ;</li>
+ * <li>too many requests are in progress, {@link AdmissionClass#BULK} requests
+ * being shed at a lower concurrency than the {@link AdmissionClass#NORMAL}
+ * ones and {@link AdmissionClass#CRITICAL} requests never.</li>
+ * </ul>
+ * A token is only taken from the bucket of the endpoint once the client is
+ * admitted. The checks are lock-free : the client buckets are held in a
+ * concurrent map, swept by the thread adding a client beyond a maximum
+ * number of clients. The sweep evicts the idle buckets, which a new bucket
+ * replaces without any loss, and only when too many clients are active,
+ * arbitrary ones. Admitted and rejected counters are published as
+ * <code>admission.*</code> metrics.
+ *
+ * @author A525125
+ *
+ */
+@Component
+public class AdmissionControl implements PublicMetrics {
+
+	private static final String METRIC_PREFIX = "admission.";
+
+	/**
+	 * Number of client buckets beyond which they are swept
+	 */
+	private static final int MAX_CLIENTS = 10_000;
+
+	/**
+	 * Number of client buckets left by a sweep, so that the next one is
+	 * only run after a quarter of the maximum new clients
+	 */
+	private static final int SWEPT_CLIENTS = MAX_CLIENTS * 3 / 4;
+
+	private final double bulkRate;
+
+	private final int bulkBurst;
+
+	private final double normalRate;
+
+	private final int normalBurst;
+
+	private final double clientRate;
+
+	private final int clientBurst;
+
+	private final int maxConcurrency;
+
+	private final int bulkConcurrency;
+
+	private final LongSupplier ticker;
+
+	private final ConcurrentMap<String, TokenBucket> clients = new ConcurrentHashMap<>();
+
+	private final AtomicBoolean sweeping = new AtomicBoolean();
+
+	private final AtomicInteger inProgress = new AtomicInteger();
+
+	private final LongAdder admitted = new LongAdder();
+
+	private final LongAdder[] rejected = new LongAdder[AdmissionClass
+			.values().length];
+
+	@Autowired
+	public AdmissionControl(
+			@Value("${recruitment.admission.bulk-rate:200}") double bulkRate,
+			@Value("${recruitment.admission.bulk-burst:50}") int bulkBurst,
+			@Value("${recruitment.admission.normal-rate:2000}") double normalRate,
+			@Value("${recruitment.admission.normal-burst:500}") int normalBurst,
+			@Value("${recruitment.admission.client-rate:100}") double clientRate,
+			@Value("${recruitment.admission.client-burst:200}") int clientBurst,
+			@Value("${recruitment.admission.max-concurrency:64}") int maxConcurrency,
+			@Value("${recruitment.admission.bulk-concurrency:32}") int bulkConcurrency) {
+		this(bulkRate, bulkBurst, normalRate, normalBurst, clientRate,
+				clientBurst, maxConcurrency, bulkConcurrency, System::nanoTime);
+	}
+
+	/**
+	 * @param bulkRate
+	 *            the requests per second of each bulk endpoint, 0 for no
+	 *            limit
+	 * @param bulkBurst
+	 *            the burst of each bulk endpoint
+	 * @param normalRate
+	 *            the requests per second of each normal endpoint, 0 for no
+	 *            limit
+	 * @param normalBurst
+	 *            the burst of each normal endpoint
+	 * @param clientRate
+	 *            the requests per second of each client, 0 for no limit
+	 * @param clientBurst
+	 *            the burst of each client
+	 * @param maxConcurrency
+	 *            the requests in progress beyond which the normal requests
+	 *            are shed
+	 * @param bulkConcurrency
+	 *            the requests in progress beyond which the bulk requests are
+	 *            shed
+	 * @param ticker
+	 *            the time source in nanoseconds
+	 */
+	public AdmissionControl(double bulkRate, int bulkBurst, double normalRate,
+			int normalBurst, double clientRate, int clientBurst,
+			int maxConcurrency, int bulkConcurrency, LongSupplier ticker) {
+		this.bulkRate = bulkRate;
+		this.bulkBurst = bulkBurst;
+		this.normalRate = normalRate;
+		this.normalBurst = normalBurst;
+		this.clientRate = clientRate;
+		this.clientBurst = clientBurst;
+		this.maxConcurrency = maxConcurrency;
+		this.bulkConcurrency = Math.min(bulkConcurrency, maxConcurrency);
+		this.ticker = ticker;
+		for (int i = 0; i < rejected.length; i++) {
+			rejected[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Create the bucket shared by the requests of an endpoint
+	 *
+	 * @param admissionClass
+	 *            the class of the endpoint
+	 * @return the bucket, null if the endpoint is not limited
+	 */
+	public TokenBucket createEndpointBucket(AdmissionClass admissionClass) {
+		switch (admissionClass) {
+		case BULK:
+			return bucket(bulkRate, bulkBurst);
+		case NORMAL:
+			return bucket(normalRate, normalBurst);
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Admit a request, to be followed by {@link #release()} once it is
+	 * complete
+	 *
+	 * @param admissionClass
+	 *            the class of the endpoint
+	 * @param endpointBucket
+	 *            the bucket of the endpoint, null if it is not limited
+	 * @param client
+	 *            the client identifier
+	 * @throws OverloadedException
+	 *             if the request is shed
+	 */
+	public void acquire(AdmissionClass admissionClass,
+			TokenBucket endpointBucket, String client) {
+		// Checked first : it does not consume any token
+		int limit = concurrencyLimit(admissionClass);
+		int current = inProgress.incrementAndGet();
+		if (current > limit) {
+			inProgress.decrementAndGet();
+			throw reject(admissionClass, "Too many requests in progress",
+					TimeUnit.SECONDS.toNanos(1));
+		}
+		// Before the endpoint : a rejected client does not take its tokens
+		long wait = AdmissionClass.CRITICAL == admissionClass ? 0
+				: acquireClient(client);
+		if (0 != wait) {
+			inProgress.decrementAndGet();
+			throw reject(admissionClass, "Too many requests from this client",
+					wait);
+		}
+		wait = null == endpointBucket ? 0 : endpointBucket.tryAcquire();
+		if (0 != wait) {
+			inProgress.decrementAndGet();
+			throw reject(admissionClass, "Too many requests on this endpoint",
+					wait);
+		}
+		admitted.increment();
+	}
+
+	/**
+	 * Release an admitted request
+	 */
+	public void release() {
+		inProgress.decrementAndGet();
+	}
+
+	public long getAdmitted() {
+		return admitted.sum();
+	}
+
+	/**
+	 * @return the number of client buckets
+	 */
+	public int getClients() {
+		return clients.size();
+	}
+
+	/**
+	 * @param admissionClass
+	 *            the class of the requests
+	 * @return the number of rejected requests of the class
+	 */
+	public long getRejected(AdmissionClass admissionClass) {
+		return rejected[admissionClass.ordinal()].sum();
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		Collection<Metric<?>> metrics = new ArrayList<>();
+		metrics.add(new Metric<Long>(METRIC_PREFIX + "admitted",
+				getAdmitted()));
+		for (AdmissionClass admissionClass : AdmissionClass.values()) {
+			metrics.add(new Metric<Long>(METRIC_PREFIX + "rejected."
+					+ admissionClass.name().toLowerCase(),
+					getRejected(admissionClass)));
+		}
+		metrics.add(new Metric<Integer>(METRIC_PREFIX + "in-progress",
+				inProgress.get()));
+		metrics.add(new Metric<Integer>(METRIC_PREFIX + "clients",
+				getClients()));
+		return metrics;
+	}
+
+	private int concurrencyLimit(AdmissionClass admissionClass) {
+		switch (admissionClass) {
+		case BULK:
+			return bulkConcurrency;
+		case NORMAL:
+			return maxConcurrency;
+		default:
+			return Integer.MAX_VALUE;
+		}
+	}
+
+	/**
+	 * @return 0 if the client can send a request, else the delay in
+	 *         nanoseconds before it can
+	 */
+	private long acquireClient(String client) {
+		if (clientRate <= 0) {
+			return 0;
+		}
+		TokenBucket bucket = clients.get(client);
+		if (null != bucket) {
+			return bucket.tryAcquire();
+		}
+		bucket = bucket(clientRate, clientBurst);
+		TokenBucket previous = clients.putIfAbsent(client, bucket);
+		if (null != previous) {
+			return previous.tryAcquire();
+		}
+		// Taken before the sweep, which would evict the full new bucket
+		long wait = bucket.tryAcquire();
+		if (clients.size() > MAX_CLIENTS
+				&& sweeping.compareAndSet(false, true)) {
+			try {
+				sweepClients();
+			} finally {
+				sweeping.set(false);
+			}
+		}
+		return wait;
+	}
+
+	/**
+	 * Evict the idle client buckets then, if too many clients are still
+	 * active, arbitrary ones
+	 */
+	private void sweepClients() {
+		clients.values().removeIf(TokenBucket::isFull);
+		Iterator<TokenBucket> buckets = clients.values().iterator();
+		while (clients.size() > SWEPT_CLIENTS && buckets.hasNext()) {
+			buckets.next();
+			buckets.remove();
+		}
+	}
+
+	private TokenBucket bucket(double rate, int burst) {
+		return rate <= 0 ? null : new TokenBucket(rate, burst, ticker);
+	}
+
+	private OverloadedException reject(AdmissionClass admissionClass,
+			String message, long wait) {
+		rejected[admissionClass.ordinal()].increment();
+		// Rounded up, at least one second
+		return new OverloadedException(message, Math.max(1,
+				(wait + TimeUnit.SECONDS.toNanos(1) - 1)
+						/ TimeUnit.SECONDS.toNanos(1)));
+	}
+}
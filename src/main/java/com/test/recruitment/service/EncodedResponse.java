@@ -0,0 +1,229 @@
+package com.test.recruitment.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.ResponseEntity.BodyBuilder;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import com.test.recruitment.json.ResponseFormat;
+
+/**
+ * Response body encoded in a {@link ResponseFormat}, and optionally gzipped,
+ * ready to be written to the client. It is shared between requests and must
+ * not be modified.
+ * <p>
+ * The negotiated responses vary with the Accept and Accept-Encoding headers
+ * of the requests, and their entity tags with the representation : the tag
+ * of the gzip variant ends with {@value #GZIP_SUFFIX}.
+ *
+ * @author A525125
+ *
+ */
+public final class EncodedResponse {
+
+	private static final String GZIP = "gzip";
+
+	/**
+	 * Suffix of the entity tag of the gzip variant
+	 */
+	private static final String GZIP_SUFFIX = "-gzip";
+
+	private static final String VARY = HttpHeaders.ACCEPT + ", "
+			+ HttpHeaders.ACCEPT_ENCODING;
+
+	private final byte[] body;
+
+	private final byte[] gzip;
+
+	private final ResponseFormat format;
+
+	private final long version;
+
+	/**
+	 * @param body
+	 *            the encoded body
+	 * @param gzip
+	 *            true to also encode the gzip variant
+	 * @param format
+	 *            the format of the body
+	 * @param version
+	 *            the version of the data, read before the data
+	 */
+	EncodedResponse(byte[] body, boolean gzip, ResponseFormat format,
+			long version) {
+		this.body = body;
+		this.gzip = gzip ? gzip(body) : null;
+		this.format = format;
+		this.version = version;
+	}
+
+	/**
+	 * @return the encoded body
+	 */
+	public byte[] getBody() {
+		return body;
+	}
+
+	/**
+	 * @return the gzipped body, null if it was not encoded
+	 */
+	public byte[] getGzip() {
+		return gzip;
+	}
+
+	/**
+	 * @return the format of the body
+	 */
+	public ResponseFormat getFormat() {
+		return format;
+	}
+
+	/**
+	 * @return the version of the data
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Build the response, gzipped if the client accepts it and the gzip
+	 * variant was encoded
+	 *
+	 * @param acceptEncoding
+	 *            the Accept-Encoding header of the request, may be null
+	 * @return the response
+	 */
+	public ResponseEntity<byte[]> toResponseEntity(String acceptEncoding) {
+		return toResponseEntity(acceptEncoding, null);
+	}
+
+	/**
+	 * Build the tagged response, gzipped if the client accepts it and the
+	 * gzip variant was encoded
+	 *
+	 * @param acceptEncoding
+	 *            the Accept-Encoding header of the request, may be null
+	 * @param etag
+	 *            the entity tag of the body in its format, null for none
+	 * @return the response
+	 */
+	public ResponseEntity<byte[]> toResponseEntity(String acceptEncoding,
+			String etag) {
+		BodyBuilder builder = ResponseEntity.ok()
+				.contentType(format.getMediaType())
+				.header(HttpHeaders.VARY, VARY);
+		boolean gzipped = null != gzip && acceptsGzip(acceptEncoding);
+		if (null != etag) {
+			builder.eTag(gzipped ? gzipETag(etag) : etag);
+		}
+		if (gzipped) {
+			return builder.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(
+					gzip);
+		}
+		return builder.body(body);
+	}
+
+	/**
+	 * Select the format of the response to a request, which then varies
+	 * with the Accept and Accept-Encoding headers, whatever its status
+	 *
+	 * @param request
+	 *            the request
+	 * @return the format
+	 */
+	public static ResponseFormat negotiate(WebRequest request) {
+		if (request instanceof NativeWebRequest) {
+			HttpServletResponse response = ((NativeWebRequest) request)
+					.getNativeResponse(HttpServletResponse.class);
+			if (null != response) {
+				response.setHeader(HttpHeaders.VARY, VARY);
+			}
+		}
+		return ResponseFormat.of(request.getHeader(HttpHeaders.ACCEPT));
+	}
+
+	/**
+	 * Find the variant of the current representation held by the client :
+	 * the gzip variant has its own tag, unknown until the body is encoded
+	 *
+	 * @param etag
+	 *            the entity tag of the representation
+	 * @param ifNoneMatch
+	 *            the If-None-Match header of the request, may be null
+	 * @param acceptEncoding
+	 *            the Accept-Encoding header of the request, may be null
+	 * @return the entity tag of the variant held, null if none
+	 */
+	public static String getHeldETag(String etag, String ifNoneMatch,
+			String acceptEncoding) {
+		if (null == ifNoneMatch) {
+			return null;
+		}
+		String gzipETag = acceptsGzip(acceptEncoding) ? gzipETag(etag) : null;
+		for (String tag : ifNoneMatch.split(",")) {
+			tag = tag.trim();
+			if (tag.startsWith("W/")) {
+				tag = tag.substring(2);
+			}
+			if ("*".equals(tag) || tag.equals(etag)) {
+				return etag;
+			}
+			if (tag.equals(gzipETag)) {
+				return gzipETag;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the number of bytes held
+	 */
+	long getWeight() {
+		return body.length + (null == gzip ? 0 : gzip.length);
+	}
+
+	/**
+	 * @return the entity tag of the gzip variant of a quoted entity tag
+	 */
+	private static String gzipETag(String etag) {
+		return etag.substring(0, etag.length() - 1) + GZIP_SUFFIX + "\"";
+	}
+
+	private static boolean acceptsGzip(String acceptEncoding) {
+		if (null == acceptEncoding) {
+			return false;
+		}
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parameters = coding.split(";");
+			String name = parameters[0].trim();
+			if (GZIP.equalsIgnoreCase(name) || "*".equals(name)) {
+				for (int i = 1; i < parameters.length; i++) {
+					if (parameters[i].trim().matches("q=0(\\.0*)?")) {
+						return false;
+					}
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static byte[] gzip(byte[] body) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(
+				body.length / 4 + 64);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(body);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+}
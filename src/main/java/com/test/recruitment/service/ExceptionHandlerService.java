@@ -1,13 +1,23 @@
 package com.test.recruitment.service;
 
+import javax.servlet.http.HttpServletRequest;
+
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.HandlerMapping;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.test.recruitment.json.ErrorResponse;
+import com.test.recruitment.exception.OverloadedException;
 import com.test.recruitment.exception.ServiceException;
 
 /**
@@ -20,6 +30,13 @@ import com.test.recruitment.exception.ServiceException;
 @ControllerAdvice
 public class ExceptionHandlerService {
 
+	private ObjectWriter errorWriter;
+
+	@Autowired
+	public ExceptionHandlerService(ObjectMapper objectMapper) {
+		this.errorWriter = objectMapper.writerFor(ErrorResponse.class);
+	}
+
 	/**
 	 * Handle {@link ServiceException}
 	 * 
@@ -29,10 +46,45 @@ public class ExceptionHandlerService {
 	 */
 	@ExceptionHandler(ServiceException.class)
 	@ResponseBody
-	public ResponseEntity<ErrorResponse> handleServiceException(
-			ServiceException e) {
+	public ResponseEntity<byte[]> handleServiceException(
+			ServiceException e, HttpServletRequest request)
+			throws JsonProcessingException {
 		log.error("Error : " + e.getMessage());
-		return ResponseEntity.status(e.getErrorCode().getHttpStatus().value())
-				.body(new ErrorResponse(e.getErrorCode(), e.getMessage()));
+		return error(ResponseEntity.status(e.getErrorCode().getHttpStatus()
+				.value()), new ErrorResponse(e.getErrorCode(), e.getMessage()),
+				request);
+	}
+
+	/**
+	 * Handle {@link OverloadedException}, with a Retry-After header. Not
+	 * logged as an error : shedding is the expected behavior under overload.
+	 * 
+	 * @param e
+	 *            exception
+	 * @return error response
+	 */
+	@ExceptionHandler(OverloadedException.class)
+	@ResponseBody
+	public ResponseEntity<byte[]> handleOverloadedException(
+			OverloadedException e, HttpServletRequest request)
+			throws JsonProcessingException {
+		log.debug("Request shed : {}", e.getMessage());
+		return error(ResponseEntity.status(e.getErrorCode().getHttpStatus()
+				.value()).header(HttpHeaders.RETRY_AFTER,
+				String.valueOf(e.getRetryAfter())), new ErrorResponse(
+				e.getErrorCode(), e.getMessage()), request);
+	}
+
+	/**
+	 * Errors are json, even on endpoints producing another media type and
+	 * whatever the accepted media types : the body is written here and sent
+	 * as it is
+	 */
+	private ResponseEntity<byte[]> error(ResponseEntity.BodyBuilder builder,
+			ErrorResponse error, HttpServletRequest request)
+			throws JsonProcessingException {
+		request.removeAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE);
+		return builder.contentType(MediaType.APPLICATION_JSON).body(
+				errorWriter.writeValueAsBytes(error));
 	}
 }
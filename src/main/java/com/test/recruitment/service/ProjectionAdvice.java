@@ -0,0 +1,46 @@
+package com.test.recruitment.service;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import com.test.recruitment.json.writer.FieldSet;
+import com.test.recruitment.json.writer.ProjectedBody;
+
+/**
+ * Wraps the json bodies of the requests which selected a {@link FieldSet}
+ * (see {@link Projections#select}), so that the json, CBOR or Smile
+ * converter writes them with its writer
+ *
+ * @author A525125
+ *
+ */
+@ControllerAdvice
+public class ProjectionAdvice implements ResponseBodyAdvice<Object> {
+
+	@Override
+	public boolean supports(MethodParameter returnType,
+			Class<? extends HttpMessageConverter<?>> converterType) {
+		return AbstractJackson2HttpMessageConverter.class
+				.isAssignableFrom(converterType);
+	}
+
+	@Override
+	public Object beforeBodyWrite(Object body, MethodParameter returnType,
+			MediaType selectedContentType,
+			Class<? extends HttpMessageConverter<?>> selectedConverterType,
+			ServerHttpRequest request, ServerHttpResponse response) {
+		if (null == body || !(request instanceof ServletServerHttpRequest)) {
+			return body;
+		}
+		FieldSet fields = (FieldSet) ((ServletServerHttpRequest) request)
+				.getServletRequest().getAttribute(FieldSet.ATTRIBUTE);
+		return null == fields ? body : new ProjectedBody(body, fields);
+	}
+}
@@ -0,0 +1,123 @@
+package com.test.recruitment.service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.WebRequest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.test.recruitment.exception.ServiceException;
+import com.test.recruitment.json.ErrorCode;
+import com.test.recruitment.json.writer.FieldSet;
+import com.test.recruitment.json.writer.ProjectedBody;
+import com.test.recruitment.json.writer.ProjectingWriter;
+
+/**
+ * Sparse fieldsets : the <code>fields</code> parameter of a request selects
+ * the properties written by the {@link ProjectingWriter}s. There is one
+ * {@link FieldSet} per distinct set of fields, whatever their order in the
+ * parameter, so that each projection is compiled once.
+ *
+ * @author A525125
+ *
+ */
+@Component
+public class Projections {
+
+	private final ObjectWriter writer;
+
+	/**
+	 * Field names of all the projected types
+	 */
+	private final Set<String> names = new HashSet<>();
+
+	private final ConcurrentMap<String, FieldSet> fieldSets = new ConcurrentHashMap<>();
+
+	/**
+	 * @param objectMapper
+	 *            the object mapper of the responses
+	 * @param writers
+	 *            the projected types
+	 */
+	@Autowired
+	public Projections(ObjectMapper objectMapper,
+			List<ProjectingWriter<?>> writers) {
+		this.writer = objectMapper.writer();
+		for (ProjectingWriter<?> projectingWriter : writers) {
+			names.addAll(projectingWriter.getFieldNames());
+		}
+	}
+
+	/**
+	 * Get the field set of a fields parameter
+	 *
+	 * @param fields
+	 *            the comma separated field names, may be null
+	 * @return the field set, null to write all the fields
+	 */
+	public FieldSet get(String fields) {
+		if (null == fields) {
+			return null;
+		}
+		Set<String> selected = new TreeSet<>();
+		for (String name : fields.split(",")) {
+			name = name.trim();
+			if (name.isEmpty()) {
+				continue;
+			}
+			if (!names.contains(name)) {
+				throw new ServiceException(ErrorCode.BAD_REQUEST_FIELDS,
+						"Unknown field " + name);
+			}
+			selected.add(name);
+		}
+		if (selected.isEmpty()) {
+			return null;
+		}
+		String key = String.join(",", selected);
+		FieldSet fieldSet = fieldSets.get(key);
+		if (null == fieldSet) {
+			fieldSet = fieldSets.computeIfAbsent(key, k -> new FieldSet(
+					selected, writer));
+		}
+		return fieldSet;
+	}
+
+	/**
+	 * Get the field set of a fields parameter and keep it for the body of
+	 * the response, which will be written as a {@link ProjectedBody}
+	 *
+	 * @param fields
+	 *            the comma separated field names, may be null
+	 * @param request
+	 *            the request
+	 * @return the field set, null to write all the fields
+	 */
+	public FieldSet select(String fields, WebRequest request) {
+		FieldSet fieldSet = get(fields);
+		if (null != fieldSet) {
+			request.setAttribute(FieldSet.ATTRIBUTE, fieldSet,
+					RequestAttributes.SCOPE_REQUEST);
+		}
+		return fieldSet;
+	}
+
+	/**
+	 * Get the writer of a field set
+	 *
+	 * @param fields
+	 *            the field set, null for all the fields
+	 * @return the writer
+	 */
+	public ObjectWriter writer(FieldSet fields) {
+		return null == fields ? writer : fields.getWriter();
+	}
+}
@@ -0,0 +1,193 @@
+package com.test.recruitment.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.test.recruitment.dao.AccountRepository;
+import com.test.recruitment.dao.AmountSum;
+import com.test.recruitment.dao.TransactionRepository;
+import com.test.recruitment.dao.TransactionTotals;
+import com.test.recruitment.entity.Account;
+import com.test.recruitment.json.AccountReportLine;
+
+/**
+ * Cross-account reports. The accounts are split in shards computed in
+ * parallel on a dedicated fork-join pool : each shard accumulates its own
+ * totals in primitive sums, without lock nor shared state, and the totals of
+ * the shards are merged when they are joined.
+ * <p>
+ * The shards are made of whole accounts : an account holding most of the
+ * transactions is read by a single thread.
+ *
+ * @author A525125
+ *
+ */
+@Slf4j
+@Service
+public class ReportService implements DisposableBean {
+
+	/**
+	 * Number of shards per thread, so that threads finishing early steal the
+	 * remaining shards
+	 */
+	private static final int SHARDS_PER_THREAD = 16;
+
+	private static final Comparator<AccountReportLine> LINE_ORDER = Comparator
+			.comparing(AccountReportLine::getType,
+					Comparator.nullsFirst(Comparator.<String> naturalOrder()))
+			.thenComparing(AccountReportLine::isActive);
+
+	private AccountRepository accountRepository;
+
+	private TransactionRepository transactionRepository;
+
+	private ForkJoinPool pool;
+
+	/**
+	 * Totals of the accounts of a type and status
+	 */
+	private static final class Group {
+
+		private long accounts;
+
+		private final AmountSum balance = new AmountSum();
+
+		private final TransactionTotals transactions = new TransactionTotals();
+
+		private void add(Group other) {
+			accounts += other.accounts;
+			balance.add(other.balance);
+			transactions.add(other.transactions);
+		}
+	}
+
+	/**
+	 * Totals of a range of accounts, by type then by status (inactive,
+	 * active)
+	 */
+	private final class Shard extends RecursiveTask<Map<String, Group[]>> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<Account> accounts;
+
+		private final int from;
+
+		private final int to;
+
+		private final int threshold;
+
+		private Shard(List<Account> accounts, int from, int to, int threshold) {
+			this.accounts = accounts;
+			this.from = from;
+			this.to = to;
+			this.threshold = threshold;
+		}
+
+		@Override
+		protected Map<String, Group[]> compute() {
+			if (to - from <= threshold) {
+				return computeDirectly();
+			}
+			int middle = (from + to) >>> 1;
+			Shard left = new Shard(accounts, from, middle, threshold);
+			left.fork();
+			Map<String, Group[]> totals = new Shard(accounts, middle, to,
+					threshold).compute();
+			left.join().forEach(
+					(type, groups) -> totals.merge(type, groups, (a, b) -> {
+						for (int i = 0; i < a.length; i++) {
+							a[i].add(b[i]);
+						}
+						return a;
+					}));
+			return totals;
+		}
+
+		private Map<String, Group[]> computeDirectly() {
+			Map<String, Group[]> totals = new HashMap<>();
+			for (int i = from; i < to; i++) {
+				Account account = accounts.get(i);
+				Group group = totals.computeIfAbsent(account.getType(),
+						k -> new Group[] { new Group(), new Group() })[account
+						.isActive() ? 1 : 0];
+				group.accounts++;
+				if (null != account.getBalance()) {
+					group.balance.add(account.getBalance());
+				}
+				transactionRepository.addTotals(account.getId(),
+						group.transactions);
+			}
+			return totals;
+		}
+	}
+
+	@Autowired
+	public ReportService(AccountRepository accountRepository,
+			TransactionRepository transactionRepository,
+			@Value("${recruitment.report.parallelism:0}") int parallelism) {
+		this.accountRepository = accountRepository;
+		this.transactionRepository = transactionRepository;
+		this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime
+				.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Get the totals of the accounts and of their transactions by account
+	 * type and status. The totals of each account are read as of the time it
+	 * is reached, not as a whole at a single point in time.
+	 *
+	 * @return the totals, by type then inactive before active
+	 */
+	public List<AccountReportLine> getAccountReport() {
+		long start = System.nanoTime();
+		List<Account> accounts = accountRepository.findAll(null).getContent();
+		int threshold = Math.max(1, accounts.size()
+				/ (pool.getParallelism() * SHARDS_PER_THREAD));
+		Map<String, Group[]> totals = pool.invoke(new Shard(accounts, 0,
+				accounts.size(), threshold));
+		List<AccountReportLine> lines = new ArrayList<>();
+		totals.forEach((type, groups) -> {
+			for (int i = 0; i < groups.length; i++) {
+				if (0 != groups[i].accounts) {
+					lines.add(toLine(type, 1 == i, groups[i]));
+				}
+			}
+		});
+		lines.sort(LINE_ORDER);
+		log.debug("Account report of {} accounts in {} us", accounts.size(),
+				(System.nanoTime() - start) / 1000);
+		return lines;
+	}
+
+	private static AccountReportLine toLine(String type, boolean active,
+			Group group) {
+		AccountReportLine line = new AccountReportLine();
+		line.setType(type);
+		line.setActive(active);
+		line.setAccounts(group.accounts);
+		line.setBalance(group.balance.get());
+		line.setTransactions(group.transactions.getCount());
+		line.setCredits(group.transactions.getCredits());
+		line.setDebits(group.transactions.getDebits());
+		line.setVolume(line.getCredits().subtract(line.getDebits()));
+		return line;
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		pool.shutdownNow();
+	}
+}
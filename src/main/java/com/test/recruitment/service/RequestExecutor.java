@@ -0,0 +1,132 @@
+package com.test.recruitment.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.test.recruitment.exception.ServiceException;
+import com.test.recruitment.json.ErrorCode;
+
+/**
+ * Executes the work of the controllers. In synchronous mode the work runs on
+ * the calling container thread ; in asynchronous mode it runs on a bounded
+ * pool, so that slow calls do not exhaust the container threads, and a full
+ * queue is rejected at once. A timed out task is only cancelled while it is
+ * queued (see {@link Task#cancelQueued(Throwable)}) : once started, it runs
+ * to its end.
+ *
+ * @author A525125
+ *
+ */
+@Slf4j
+@Component
+public class RequestExecutor implements DisposableBean {
+
+	/**
+	 * Future of a task run by the pool
+	 */
+	public static final class Task<T> extends CompletableFuture<T> {
+
+		private final AtomicBoolean started = new AtomicBoolean();
+
+		/**
+		 * Cancel the task if it did not start yet
+		 *
+		 * @param e
+		 *            the exception completing the future
+		 * @return true if the task was cancelled, false if it started, and
+		 *         then runs to its end
+		 */
+		public boolean cancelQueued(Throwable e) {
+			return started.compareAndSet(false, true)
+					&& completeExceptionally(e);
+		}
+
+		private boolean start() {
+			return started.compareAndSet(false, true);
+		}
+	}
+
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * Maximum duration of an asynchronous request in milliseconds, queueing
+	 * included
+	 */
+	@Getter
+	private final long timeout;
+
+	@Autowired
+	public RequestExecutor(
+			@Value("${recruitment.async.enabled:false}") boolean async,
+			@Value("${recruitment.async.pool-size:16}") int poolSize,
+			@Value("${recruitment.async.queue-capacity:200}") int queueCapacity,
+			@Value("${recruitment.async.timeout:5000}") long timeout) {
+		this.timeout = timeout;
+		if (async) {
+			executor = new ThreadPoolExecutor(poolSize, poolSize, 0,
+					TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(
+							queueCapacity), new CustomizableThreadFactory(
+							"request-executor-"));
+			log.info("Asynchronous requests on {} threads, {} queued",
+					poolSize, queueCapacity);
+		} else {
+			executor = null;
+		}
+	}
+
+	/**
+	 * Execute a task
+	 *
+	 * @param task
+	 *            the task
+	 * @return the result of the task, already completed in synchronous mode,
+	 *         else a {@link Task}
+	 * @throws ServiceException
+	 *             if the queue is full
+	 */
+	public <T> CompletableFuture<T> submit(Supplier<T> task) {
+		if (null == executor) {
+			// Failures are thrown to the caller, as without an executor
+			return CompletableFuture.completedFuture(task.get());
+		}
+		Task<T> future = new Task<>();
+		try {
+			executor.execute(() -> {
+				if (!future.start()) {
+					// Timed out while queued : nobody waits for the result
+					return;
+				}
+				try {
+					future.complete(task.get());
+				} catch (RuntimeException | Error e) {
+					future.completeExceptionally(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			throw new ServiceException(ErrorCode.SERVICE_UNAVAILABLE_BUSY,
+					"Too many pending requests");
+		}
+		return future;
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if (null != executor) {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,386 @@
+package com.test.recruitment.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.test.recruitment.json.ResponseFormat;
+import com.test.recruitment.json.writer.FieldSet;
+import com.test.recruitment.metrics.LatencyHistogram;
+import com.test.recruitment.metrics.LatencyTimers;
+
+/**
+ * Cache of encoded response bodies, in their {@link ResponseFormat} and, from
+ * the minimum size of the server compression, gzipped, for the most frequent
+ * list requests. An entry is keyed by the request parameters and holds the
+ * version of its data : it is replaced as soon as the data changed. Entries
+ * are evicted in least recently used order once the total size of the
+ * bodies reaches the maximum.
+ * <p>
+ * A hit takes no lock : the entries are in a concurrent map, and a hit only
+ * stamps its entry with a clock advanced by the insertions. The recency is
+ * thus approximate, to the insertion. The thread whose insertion exceeds
+ * the maximum size evicts the least recently stamped entries down to
+ * {@value #EVICTED_RATIO} of the maximum, so that an eviction pass serves
+ * many insertions.
+ * <p>
+ * Hit, miss and eviction counters and the size of the cache are published
+ * as <code>cache.responses.*</code> metrics.
+ *
+ * @author A525125
+ *
+ */
+@Component
+public class ResponseCache implements PublicMetrics {
+
+	private static final String METRIC_PREFIX = "cache.responses.";
+
+	/**
+	 * Share of the maximum size left by an eviction pass
+	 */
+	private static final double EVICTED_RATIO = 0.75;
+
+	/**
+	 * A cached body and the last time it was read
+	 */
+	private static final class Entry {
+
+		private final EncodedResponse response;
+
+		/**
+		 * Value of the clock on the last read
+		 */
+		private volatile long accessed;
+
+		/**
+		 * Copy of {@link #accessed} sorted by an eviction pass, which only
+		 * the evicting thread uses
+		 */
+		private long evictionOrder;
+
+		private Entry(EncodedResponse response, long accessed) {
+			this.response = response;
+			this.accessed = accessed;
+		}
+	}
+
+	private final ObjectWriter writer;
+
+	private final long maximumBytes;
+
+	private final long maximumEntryBytes;
+
+	private final ConcurrentMap<String, Entry> entries =
+			new ConcurrentHashMap<>();
+
+	/**
+	 * Total size of the cached bodies
+	 */
+	private final AtomicLong bytes = new AtomicLong();
+
+	/**
+	 * Advanced on each insertion, read by the hits to stamp their entry
+	 */
+	private final AtomicLong clock = new AtomicLong();
+
+	/**
+	 * Held by the thread running an eviction pass
+	 */
+	private final AtomicBoolean evicting = new AtomicBoolean();
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Gzip the cached bodies of at least this size, -1 to never gzip them
+	 */
+	private final int minimumGzipBytes;
+
+	/**
+	 * Latency of the serialization by format, shared with the message
+	 * converters
+	 */
+	private final Map<ResponseFormat, LatencyHistogram> write = new EnumMap<>(
+			ResponseFormat.class);
+
+	/**
+	 * @param objectMapper
+	 *            the object mapper of the responses
+	 * @param maximumBytes
+	 *            the maximum total size of the cached bodies, 0 to disable
+	 *            the cache
+	 * @param maximumEntryBytes
+	 *            the maximum size of a cached body, encoded and gzip
+	 * @param compression
+	 *            true to gzip the cached bodies
+	 * @param minimumGzipBytes
+	 *            the minimum size of a gzipped body
+	 * @param latencyTimers
+	 *            the registry of the histograms
+	 */
+	@Autowired
+	public ResponseCache(
+			ObjectMapper objectMapper,
+			@Value("${recruitment.cache.responses.maximum-bytes:33554432}") long maximumBytes,
+			@Value("${recruitment.cache.responses.maximum-entry-bytes:1048576}") long maximumEntryBytes,
+			@Value("${server.compression.enabled:false}") boolean compression,
+			@Value("${server.compression.min-response-size:2048}") int minimumGzipBytes,
+			LatencyTimers latencyTimers) {
+		this.writer = objectMapper.writer();
+		this.maximumBytes = maximumBytes;
+		this.maximumEntryBytes = Math.min(maximumBytes, maximumEntryBytes);
+		this.minimumGzipBytes = compression ? minimumGzipBytes : -1;
+		for (ResponseFormat format : ResponseFormat.values()) {
+			write.put(format, latencyTimers.timer("mapping."
+					+ format.name().toLowerCase()));
+		}
+	}
+
+	/**
+	 * Get the json body of a request, loading and encoding it on a miss or
+	 * if its data changed
+	 *
+	 * @param key
+	 *            the request parameters
+	 * @param version
+	 *            the current version of the data, read before the data
+	 * @param loader
+	 *            loads the body, null for no content
+	 * @return the encoded body, null for no content
+	 */
+	public EncodedResponse get(String key, long version, Supplier<?> loader) {
+		return get(key, version, loader, writer, ResponseFormat.JSON);
+	}
+
+	/**
+	 * Get the encoded body of a request, loading and encoding it with the
+	 * given writer and format on a miss or if its data changed
+	 *
+	 * @param key
+	 *            the request parameters, including those of the writer and
+	 *            the format
+	 * @param version
+	 *            the current version of the data, read before the data
+	 * @param loader
+	 *            loads the body, null for no content
+	 * @param writer
+	 *            the writer of the body
+	 * @param format
+	 *            the format of the body
+	 * @return the encoded body, null for no content
+	 */
+	public EncodedResponse get(String key, long version, Supplier<?> loader,
+			ObjectWriter writer, ResponseFormat format) {
+		Entry cached = entries.get(key);
+		if (null != cached && cached.response.getVersion() == version) {
+			long now = clock.get();
+			// Do not write the shared entry again on each hit
+			if (cached.accessed != now) {
+				cached.accessed = now;
+			}
+			hits.increment();
+			return cached.response;
+		}
+		misses.increment();
+		Object body = loader.get();
+		if (null == body) {
+			return null;
+		}
+		byte[] encoded = serialize(body, writer, format);
+		if (encoded.length > maximumEntryBytes) {
+			return new EncodedResponse(encoded, false, format, version);
+		}
+		EncodedResponse response = new EncodedResponse(encoded,
+				minimumGzipBytes >= 0 && encoded.length >= minimumGzipBytes,
+				format, version);
+		if (response.getWeight() <= maximumEntryBytes) {
+			put(key, response);
+		}
+		return response;
+	}
+
+	/**
+	 * Encode a json body which is not cached
+	 *
+	 * @param body
+	 *            the body, null for no content
+	 * @return the encoded body, without gzip variant, null for no content
+	 */
+	public EncodedResponse encode(Object body) {
+		return encode(body, writer, ResponseFormat.JSON);
+	}
+
+	/**
+	 * Encode a body which is not cached with the given writer and format.
+	 * It is left to the compression of the server.
+	 *
+	 * @param body
+	 *            the body, null for no content
+	 * @param writer
+	 *            the writer of the body
+	 * @param format
+	 *            the format of the body
+	 * @return the encoded body, without gzip variant, null for no content
+	 */
+	public EncodedResponse encode(Object body, ObjectWriter writer,
+			ResponseFormat format) {
+		return null == body ? null : new EncodedResponse(serialize(body,
+				writer, format), false, format, 0);
+	}
+
+	/**
+	 * Build the key of a page request
+	 *
+	 * @param resource
+	 *            the requested resource
+	 * @param p
+	 *            the pageable information
+	 * @return the key
+	 */
+	public static String key(String resource, Pageable p) {
+		return resource + "?page=" + p.getPageNumber() + "&size="
+				+ p.getPageSize() + "&sort=" + p.getSort();
+	}
+
+	/**
+	 * Build the key of a page request selecting fields and a format
+	 *
+	 * @param resource
+	 *            the requested resource
+	 * @param p
+	 *            the pageable information
+	 * @param fields
+	 *            the selected fields, null for all the fields
+	 * @param format
+	 *            the format of the body
+	 * @return the key
+	 */
+	public static String key(String resource, Pageable p, FieldSet fields,
+			ResponseFormat format) {
+		String key = null == fields ? key(resource, p) : key(resource, p)
+				+ "&fields=" + fields.getKey();
+		return ResponseFormat.JSON == format ? key : key + "&format="
+				+ format;
+	}
+
+	/**
+	 * @return the number of requests served from the cache
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of requests which encoded their body
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return the number of entries evicted on size
+	 */
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/**
+	 * @return the total size of the cached bodies
+	 */
+	public long getBytes() {
+		return bytes.get();
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		Collection<Metric<?>> metrics = new ArrayList<>();
+		metrics.add(new Metric<Long>(METRIC_PREFIX + "hits", getHits()));
+		metrics.add(new Metric<Long>(METRIC_PREFIX + "misses", getMisses()));
+		metrics.add(new Metric<Long>(METRIC_PREFIX + "evictions",
+				getEvictions()));
+		metrics.add(new Metric<Long>(METRIC_PREFIX + "bytes", getBytes()));
+		return metrics;
+	}
+
+	private void put(String key, EncodedResponse response) {
+		Entry entry = new Entry(response, clock.incrementAndGet());
+		entries.compute(key, (k, previous) -> {
+			if (null != previous) {
+				if (previous.response.getVersion() > response.getVersion()) {
+					// Loaded concurrently from newer data
+					return previous;
+				}
+				bytes.addAndGet(-previous.response.getWeight());
+			}
+			bytes.addAndGet(response.getWeight());
+			return entry;
+		});
+		if (bytes.get() > maximumBytes && evicting.compareAndSet(false, true)) {
+			try {
+				evict();
+			} finally {
+				evicting.set(false);
+			}
+		}
+	}
+
+	/**
+	 * Evict the least recently read entries down to
+	 * {@value #EVICTED_RATIO} of the maximum size. Entries read or replaced
+	 * meanwhile may be evicted too.
+	 */
+	private void evict() {
+		List<Map.Entry<String, Entry>> eldest = new ArrayList<>(
+				entries.entrySet());
+		// Sort on a copy : the hits keep stamping the entries
+		for (Map.Entry<String, Entry> e : eldest) {
+			e.getValue().evictionOrder = e.getValue().accessed;
+		}
+		eldest.sort(Comparator.comparingLong(e -> e.getValue().evictionOrder));
+		long target = (long) (maximumBytes * EVICTED_RATIO);
+		for (Map.Entry<String, Entry> e : eldest) {
+			if (bytes.get() <= target) {
+				break;
+			}
+			if (entries.remove(e.getKey(), e.getValue())) {
+				bytes.addAndGet(-e.getValue().response.getWeight());
+				evictions.increment();
+			}
+		}
+	}
+
+	private byte[] serialize(Object body, ObjectWriter writer,
+			ResponseFormat format) {
+		long start = System.nanoTime();
+		try {
+			return format.write(writer, body);
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot serialize "
+					+ body.getClass().getSimpleName(), e);
+		} finally {
+			write.get(format).recordSince(start);
+		}
+	}
+}
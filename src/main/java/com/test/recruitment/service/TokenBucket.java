@@ -0,0 +1,77 @@
+package com.test.recruitment.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket. The state is a single atomic timestamp, the time
+ * at which the bucket will be full again, advanced by a compare-and-set of
+ * one token interval on each acquisition (generic cell rate algorithm) : no
+ * refill thread nor lock is needed.
+ *
+ * @author A525125
+ *
+ */
+public final class TokenBucket {
+
+	/**
+	 * Duration of one token in nanoseconds
+	 */
+	private final long interval;
+
+	/**
+	 * Advance of the full time allowed by the burst, in nanoseconds
+	 */
+	private final long tolerance;
+
+	private final LongSupplier ticker;
+
+	/**
+	 * Time at which the bucket is full again
+	 */
+	private final AtomicLong fullAt;
+
+	/**
+	 * @param rate
+	 *            the tokens added per second
+	 * @param burst
+	 *            the capacity of the bucket, at least 1
+	 * @param ticker
+	 *            the time source in nanoseconds
+	 */
+	public TokenBucket(double rate, int burst, LongSupplier ticker) {
+		this.interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / rate));
+		this.tolerance = interval * (Math.max(1, burst) - 1);
+		this.ticker = ticker;
+		this.fullAt = new AtomicLong(ticker.getAsLong());
+	}
+
+	/**
+	 * Take a token if one is available
+	 *
+	 * @return 0 if a token was taken, else the delay in nanoseconds before a
+	 *         token is available
+	 */
+	public long tryAcquire() {
+		long now = ticker.getAsLong();
+		while (true) {
+			long current = fullAt.get();
+			long start = Math.max(current, now);
+			long wait = start - now - tolerance;
+			if (wait > 0) {
+				return wait;
+			}
+			if (fullAt.compareAndSet(current, start + interval)) {
+				return 0;
+			}
+		}
+	}
+
+	/**
+	 * @return true if the bucket holds its whole burst, as a new one
+	 */
+	public boolean isFull() {
+		return fullAt.get() <= ticker.getAsLong();
+	}
+}
@@ -0,0 +1,587 @@
+package com.test.recruitment.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.test.recruitment.entity.Transaction;
+import com.test.recruitment.json.TransactionEvent;
+
+/**
+ * Feed of the transaction changes, pushed to the subscribers of each
+ * account.
+ * <p>
+ * The accounts are spread over partitions. A partition is a preallocated
+ * ring of event slots, filled by the writers of its accounts and read by a
+ * single dispatcher thread : publishing claims a slot and swaps an immutable
+ * entry in without waiting, so a dispatcher never reads a half written
+ * event, and a
+ * late dispatcher or subscriber never blocks a write. A dispatcher that
+ * falls a whole ring behind skips the overwritten events and lag-marks the
+ * subscribers of its partition. Events are only published for the accounts
+ * having subscribers.
+ * <p>
+ * The dispatcher encodes an event once and offers it to the bounded outbox
+ * of each subscriber of the account ; the outboxes are sent by a small pool
+ * of sender threads. A subscriber whose outbox is full misses the following
+ * events : a {@link TransactionEvent.Type#LAG} event with their number is
+ * queued before the next one, and the subscriber is dropped once it missed
+ * more events than its outbox holds.
+ * <p>
+ * Published events, lag events and subscribers are published as
+ * <code>feed.*</code> metrics.
+ *
+ * @author A525125
+ *
+ */
+@Slf4j
+@Component
+public class TransactionFeed implements InitializingBean, DisposableBean,
+		PublicMetrics {
+
+	private static final String METRIC_PREFIX = "feed.";
+
+	/**
+	 * Name of the events telling a subscriber that it missed events
+	 */
+	private static final String LAG = TransactionEvent.Type.LAG.name()
+			.toLowerCase();
+
+	/**
+	 * Maximum wait of an idle dispatcher, which is woken up by the writers
+	 */
+	private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	/**
+	 * Receives the events of a subscriber, on a sender thread
+	 */
+	public interface Sink {
+
+		/**
+		 * Send an event
+		 *
+		 * @param id
+		 *            the event id, increasing for an account, null for a lag
+		 *            event
+		 * @param name
+		 *            the event name : the lower case
+		 *            {@link TransactionEvent.Type}
+		 * @param data
+		 *            the json {@link TransactionEvent}
+		 * @throws IOException
+		 *             if the subscriber is gone, it is then dropped
+		 */
+		void send(String id, String name, String data) throws IOException;
+
+		/**
+		 * Called once, when the subscription is closed
+		 */
+		void close();
+	}
+
+	private final ObjectWriter eventWriter;
+
+	private final int bufferSize;
+
+	private final int subscriberBufferSize;
+
+	private final int senderThreads;
+
+	private final Partition[] partitions;
+
+	private final ConcurrentMap<String, Set<Subscription>> subscribers = new ConcurrentHashMap<>();
+
+	private final AtomicInteger subscriptions = new AtomicInteger();
+
+	private final LongAdder published = new LongAdder();
+
+	private final LongAdder lagged = new LongAdder();
+
+	private final LongAdder dropped = new LongAdder();
+
+	private ExecutorService senders;
+
+	private volatile boolean running;
+
+	/**
+	 * Feed without dispatchers, for the services used without subscribers
+	 */
+	public TransactionFeed() {
+		this(new ObjectMapper(), 1, 2, 2, 1);
+	}
+
+	/**
+	 * @param objectMapper
+	 *            the object mapper of the events
+	 * @param partitions
+	 *            the number of partitions, each with its dispatcher thread
+	 * @param bufferSize
+	 *            the number of slots of the ring of a partition, rounded up
+	 *            to a power of 2
+	 * @param subscriberBufferSize
+	 *            the number of events queued for a subscriber
+	 * @param senderThreads
+	 *            the number of threads sending the events to the
+	 *            subscribers
+	 */
+	@Autowired
+	public TransactionFeed(
+			ObjectMapper objectMapper,
+			@Value("${recruitment.feed.partitions:4}") int partitions,
+			@Value("${recruitment.feed.buffer-size:16384}") int bufferSize,
+			@Value("${recruitment.feed.subscriber-buffer-size:256}") int subscriberBufferSize,
+			@Value("${recruitment.feed.sender-threads:4}") int senderThreads) {
+		this.eventWriter = objectMapper.writerFor(TransactionEvent.class);
+		this.bufferSize = Integer
+				.highestOneBit(Math.max(2, bufferSize) * 2 - 1);
+		// Room for a lag event and the next one
+		this.subscriberBufferSize = Math.max(2, subscriberBufferSize);
+		this.senderThreads = senderThreads;
+		this.partitions = new Partition[Math.max(1, partitions)];
+		for (int i = 0; i < this.partitions.length; i++) {
+			this.partitions[i] = new Partition(i);
+		}
+	}
+
+	/**
+	 * Start the dispatchers and the senders
+	 */
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		running = true;
+		senders = Executors.newFixedThreadPool(senderThreads,
+				new CustomizableThreadFactory("feed-sender-"));
+		for (Partition partition : partitions) {
+			partition.start();
+		}
+		log.info("Transaction feed on {} partitions of {} events",
+				partitions.length, bufferSize);
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		running = false;
+		for (Partition partition : partitions) {
+			partition.stop();
+		}
+		if (null != senders) {
+			senders.shutdownNow();
+		}
+		for (Set<Subscription> account : subscribers.values()) {
+			for (Subscription subscription : account) {
+				subscription.close();
+			}
+		}
+	}
+
+	/**
+	 * Subscribe to the changes of the transactions of an account, from now
+	 * on
+	 *
+	 * @param accountId
+	 *            the account id
+	 * @param sink
+	 *            the receiver of the events
+	 * @return the subscription, to close once the subscriber is gone
+	 */
+	public Subscription subscribe(String accountId, Sink sink) {
+		Subscription subscription = new Subscription(accountId, sink);
+		subscribers.compute(accountId, (k, account) -> {
+			Set<Subscription> result = null == account ? ConcurrentHashMap
+					.newKeySet() : account;
+			result.add(subscription);
+			return result;
+		});
+		subscriptions.incrementAndGet();
+		return subscription;
+	}
+
+	/**
+	 * Publish a change of a transaction, under the lock of its account so
+	 * that the events of an account keep the order of its writes. Never
+	 * waits.
+	 *
+	 * @param type
+	 *            the type of the change
+	 * @param transaction
+	 *            the created or updated transaction, or the deleted one
+	 */
+	public void publish(TransactionEvent.Type type, Transaction transaction) {
+		if (!subscribers.containsKey(transaction.getAccountId())) {
+			return;
+		}
+		partition(transaction.getAccountId()).publish(type, transaction);
+		published.increment();
+	}
+
+	public int getSubscribers() {
+		return subscriptions.get();
+	}
+
+	public long getPublished() {
+		return published.sum();
+	}
+
+	public long getLagged() {
+		return lagged.sum();
+	}
+
+	public long getDropped() {
+		return dropped.sum();
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		Collection<Metric<?>> metrics = new ArrayList<>();
+		metrics.add(new Metric<Integer>(METRIC_PREFIX + "subscribers",
+				getSubscribers()));
+		metrics.add(new Metric<Long>(METRIC_PREFIX + "published",
+				getPublished()));
+		metrics.add(new Metric<Long>(METRIC_PREFIX + "lagged", getLagged()));
+		metrics.add(new Metric<Long>(METRIC_PREFIX + "dropped", getDropped()));
+		return metrics;
+	}
+
+	private Partition partition(String accountId) {
+		return partitions[(accountId.hashCode() & Integer.MAX_VALUE)
+				% partitions.length];
+	}
+
+	/**
+	 * An event and its sequence, swapped into its slot as a whole so that it
+	 * is never read half written
+	 */
+	private static final class Entry {
+
+		private final long sequence;
+
+		private final TransactionEvent event;
+
+		private Entry(long sequence, TransactionEvent event) {
+			this.sequence = sequence;
+			this.event = event;
+		}
+	}
+
+	/**
+	 * An event encoded once for all the subscribers of its account
+	 */
+	private static final class Frame {
+
+		private final String id;
+
+		private final String name;
+
+		private final String data;
+
+		private Frame(String id, String name, String data) {
+			this.id = id;
+			this.name = name;
+			this.data = data;
+		}
+	}
+
+	/**
+	 * Ring of the events of some accounts and its dispatcher
+	 */
+	private final class Partition implements Runnable {
+
+		private final int index;
+
+		private final AtomicReferenceArray<Entry> ring;
+
+		private final int mask;
+
+		/**
+		 * Next sequence claimed by a writer
+		 */
+		private final AtomicLong claimed = new AtomicLong();
+
+		/**
+		 * Next sequence to dispatch, read by the dispatcher only
+		 */
+		private long next;
+
+		private volatile boolean parked;
+
+		private Thread thread;
+
+		private Partition(int index) {
+			this.index = index;
+			this.ring = new AtomicReferenceArray<>(bufferSize);
+			this.mask = bufferSize - 1;
+			for (int i = 0; i < bufferSize; i++) {
+				// Published on the previous turn
+				ring.set(i, new Entry(i - bufferSize, null));
+			}
+		}
+
+		private void start() {
+			thread = new Thread(this, "feed-dispatcher-" + index);
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		private void stop() throws InterruptedException {
+			if (null != thread) {
+				LockSupport.unpark(thread);
+				thread.join(TimeUnit.SECONDS.toMillis(1));
+			}
+		}
+
+		private void publish(TransactionEvent.Type type,
+				Transaction transaction) {
+			long sequence = claimed.getAndIncrement();
+			TransactionEvent event = new TransactionEvent();
+			event.setType(type);
+			event.setAccountId(transaction.getAccountId());
+			event.setId(transaction.getId());
+			event.setNumber(transaction.getNumber());
+			event.setBalance(transaction.getBalance());
+			Entry entry = new Entry(sequence, event);
+			int index = (int) sequence & mask;
+			Entry current = ring.get(index);
+			// A writer a whole ring late never overwrites a newer entry
+			while (current.sequence < sequence
+					&& !ring.compareAndSet(index, current, entry)) {
+				current = ring.get(index);
+			}
+			if (parked) {
+				LockSupport.unpark(thread);
+			}
+		}
+
+		@Override
+		public void run() {
+			while (running) {
+				Entry entry = ring.get((int) next & mask);
+				if (entry.sequence == next) {
+					dispatch(next++, entry.event);
+					continue;
+				}
+				long behind = claimed.get() - next;
+				if (entry.sequence > next || behind > ring.length()) {
+					// Overwritten : skip to the oldest event still in the ring
+					long skipped = Math.max(1, behind - ring.length() + 1);
+					next += skipped;
+					lag(skipped);
+				} else {
+					// Not published yet, or claimed and still being written
+					idle(entry);
+				}
+			}
+		}
+
+		/**
+		 * Park until a writer publishes the next event
+		 */
+		private void idle(Entry entry) {
+			parked = true;
+			if (ring.get((int) next & mask) == entry && running) {
+				LockSupport.parkNanos(this, IDLE_NANOS);
+			}
+			parked = false;
+		}
+
+		private void dispatch(long sequence, TransactionEvent event) {
+			Set<Subscription> account = subscribers.get(event.getAccountId());
+			if (null == account || account.isEmpty()) {
+				return;
+			}
+			Frame frame;
+			try {
+				frame = new Frame(Long.toString(sequence), event.getType()
+						.name().toLowerCase(),
+						eventWriter.writeValueAsString(event));
+			} catch (JsonProcessingException e) {
+				log.error("Cannot write event {} : {}", event, e.getMessage());
+				return;
+			}
+			for (Subscription subscription : account) {
+				subscription.offer(frame);
+			}
+		}
+
+		/**
+		 * Lag-mark the subscribers of the partition
+		 */
+		private void lag(long missed) {
+			log.warn("Feed partition {} overrun, {} events skipped", index,
+					missed);
+			for (Map.Entry<String, Set<Subscription>> account : subscribers
+					.entrySet()) {
+				if (this == partition(account.getKey())) {
+					for (Subscription subscription : account.getValue()) {
+						subscription.lag(missed);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * A subscriber of an account. Its outbox is filled by the dispatcher of
+	 * the account and sent by one sender thread at a time.
+	 */
+	public final class Subscription {
+
+		private final String accountId;
+
+		private final Sink sink;
+
+		private final ArrayBlockingQueue<Frame> outbox;
+
+		/**
+		 * Events missed since the last lag event, dispatcher thread only
+		 */
+		private long missed;
+
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		private Subscription(String accountId, Sink sink) {
+			this.accountId = accountId;
+			this.sink = sink;
+			this.outbox = new ArrayBlockingQueue<>(subscriberBufferSize);
+		}
+
+		/**
+		 * Stop sending the events, idempotent. The sink is closed on a
+		 * sender thread : a dispatcher never waits for a subscriber.
+		 */
+		public void close() {
+			if (!closed.compareAndSet(false, true)) {
+				return;
+			}
+			subscribers.computeIfPresent(accountId, (k, account) -> {
+				account.remove(this);
+				return account.isEmpty() ? null : account;
+			});
+			subscriptions.decrementAndGet();
+			outbox.clear();
+			if (null == senders) {
+				sink.close();
+				return;
+			}
+			try {
+				senders.execute(sink::close);
+			} catch (RejectedExecutionException e) {
+				// Shutting down
+				sink.close();
+			}
+		}
+
+		private void offer(Frame frame) {
+			if (0 != missed) {
+				// The lag event goes where the events were missed
+				if (outbox.remainingCapacity() < 2) {
+					overflow();
+					return;
+				}
+				outbox.offer(lagFrame());
+			}
+			if (!outbox.offer(frame)) {
+				overflow();
+				return;
+			}
+			schedule();
+		}
+
+		private void lag(long count) {
+			missed += count;
+			if (outbox.remainingCapacity() > 0) {
+				outbox.offer(lagFrame());
+				schedule();
+			}
+		}
+
+		private void overflow() {
+			if (++missed > subscriberBufferSize) {
+				log.debug("Feed subscriber of account {} dropped", accountId);
+				dropped.increment();
+				close();
+			}
+		}
+
+		private Frame lagFrame() {
+			TransactionEvent event = new TransactionEvent();
+			event.setType(TransactionEvent.Type.LAG);
+			event.setAccountId(accountId);
+			event.setMissed(missed);
+			missed = 0;
+			lagged.increment();
+			try {
+				return new Frame(null, LAG, eventWriter
+						.writeValueAsString(event));
+			} catch (JsonProcessingException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		private void schedule() {
+			if (!closed.get() && scheduled.compareAndSet(false, true)) {
+				try {
+					senders.execute(this::send);
+				} catch (RejectedExecutionException e) {
+					// Shutting down
+					scheduled.set(false);
+				}
+			}
+		}
+
+		/**
+		 * Send the queued events, on a sender thread. A bounded number at
+		 * once, then the other subscribers get their turn.
+		 */
+		private void send() {
+			try {
+				for (int i = 0; i < subscriberBufferSize && !closed.get();
+						i++) {
+					Frame frame = outbox.poll();
+					if (null == frame) {
+						break;
+					}
+					sink.send(frame.id, frame.name, frame.data);
+				}
+			} catch (IOException | RuntimeException e) {
+				log.debug("Feed subscriber of account {} gone : {}",
+						accountId, e.getMessage());
+				close();
+			}
+			scheduled.set(false);
+			if (!outbox.isEmpty()) {
+				schedule();
+			}
+		}
+	}
+}
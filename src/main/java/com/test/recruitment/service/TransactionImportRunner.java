@@ -0,0 +1,84 @@
+package com.test.recruitment.service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPInputStream;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.test.recruitment.dao.journal.Journal;
+import com.test.recruitment.json.ImportResponse;
+
+/**
+ * Import of a transaction file on startup, given by
+ * <code>--recruitment.import.file</code>. The format follows the extension :
+ * csv for <code>.csv</code>, json or newline delimited json otherwise, and
+ * <code>.gz</code> files are decompressed. With persistence enabled, a
+ * snapshot is taken after the import so that the next start does not replay
+ * it.
+ *
+ * @author A525125
+ *
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(TransactionImportRunner.FILE_PROPERTY)
+public class TransactionImportRunner implements CommandLineRunner {
+
+	/**
+	 * Property of the imported file
+	 */
+	public static final String FILE_PROPERTY = "recruitment.import.file";
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private TransactionImporter transactionImporter;
+
+	private Journal journal;
+
+	private Path file;
+
+	@Autowired
+	public TransactionImportRunner(TransactionImporter transactionImporter,
+			Journal journal, @Value("${" + FILE_PROPERTY + "}") String file) {
+		this.transactionImporter = transactionImporter;
+		this.journal = journal;
+		this.file = Paths.get(file);
+	}
+
+	@Override
+	public void run(String... args) throws IOException {
+		String name = file.getFileName().toString().toLowerCase();
+		log.info("Import transactions from {}", file);
+		ImportResponse report;
+		try (InputStream in = open(name)) {
+			report = name.endsWith(".csv") || name.endsWith(".csv.gz")
+					? transactionImporter.importCsv(in)
+					: transactionImporter.importJson(in);
+		}
+		report.getErrors().forEach(error -> log.warn("Rejected {}", error));
+		if (journal.isEnabled()) {
+			journal.snapshot();
+		} else {
+			log.warn("Persistence is disabled : the imported transactions "
+					+ "are only kept in memory");
+		}
+	}
+
+	private InputStream open(String name) throws IOException {
+		InputStream in = new BufferedInputStream(Files.newInputStream(file),
+				BUFFER_SIZE);
+		return name.endsWith(".gz") ? new GZIPInputStream(in, BUFFER_SIZE)
+				: in;
+	}
+}
@@ -0,0 +1,336 @@
+package com.test.recruitment.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.test.recruitment.dao.AccountRepository;
+import com.test.recruitment.dao.TransactionRepository;
+import com.test.recruitment.entity.Account;
+import com.test.recruitment.entity.Transaction;
+import com.test.recruitment.exception.ServiceException;
+import com.test.recruitment.json.ErrorCode;
+import com.test.recruitment.json.ImportResponse;
+import com.test.recruitment.json.TransactionEvent;
+
+/**
+ * Bulk import of transactions. The input is read as a stream and applied by
+ * batches : the accounts of a batch are checked in a single repository call,
+ * then the transactions are grouped by account and each group is saved in
+ * parallel, with the account balance, under the account lock. The sorted
+ * orders of the accounts are built in parallel once all the rows are saved.
+ * <p>
+ * Only one batch is held in memory, whatever the size of the input.
+ *
+ * @author A525125
+ *
+ */
+@Slf4j
+@Service
+public class TransactionImporter {
+
+	/**
+	 * Number of rejection reasons kept in the report
+	 */
+	private static final int MAX_ERRORS = 100;
+
+	private AccountRepository accountRepository;
+
+	private TransactionRepository transactionRepository;
+
+	private AccountService accountService;
+
+	private AccountLocks accountLocks;
+
+	private TransactionFeed transactionFeed;
+
+	private ObjectReader rowReader;
+
+	/**
+	 * Number of rows applied at once
+	 */
+	private int batchSize;
+
+	/**
+	 * Reads the next row, null at the end of the input
+	 */
+	@FunctionalInterface
+	private interface Rows {
+
+		/**
+		 * @return the next row, null at the end of the input
+		 * @throws IOException
+		 *             if the input cannot be read
+		 * @throws IllegalArgumentException
+		 *             if the row is invalid, the following rows can still be
+		 *             read
+		 */
+		Transaction next() throws IOException;
+	}
+
+	@Autowired
+	public TransactionImporter(AccountRepository accountRepository,
+			TransactionRepository transactionRepository,
+			AccountService accountService, AccountLocks accountLocks,
+			TransactionFeed transactionFeed, ObjectMapper objectMapper,
+			@Value("${recruitment.import.batch-size:100000}") int batchSize) {
+		this.accountRepository = accountRepository;
+		this.transactionRepository = transactionRepository;
+		this.accountService = accountService;
+		this.accountLocks = accountLocks;
+		this.transactionFeed = transactionFeed;
+		this.rowReader = objectMapper.readerFor(Transaction.class);
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Import transactions from a json array or from newline delimited json,
+	 * each object holding the accountId, number and balance of a transaction
+	 *
+	 * @param in
+	 *            the input
+	 * @return the report
+	 */
+	public ImportResponse importJson(InputStream in) {
+		try (MappingIterator<Transaction> iterator = rowReader.readValues(in)) {
+			return importRows(() -> iterator.hasNextValue() ? iterator
+					.nextValue() : null);
+		} catch (IOException e) {
+			throw malformed(e);
+		}
+	}
+
+	/**
+	 * Import transactions from csv lines holding the accountId, number and
+	 * balance of a transaction, after an optional header line
+	 *
+	 * @param in
+	 *            the input
+	 * @return the report
+	 */
+	public ImportResponse importCsv(InputStream in) {
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				in, StandardCharsets.UTF_8))) {
+			boolean[] first = { true };
+			return importRows(() -> {
+				String line;
+				while (null != (line = reader.readLine())) {
+					if (line.trim().isEmpty()) {
+						continue;
+					}
+					if (first[0]) {
+						first[0] = false;
+						if (line.trim().toLowerCase().startsWith("accountid")) {
+							continue;
+						}
+					}
+					return parseCsv(line);
+				}
+				return null;
+			});
+		} catch (IOException e) {
+			throw malformed(e);
+		}
+	}
+
+	private ImportResponse importRows(Rows rows) throws IOException {
+		long start = System.nanoTime();
+		ImportResponse report = new ImportResponse();
+		Set<String> accountIds = new HashSet<>();
+		List<Transaction> batch = new ArrayList<>(batchSize);
+		// Row numbers of the batch, for the rejection reasons
+		long firstRow = 1;
+		while (true) {
+			Transaction transaction;
+			try {
+				transaction = rows.next();
+			} catch (IllegalArgumentException e) {
+				report.setRows(report.getRows() + 1);
+				reject(report, report.getRows(), e.getMessage());
+				continue;
+			} catch (JsonProcessingException e) {
+				throw malformed(e, report);
+			}
+			if (null == transaction) {
+				break;
+			}
+			report.setRows(report.getRows() + 1);
+			batch.add(transaction);
+			if (batch.size() == batchSize) {
+				apply(batch, firstRow, report, accountIds);
+				batch.clear();
+				firstRow = report.getRows() + 1;
+				log.debug("Imported {} rows, {} rows/s", report.getRows(),
+						rowsPerSecond(report.getRows(), start));
+			}
+		}
+		apply(batch, firstRow, report, accountIds);
+		long indexes = System.nanoTime();
+		accountIds.parallelStream().forEach(
+				transactionRepository::buildIndexes);
+		report.setAccounts(accountIds.size());
+		report.setDurationMillis(TimeUnit.NANOSECONDS.toMillis(System
+				.nanoTime() - start));
+		report.setRowsPerSecond(rowsPerSecond(report.getRows(), start));
+		log.info("Imported {} of {} rows on {} accounts in {} ms "
+				+ "({} rows/s, indexes built in {} ms)", report.getImported(),
+				report.getRows(), accountIds.size(),
+				report.getDurationMillis(), report.getRowsPerSecond(),
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - indexes));
+		return report;
+	}
+
+	/**
+	 * Save a batch of rows, rejecting the invalid ones and those of unknown
+	 * accounts
+	 *
+	 * @param batch
+	 *            the rows
+	 * @param firstRow
+	 *            the number of the first row of the batch
+	 * @param report
+	 *            the report to update
+	 * @param accountIds
+	 *            the accounts which received transactions, to update
+	 */
+	private void apply(List<Transaction> batch, long firstRow,
+			ImportResponse report, Set<String> accountIds) {
+		Set<String> batchAccountIds = new HashSet<>();
+		for (Transaction transaction : batch) {
+			if (null != transaction && null != transaction.getAccountId()) {
+				batchAccountIds.add(transaction.getAccountId());
+			}
+		}
+		Map<String, Account> accounts = accountRepository
+				.findAllById(batchAccountIds);
+		Map<String, List<Transaction>> byAccount = new LinkedHashMap<>();
+		for (int i = 0; i < batch.size(); i++) {
+			Transaction transaction = batch.get(i);
+			String error = validate(transaction, accounts);
+			if (null != error) {
+				reject(report, firstRow + i, error);
+				continue;
+			}
+			// Imported rows are always new transactions
+			transaction.setId(null);
+			byAccount.computeIfAbsent(transaction.getAccountId(),
+					k -> new ArrayList<>()).add(transaction);
+		}
+		byAccount.entrySet().parallelStream().forEach(
+				entry -> accountLocks.withLock(entry.getKey(), () -> {
+					BigDecimal sum = BigDecimal.ZERO;
+					for (Transaction transaction : entry.getValue()) {
+						sum = sum.add(transaction.getBalance());
+					}
+					transactionRepository.saveAll(entry.getValue());
+					accountService.addToBalance(entry.getKey(), sum);
+					return entry.getValue();
+				}, saved -> {
+					for (Transaction transaction : saved) {
+						transactionFeed.publish(TransactionEvent.Type.CREATED,
+								transaction);
+					}
+				}));
+		byAccount.forEach((accountId, transactions) -> {
+			accountIds.add(accountId);
+			report.setImported(report.getImported() + transactions.size());
+		});
+	}
+
+	private static String validate(Transaction transaction,
+			Map<String, Account> accounts) {
+		if (null == transaction) {
+			return "empty row";
+		}
+		if (null == transaction.getAccountId()) {
+			return "missing accountId";
+		}
+		if (null == transaction.getNumber()) {
+			return "missing number";
+		}
+		if (null == transaction.getBalance()) {
+			return "missing balance";
+		}
+		if (!accounts.containsKey(transaction.getAccountId())) {
+			return "account " + transaction.getAccountId() + " doesn't exist";
+		}
+		return null;
+	}
+
+	private static Transaction parseCsv(String line) {
+		String[] columns = line.split(",", -1);
+		if (columns.length != 3) {
+			throw new IllegalArgumentException("expected 3 columns, found "
+					+ columns.length);
+		}
+		Transaction transaction = new Transaction();
+		transaction.setAccountId(unquote(columns[0]));
+		transaction.setNumber(unquote(columns[1]));
+		String balance = unquote(columns[2]);
+		try {
+			transaction.setBalance(null == balance ? null : new BigDecimal(
+					balance));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("invalid balance " + balance);
+		}
+		return transaction;
+	}
+
+	/**
+	 * @return the trimmed value without its quotes, null if empty
+	 */
+	private static String unquote(String column) {
+		String value = column.trim();
+		if (value.length() >= 2 && value.startsWith("\"")
+				&& value.endsWith("\"")) {
+			value = value.substring(1, value.length() - 1);
+		}
+		return value.isEmpty() ? null : value;
+	}
+
+	private static void reject(ImportResponse report, long row, String error) {
+		report.setRejected(report.getRejected() + 1);
+		if (report.getErrors().size() < MAX_ERRORS) {
+			report.getErrors().add("row " + row + " : " + error);
+		}
+	}
+
+	private static long rowsPerSecond(long rows, long start) {
+		long elapsed = System.nanoTime() - start;
+		return 0 == elapsed ? 0 : rows * TimeUnit.SECONDS.toNanos(1)
+				/ elapsed;
+	}
+
+	private static ServiceException malformed(IOException e) {
+		return new ServiceException(ErrorCode.BAD_REQUEST_IMPORT,
+				"Cannot read the import : " + e.getMessage());
+	}
+
+	private static ServiceException malformed(IOException e,
+			ImportResponse report) {
+		return new ServiceException(ErrorCode.BAD_REQUEST_IMPORT,
+				"Malformed row after row " + report.getRows() + ", "
+						+ report.getImported() + " rows already imported : "
+						+ e.getMessage());
+	}
+}
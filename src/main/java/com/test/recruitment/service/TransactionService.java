@@ -1,17 +1,32 @@
 package com.test.recruitment.service;
 
-import java.util.stream.Collectors;
+import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
+import com.test.recruitment.dao.TransactionCursor;
 import com.test.recruitment.dao.TransactionRepository;
+import com.test.recruitment.dao.TransactionSortField;
+import com.test.recruitment.dao.TransactionSummary;
 import com.test.recruitment.entity.Transaction;
+import com.test.recruitment.json.AccountDetailsResponse;
+import com.test.recruitment.json.AccountSummaryResponse;
+import com.test.recruitment.json.AccountTransactionsResponse;
+import com.test.recruitment.json.CursorPageResponse;
 import com.test.recruitment.json.ErrorCode;
+import com.test.recruitment.json.ResponseFormat;
+import com.test.recruitment.json.TransactionEvent;
+import com.test.recruitment.json.TransactionRequest;
 import com.test.recruitment.json.TransactionResponse;
+import com.test.recruitment.json.writer.TransactionJsonWriter;
 import com.test.recruitment.exception.ServiceException;
 
 /**
@@ -27,11 +42,44 @@ public class TransactionService {
 
 	private TransactionRepository transactionRepository;
 
+	private AccountLocks accountLocks;
+
+	private TransactionFeed transactionFeed;
+
 	@Autowired
 	public TransactionService(AccountService accountService,
-			TransactionRepository transactionRepository) {
+			TransactionRepository transactionRepository,
+			AccountLocks accountLocks, TransactionFeed transactionFeed) {
 		this.accountService = accountService;
 		this.transactionRepository = transactionRepository;
+		this.accountLocks = accountLocks;
+		this.transactionFeed = transactionFeed;
+	}
+
+	/**
+	 * Get the entity tag of the transactions of an account, which share the
+	 * account version. It must be read before the tagged data.
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @param format
+	 *            the format of the response
+	 * @return the entity tag
+	 */
+	public String getETag(String accountId, ResponseFormat format) {
+		return accountService.getAccountETag(accountId, format);
+	}
+
+	/**
+	 * Get the version of the transactions of an account, which share the
+	 * account version. It must be read before the versioned data.
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @return the version
+	 */
+	public long getVersion(String accountId) {
+		return accountService.getAccountVersion(accountId);
 	}
 
 	/**
@@ -41,17 +89,285 @@ public class TransactionService {
 	 *            the account id
 	 * @param p
 	 *            the pageable object
-	 * @return
+	 * @return the transactions, written as {@link TransactionResponse} by
+	 *         the {@link TransactionJsonWriter}
 	 */
-	public Page<TransactionResponse> getTransactionsByAccount(String accountId,
+	public Page<Transaction> getTransactionsByAccount(String accountId,
 			Pageable p) {
+		checkSort(p.getSort());
+		Page<Transaction> page = transactionRepository
+				.getTransactionsByAccount(accountId, p);
+		// Transactions are only added to existing accounts
+		if (0 == page.getTotalElements()) {
+			checkAccount(accountId);
+		}
+		return page;
+	}
+
+	/**
+	 * Get the details of an account with the first page of its transactions.
+	 * The account is read once, from the details cache if possible, and its
+	 * absence is the existence check.
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @param p
+	 *            the pageable object
+	 * @return the account details and transactions
+	 */
+	public AccountTransactionsResponse getAccountWithTransactions(
+			String accountId, Pageable p) {
+		checkSort(p.getSort());
+		AccountDetailsResponse account = accountService
+				.getAccountDetails(accountId);
+		// The details are shared : copy them
+		AccountTransactionsResponse result = new AccountTransactionsResponse();
+		result.setId(account.getId());
+		result.setNumber(account.getNumber());
+		result.setType(account.getType());
+		result.setBalance(account.getBalance());
+		result.setCreationDate(account.getCreationDate());
+		result.setActive(account.isActive());
+		result.setTransactions(transactionRepository.getTransactionsByAccount(
+				accountId, p));
+		return result;
+	}
+
+	/**
+	 * Get transactions by account with keyset pagination
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @param cursor
+	 *            the cursor returned with the previous page, or an empty
+	 *            string for the first page
+	 * @param p
+	 *            the pageable object, giving the page size and, for the first
+	 *            page, the sort
+	 * @return the page with the cursor of the next one
+	 */
+	public CursorPageResponse<Transaction> getTransactionsByAccount(
+			String accountId, String cursor, Pageable p) {
+		TransactionCursor position = toCursor(cursor, p.getSort());
+		Slice<Transaction> slice = transactionRepository
+				.getTransactionsByAccount(accountId, position, p.getPageSize());
+		List<Transaction> content = slice.getContent();
+		if (content.isEmpty()) {
+			checkAccount(accountId);
+		}
+		return new CursorPageResponse<Transaction>(content,
+				slice.hasNext() ? position.after(
+						content.get(content.size() - 1)).encode() : null);
+	}
+
+	/**
+	 * Stream all the transactions of an account. The stream is lazy : the
+	 * transactions are read one by one while they are consumed.
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @return the transactions, in insertion order
+	 */
+	public Stream<Transaction> streamTransactionsByAccount(String accountId) {
+		checkAccount(accountId);
+		return transactionRepository.streamTransactionsByAccount(accountId);
+	}
+
+	/**
+	 * Get the aggregates of the transactions of an account, without reading
+	 * the transactions
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @return the aggregates
+	 */
+	public AccountSummaryResponse getSummary(String accountId) {
+		checkAccount(accountId);
+		TransactionSummary summary = transactionRepository
+				.getSummary(accountId);
+		AccountSummaryResponse result = new AccountSummaryResponse();
+		result.setId(accountId);
+		result.setCount(summary.getCount());
+		result.setSum(summary.getSum());
+		result.setMin(summary.getMin());
+		result.setMax(summary.getMax());
+		return result;
+	}
+
+	/**
+	 * Add a transaction on an account and update the account balance
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @param request
+	 *            the transaction to add
+	 * @return the created transaction
+	 */
+	public TransactionResponse addTransaction(String accountId,
+			TransactionRequest request) {
+		checkAccount(accountId);
+		return map(accountLocks.withLock(accountId, () -> {
+			Transaction transaction = new Transaction();
+			transaction.setAccountId(accountId);
+			transaction.setNumber(request.getNumber());
+			transaction.setBalance(request.getBalance());
+			Transaction saved = transactionRepository.save(transaction);
+			accountService.addToBalance(accountId, saved.getBalance());
+			return saved;
+		}, saved -> transactionFeed.publish(TransactionEvent.Type.CREATED,
+				saved)));
+	}
+
+	/**
+	 * Update a transaction of an account and the account balance
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @param transactionId
+	 *            the transaction id
+	 * @param request
+	 *            the new values of the transaction
+	 */
+	public void updateTransaction(String accountId, String transactionId,
+			TransactionRequest request) {
+		checkAccount(accountId);
+		accountLocks.withLock(accountId, () -> {
+			Transaction previous = getTransaction(accountId, transactionId);
+			Transaction transaction = new Transaction();
+			transaction.setId(transactionId);
+			transaction.setAccountId(accountId);
+			transaction.setNumber(request.getNumber());
+			transaction.setBalance(request.getBalance());
+			transactionRepository.save(transaction);
+			accountService.addToBalance(accountId, transaction.getBalance()
+					.subtract(previous.getBalance()));
+			return transaction;
+		}, transaction -> transactionFeed.publish(
+				TransactionEvent.Type.UPDATED, transaction));
+	}
+
+	/**
+	 * Delete a transaction of an account and update the account balance
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @param transactionId
+	 *            the transaction id
+	 */
+	public void deleteTransaction(String accountId, String transactionId) {
+		checkAccount(accountId);
+		accountLocks.withLock(accountId, () -> {
+			Transaction previous = getTransaction(accountId, transactionId);
+			transactionRepository.delete(transactionId);
+			accountService.addToBalance(accountId, previous.getBalance()
+					.negate());
+			return previous;
+		}, previous -> transactionFeed.publish(TransactionEvent.Type.DELETED,
+				previous));
+	}
+
+	/**
+	 * Subscribe to the changes of the transactions of an account
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @param sink
+	 *            the receiver of the events
+	 * @return the subscription, to close once the subscriber is gone
+	 */
+	public TransactionFeed.Subscription subscribe(String accountId,
+			TransactionFeed.Sink sink) {
+		checkAccount(accountId);
+		return transactionFeed.subscribe(accountId, sink);
+	}
+
+	/**
+	 * Check that an account exists
+	 * 
+	 * @param accountId
+	 *            the account id
+	 */
+	private void checkAccount(String accountId) {
 		if (!accountService.isAccountExist(accountId)) {
 			throw new ServiceException(ErrorCode.NOT_FOUND_ACCOUNT,
 					"Account doesn't exist");
 		}
-		return new PageImpl<TransactionResponse>(transactionRepository
-				.getTransactionsByAccount(accountId, p).getContent().stream()
-				.map(this::map).collect(Collectors.toList()));
+	}
+
+	/**
+	 * Get a transaction of an account
+	 * 
+	 * @param accountId
+	 *            the account id
+	 * @param transactionId
+	 *            the transaction id
+	 * @return the transaction
+	 */
+	private Transaction getTransaction(String accountId, String transactionId) {
+		Transaction transaction = transactionRepository
+				.findById(transactionId);
+		if (null == transaction) {
+			throw new ServiceException(ErrorCode.NOT_FOUND_TRANSACTION,
+					"Transaction doesn't exist");
+		}
+		if (!accountId.equals(transaction.getAccountId())) {
+			throw new ServiceException(ErrorCode.FORBIDDEN_TRANSACTION,
+					"Transaction doesn't belong to the account");
+		}
+		return transaction;
+	}
+
+	/**
+	 * Get the cursor of a token
+	 * 
+	 * @param token
+	 *            the token, empty for the first page
+	 * @param sort
+	 *            the requested sort, used for the first page
+	 * @return the cursor
+	 */
+	private TransactionCursor toCursor(String token, Sort sort) {
+		if (StringUtils.hasText(token)) {
+			try {
+				return TransactionCursor.decode(token);
+			} catch (IllegalArgumentException e) {
+				throw new ServiceException(ErrorCode.BAD_REQUEST_CURSOR,
+						"Invalid cursor");
+			}
+		}
+		checkSort(sort);
+		if (null == sort) {
+			return TransactionCursor.first(TransactionSortField.ID,
+					Direction.ASC);
+		}
+		Sort.Order order = sort.iterator().next();
+		return TransactionCursor.first(
+				TransactionSortField.of(order.getProperty()),
+				order.getDirection());
+	}
+
+	/**
+	 * Check that transactions can be sorted : on a single field, the ties
+	 * being broken by id
+	 * 
+	 * @param sort
+	 *            the requested sort
+	 */
+	private void checkSort(Sort sort) {
+		if (null == sort) {
+			return;
+		}
+		int orders = 0;
+		for (Sort.Order order : sort) {
+			if (null == TransactionSortField.of(order.getProperty())) {
+				throw new ServiceException(ErrorCode.BAD_REQUEST_SORT,
+						"Cannot sort transactions on " + order.getProperty());
+			}
+			if (++orders > 1) {
+				throw new ServiceException(ErrorCode.BAD_REQUEST_SORT,
+						"Cannot sort transactions on more than one field");
+			}
+		}
 	}
 
 	/**
@@ -60,7 +376,7 @@ public class TransactionService {
 	 * @param transaction
 	 * @return
 	 */
-	private TransactionResponse map(Transaction transaction) {
+	TransactionResponse map(Transaction transaction) {
 		TransactionResponse result = new TransactionResponse();
 		result.setBalance(transaction.getBalance());
 		result.setId(transaction.getId());
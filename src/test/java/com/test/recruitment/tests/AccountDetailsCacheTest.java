@@ -0,0 +1,117 @@
+package com.test.recruitment.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.test.recruitment.json.AccountDetailsResponse;
+import com.test.recruitment.service.AccountDetailsCache;
+
+/**
+ * Account details cache test
+ *
+ * @author A525125
+ *
+ */
+public class AccountDetailsCacheTest {
+
+	private static final long TTL = 1_000;
+
+	private final AtomicLong time = new AtomicLong();
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private final Function<String, AccountDetailsResponse> loader = id -> {
+		loads.incrementAndGet();
+		AccountDetailsResponse response = new AccountDetailsResponse();
+		response.setId(id);
+		return response;
+	};
+
+	private AccountDetailsCache cache;
+
+	@Before
+	public void setup() {
+		cache = new AccountDetailsCache(32, TTL, time::get);
+	}
+
+	@Test
+	public void hitReturnsTheCachedInstance() {
+		AccountDetailsResponse first = cache.get("1", loader);
+		assertSame(first, cache.get("1", loader));
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	public void entriesExpire() {
+		AccountDetailsResponse first = cache.get("1", loader);
+		time.addAndGet(TimeUnit.MILLISECONDS.toNanos(TTL));
+		assertNotSame(first, cache.get("1", loader));
+		assertEquals(2, loads.get());
+		assertEquals(1, cache.getEvictions());
+	}
+
+	@Test
+	public void leastRecentlyUsedEntriesAreEvicted() {
+		for (int i = 0; i < 1_000; i++) {
+			cache.get(String.valueOf(i), loader);
+			// Keep "0" recently used
+			cache.get("0", loader);
+		}
+		assertEquals(1_000, loads.get());
+		assertEquals(1_000 - 32, cache.getEvictions(), 1_000 / 2);
+		cache.get("0", loader);
+		assertEquals(1_000, loads.get());
+	}
+
+	@Test
+	public void invalidationForcesALoad() {
+		AccountDetailsResponse first = cache.get("1", loader);
+		cache.invalidate("1");
+		assertNotSame(first, cache.get("1", loader));
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void valueLoadedBeforeAnInvalidationIsNotCached() {
+		cache.get("1", id -> {
+			// A write happens while loading
+			cache.invalidate(id);
+			return loader.apply(id);
+		});
+		cache.get("1", loader);
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void getAllLoadsTheMissesAtOnce() {
+		AccountDetailsResponse cached = cache.get("1", loader);
+		AtomicInteger batches = new AtomicInteger();
+		Map<String, AccountDetailsResponse> result = cache.getAll(
+				Arrays.asList("1", "2", "3"), ids -> {
+					batches.incrementAndGet();
+					assertEquals(new HashSet<>(Arrays.asList("2", "3")),
+							new HashSet<>(ids));
+					// "3" does not exist
+					return Collections.singletonMap("2", loader.apply("2"));
+				});
+		assertEquals(1, batches.get());
+		assertSame(cached, result.get("1"));
+		assertEquals(2, result.size());
+		assertSame(result.get("2"), cache.get("2", loader));
+	}
+}
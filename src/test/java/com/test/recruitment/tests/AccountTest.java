@@ -1,11 +1,18 @@
 package com.test.recruitment.tests;
 
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import org.junit.Test;
+import org.springframework.http.MediaType;
 
 /**
  * Account test
@@ -31,6 +38,106 @@ public class AccountTest extends AbstractTest {
 				.andExpect(jsonPath("$.balance", is(4210.42)));
 	}
 
+	@Test
+	public void getAccountDetailsNotModified() throws Exception {
+		String etag = mockMvc.perform(get("/accounts/1"))
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", notNullValue()))
+				.andReturn().getResponse().getHeader("ETag");
+		mockMvc.perform(get("/accounts/1").header("If-None-Match", etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string("ETag", etag))
+				.andExpect(content().string(""));
+		mockMvc.perform(get("/accounts/1").header("If-None-Match", "\"0\""))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	public void getAccountDetailsWithTransactions() throws Exception {
+		String etag = mockMvc
+				.perform(get("/accounts/1?expand=transactions&size=2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.id", is("1")))
+				.andExpect(jsonPath("$.balance", is(4210.42)))
+				.andExpect(jsonPath("$.transactions.totalElements", is(3)))
+				.andExpect(jsonPath("$.transactions.content.length()", is(2)))
+				.andExpect(jsonPath("$.transactions.content[0].accountId")
+						.doesNotExist())
+				.andExpect(header().string("ETag", notNullValue()))
+				.andReturn().getResponse().getHeader("ETag");
+		mockMvc.perform(
+				get("/accounts/1?expand=transactions").header("If-None-Match",
+						etag)).andExpect(status().isNotModified());
+	}
+
+	@Test
+	public void getAccountDetailsWithTransactionsOnUnexistingAccount()
+			throws Exception {
+		mockMvc.perform(get("/accounts/test?expand=transactions"))
+				.andExpect(status().isNotFound())
+				.andExpect(jsonPath("$.errorCode", is("NOT_FOUND_ACCOUNT")));
+	}
+
+	@Test
+	public void getAccountDetailsWithUnknownExpand() throws Exception {
+		mockMvc.perform(get("/accounts/1?expand=owner"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.errorCode", is("BAD_REQUEST_EXPAND")));
+	}
+
+	@Test
+	public void getAccountSummary() throws Exception {
+		mockMvc.perform(get("/accounts/1/summary")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.id", is("1")))
+				.andExpect(jsonPath("$.count", is(3)))
+				.andExpect(jsonPath("$.sum", is(486.0)))
+				.andExpect(jsonPath("$.min", is(-12.12)))
+				.andExpect(jsonPath("$.max", is(456.0)));
+	}
+
+	@Test
+	public void getAccountSummaryOnUnexistingAccount() throws Exception {
+		mockMvc.perform(get("/accounts/test/summary"))
+				.andExpect(status().isNotFound())
+				.andExpect(jsonPath("$.errorCode", is("NOT_FOUND_ACCOUNT")));
+	}
+
+	@Test
+	public void getAccountDetailsCacheMetrics() throws Exception {
+		mockMvc.perform(get("/accounts/1")).andExpect(status().isOk());
+		mockMvc.perform(get("/accounts/1")).andExpect(status().isOk());
+		mockMvc.perform(get("/metrics")).andExpect(status().isOk())
+				.andExpect(jsonPath("$['cache.account-details.hits']",
+						greaterThanOrEqualTo(1)))
+				.andExpect(jsonPath("$['cache.account-details.misses']",
+						greaterThanOrEqualTo(1)));
+	}
+
+	@Test
+	public void getAccountDetailsBatch() throws Exception {
+		mockMvc.perform(
+				post("/accounts/batch").contentType(MediaType.APPLICATION_JSON)
+						.content("[\"2\", \"test\", \"1\", \"2\"]"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()", is(4)))
+				.andExpect(jsonPath("$[0].id", is("2")))
+				.andExpect(jsonPath("$[0].account.balance", is(25.12)))
+				.andExpect(jsonPath("$[1].id", is("test")))
+				.andExpect(jsonPath("$[1].account", nullValue()))
+				.andExpect(
+						jsonPath("$[1].error.errorCode", is("NOT_FOUND_ACCOUNT")))
+				.andExpect(jsonPath("$[2].account.type", is("SAVING")))
+				.andExpect(jsonPath("$[3].account.id", is("2")));
+	}
+
+	@Test
+	public void getAccountDetailsEmptyBatch() throws Exception {
+		mockMvc.perform(
+				post("/accounts/batch").contentType(MediaType.APPLICATION_JSON)
+						.content("[]")).andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.errorCode", is("BAD_REQUEST_BATCH")));
+	}
+
 	@Test
 	public void getAccountDetailsOnUnexistingAccount() throws Exception {
 		mockMvc.perform(get("/accounts/test")).andExpect(status().isNotFound())
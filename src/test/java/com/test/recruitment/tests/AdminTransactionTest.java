@@ -1,8 +1,11 @@
 package com.test.recruitment.tests;
 
+import static org.hamcrest.Matchers.is;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.io.IOException;
@@ -11,6 +14,7 @@ import java.io.StringWriter;
 import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
 
 /**
  * Account test
@@ -18,6 +22,7 @@ import org.springframework.http.MediaType;
  * @author A525125
  *
  */
+@DirtiesContext
 public class AdminTransactionTest extends AbstractTest {
 
 	@Test
@@ -30,6 +35,37 @@ public class AdminTransactionTest extends AbstractTest {
 				.andExpect(status().isCreated());
 	}
 
+	@Test
+	public void createTransactionUpdatesAccountBalance() throws Exception {
+		String request = getRequest("createOk");
+
+		mockMvc.perform(
+				post("/accounts/2/transactions").contentType(
+						MediaType.APPLICATION_JSON).content(request))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.number", is("00000001")))
+				.andExpect(jsonPath("$.balance", is(23.02)));
+		mockMvc.perform(get("/accounts/2")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.balance", is(48.14)));
+	}
+
+	@Test
+	public void createTransactionChangesETag() throws Exception {
+		String etag = mockMvc.perform(get("/accounts/1"))
+				.andExpect(status().isOk()).andReturn().getResponse()
+				.getHeader("ETag");
+		mockMvc.perform(
+				post("/accounts/1/transactions").contentType(
+						MediaType.APPLICATION_JSON).content(
+						getRequest("createOk"))).andExpect(
+				status().isCreated());
+		mockMvc.perform(get("/accounts/1").header("If-None-Match", etag))
+				.andExpect(status().isOk());
+		mockMvc.perform(
+				get("/accounts/1/transactions").header("If-None-Match", etag))
+				.andExpect(status().isOk());
+	}
+
 	@Test
 	public void createTransactionBadRequest() throws Exception {
 		String request = getRequest("createBadRequest");
@@ -112,5 +148,4 @@ public class AdminTransactionTest extends AbstractTest {
 				.getResourceAsStream("json/" + name + ".json"), writer);
 		return writer.toString();
 	}
-
 }
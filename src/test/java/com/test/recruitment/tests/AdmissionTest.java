@@ -0,0 +1,316 @@
+package com.test.recruitment.tests;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.TestPropertySource;
+
+import com.test.recruitment.config.AdmissionInterceptor;
+import com.test.recruitment.controller.AdmissionClass;
+import com.test.recruitment.exception.OverloadedException;
+import com.test.recruitment.service.AdmissionControl;
+import com.test.recruitment.service.TokenBucket;
+
+/**
+ * Admission control test : bulk requests are shed first, and detail lookups
+ * keep their latency while the lists are overloaded
+ *
+ * @author A525125
+ *
+ */
+@Slf4j
+@TestPropertySource(properties = { "recruitment.admission.enabled=true",
+		"recruitment.admission.bulk-rate=20",
+		"recruitment.admission.bulk-burst=5",
+		"recruitment.admission.client-rate=0" })
+public class AdmissionTest extends AbstractTest {
+
+	private static final int LOOKUPS = 3_000;
+
+	private static final int BULK_THREADS = 2;
+
+	@Autowired
+	private AdmissionControl admissionControl;
+
+	@Test
+	public void bulkRequestsAreShed() throws Exception {
+		int shed = 0;
+		for (int i = 0; i < 50; i++) {
+			int status = mockMvc.perform(get("/accounts/1/transactions"))
+					.andReturn().getResponse().getStatus();
+			if (503 == status) {
+				shed++;
+			}
+		}
+		assertTrue(shed > 0);
+		mockMvc.perform(get("/accounts/1/transactions"))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(header().string("Retry-After", "1"))
+				.andExpect(jsonPath("$.errorCode",
+						is("SERVICE_UNAVAILABLE_OVERLOADED")));
+		// Detail lookups are not limited by the list traffic
+		for (int i = 0; i < 50; i++) {
+			mockMvc.perform(get("/accounts/1")).andExpect(status().isOk());
+		}
+	}
+
+	@Test
+	public void expandedDetailsAreShedAsBulk() throws Exception {
+		int shed = 0;
+		for (int i = 0; i < 50; i++) {
+			int status = mockMvc
+					.perform(get("/accounts/1?expand=transactions"))
+					.andReturn().getResponse().getStatus();
+			if (503 == status) {
+				shed++;
+			}
+		}
+		assertTrue(shed > 0);
+		// Plain detail lookups are still critical
+		for (int i = 0; i < 50; i++) {
+			mockMvc.perform(get("/accounts/1")).andExpect(status().isOk());
+		}
+	}
+
+	@Test
+	public void openSubscriptionsAreNotInProgress() throws Exception {
+		// More than the maximum concurrency
+		for (int i = 0; i < 100; i++) {
+			mockMvc.perform(get("/accounts/1/transactions/events"))
+					.andExpect(request().asyncStarted());
+		}
+		mockMvc.perform(get("/accounts/1/summary")).andExpect(status().isOk());
+	}
+
+	@Test
+	public void detailLatencyHoldsUnderListOverload() throws Exception {
+		// Warm up
+		measureLookups(LOOKUPS);
+		long baseline = p99(measureLookups(LOOKUPS));
+
+		AtomicBoolean running = new AtomicBoolean(true);
+		AtomicLong sent = new AtomicLong();
+		AtomicLong shed = new AtomicLong();
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < BULK_THREADS; i++) {
+			Thread thread = new Thread(() -> {
+				try {
+					while (running.get()) {
+						// About 1000 requests per second and thread, 50 times
+						// the bulk rate
+						int status = mockMvc
+								.perform(get("/accounts/1/transactions")
+										.header(AdmissionInterceptor.CLIENT_HEADER,
+												"bulk")).andReturn()
+								.getResponse().getStatus();
+						sent.incrementAndGet();
+						if (503 == status) {
+							shed.incrementAndGet();
+						}
+						LockSupport.parkNanos(TimeUnit.MICROSECONDS
+								.toNanos(500));
+					}
+				} catch (Exception e) {
+					log.error("List request failed", e);
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		long rejectedLookups = admissionControl
+				.getRejected(AdmissionClass.CRITICAL);
+		long overloaded;
+		try {
+			overloaded = p99(measureLookups(LOOKUPS));
+		} finally {
+			running.set(false);
+			for (Thread thread : threads) {
+				thread.join();
+			}
+		}
+		log.info("Detail lookups p99 : {} us alone, {} us with {} list "
+				+ "requests ({} shed)", baseline / 1000, overloaded / 1000,
+				sent.get(), shed.get());
+		assertEquals(rejectedLookups,
+				admissionControl.getRejected(AdmissionClass.CRITICAL));
+		assertTrue(shed.get() > sent.get() / 2);
+		assertTrue("p99 went from " + baseline + "ns to " + overloaded + "ns",
+				overloaded < baseline * 3 + TimeUnit.MILLISECONDS.toNanos(2));
+	}
+
+	@Test
+	public void clientRateIsLimited() {
+		long[] now = { 0 };
+		AdmissionControl control = new AdmissionControl(0, 1, 0, 1, 10, 5,
+				100, 50, () -> now[0]);
+		for (int i = 0; i < 5; i++) {
+			control.acquire(AdmissionClass.NORMAL, null, "a");
+			control.release();
+		}
+		try {
+			control.acquire(AdmissionClass.NORMAL, null, "a");
+			fail("The client exceeded its burst");
+		} catch (OverloadedException e) {
+			assertEquals(1, e.getRetryAfter());
+		}
+		// Other clients are not limited
+		control.acquire(AdmissionClass.NORMAL, null, "b");
+		control.release();
+		// Nor are critical requests, which skip the client lookup
+		control.acquire(AdmissionClass.CRITICAL, null, "a");
+		control.release();
+		assertEquals(2, control.getClients());
+		// One token every 100ms
+		now[0] += TimeUnit.MILLISECONDS.toNanos(100);
+		control.acquire(AdmissionClass.NORMAL, null, "a");
+		control.release();
+	}
+
+	@Test
+	public void rejectedClientsKeepTheEndpointTokens() {
+		long[] now = { 0 };
+		AdmissionControl control = new AdmissionControl(1, 2, 0, 1, 1, 1,
+				100, 50, () -> now[0]);
+		TokenBucket endpoint = control
+				.createEndpointBucket(AdmissionClass.BULK);
+		control.acquire(AdmissionClass.BULK, endpoint, "a");
+		control.release();
+		try {
+			control.acquire(AdmissionClass.BULK, endpoint, "a");
+			fail("The client exceeded its burst");
+		} catch (OverloadedException e) {
+			assertEquals(1, control.getRejected(AdmissionClass.BULK));
+		}
+		// The second token of the endpoint is still there
+		control.acquire(AdmissionClass.BULK, endpoint, "b");
+		control.release();
+	}
+
+	@Test
+	public void idleClientsAreEvicted() {
+		long[] now = { 0 };
+		AdmissionControl control = new AdmissionControl(0, 1, 0, 1, 1, 1,
+				100, 50, () -> now[0]);
+		for (int i = 0; i < 9_999; i++) {
+			control.acquire(AdmissionClass.NORMAL, null, "c" + i);
+			control.release();
+		}
+		now[0] += TimeUnit.SECONDS.toNanos(5);
+		control.acquire(AdmissionClass.NORMAL, null, "a");
+		control.release();
+		control.acquire(AdmissionClass.NORMAL, null, "b");
+		control.release();
+		// Beyond the maximum : the idle clients are evicted, not "a"
+		assertEquals(2, control.getClients());
+		try {
+			control.acquire(AdmissionClass.NORMAL, null, "a");
+			fail("The client exceeded its burst");
+		} catch (OverloadedException e) {
+			// Expected
+		}
+		// Too many active clients : arbitrary ones are evicted
+		for (int i = 0; i < 20_000; i++) {
+			control.acquire(AdmissionClass.NORMAL, null, "d" + i);
+			control.release();
+			assertTrue(control.getClients() <= 10_000);
+		}
+	}
+
+	@Test
+	public void clientHeaderIsOnlyTrustedFromProxies() {
+		AdmissionInterceptor interceptor = new AdmissionInterceptor(
+				admissionControl, Arrays.asList("10.0.0.1"));
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setRemoteAddr("10.0.0.2");
+		request.addHeader(AdmissionInterceptor.CLIENT_HEADER, "a");
+		assertEquals("10.0.0.2", interceptor.client(request));
+		request.setRemoteAddr("10.0.0.1");
+		assertEquals("a", interceptor.client(request));
+		// A proxy request without header is the proxy
+		request = new MockHttpServletRequest();
+		request.setRemoteAddr("10.0.0.1");
+		assertEquals("10.0.0.1", interceptor.client(request));
+	}
+
+	@Test
+	public void bulkRequestsAreShedAtLowerConcurrency() {
+		AdmissionControl control = new AdmissionControl(0, 1, 0, 1, 0, 1, 3,
+				1, System::nanoTime);
+		control.acquire(AdmissionClass.BULK, null, "a");
+		try {
+			control.acquire(AdmissionClass.BULK, null, "a");
+			fail("Bulk concurrency reached");
+		} catch (OverloadedException e) {
+			assertEquals(1, control.getRejected(AdmissionClass.BULK));
+		}
+		control.acquire(AdmissionClass.NORMAL, null, "a");
+		control.acquire(AdmissionClass.NORMAL, null, "a");
+		try {
+			control.acquire(AdmissionClass.NORMAL, null, "a");
+			fail("Maximum concurrency reached");
+		} catch (OverloadedException e) {
+			assertEquals(1, control.getRejected(AdmissionClass.NORMAL));
+		}
+		// Never shed on concurrency
+		control.acquire(AdmissionClass.CRITICAL, null, "a");
+		for (int i = 0; i < 4; i++) {
+			control.release();
+		}
+		control.acquire(AdmissionClass.BULK, null, "a");
+	}
+
+	@Test
+	public void tokenBucketRefills() {
+		long[] now = { 1000 };
+		TokenBucket bucket = new TokenBucket(4, 2, () -> now[0]);
+		assertEquals(0, bucket.tryAcquire());
+		assertEquals(0, bucket.tryAcquire());
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(250), bucket.tryAcquire());
+		now[0] += TimeUnit.MILLISECONDS.toNanos(250);
+		assertEquals(0, bucket.tryAcquire());
+		assertTrue(bucket.tryAcquire() > 0);
+		// Idle : the bucket holds no more than its burst
+		now[0] += TimeUnit.SECONDS.toNanos(10);
+		assertEquals(0, bucket.tryAcquire());
+		assertEquals(0, bucket.tryAcquire());
+		assertTrue(bucket.tryAcquire() > 0);
+	}
+
+	/**
+	 * @return the durations of detail lookups in nanoseconds
+	 */
+	private long[] measureLookups(int count) throws Exception {
+		long[] durations = new long[count];
+		for (int i = 0; i < count; i++) {
+			long start = System.nanoTime();
+			mockMvc.perform(get("/accounts/1")).andExpect(status().isOk());
+			durations[i] = System.nanoTime() - start;
+		}
+		return durations;
+	}
+
+	private static long p99(long[] durations) {
+		Arrays.sort(durations);
+		return durations[durations.length * 99 / 100];
+	}
+}
@@ -0,0 +1,207 @@
+package com.test.recruitment.tests;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import javax.servlet.AsyncListener;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.test.recruitment.dao.TransactionRepository;
+import com.test.recruitment.entity.Transaction;
+import com.test.recruitment.exception.ServiceException;
+import com.test.recruitment.json.ErrorCode;
+import com.test.recruitment.service.AccountLocks;
+import com.test.recruitment.service.RequestExecutor;
+
+/**
+ * Asynchronous request handling test
+ *
+ * @author A525125
+ *
+ */
+@DirtiesContext
+@TestPropertySource(properties = "recruitment.async.enabled=true")
+public class AsyncRequestTest extends AbstractTest {
+
+	@Autowired
+	private AccountLocks accountLocks;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Test
+	public void getAccountDetails() throws Exception {
+		perform(get("/accounts/1")).andExpect(status().isOk()).andExpect(
+				jsonPath("$.balance", is(4210.42)));
+	}
+
+	@Test
+	public void getTransactions() throws Exception {
+		perform(get("/accounts/1/transactions")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.totalElements", is(3)));
+	}
+
+	@Test
+	public void serviceErrorIsHandled() throws Exception {
+		MvcResult result = mockMvc
+				.perform(
+						post("/accounts/batch").contentType(
+								MediaType.APPLICATION_JSON).content("[]"))
+				.andExpect(request().asyncStarted()).andReturn();
+		mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.errorCode", is("BAD_REQUEST_BATCH")));
+	}
+
+	@Test
+	public void runningWriteIsNotTimedOut() throws Exception {
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		// Holds the account lock : the write runs and waits for it
+		Thread holder = new Thread(() -> accountLocks.withLock("2", () -> {
+			locked.countDown();
+			try {
+				return release.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				return false;
+			}
+		}));
+		holder.start();
+		locked.await();
+		long before = transactionRepository.streamTransactionsByAccount("2")
+				.count();
+		MvcResult write = mockMvc
+				.perform(
+						post("/accounts/2/transactions").contentType(
+								MediaType.APPLICATION_JSON).content(
+								"{\"number\":\"slow\",\"balance\":1}"))
+				.andExpect(request().asyncStarted()).andReturn();
+		// Let the write start
+		Thread.sleep(200);
+		timeout(write);
+		mockMvc.perform(asyncDispatch(write))
+				.andExpect(status().isAccepted())
+				.andExpect(jsonPath("$.errorCode", is("ACCEPTED_IN_PROGRESS")));
+		release.countDown();
+		holder.join();
+		// The write is applied once the lock is released, once
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (transactionRepository.streamTransactionsByAccount("2")
+				.count() == before
+				&& System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(
+				Arrays.asList("slow"),
+				transactionRepository.streamTransactionsByAccount("2")
+						.map(Transaction::getNumber)
+						.collect(Collectors.toList()));
+	}
+
+	@Test
+	public void onlyQueuedTasksAreCancelled() throws Exception {
+		RequestExecutor executor = new RequestExecutor(true, 1, 1, 1000);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			RequestExecutor.Task<Boolean> running = (RequestExecutor.Task<Boolean>) executor
+					.submit(() -> {
+						started.countDown();
+						try {
+							return release.await(10, TimeUnit.SECONDS);
+						} catch (InterruptedException e) {
+							return false;
+						}
+					});
+			AtomicBoolean ran = new AtomicBoolean();
+			RequestExecutor.Task<Boolean> queued = (RequestExecutor.Task<Boolean>) executor
+					.submit(() -> ran.getAndSet(true));
+			started.await();
+			Exception timeout = new Exception("Timed out");
+			assertFalse(running.cancelQueued(timeout));
+			assertTrue(queued.cancelQueued(timeout));
+			release.countDown();
+			assertEquals(true, running.get());
+			assertTrue(queued.isCompletedExceptionally());
+			executor.submit(() -> true).get();
+			assertFalse(ran.get());
+		} finally {
+			executor.destroy();
+		}
+	}
+
+	@Test
+	public void fullQueueIsRejected() throws Exception {
+		RequestExecutor executor = new RequestExecutor(true, 1, 1, 1000);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			CompletableFuture<Boolean> running = executor.submit(() -> {
+				try {
+					return release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					return false;
+				}
+			});
+			CompletableFuture<String> queued = executor.submit(() -> "queued");
+			try {
+				executor.submit(() -> "rejected");
+				fail("The queue is full");
+			} catch (ServiceException e) {
+				assertEquals(ErrorCode.SERVICE_UNAVAILABLE_BUSY,
+						e.getErrorCode());
+			}
+			release.countDown();
+			assertEquals(true, running.get());
+			assertEquals("queued", queued.get());
+		} finally {
+			executor.destroy();
+		}
+	}
+
+	/**
+	 * Perform a request and dispatch its result : a task completed before
+	 * its future is returned is written at once, without async dispatch
+	 */
+	private ResultActions perform(RequestBuilder builder) throws Exception {
+		ResultActions actions = mockMvc.perform(builder);
+		MvcResult result = actions.andReturn();
+		return result.getRequest().isAsyncStarted() ? mockMvc
+				.perform(asyncDispatch(result)) : actions;
+	}
+
+	/**
+	 * Time out an asynchronous request, as the container would
+	 */
+	private static void timeout(MvcResult result) throws IOException {
+		for (AsyncListener listener : ((MockAsyncContext) result
+				.getRequest().getAsyncContext()).getListeners()) {
+			listener.onTimeout(null);
+		}
+	}
+}
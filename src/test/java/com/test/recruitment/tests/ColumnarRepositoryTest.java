@@ -0,0 +1,297 @@
+package com.test.recruitment.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+
+import com.test.recruitment.dao.TransactionCursor;
+import com.test.recruitment.dao.TransactionRepository;
+import com.test.recruitment.dao.TransactionSortField;
+import com.test.recruitment.dao.impl.ColumnarTransactionRepository;
+import com.test.recruitment.dao.impl.TransactionRepositoryImpl;
+import com.test.recruitment.entity.Transaction;
+
+/**
+ * Columnar repository test : same results as the object repository, in a
+ * fraction of the heap. The heap comparison runs on <code>heap.rows</code>
+ * transactions, 1M by default ; the 10M comparison needs a larger heap, e.g.
+ * <code>mvn test -Dtest=ColumnarRepositoryTest -Dheap.rows=10000000
+ * -DargLine=-Xmx6g</code>.
+ *
+ * @author A525125
+ *
+ */
+public class ColumnarRepositoryTest {
+
+	private static final int ROWS = Integer.getInteger("heap.rows", 1_000_000);
+
+	private static final int ACCOUNTS = 1_000;
+
+	private static final int BATCH = 100_000;
+
+	/**
+	 * Columnar rows are packed primitives, object rows hold a transaction, 2
+	 * strings and a big decimal each
+	 */
+	private static final double MAX_HEAP_RATIO = 0.5;
+
+	private static final int UPDATED_ROWS = 100_000;
+
+	private static final int UPDATE_ROUNDS = 20;
+
+	/**
+	 * Dead rows are compacted once they outnumber the live rows : the heap
+	 * holds at most about twice the live rows, instead of one copy per
+	 * update
+	 */
+	private static final double MAX_UPDATED_HEAP_RATIO = 3;
+
+	private static final String[] IDS = { "1", "01", "007", "T", "T1", "",
+			"12151885120", "123456789012345678", "9" };
+
+	@Test
+	public void sameResultsAsObjectRepository() throws Exception {
+		TransactionRepositoryImpl expected = new TransactionRepositoryImpl();
+		expected.afterPropertiesSet();
+		ColumnarTransactionRepository actual = new ColumnarTransactionRepository();
+		actual.afterPropertiesSet();
+		Random random = new Random(11);
+		List<Transaction> batch = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			String id = random.nextBoolean() ? null : IDS[random
+					.nextInt(IDS.length)] + random.nextInt(300);
+			String accountId = "A" + random.nextInt(3);
+			switch (random.nextInt(10)) {
+			case 0:
+				if (null != id) {
+					expected.delete(id);
+					actual.delete(id);
+				}
+				break;
+			case 1:
+				batch.add(transaction(id, accountId, random));
+				break;
+			case 2:
+				expected.saveAll(copy(batch));
+				actual.saveAll(copy(batch));
+				batch.clear();
+				break;
+			default:
+				Transaction transaction = transaction(id, accountId, random);
+				expected.save(copy(transaction));
+				actual.save(transaction);
+				break;
+			}
+		}
+
+		assertSameResults(expected, actual, "1", "A0", "A1", "A2", "B");
+	}
+
+	@Test
+	public void compactionKeepsResults() throws Exception {
+		TransactionRepositoryImpl expected = new TransactionRepositoryImpl();
+		expected.afterPropertiesSet();
+		ColumnarTransactionRepository actual = new ColumnarTransactionRepository();
+		actual.afterPropertiesSet();
+		Random random = new Random(5);
+		for (int i = 0; i < 100_000; i++) {
+			String id = IDS[random.nextInt(IDS.length)] + random.nextInt(300);
+			String accountId = "A" + random.nextInt(3);
+			if (0 == random.nextInt(10)) {
+				expected.delete(id);
+				actual.delete(id);
+			} else {
+				Transaction transaction = transaction(id, accountId, random);
+				expected.save(copy(transaction));
+				actual.save(transaction);
+			}
+			if (0 == i) {
+				// Sorted orders are carried over by the compactions
+				actual.buildIndexes("A0");
+			}
+		}
+		assertTrue("Rows were not compacted : " + actual.getRows(),
+				actual.getRows() < 50_000);
+
+		assertSameResults(expected, actual, "1", "A0", "A1", "A2");
+	}
+
+	@Test
+	public void heapStaysBoundedUnderUpdates() throws Exception {
+		long before = usedHeap();
+		long loaded = 0;
+		ColumnarTransactionRepository repository = new ColumnarTransactionRepository();
+		repository.afterPropertiesSet();
+		List<Transaction> batch = new ArrayList<>(UPDATED_ROWS);
+		for (int round = 0; round <= UPDATE_ROUNDS; round++) {
+			batch.clear();
+			for (int i = 0; i < UPDATED_ROWS; i++) {
+				// Ids and numbers which are not digits go to the dictionary,
+				// and large balances to the overflow amounts
+				Transaction transaction = new Transaction();
+				transaction.setId("T" + i);
+				transaction.setAccountId("A" + i % ACCOUNTS);
+				transaction.setNumber("N" + round + "-" + i);
+				transaction.setBalance(0 == i % 10 ? new BigDecimal("1e40")
+						: BigDecimal.valueOf(round * i, 2));
+				batch.add(transaction);
+			}
+			repository.saveAll(batch);
+			if (0 == round) {
+				loaded = usedHeap() - before;
+			}
+		}
+		batch = null;
+		long updated = usedHeap() - before;
+		assertEquals("N" + UPDATE_ROUNDS + "-7", repository.findById("T7")
+				.getNumber());
+		assertTrue("Heap went from " + loaded + " bytes to " + updated
+				+ " bytes after " + UPDATE_ROUNDS + " updates of each row",
+				updated < loaded * MAX_UPDATED_HEAP_RATIO);
+	}
+
+	@Test
+	public void columnarStorageUsesLessHeap() throws Exception {
+		long object = measureHeap(new TransactionRepositoryImpl());
+		long columnar = measureHeap(new ColumnarTransactionRepository());
+		assertTrue("Columnar storage of " + ROWS + " rows takes " + columnar
+				+ " bytes, object storage " + object + " bytes", columnar
+				< object * MAX_HEAP_RATIO);
+	}
+
+	/**
+	 * Heap retained by a repository loaded with {@link #ROWS} transactions
+	 *
+	 * @param repository
+	 *            the empty repository
+	 * @return the retained heap in bytes
+	 * @throws Exception
+	 */
+	private static <T extends TransactionRepository & InitializingBean> long measureHeap(
+			T repository) throws Exception {
+		long before = usedHeap();
+		repository.afterPropertiesSet();
+		long number = 12151885120L;
+		List<Transaction> batch = new ArrayList<>(BATCH);
+		for (int i = 0; i < ROWS; i++) {
+			Transaction transaction = new Transaction();
+			transaction.setAccountId("A" + i % ACCOUNTS);
+			transaction.setNumber(String.valueOf(number + i));
+			transaction.setBalance(BigDecimal.valueOf(i % 100_000 - 50_000, 2));
+			batch.add(transaction);
+			if (batch.size() == BATCH) {
+				repository.saveAll(batch);
+				batch = new ArrayList<>(BATCH);
+			}
+		}
+		repository.saveAll(batch);
+		batch = null;
+		long used = usedHeap() - before;
+		// Keep the repository reachable until it has been measured
+		assertEquals(ROWS / ACCOUNTS, repository
+				.getTransactionsByAccount("A0", null).getTotalElements());
+		return used;
+	}
+
+	private static long usedHeap() throws InterruptedException {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage()
+				.getUsed();
+	}
+
+	private static void assertSameResults(TransactionRepository expected,
+			TransactionRepository actual, String... accountIds) {
+		for (String accountId : accountIds) {
+			assertEquals(expected.getTransactionsByAccount(accountId, null)
+					.getContent(), actual.getTransactionsByAccount(accountId,
+					null).getContent());
+			for (Transaction transaction : expected.getTransactionsByAccount(
+					accountId, null)) {
+				assertEquals(transaction, actual.findById(transaction.getId()));
+			}
+			for (TransactionSortField field : TransactionSortField.values()) {
+				for (Direction direction : Direction.values()) {
+					PageRequest p = new PageRequest(1, 50, new Sort(direction,
+							field.getProperty()));
+					assertEquals(expected.getTransactionsByAccount(accountId, p)
+							.getContent(), actual.getTransactionsByAccount(
+							accountId, p).getContent());
+					assertEquals(readByCursor(expected, accountId, field,
+							direction), readByCursor(actual, accountId, field,
+							direction));
+				}
+			}
+		}
+	}
+
+	private static List<Transaction> readByCursor(
+			TransactionRepository repository, String accountId,
+			TransactionSortField field, Direction direction) {
+		List<Transaction> result = new ArrayList<>();
+		TransactionCursor cursor = TransactionCursor.first(field, direction);
+		Slice<Transaction> slice;
+		do {
+			slice = repository.getTransactionsByAccount(accountId, cursor, 40);
+			result.addAll(slice.getContent());
+			if (!result.isEmpty()) {
+				cursor = cursor.after(result.get(result.size() - 1));
+			}
+		} while (slice.hasNext());
+		return result;
+	}
+
+	private static Transaction transaction(String id, String accountId,
+			Random random) {
+		Transaction transaction = new Transaction();
+		transaction.setId(id);
+		transaction.setAccountId(accountId);
+		transaction.setNumber(IDS[random.nextInt(IDS.length)]
+				+ random.nextInt(20));
+		switch (random.nextInt(3)) {
+		case 0:
+			transaction.setBalance(BigDecimal.valueOf(random.nextInt(200) - 100,
+					random.nextInt(4)));
+			break;
+		case 1:
+			transaction.setBalance(new BigDecimal("1e40").add(BigDecimal
+					.valueOf(random.nextInt(5))));
+			break;
+		default:
+			transaction.setBalance(BigDecimal.valueOf(random.nextInt(50)));
+			break;
+		}
+		return transaction;
+	}
+
+	private static Transaction copy(Transaction transaction) {
+		Transaction copy = new Transaction();
+		copy.setId(transaction.getId());
+		copy.setAccountId(transaction.getAccountId());
+		copy.setNumber(transaction.getNumber());
+		copy.setBalance(transaction.getBalance());
+		return copy;
+	}
+
+	private static List<Transaction> copy(List<Transaction> transactions) {
+		List<Transaction> copies = new ArrayList<>();
+		for (Transaction transaction : transactions) {
+			copies.add(copy(transaction));
+		}
+		return copies;
+	}
+}
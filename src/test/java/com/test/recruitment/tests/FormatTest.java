@@ -0,0 +1,134 @@
+package com.test.recruitment.tests;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Collections;
+
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.test.recruitment.json.ResponseFormat;
+
+/**
+ * Binary formats test : the CBOR and Smile responses hold the same
+ * structure as the json ones
+ *
+ * @author A525125
+ *
+ */
+public class FormatTest extends AbstractTest {
+
+	private static final String VARY = "Accept, Accept-Encoding";
+
+	@Test
+	public void getListsInBinaryFormats() throws Exception {
+		for (String uri : new String[] { "/accounts",
+				"/accounts/1/transactions",
+				"/accounts/1/transactions?page=1&size=2",
+				"/accounts/1/transactions?fields=id,balance" }) {
+			assertSameContent(uri);
+		}
+	}
+
+	@Test
+	public void getObjectsInBinaryFormats() throws Exception {
+		for (String uri : new String[] { "/accounts/1",
+				"/accounts/1/summary",
+				"/accounts/1?expand=transactions&size=2",
+				"/accounts/1/transactions?cursor=&size=2",
+				"/accounts/1?fields=balance", "/reports/accounts" }) {
+			assertSameContent(uri);
+		}
+	}
+
+	@Test
+	public void entityTagsAreByFormat() throws Exception {
+		for (String uri : new String[] { "/accounts/1",
+				"/accounts/1/summary",
+				"/accounts/1?expand=transactions&size=2",
+				"/accounts/1/transactions",
+				"/accounts/1/transactions?cursor=&size=2" }) {
+			MockHttpServletResponse response = mockMvc.perform(get(uri))
+					.andExpect(status().isOk()).andReturn().getResponse();
+			assertEquals(uri, Collections.singletonList(VARY), response
+					.getHeaders("Vary"));
+			String etag = response.getHeader("ETag");
+			// The json representation held is not the cbor one
+			byte[] body = mockMvc
+					.perform(get(uri).accept(ResponseFormat.CBOR_VALUE)
+							.header("If-None-Match", etag))
+					.andExpect(status().isOk())
+					.andExpect(header().string("Content-Type",
+							ResponseFormat.CBOR_VALUE))
+					.andExpect(header().string("Vary", VARY))
+					.andExpect(header().string("ETag", endsWith("-cbor\"")))
+					.andReturn().getResponse().getContentAsByteArray();
+			read(new CBORFactory(), body);
+			mockMvc.perform(get(uri).header("If-None-Match", etag))
+					.andExpect(status().isNotModified())
+					.andExpect(header().string("Vary", VARY));
+		}
+	}
+
+	@Test
+	public void jsonIsTheDefault() throws Exception {
+		mockMvc.perform(get("/accounts/1/transactions").accept("*/*"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(
+						MediaType.APPLICATION_JSON));
+		assertEquals(ResponseFormat.JSON, ResponseFormat.of(null));
+		assertEquals(ResponseFormat.SMILE, ResponseFormat.of(
+				"application/cbor;q=0.5, application/x-jackson-smile"));
+		assertEquals(ResponseFormat.JSON, ResponseFormat.of(
+				"text/html, application/cbor;q=0"));
+	}
+
+	@Test
+	public void errorsStayJson() throws Exception {
+		mockMvc.perform(get("/accounts/test").accept(ResponseFormat.CBOR_VALUE))
+				.andExpect(status().isNotFound())
+				.andExpect(jsonPath("$.errorCode", is("NOT_FOUND_ACCOUNT")));
+		mockMvc.perform(get("/accounts/test/transactions"))
+				.andExpect(status().isNotFound())
+				.andExpect(jsonPath("$.errorCode", is("NOT_FOUND_ACCOUNT")));
+	}
+
+	private void assertSameContent(String uri) throws Exception {
+		JsonNode json = read(new JsonFactory(), mockMvc.perform(get(uri))
+				.andExpect(status().isOk()).andReturn().getResponse()
+				.getContentAsByteArray());
+		for (ResponseFormat format : new ResponseFormat[] {
+				ResponseFormat.CBOR, ResponseFormat.SMILE }) {
+			byte[] body = mockMvc
+					.perform(get(uri).accept(format.getMediaType()))
+					.andExpect(status().isOk())
+					.andExpect(header().string("Content-Type",
+							format.getMediaType().toString()))
+					.andReturn().getResponse().getContentAsByteArray();
+			assertEquals(uri + " as " + format, json, read(
+					ResponseFormat.CBOR == format ? new CBORFactory()
+							: new SmileFactory(), body));
+		}
+	}
+
+	private static JsonNode read(JsonFactory factory, byte[] body)
+			throws Exception {
+		return new ObjectMapper(factory).enable(
+				DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+				.readTree(body);
+	}
+}
@@ -0,0 +1,72 @@
+package com.test.recruitment.tests;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Hsqldb profile test : the api is served from the database
+ *
+ * @author A525125
+ *
+ */
+@DirtiesContext
+@ActiveProfiles("hsqldb")
+@TestPropertySource(properties = "recruitment.hsqldb.url=jdbc:hsqldb:mem:hsqldb-profile-test;hsqldb.tx=mvcc")
+public class HsqldbProfileTest extends AbstractTest {
+
+	@Autowired
+	private ApplicationContext applicationContext;
+
+	@Test
+	public void repositoriesAreDatabaseBacked() throws Exception {
+		assertTrue(applicationContext.containsBean("jdbcAccountRepository"));
+		assertTrue(applicationContext
+				.containsBean("jdbcTransactionRepository"));
+		assertFalse(applicationContext.containsBean("accountRepositoryImpl"));
+		assertFalse(applicationContext
+				.containsBean("transactionRepositoryImpl"));
+	}
+
+	@Test
+	public void accountsArePaged() throws Exception {
+		mockMvc.perform(get("/accounts?size=1&page=1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.totalElements", is(2)))
+				.andExpect(jsonPath("$.numberOfElements", is(1)))
+				.andExpect(jsonPath("$.content[0].type", is("CURRENT")))
+				.andExpect(jsonPath("$.content[0].number", is("01000251216")));
+	}
+
+	@Test
+	public void transactionsAreSortedByTheDatabase() throws Exception {
+		mockMvc.perform(
+				post("/accounts/2/transactions").contentType(
+						MediaType.APPLICATION_JSON).content(
+						"{\"number\":\"00000001\",\"balance\":-7.50}"))
+				.andExpect(status().isCreated());
+		mockMvc.perform(get("/accounts/2")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.balance", is(17.62)));
+		mockMvc.perform(get("/accounts/1/transactions?sort=balance,desc&size=2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.totalElements", is(3)))
+				.andExpect(jsonPath("$.content[0].balance", is(456.0)))
+				.andExpect(jsonPath("$.content[1].balance", is(42.12)));
+		mockMvc.perform(get("/accounts/1/summary"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.count", is(3)))
+				.andExpect(jsonPath("$.min", is(-12.12)));
+	}
+}
@@ -0,0 +1,323 @@
+package com.test.recruitment.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.apache.tomcat.jdbc.pool.DataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.test.recruitment.config.HsqldbConfiguration;
+import com.test.recruitment.dao.TransactionCursor;
+import com.test.recruitment.dao.TransactionRepository;
+import com.test.recruitment.dao.TransactionSortField;
+import com.test.recruitment.dao.TransactionTotals;
+import com.test.recruitment.dao.impl.AccountRepositoryImpl;
+import com.test.recruitment.dao.impl.JdbcAccountRepository;
+import com.test.recruitment.dao.impl.JdbcTransactionRepository;
+import com.test.recruitment.dao.impl.TransactionRepositoryImpl;
+import com.test.recruitment.entity.Account;
+import com.test.recruitment.entity.Transaction;
+
+/**
+ * Database repositories test : same results as the in-memory repositories,
+ * on an in-memory HSQLDB database
+ *
+ * @author A525125
+ *
+ */
+public class JdbcRepositoryTest {
+
+	private static final String[] IDS = { "1", "01", "007", "T", "T1", "",
+			"12151885120", "123456789012345678", "9" };
+
+	private DataSource dataSource;
+
+	@Before
+	public void setup() {
+		dataSource = new HsqldbConfiguration().dataSource(
+				"jdbc:hsqldb:mem:jdbc-repository-test;hsqldb.tx=mvcc", 4, 16,
+				1000);
+	}
+
+	@After
+	public void shutdown() {
+		// Drop the in-memory database
+		new JdbcTemplate(dataSource).execute("SHUTDOWN");
+		dataSource.close();
+	}
+
+	@Test
+	public void sameResultsAsObjectRepository() throws Exception {
+		TransactionRepositoryImpl expected = new TransactionRepositoryImpl();
+		expected.afterPropertiesSet();
+		JdbcTransactionRepository actual = new JdbcTransactionRepository(
+				dataSource);
+		actual.afterPropertiesSet();
+		Random random = new Random(21);
+		List<Transaction> batch = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			String id = random.nextBoolean() ? null : IDS[random
+					.nextInt(IDS.length)] + random.nextInt(300);
+			String accountId = "A" + random.nextInt(3);
+			switch (random.nextInt(10)) {
+			case 0:
+				if (null != id) {
+					expected.delete(id);
+					actual.delete(id);
+				}
+				break;
+			case 1:
+				batch.add(transaction(id, accountId, random));
+				break;
+			case 2:
+				expected.saveAll(copy(batch));
+				actual.saveAll(copy(batch));
+				batch.clear();
+				break;
+			default:
+				Transaction transaction = transaction(id, accountId, random);
+				expected.save(copy(transaction));
+				actual.save(transaction);
+				break;
+			}
+		}
+
+		for (String accountId : new String[] { "1", "A0", "A1", "A2", "B" }) {
+			assertEquals(expected.getTransactionsByAccount(accountId, null)
+					.getContent(), actual.getTransactionsByAccount(accountId,
+					null).getContent());
+			assertEquals(expected.streamTransactionsByAccount(accountId)
+					.collect(Collectors.toList()), actual
+					.streamTransactionsByAccount(accountId).collect(
+							Collectors.toList()));
+			assertEquals(expected.getSummary(accountId),
+					actual.getSummary(accountId));
+			assertTotalsEqual(totals(expected, accountId),
+					totals(actual, accountId));
+			for (Transaction transaction : expected.getTransactionsByAccount(
+					accountId, null)) {
+				assertEquals(transaction, actual.findById(transaction.getId()));
+			}
+			for (int page = 0; page < 3; page++) {
+				PageRequest p = new PageRequest(page, 50);
+				assertPageEquals(expected.getTransactionsByAccount(accountId, p),
+						actual.getTransactionsByAccount(accountId, p));
+			}
+			for (TransactionSortField field : TransactionSortField.values()) {
+				for (Direction direction : Direction.values()) {
+					PageRequest p = new PageRequest(1, 50, new Sort(direction,
+							field.getProperty()));
+					assertPageEquals(expected.getTransactionsByAccount(
+							accountId, p), actual.getTransactionsByAccount(
+							accountId, p));
+					assertEquals(readByCursor(expected, accountId, field,
+							direction), readByCursor(actual, accountId, field,
+							direction));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void dataIsKeptAcrossRestarts() throws Exception {
+		JdbcTransactionRepository repository = new JdbcTransactionRepository(
+				dataSource);
+		repository.afterPropertiesSet();
+		repository.save(transaction("42", "A", BigDecimal.valueOf(1, 3)));
+		repository.save(transaction(null, "A", new BigDecimal("1E+3")));
+
+		JdbcTransactionRepository restarted = new JdbcTransactionRepository(
+				dataSource);
+		restarted.afterPropertiesSet();
+		// Not seeded twice
+		assertEquals(3, restarted.getTransactionsByAccount("1", null)
+				.getTotalElements());
+		assertEquals(Arrays.asList(BigDecimal.valueOf(1, 3), new BigDecimal(
+				"1E+3")), restarted.getTransactionsByAccount("A", null)
+				.getContent().stream().map(Transaction::getBalance)
+				.collect(Collectors.toList()));
+		// Generated ids follow the saved ones
+		assertEquals("44", restarted.save(
+				transaction(null, "A", BigDecimal.ONE)).getId());
+	}
+
+	@Test
+	public void databaseSortingIdsAsStringsIsUpgraded() throws Exception {
+		JdbcTransactionRepository repository = new JdbcTransactionRepository(
+				dataSource);
+		repository.afterPropertiesSet();
+		repository.save(transaction("10", "A", BigDecimal.ONE));
+		repository.save(transaction("2", "A", BigDecimal.ONE));
+		// The schema before ID_LENGTH
+		new JdbcTemplate(dataSource).batchUpdate(
+				"DROP INDEX TRANSACTIONS_BY_ID",
+				"DROP INDEX TRANSACTIONS_BY_NUMBER",
+				"DROP INDEX TRANSACTIONS_BY_BALANCE",
+				"ALTER TABLE TRANSACTIONS DROP COLUMN ID_LENGTH",
+				"CREATE INDEX TRANSACTIONS_BY_ID ON TRANSACTIONS"
+						+ " (ACCOUNT_BY_ID, ID)",
+				"CREATE INDEX TRANSACTIONS_BY_NUMBER ON TRANSACTIONS"
+						+ " (ACCOUNT_BY_NUMBER, NUMBER, ID)",
+				"CREATE INDEX TRANSACTIONS_BY_BALANCE ON TRANSACTIONS"
+						+ " (ACCOUNT_BY_BALANCE, BALANCE, ID)");
+
+		JdbcTransactionRepository restarted = new JdbcTransactionRepository(
+				dataSource);
+		restarted.afterPropertiesSet();
+		assertEquals(Arrays.asList("2", "10"), restarted
+				.getTransactionsByAccount("A",
+						new PageRequest(0, 10, Direction.ASC, "id"))
+				.getContent().stream().map(Transaction::getId)
+				.collect(Collectors.toList()));
+		assertEquals(Arrays.asList("10"), restarted
+				.getTransactionsByAccount("A",
+						TransactionCursor.first(TransactionSortField.ID,
+								Direction.ASC).after(
+								transaction("2", "A", BigDecimal.ONE)), 10)
+				.getContent().stream().map(Transaction::getId)
+				.collect(Collectors.toList()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void balancesAreNotRounded() throws Exception {
+		JdbcTransactionRepository repository = new JdbcTransactionRepository(
+				dataSource);
+		repository.afterPropertiesSet();
+		repository.save(transaction(null, "A", new BigDecimal("1e-13")));
+	}
+
+	@Test
+	public void accountsArePaged() throws Exception {
+		AccountRepositoryImpl expected = new AccountRepositoryImpl();
+		expected.afterPropertiesSet();
+		JdbcAccountRepository actual = new JdbcAccountRepository(dataSource);
+		actual.afterPropertiesSet();
+		// Same creation dates
+		expected.save(actual.findById("1").get());
+		expected.save(actual.findById("2").get());
+		for (int i = 0; i < 30; i++) {
+			Account account = new Account();
+			account.setId("C" + i);
+			account.setNumber(String.format("%011d", i));
+			account.setType(0 == i % 2 ? "SAVING" : null);
+			account.setBalance(BigDecimal.valueOf(i * 7 - 100, i % 3));
+			account.setActive(0 == i % 3);
+			expected.save(account);
+			actual.save(account);
+		}
+		Account updated = actual.findById("1").get();
+		updated.setBalance(new BigDecimal("12.340"));
+		updated.setActive(false);
+		expected.save(updated);
+		actual.save(updated);
+
+		List<Account> all = expected.findAll(null).getContent();
+		assertEquals(all, actual.findAll(null).getContent());
+		Page<Account> page = actual.findAll(new PageRequest(1, 20));
+		assertEquals(all.subList(20, all.size()), page.getContent());
+		assertEquals(all.size(), page.getTotalElements());
+		assertEquals(all.get(5), actual.findAllById(
+				Arrays.asList("C3", "X", null)).get("C3"));
+		assertEquals(Collections.emptyMap(), actual.findAllById(Collections
+				.singleton("X")));
+		assertTrue(actual.exists("C29"));
+		assertFalse(actual.exists("C30"));
+	}
+
+	private static void assertPageEquals(Page<Transaction> expected,
+			Page<Transaction> actual) {
+		assertEquals(expected.getContent(), actual.getContent());
+		assertEquals(expected.getTotalElements(), actual.getTotalElements());
+	}
+
+	private static void assertTotalsEqual(TransactionTotals expected,
+			TransactionTotals actual) {
+		assertEquals(expected.getCount(), actual.getCount());
+		assertEquals(0, expected.getCredits().compareTo(actual.getCredits()));
+		assertEquals(0, expected.getDebits().compareTo(actual.getDebits()));
+	}
+
+	private static TransactionTotals totals(TransactionRepository repository,
+			String accountId) {
+		TransactionTotals totals = new TransactionTotals();
+		repository.addTotals(accountId, totals);
+		return totals;
+	}
+
+	private static List<Transaction> readByCursor(
+			TransactionRepository repository, String accountId,
+			TransactionSortField field, Direction direction) {
+		List<Transaction> result = new ArrayList<>();
+		TransactionCursor cursor = TransactionCursor.first(field, direction);
+		Slice<Transaction> slice;
+		do {
+			slice = repository.getTransactionsByAccount(accountId,
+					TransactionCursor.decode(cursor.encode()), 40);
+			result.addAll(slice.getContent());
+			if (!result.isEmpty()) {
+				cursor = cursor.after(result.get(result.size() - 1));
+			}
+		} while (slice.hasNext());
+		return result;
+	}
+
+	private static Transaction transaction(String id, String accountId,
+			Random random) {
+		switch (random.nextInt(3)) {
+		case 0:
+			return transaction(id, accountId, BigDecimal.valueOf(
+					random.nextInt(200) - 100, random.nextInt(4)));
+		case 1:
+			return transaction(id, accountId, BigDecimal.valueOf(
+					random.nextLong() % 1_000_000_000_000L, 2));
+		default:
+			return transaction(id, accountId,
+					BigDecimal.valueOf(random.nextInt(50)));
+		}
+	}
+
+	private static Transaction transaction(String id, String accountId,
+			BigDecimal balance) {
+		Transaction transaction = new Transaction();
+		transaction.setId(id);
+		transaction.setAccountId(accountId);
+		transaction.setNumber(IDS[Math.abs(balance.hashCode()) % IDS.length]
+				+ balance.unscaledValue().mod(BigDecimal.TEN.toBigInteger()));
+		transaction.setBalance(balance);
+		return transaction;
+	}
+
+	private static Transaction copy(Transaction transaction) {
+		Transaction copy = new Transaction();
+		copy.setId(transaction.getId());
+		copy.setAccountId(transaction.getAccountId());
+		copy.setNumber(transaction.getNumber());
+		copy.setBalance(transaction.getBalance());
+		return copy;
+	}
+
+	private static List<Transaction> copy(List<Transaction> transactions) {
+		List<Transaction> copies = new ArrayList<>();
+		for (Transaction transaction : transactions) {
+			copies.add(copy(transaction));
+		}
+		return copies;
+	}
+}
@@ -0,0 +1,508 @@
+package com.test.recruitment.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.test.recruitment.dao.AccountRepository;
+import com.test.recruitment.dao.TransactionRepository;
+import com.test.recruitment.dao.impl.AccountRepositoryImpl;
+import com.test.recruitment.dao.impl.TransactionRepositoryImpl;
+import com.test.recruitment.dao.journal.Journal;
+import com.test.recruitment.dao.journal.JournaledAccountRepository;
+import com.test.recruitment.dao.journal.JournaledTransactionRepository;
+import com.test.recruitment.entity.Account;
+import com.test.recruitment.entity.Transaction;
+import com.test.recruitment.service.AccountLocks;
+
+/**
+ * Journal test : the writes survive a restart, whether the process stopped
+ * cleanly, crashed in the middle of a write or after a snapshot, and a
+ * failed write stops the journal
+ *
+ * @author A525125
+ *
+ */
+public class JournalTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path directory;
+
+	private Store store;
+
+	/**
+	 * Repositories restored from the journal, as wired by the application
+	 */
+	private static final class Store {
+
+		private final Journal journal;
+
+		private final AccountRepository accounts;
+
+		private final TransactionRepository transactions;
+
+		private final AccountLocks locks;
+
+		private Store(Path directory, long snapshotInterval, boolean fsync)
+				throws Exception {
+			this(new Journal(true, directory.toString(), snapshotInterval,
+					fsync));
+		}
+
+		private Store(Journal journal) throws Exception {
+			AccountRepositoryImpl accountRepository = new AccountRepositoryImpl();
+			accountRepository.afterPropertiesSet();
+			TransactionRepositoryImpl transactionRepository = new TransactionRepositoryImpl();
+			transactionRepository.afterPropertiesSet();
+			this.journal = journal;
+			journal.attach(accountRepository);
+			journal.attach(transactionRepository);
+			journal.recover();
+			accounts = new JournaledAccountRepository(accountRepository,
+					journal);
+			transactions = new JournaledTransactionRepository(
+					transactionRepository, journal);
+			locks = new AccountLocks(journal);
+		}
+
+		/**
+		 * Account balances and transactions by account id
+		 */
+		private Map<String, List<Object>> content() {
+			Map<String, List<Object>> result = new LinkedHashMap<>();
+			for (Account account : accounts.findAll(null)) {
+				List<Object> values = new ArrayList<>();
+				values.add(account.getBalance());
+				transactions.streamTransactionsByAccount(account.getId())
+						.forEach(values::add);
+				result.put(account.getId(), values);
+			}
+			return result;
+		}
+
+		private void close() throws Exception {
+			journal.destroy();
+		}
+	}
+
+	@Before
+	public void setup() throws Exception {
+		directory = folder.getRoot().toPath();
+		store = new Store(directory, 0, false);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		store.close();
+	}
+
+	@Test
+	public void writesSurviveRestart() throws Exception {
+		Random random = new Random(14);
+		for (int i = 0; i < 200; i++) {
+			write(store, random);
+		}
+		Map<String, List<Object>> expected = store.content();
+		restart();
+		assertEquals(expected, store.content());
+	}
+
+	@Test
+	public void tornTailIsTruncated() throws Exception {
+		Random random = new Random(15);
+		for (int i = 0; i < 100; i++) {
+			write(store, random);
+		}
+		Map<String, List<Object>> expected = store.content();
+		Path segment = segments().get(0);
+		long size = Files.size(segment);
+		// A unit interrupted while its frame was written
+		store.transactions.save(transaction(null, "1", "torn", "1.00"));
+		store.close();
+		truncate(segment, size + (Files.size(segment) - size) / 2);
+		store = new Store(directory, 0, false);
+		assertEquals(expected, store.content());
+		assertEquals(size, Files.size(segment));
+		// Then new writes follow the last complete frame
+		write(store, random);
+		expected = store.content();
+		restart();
+		assertEquals(expected, store.content());
+	}
+
+	@Test
+	public void garbageTailIsTruncated() throws Exception {
+		Random random = new Random(16);
+		for (int i = 0; i < 100; i++) {
+			write(store, random);
+		}
+		Map<String, List<Object>> expected = store.content();
+		store.close();
+		Path segment = segments().get(0);
+		byte[] garbage = new byte[100];
+		random.nextBytes(garbage);
+		garbage[0] = 0;
+		Files.write(segment, garbage, StandardOpenOption.APPEND);
+		store = new Store(directory, 0, false);
+		assertEquals(expected, store.content());
+	}
+
+	@Test
+	public void snapshotAndTailAreRecovered() throws Exception {
+		Random random = new Random(17);
+		for (int i = 0; i < 100; i++) {
+			write(store, random);
+		}
+		store.journal.snapshot();
+		for (int i = 0; i < 100; i++) {
+			write(store, random);
+		}
+		Map<String, List<Object>> expected = store.content();
+		// A snapshot interrupted before its rename
+		Files.write(directory.resolve("snapshot-7.bin.tmp"), new byte[10]);
+		restart();
+		assertEquals(expected, store.content());
+		assertEquals(Arrays.asList("journal-1.log", "snapshot-1.bin"),
+				files());
+	}
+
+	@Test
+	public void snapshotsAreTakenInTheBackground() throws Exception {
+		store.close();
+		store = new Store(directory, 50, false);
+		Random random = new Random(18);
+		for (int i = 0; i < 500; i++) {
+			write(store, random);
+		}
+		Map<String, List<Object>> expected = store.content();
+		restart();
+		assertEquals(expected, store.content());
+		assertTrue(files().toString(), files().stream().anyMatch(
+				name -> name.startsWith("snapshot-")));
+	}
+
+	@Test
+	public void concurrentUnitsShareSyncs() throws Exception {
+		store.close();
+		store = new Store(directory, 0, true);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				Random random = new Random(t);
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < 100; i++) {
+						write(store, random);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(800, store.journal.getFrames());
+		assertTrue("Syncs : " + store.journal.getSyncs(),
+				store.journal.getSyncs() < store.journal.getFrames());
+		Map<String, List<Object>> expected = store.content();
+		restart();
+		assertEquals(expected, store.content());
+	}
+
+	@Test
+	public void failedUnitIsStillRecorded() throws Exception {
+		try {
+			store.journal.atomically(() -> {
+				store.transactions.save(transaction(null, "1", "A", "2.50"));
+				throw new IllegalArgumentException();
+			});
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+		Map<String, List<Object>> expected = store.content();
+		restart();
+		assertEquals(expected, store.content());
+		assertTrue(store.content().get("1").stream()
+				.anyMatch(value -> value instanceof Transaction
+						&& "A".equals(((Transaction) value).getNumber())));
+	}
+
+	@Test
+	public void failedWriteStopsTheJournal() throws Exception {
+		store.close();
+		AtomicBoolean failing = new AtomicBoolean();
+		store = new Store(new Journal(true, directory.toString(), 0, true) {
+
+			@Override
+			protected FileChannel openSegment(Path path) throws IOException {
+				return new FailingChannel(super.openSegment(path), failing);
+			}
+		});
+		Random random = new Random(19);
+		for (int i = 0; i < 50; i++) {
+			write(store, random);
+		}
+		Map<String, List<Object>> expected = store.content();
+		failing.set(true);
+		try {
+			write(store, random);
+			fail("The write should fail");
+		} catch (UncheckedIOException e) {
+			// Expected
+		}
+		// The disk is back, but the frames after a torn one are refused
+		failing.set(false);
+		Map<String, List<Object>> failed = store.content();
+		try {
+			write(store, random);
+			fail("The journal should be stopped");
+		} catch (UncheckedIOException e) {
+			// Expected
+		}
+		assertEquals(failed, store.content());
+		assertEquals(50, store.journal.getSyncs());
+		restart();
+		assertEquals(expected, store.content());
+		// New writes follow the last durable frame
+		write(store, random);
+		expected = store.content();
+		restart();
+		assertEquals(expected, store.content());
+	}
+
+	/**
+	 * Channel whose writes fail, after writing half of their bytes, while
+	 * failing is set
+	 */
+	private static final class FailingChannel extends FileChannel {
+
+		private final FileChannel channel;
+
+		private final AtomicBoolean failing;
+
+		private FailingChannel(FileChannel channel, AtomicBoolean failing) {
+			this.channel = channel;
+			this.failing = failing;
+		}
+
+		@Override
+		public int write(ByteBuffer src) throws IOException {
+			if (failing.get()) {
+				ByteBuffer half = src.duplicate();
+				half.limit(half.position() + half.remaining() / 2);
+				channel.write(half);
+				throw new IOException("No space left on device");
+			}
+			return channel.write(src);
+		}
+
+		@Override
+		public void force(boolean metaData) throws IOException {
+			if (failing.get()) {
+				throw new IOException("Input/output error");
+			}
+			channel.force(metaData);
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException {
+			return channel.read(dst);
+		}
+
+		@Override
+		public long read(ByteBuffer[] dsts, int offset, int length)
+				throws IOException {
+			return channel.read(dsts, offset, length);
+		}
+
+		@Override
+		public long write(ByteBuffer[] srcs, int offset, int length)
+				throws IOException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public long position() throws IOException {
+			return channel.position();
+		}
+
+		@Override
+		public FileChannel position(long newPosition) throws IOException {
+			channel.position(newPosition);
+			return this;
+		}
+
+		@Override
+		public long size() throws IOException {
+			return channel.size();
+		}
+
+		@Override
+		public FileChannel truncate(long size) throws IOException {
+			channel.truncate(size);
+			return this;
+		}
+
+		@Override
+		public long transferTo(long position, long count,
+				WritableByteChannel target) throws IOException {
+			return channel.transferTo(position, count, target);
+		}
+
+		@Override
+		public long transferFrom(ReadableByteChannel src, long position,
+				long count) throws IOException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int read(ByteBuffer dst, long position) throws IOException {
+			return channel.read(dst, position);
+		}
+
+		@Override
+		public int write(ByteBuffer src, long position) throws IOException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public MappedByteBuffer map(MapMode mode, long position, long size)
+				throws IOException {
+			return channel.map(mode, position, size);
+		}
+
+		@Override
+		public FileLock lock(long position, long size, boolean shared)
+				throws IOException {
+			return channel.lock(position, size, shared);
+		}
+
+		@Override
+		public FileLock tryLock(long position, long size, boolean shared)
+				throws IOException {
+			return channel.tryLock(position, size, shared);
+		}
+
+		@Override
+		protected void implCloseChannel() throws IOException {
+			channel.close();
+		}
+	}
+
+	private void restart() throws Exception {
+		store.close();
+		store = new Store(directory, 0, false);
+	}
+
+	/**
+	 * A unit of random writes on an account, as done by the transaction
+	 * service
+	 */
+	private static void write(Store store, Random random) {
+		String accountId = random.nextBoolean() ? "1" : "2";
+		store.locks.withLock(accountId, () -> {
+			switch (random.nextInt(4)) {
+			case 0:
+				store.transactions.saveAll(Stream
+						.generate(() -> transaction(null, accountId,
+								String.valueOf(random.nextInt(1000)),
+								amount(random))).limit(1 + random.nextInt(5))
+						.collect(Collectors.toList()));
+				break;
+			case 1:
+				List<String> ids = store.transactions
+						.streamTransactionsByAccount(accountId)
+						.map(Transaction::getId).collect(Collectors.toList());
+				if (!ids.isEmpty()) {
+					store.transactions.delete(ids.get(random.nextInt(ids
+							.size())));
+				}
+				break;
+			default:
+				store.transactions.save(transaction(null, accountId,
+						String.valueOf(random.nextInt(1000)), amount(random)));
+				break;
+			}
+			Account account = new Account();
+			account.setId(accountId);
+			account.setNumber("0100025121" + accountId);
+			account.setType("SAVING");
+			account.setBalance(new BigDecimal(amount(random)));
+			store.accounts.save(account);
+			return null;
+		});
+	}
+
+	private static String amount(Random random) {
+		return BigDecimal.valueOf(random.nextInt(200_000) - 100_000, 2)
+				.toString();
+	}
+
+	private static Transaction transaction(String id, String accountId,
+			String number, String balance) {
+		Transaction transaction = new Transaction();
+		transaction.setId(id);
+		transaction.setAccountId(accountId);
+		transaction.setNumber(number);
+		transaction.setBalance(new BigDecimal(balance));
+		return transaction;
+	}
+
+	private List<Path> segments() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files
+					.filter(path -> path.getFileName().toString()
+							.startsWith("journal-")).sorted()
+					.collect(Collectors.toList());
+		}
+	}
+
+	private List<String> files() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.map(path -> path.getFileName().toString()).sorted()
+					.collect(Collectors.toList());
+		}
+	}
+
+	private static void truncate(Path file, long size) throws IOException {
+		try (FileChannel channel = FileChannel.open(file,
+				StandardOpenOption.WRITE)) {
+			channel.truncate(size);
+		}
+	}
+}
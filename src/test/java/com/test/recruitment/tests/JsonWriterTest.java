@@ -0,0 +1,179 @@
+package com.test.recruitment.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.test.recruitment.entity.Account;
+import com.test.recruitment.entity.Transaction;
+import com.test.recruitment.json.AccountDetailsResponse;
+import com.test.recruitment.json.AccountResponse;
+import com.test.recruitment.json.AccountSummaryResponse;
+import com.test.recruitment.json.CursorPageResponse;
+import com.test.recruitment.json.TransactionResponse;
+import com.test.recruitment.json.writer.AccountDetailsJsonWriter;
+import com.test.recruitment.json.writer.AccountJsonWriter;
+import com.test.recruitment.json.writer.AccountSummaryJsonWriter;
+import com.test.recruitment.json.writer.FieldSet;
+import com.test.recruitment.json.writer.TransactionJsonWriter;
+
+/**
+ * Json writers test : the entities and the response objects are written with
+ * the json of the response objects, or of the selected fields
+ *
+ * @author A525125
+ *
+ */
+public class JsonWriterTest {
+
+	private ObjectMapper objectMapper;
+
+	/**
+	 * Without writers : the bean serialization of the response objects
+	 */
+	private ObjectMapper beanMapper;
+
+	private Random random = new Random(16);
+
+	@Before
+	public void setup() {
+		objectMapper = Jackson2ObjectMapperBuilder.json()
+				.modulesToInstall(new SimpleModule()
+						.addSerializer(new AccountJsonWriter())
+						.addSerializer(new TransactionJsonWriter())
+						.addSerializer(new AccountDetailsJsonWriter())
+						.addSerializer(new AccountSummaryJsonWriter())).build();
+		beanMapper = Jackson2ObjectMapperBuilder.json().build();
+	}
+
+	@Test
+	public void accountPageMatchesResponses() throws Exception {
+		List<Account> accounts = new ArrayList<>();
+		List<AccountResponse> responses = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			Account account = new Account();
+			account.setId(value("A" + i));
+			account.setNumber(value("0100025121" + i));
+			account.setType(value("SAVING"));
+			account.setBalance(amount());
+			account.setCreationDate(new Date());
+			account.setActive(random.nextBoolean());
+			accounts.add(account);
+			AccountResponse response = new AccountResponse();
+			response.setId(account.getId());
+			response.setNumber(account.getNumber());
+			response.setType(account.getType());
+			response.setBalance(account.getBalance());
+			responses.add(response);
+		}
+		assertEquals(objectMapper.writeValueAsString(new PageImpl<>(
+				responses)), objectMapper.writeValueAsString(new PageImpl<>(
+				accounts)));
+	}
+
+	@Test
+	public void transactionPagesMatchResponses() throws Exception {
+		List<Transaction> transactions = new ArrayList<>();
+		List<TransactionResponse> responses = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			Transaction transaction = new Transaction();
+			transaction.setId(value("T" + i));
+			transaction.setAccountId("A");
+			transaction.setNumber(value("12151885120" + i));
+			transaction.setBalance(amount());
+			transactions.add(transaction);
+			TransactionResponse response = new TransactionResponse();
+			response.setId(transaction.getId());
+			response.setNumber(transaction.getNumber());
+			response.setBalance(transaction.getBalance());
+			responses.add(response);
+		}
+		PageRequest p = new PageRequest(1, 50);
+		Page<TransactionResponse> expected = new PageImpl<>(responses, p, 420);
+		Page<Transaction> actual = new PageImpl<>(transactions, p, 420);
+		assertEquals(objectMapper.writeValueAsString(expected),
+				objectMapper.writeValueAsString(actual));
+		assertEquals(objectMapper.writeValueAsString(new CursorPageResponse<>(
+				responses, "next")), objectMapper
+				.writeValueAsString(new CursorPageResponse<>(transactions,
+						"next")));
+	}
+
+	@Test
+	public void responsesMatchBeanSerialization() throws Exception {
+		for (int i = 0; i < 50; i++) {
+			AccountDetailsResponse details = new AccountDetailsResponse();
+			details.setId(value("A" + i));
+			details.setNumber(value("0100025121" + i));
+			details.setType(value("SAVING"));
+			details.setBalance(amount());
+			details.setCreationDate(random.nextInt(10) == 0 ? null
+					: new Date(random.nextInt()));
+			details.setActive(random.nextBoolean());
+			assertEquals(beanMapper.writeValueAsString(details),
+					objectMapper.writeValueAsString(details));
+			AccountSummaryResponse summary = new AccountSummaryResponse();
+			summary.setId(value("A" + i));
+			summary.setCount(random.nextInt(100));
+			summary.setSum(amount());
+			summary.setMin(amount());
+			summary.setMax(amount());
+			assertEquals(beanMapper.writeValueAsString(summary),
+					objectMapper.writeValueAsString(summary));
+		}
+	}
+
+	@Test
+	public void projectionsWriteSelectedFields() throws Exception {
+		Transaction transaction = new Transaction();
+		transaction.setId("T1");
+		transaction.setAccountId("A");
+		transaction.setNumber("121518851201");
+		transaction.setBalance(new BigDecimal("12.50"));
+		FieldSet fields = new FieldSet(new TreeSet<>(Arrays.asList("id",
+				"balance", "count")), objectMapper.writer());
+		assertEquals("{\"content\":[{\"balance\":12.50,\"id\":\"T1\"}],"
+				+ "\"next\":null}", fields.getWriter().writeValueAsString(
+				new CursorPageResponse<>(Arrays.asList(transaction), null)));
+		// Compiled once per field set
+		assertEquals("{\"balance\":12.50,\"id\":\"T1\"}", fields
+				.getWriter().writeValueAsString(transaction));
+		assertEquals("{}", new FieldSet(new TreeSet<>(Arrays.asList("count")),
+				objectMapper.writer()).getWriter().writeValueAsString(
+				transaction));
+	}
+
+	/**
+	 * The value or, sometimes, null
+	 */
+	private String value(String value) {
+		return random.nextInt(10) == 0 ? null : value;
+	}
+
+	private BigDecimal amount() {
+		switch (random.nextInt(10)) {
+		case 0:
+			return null;
+		case 1:
+			return new BigDecimal("1E+3");
+		default:
+			return BigDecimal.valueOf(random.nextInt(2_000_000) - 1_000_000,
+					2);
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package com.test.recruitment.tests;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.test.recruitment.metrics.LatencyHistogram;
+
+/**
+ * Latency metrics test
+ *
+ * @author A525125
+ *
+ */
+public class LatencyTest extends AbstractTest {
+
+	@Test
+	public void endpointPublishesLatencies() throws Exception {
+		mockMvc.perform(get("/accounts/1/transactions")).andExpect(
+				status().isOk());
+		mockMvc.perform(get("/latency"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath(
+						"$['http.GET /accounts/{accountId}/transactions'].count",
+						greaterThanOrEqualTo(1)))
+				.andExpect(jsonPath(
+						"$['http.GET /accounts/{accountId}/transactions'].p99",
+						greaterThan(0d)))
+				.andExpect(jsonPath(
+						"$['repository.transaction.getTransactionsByAccount'].count",
+						greaterThanOrEqualTo(1)))
+				.andExpect(jsonPath("$['mapping.json'].count",
+						greaterThanOrEqualTo(1)));
+	}
+
+	@Test
+	public void percentilesAreWithinRelativeError() {
+		LatencyHistogram histogram = new LatencyHistogram("test");
+		Random random = new Random(42);
+		long[] values = new long[100_000];
+		for (int i = 0; i < values.length; i++) {
+			// Log-uniform between 1µs and 1s
+			values[i] = (long) Math.pow(10, 3 + random.nextDouble() * 6);
+			histogram.record(values[i]);
+		}
+		Arrays.sort(values);
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertEquals(values.length, snapshot.getCount());
+		assertEquals(values[values.length - 1], snapshot.getMax());
+		for (double percentile : new double[] { 50, 99, 99.9 }) {
+			long exact = values[(int) Math.ceil(percentile / 100
+					* values.length) - 1];
+			long measured = snapshot.getPercentile(percentile);
+			assertTrue(percentile + " : " + measured + " for " + exact,
+					measured >= exact && measured <= exact * 1.02);
+		}
+	}
+
+	@Test
+	public void concurrentRecordsAreCounted() throws Exception {
+		LatencyHistogram histogram = new LatencyHistogram("test");
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 100_000; i++) {
+					histogram.record(i);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertEquals(400_000, snapshot.getCount());
+		assertEquals(99_999, snapshot.getMax());
+	}
+
+	@Test
+	public void recordingDoesNotAllocate() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		LatencyHistogram histogram = new LatencyHistogram("test");
+		// Warm up, so that the recording is compiled
+		for (int i = 0; i < 100_000; i++) {
+			histogram.recordSince(System.nanoTime() - i);
+		}
+		long thread = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(thread);
+		for (int i = 0; i < 1_000_000; i++) {
+			histogram.recordSince(System.nanoTime() - i);
+		}
+		long allocated = threads.getThreadAllocatedBytes(thread) - before;
+		// Far less than a byte per record
+		assertTrue("Allocated " + allocated, allocated < 100_000);
+	}
+}
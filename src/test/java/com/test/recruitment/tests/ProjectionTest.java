@@ -0,0 +1,105 @@
+package com.test.recruitment.tests;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Map;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.jayway.jsonpath.JsonPath;
+import com.test.recruitment.service.Projections;
+
+/**
+ * Sparse fieldsets test : the fields parameter selects the written
+ * properties
+ *
+ * @author A525125
+ *
+ */
+public class ProjectionTest extends AbstractTest {
+
+	@Autowired
+	private Projections projections;
+
+	@Test
+	public void getAccountsWithFields() throws Exception {
+		mockMvc.perform(get("/accounts?fields=id,balance"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.totalElements", is(2)))
+				.andExpect(jsonPath("$.content[0].length()", is(2)))
+				.andExpect(jsonPath("$.content[0].balance", is(4210.42)))
+				.andExpect(jsonPath("$.content[0].type").doesNotExist());
+		// Cached apart from the full list
+		mockMvc.perform(get("/accounts"))
+				.andExpect(jsonPath("$.content[0].type", is("SAVING")));
+	}
+
+	@Test
+	public void getAccountDetailsWithFields() throws Exception {
+		mockMvc.perform(get("/accounts/1?fields=balance, id"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()", is(2)))
+				.andExpect(jsonPath("$.id", is("1")))
+				.andExpect(jsonPath("$.balance", is(4210.42)));
+		mockMvc.perform(
+				get("/accounts/1?expand=transactions&fields=id,transactions"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()", is(2)))
+				.andExpect(jsonPath("$.transactions.totalElements", is(3)))
+				.andExpect(jsonPath("$.transactions.content[0].length()", is(1)))
+				.andExpect(jsonPath("$.transactions.content[0].id").exists());
+		mockMvc.perform(get("/accounts/1/summary?fields=count"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()", is(1)))
+				.andExpect(jsonPath("$.count", is(3)));
+	}
+
+	@Test
+	public void getTransactionsWithFields() throws Exception {
+		mockMvc.perform(get("/accounts/1/transactions?fields=balance"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.totalElements", is(3)))
+				.andExpect(jsonPath("$.content[0].length()", is(1)))
+				.andExpect(jsonPath("$.content[0].balance").exists());
+		mockMvc.perform(
+				get("/accounts/1/transactions?cursor=&size=2&fields=number"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.content.length()", is(2)))
+				.andExpect(jsonPath("$.content[0].length()", is(1)))
+				.andExpect(jsonPath("$.content[0].number", is("12151885120")));
+		MvcResult result = mockMvc.perform(
+				get("/accounts/1/transactions/export?fields=id")).andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+		for (String line : result.getResponse().getContentAsString()
+				.split("\n")) {
+			assertEquals(1, JsonPath.<Map<?, ?>> read(line, "$").size());
+		}
+	}
+
+	@Test
+	public void getWithUnknownField() throws Exception {
+		mockMvc.perform(get("/accounts/1?fields=id,owner"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.errorCode", is("BAD_REQUEST_FIELDS")));
+		mockMvc.perform(get("/accounts/1/transactions?fields=owner"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	public void fieldSetsAreShared() throws Exception {
+		assertSame(projections.get("balance,id"),
+				projections.get(" id,balance,,id "));
+		assertFalse(projections.get("id") == projections.get("balance,id"));
+		assertNull(projections.get(" , "));
+	}
+}
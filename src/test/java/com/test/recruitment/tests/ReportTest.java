@@ -0,0 +1,172 @@
+package com.test.recruitment.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.jayway.jsonpath.JsonPath;
+import com.test.recruitment.dao.AmountSum;
+import com.test.recruitment.dao.TransactionRepository;
+import com.test.recruitment.dao.impl.AccountRepositoryImpl;
+import com.test.recruitment.dao.impl.ColumnarTransactionRepository;
+import com.test.recruitment.dao.impl.TransactionRepositoryImpl;
+import com.test.recruitment.entity.Account;
+import com.test.recruitment.entity.Transaction;
+import com.test.recruitment.json.AccountReportLine;
+import com.test.recruitment.service.ReportService;
+
+/**
+ * Cross-account report test : the parallel totals match a plain sum
+ *
+ * @author A525125
+ *
+ */
+public class ReportTest extends AbstractTest {
+
+	private static final String[] TYPES = { "SAVING", "CURRENT", null };
+
+	@Test
+	public void reportMatchesPlainSum() throws Exception {
+		ColumnarTransactionRepository columnar = new ColumnarTransactionRepository();
+		columnar.afterPropertiesSet();
+		TransactionRepositoryImpl object = new TransactionRepositoryImpl();
+		object.afterPropertiesSet();
+		checkReport(columnar);
+		checkReport(object);
+	}
+
+	@Test
+	public void amountSumIsExact() throws Exception {
+		Random random = new Random(19);
+		AmountSum sum = new AmountSum();
+		AmountSum other = new AmountSum();
+		BigDecimal expected = BigDecimal.ZERO;
+		for (int i = 0; i < 100_000; i++) {
+			BigDecimal amount = amount(random);
+			expected = expected.add(amount);
+			if (random.nextBoolean()) {
+				sum.add(amount);
+			} else {
+				other.add(amount.unscaledValue().longValue(), amount.scale());
+			}
+		}
+		// Beyond the range of the hundredths
+		for (int i = 0; i < 10; i++) {
+			BigDecimal amount = BigDecimal.valueOf(Long.MAX_VALUE / 3, 2);
+			expected = expected.add(amount);
+			sum.add(amount);
+		}
+		sum.add(other);
+		assertEquals(0, expected.compareTo(sum.get()));
+	}
+
+	@Test
+	public void reportEndpoint() throws Exception {
+		String report = mockMvc.perform(get("/reports/accounts"))
+				.andExpect(status().isOk()).andReturn().getResponse()
+				.getContentAsString();
+		String accounts = mockMvc.perform(get("/accounts"))
+				.andExpect(status().isOk()).andReturn().getResponse()
+				.getContentAsString();
+		List<Integer> counts = JsonPath.read(report, "$[*].accounts");
+		assertEquals(JsonPath.<Integer> read(accounts, "$.totalElements")
+				.intValue(), counts.stream().mapToInt(Integer::intValue).sum());
+	}
+
+	private void checkReport(TransactionRepository transactionRepository)
+			throws Exception {
+		AccountRepositoryImpl accountRepository = new AccountRepositoryImpl();
+		accountRepository.afterPropertiesSet();
+		Random random = new Random(19);
+		List<Account> accounts = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			Account account = new Account();
+			account.setId("R" + i);
+			account.setNumber(String.format("%011d", i));
+			account.setType(TYPES[random.nextInt(TYPES.length)]);
+			account.setBalance(amount(random));
+			account.setActive(random.nextBoolean());
+			accountRepository.save(account);
+		}
+		// The built-in accounts and transactions are counted too
+		accounts.addAll(accountRepository.findAll(null).getContent());
+		List<Transaction> transactions = new ArrayList<>();
+		for (Account account : accounts) {
+			transactionRepository.streamTransactionsByAccount(account.getId())
+					.forEach(transactions::add);
+		}
+		for (int i = 0; i < 50_000; i++) {
+			Transaction transaction = new Transaction();
+			transaction.setAccountId(accounts.get(
+					random.nextInt(accounts.size())).getId());
+			transaction.setNumber(String.valueOf(i));
+			transaction.setBalance(amount(random));
+			transactions.add(transaction);
+		}
+		transactionRepository.saveAll(transactions);
+
+		List<AccountReportLine> lines = new ReportService(accountRepository,
+				transactionRepository, 4).getAccountReport();
+		int accountsInLines = 0;
+		for (AccountReportLine line : lines) {
+			BigDecimal balance = BigDecimal.ZERO;
+			long count = 0;
+			BigDecimal credits = BigDecimal.ZERO;
+			BigDecimal debits = BigDecimal.ZERO;
+			long accountsOfLine = 0;
+			for (Account account : accounts) {
+				if (!String.valueOf(line.getType()).equals(
+						String.valueOf(account.getType()))
+						|| line.isActive() != account.isActive()) {
+					continue;
+				}
+				accountsOfLine++;
+				balance = balance.add(account.getBalance());
+				for (Transaction transaction : transactions) {
+					if (transaction.getAccountId().equals(account.getId())) {
+						count++;
+						if (transaction.getBalance().signum() < 0) {
+							debits = debits.add(transaction.getBalance());
+						} else {
+							credits = credits.add(transaction.getBalance());
+						}
+					}
+				}
+			}
+			accountsInLines += accountsOfLine;
+			assertEquals(accountsOfLine, line.getAccounts());
+			assertEquals(0, balance.compareTo(line.getBalance()));
+			assertEquals(count, line.getTransactions());
+			assertEquals(0, credits.compareTo(line.getCredits()));
+			assertEquals(0, debits.compareTo(line.getDebits()));
+			assertEquals(0, credits.subtract(debits).compareTo(line.getVolume()));
+		}
+		assertEquals(accounts.size(), accountsInLines);
+		assertEquals(TYPES.length * 2, lines.size());
+	}
+
+	/**
+	 * Mostly cents, sometimes more decimals, negative scales or huge values
+	 */
+	private static BigDecimal amount(Random random) {
+		switch (random.nextInt(20)) {
+		case 0:
+			return new BigDecimal("1E+3");
+		case 1:
+			return BigDecimal.valueOf(random.nextInt(2_000_000) - 1_000_000, 5);
+		case 2:
+			return BigDecimal.valueOf(random.nextLong(), 1);
+		case 3:
+			return BigDecimal.valueOf(random.nextInt(2_000) - 1_000);
+		default:
+			return BigDecimal.valueOf(random.nextInt(2_000_000) - 1_000_000, 2);
+		}
+	}
+}
@@ -0,0 +1,347 @@
+package com.test.recruitment.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+
+import com.test.recruitment.dao.TransactionCursor;
+import com.test.recruitment.dao.TransactionSortField;
+import com.test.recruitment.dao.impl.AccountRepositoryImpl;
+import com.test.recruitment.dao.impl.TransactionRepositoryImpl;
+import com.test.recruitment.entity.Account;
+import com.test.recruitment.entity.Transaction;
+
+/**
+ * Repository index test : lookups must not depend on the number of rows
+ *
+ * @author A525125
+ *
+ */
+public class RepositoryIndexTest {
+
+	private static final int SMALL = 1_000;
+
+	private static final int LARGE = 2_000_000;
+
+	private static final int TRANSACTIONS_PER_ACCOUNT = 4;
+
+	private static final int LOOKUPS = 200_000;
+
+	/**
+	 * A linear scan would be ~2000 times slower on the large dataset, an
+	 * index only pays for cache misses
+	 */
+	private static final int MAX_SLOWDOWN = 20;
+
+	@Test
+	public void accountLookupLatencyIsFlat() throws Exception {
+		long small = measureAccountLookups(SMALL);
+		long large = measureAccountLookups(LARGE);
+		assertTrue("Account lookups went from " + small + "ns to " + large
+				+ "ns", large < small * MAX_SLOWDOWN);
+	}
+
+	@Test
+	public void transactionLookupLatencyIsFlat() throws Exception {
+		long small = measureTransactionLookups(SMALL);
+		long large = measureTransactionLookups(LARGE);
+		assertTrue("Transaction lookups went from " + small + "ns to "
+				+ large + "ns", large < small * MAX_SLOWDOWN);
+	}
+
+	@Test
+	public void transactionsByAccountAfterReplace() throws Exception {
+		TransactionRepositoryImpl repository = new TransactionRepositoryImpl();
+		repository.afterPropertiesSet();
+
+		Transaction moved = transaction("2", "2", 1);
+		repository.save(moved);
+
+		assertEquals(2, repository.getTransactionsByAccount("1", null)
+				.getTotalElements());
+		assertEquals(moved, repository.getTransactionsByAccount("2", null)
+				.getContent().get(0));
+		assertEquals(moved, repository.findById("2"));
+	}
+
+	@Test
+	public void saveAllMatchesSave() throws Exception {
+		TransactionRepositoryImpl one = new TransactionRepositoryImpl();
+		one.afterPropertiesSet();
+		TransactionRepositoryImpl all = new TransactionRepositoryImpl();
+		all.afterPropertiesSet();
+		List<Transaction> batch = new ArrayList<>();
+		Random random = new Random(3);
+		for (int i = 0; i < 1000; i++) {
+			Transaction transaction = transaction(
+					String.valueOf(random.nextInt(800)),
+					"A" + random.nextInt(3), random.nextInt(100));
+			one.save(transaction);
+			batch.add(transaction);
+		}
+		all.saveAll(batch);
+
+		for (String accountId : new String[] { "1", "A0", "A1", "A2" }) {
+			for (TransactionSortField field : TransactionSortField.values()) {
+				PageRequest p = new PageRequest(0, 1000, new Sort(
+						field.getProperty()));
+				assertEquals(one.getTransactionsByAccount(accountId, p)
+						.getContent(), all.getTransactionsByAccount(
+						accountId, p).getContent());
+			}
+		}
+	}
+
+	@Test
+	public void sortedPagesMatchFullSort() throws Exception {
+		TransactionRepositoryImpl repository = new TransactionRepositoryImpl();
+		repository.afterPropertiesSet();
+		List<Transaction> expected = new ArrayList<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 500; i++) {
+			Transaction transaction = transaction("T" + i, "A",
+					random.nextInt(100));
+			repository.save(transaction);
+			expected.add(transaction);
+		}
+		// Replace some transactions with new values
+		for (int i = 0; i < 100; i++) {
+			int position = random.nextInt(expected.size());
+			Transaction transaction = transaction(expected.get(position)
+					.getId(), "A", random.nextInt(100));
+			repository.save(transaction);
+			expected.set(position, transaction);
+		}
+
+		for (TransactionSortField field : TransactionSortField.values()) {
+			for (Direction direction : Direction.values()) {
+				Sort sort = new Sort(direction, field.getProperty());
+				List<Transaction> sorted = new ArrayList<>(expected);
+				sorted.sort(Direction.ASC == direction ? field.getComparator()
+						: field.getComparator().reversed());
+				List<Transaction> actual = new ArrayList<>();
+				for (int page = 0; page < 17; page++) {
+					Page<Transaction> result = repository
+							.getTransactionsByAccount("A", new PageRequest(
+									page, 30, sort));
+					assertEquals(expected.size(), result.getTotalElements());
+					actual.addAll(result.getContent());
+				}
+				assertEquals(sorted, actual);
+			}
+		}
+	}
+
+	@Test
+	public void lazyOrdersFollowWrites() throws Exception {
+		TransactionRepositoryImpl repository = new TransactionRepositoryImpl();
+		repository.afterPropertiesSet();
+		List<Transaction> expected = new ArrayList<>();
+		Random random = new Random(15);
+		for (int i = 0; i < 300; i++) {
+			expected.add(transaction("T" + i, "A", random.nextInt(100)));
+		}
+		// Bulk insert : no order is sorted yet
+		repository.saveAll(new ArrayList<>(expected));
+		// Only the balance order is sorted before the following writes
+		repository.getSummary("A");
+		for (int i = 0; i < 100; i++) {
+			int position = random.nextInt(expected.size());
+			if (random.nextBoolean()) {
+				repository.delete(expected.remove(position).getId());
+			} else {
+				Transaction transaction = transaction(random.nextBoolean()
+						? expected.get(position).getId() : "U" + i, "A",
+						random.nextInt(100));
+				repository.save(transaction);
+				expected.removeIf(t -> t.getId().equals(transaction.getId()));
+				expected.add(transaction);
+			}
+		}
+
+		for (TransactionSortField field : TransactionSortField.values()) {
+			List<Transaction> sorted = new ArrayList<>(expected);
+			sorted.sort(field.getComparator());
+			assertEquals(sorted, repository.getTransactionsByAccount("A",
+					new PageRequest(0, 1000, new Sort(field.getProperty())))
+					.getContent());
+		}
+	}
+
+	@Test
+	public void largeAccountOrdersFollowWrites() throws Exception {
+		TransactionRepositoryImpl repository = new TransactionRepositoryImpl();
+		repository.afterPropertiesSet();
+		List<Transaction> expected = new ArrayList<>();
+		Random random = new Random(21);
+		repository.save(transaction("T", "A", 0));
+		expected.add(repository.findById("T"));
+		// All the orders are maintained by the following writes, which
+		// split and empty chunks of the index
+		repository.buildIndexes("A");
+		for (int i = 0; i < 20_000; i++) {
+			int action = random.nextInt(4);
+			if (0 == action && !expected.isEmpty()) {
+				repository.delete(expected.remove(
+						random.nextInt(expected.size())).getId());
+			} else if (1 == action && !expected.isEmpty()) {
+				int position = random.nextInt(expected.size());
+				Transaction transaction = transaction(expected.get(position)
+						.getId(), "A", random.nextInt(1000));
+				repository.save(transaction);
+				expected.set(position, transaction);
+			} else {
+				Transaction transaction = transaction("T" + i, "A",
+						random.nextInt(1000));
+				repository.save(transaction);
+				expected.add(transaction);
+			}
+		}
+
+		assertEquals(expected, repository.getTransactionsByAccount("A",
+				new PageRequest(0, expected.size())).getContent());
+		for (TransactionSortField field : TransactionSortField.values()) {
+			List<Transaction> sorted = new ArrayList<>(expected);
+			sorted.sort(field.getComparator());
+			assertEquals(sorted, repository.getTransactionsByAccount("A",
+					new PageRequest(0, sorted.size(), new Sort(field
+							.getProperty()))).getContent());
+		}
+	}
+
+	@Test
+	public void cursorPagesAreStableUnderInserts() throws Exception {
+		for (TransactionSortField field : TransactionSortField.values()) {
+			for (Direction direction : Direction.values()) {
+				TransactionRepositoryImpl repository = new TransactionRepositoryImpl();
+				repository.afterPropertiesSet();
+				List<Transaction> expected = new ArrayList<>();
+				Random random = new Random(7);
+				for (int i = 0; i < 300; i++) {
+					Transaction transaction = transaction("T" + i, "A",
+							random.nextInt(50));
+					repository.save(transaction);
+					expected.add(transaction);
+				}
+				expected.sort(Direction.ASC == direction ? field
+						.getComparator() : field.getComparator().reversed());
+
+				List<Transaction> actual = new ArrayList<>();
+				TransactionCursor cursor = TransactionCursor.first(field,
+						direction);
+				Slice<Transaction> slice;
+				int inserted = 0;
+				do {
+					slice = repository.getTransactionsByAccount("A",
+							TransactionCursor.decode(cursor.encode()), 25);
+					actual.addAll(slice.getContent());
+					cursor = cursor.after(actual.get(actual.size() - 1));
+					// Insert before the cursor : must not shift next pages.
+					// Ids are ordered by length first : "ZZZZ" + n comes
+					// after all the "T" + n ids.
+					repository.save(Direction.ASC == direction ? transaction(
+							"0" + inserted++, "A", -1) : transaction("ZZZZ"
+							+ inserted++, "A", 99));
+				} while (slice.hasNext());
+				assertEquals(expected, actual);
+			}
+		}
+	}
+
+	/**
+	 * Average duration of a lookup by id on a repository with the given
+	 * number of accounts
+	 *
+	 * @param size
+	 *            the number of accounts
+	 * @return the average duration in nanoseconds
+	 * @throws Exception
+	 */
+	private long measureAccountLookups(int size) throws Exception {
+		AccountRepositoryImpl repository = new AccountRepositoryImpl();
+		repository.afterPropertiesSet();
+		for (int i = 0; i < size; i++) {
+			Account account = new Account();
+			account.setId("A" + i);
+			account.setNumber(String.valueOf(i));
+			account.setType("SAVING");
+			account.setBalance(BigDecimal.ONE);
+			account.setCreationDate(new Date());
+			repository.save(account);
+		}
+		String[] ids = randomIds("A", size);
+		// Warm up
+		for (String id : ids) {
+			assertTrue(repository.exists(id));
+		}
+		long start = System.nanoTime();
+		for (String id : ids) {
+			assertNotNull(repository.findById(id).orElse(null));
+		}
+		return (System.nanoTime() - start) / ids.length;
+	}
+
+	/**
+	 * Average duration of a lookup by id and by account on a repository with
+	 * the given number of transactions
+	 *
+	 * @param size
+	 *            the number of transactions
+	 * @return the average duration in nanoseconds
+	 * @throws Exception
+	 */
+	private long measureTransactionLookups(int size) throws Exception {
+		TransactionRepositoryImpl repository = new TransactionRepositoryImpl();
+		repository.afterPropertiesSet();
+		for (int i = 0; i < size; i++) {
+			repository.save(transaction("T" + i, "A"
+					+ (i / TRANSACTIONS_PER_ACCOUNT), i));
+		}
+		String[] ids = randomIds("T", size);
+		String[] accountIds = randomIds("A", size / TRANSACTIONS_PER_ACCOUNT);
+		// Warm up
+		for (String id : ids) {
+			assertNotNull(repository.findById(id));
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < ids.length; i++) {
+			assertNotNull(repository.findById(ids[i]));
+			assertEquals(TRANSACTIONS_PER_ACCOUNT, repository
+					.getTransactionsByAccount(accountIds[i], null)
+					.getNumberOfElements());
+		}
+		return (System.nanoTime() - start) / ids.length;
+	}
+
+	private static String[] randomIds(String prefix, int size) {
+		Random random = new Random(size);
+		String[] ids = new String[LOOKUPS];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = prefix + random.nextInt(size);
+		}
+		return ids;
+	}
+
+	private static Transaction transaction(String id, String accountId,
+			long number) {
+		Transaction transaction = new Transaction();
+		transaction.setId(id);
+		transaction.setAccountId(accountId);
+		transaction.setNumber(String.valueOf(number));
+		transaction.setBalance(BigDecimal.valueOf(number, 2));
+		return transaction;
+	}
+}
@@ -0,0 +1,170 @@
+package com.test.recruitment.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import com.test.recruitment.metrics.LatencyTimers;
+import com.test.recruitment.service.EncodedResponse;
+import com.test.recruitment.service.ResponseCache;
+
+/**
+ * Response cache test : frequent lists are encoded once per version of their
+ * data
+ *
+ * @author A525125
+ *
+ */
+@DirtiesContext
+@TestPropertySource(properties = "server.compression.min-response-size=0")
+public class ResponseCacheTest extends AbstractTest {
+
+	@Autowired
+	private ResponseCache responseCache;
+
+	@Test
+	public void listsAreServedFromCache() throws Exception {
+		byte[] first = body(get("/accounts"));
+		long hits = responseCache.getHits();
+		assertArrayEquals(first, body(get("/accounts")));
+		assertEquals(hits + 1, responseCache.getHits());
+	}
+
+	@Test
+	public void gzipIsServedIfAccepted() throws Exception {
+		MockHttpServletResponse response = mockMvc
+				.perform(get("/accounts/1/transactions").header(
+						"Accept-Encoding", "deflate, gzip"))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Content-Encoding", "gzip"))
+				.andExpect(header().string("Vary", "Accept, Accept-Encoding"))
+				.andReturn().getResponse();
+		byte[] gzip = response.getContentAsByteArray();
+		String gzipETag = response.getHeader("ETag");
+		assertTrue(gzipETag, gzipETag.endsWith("-gzip\""));
+		response = mockMvc
+				.perform(get("/accounts/1/transactions").header(
+						"Accept-Encoding", "gzip;q=0"))
+				.andExpect(status().isOk())
+				.andExpect(header().doesNotExist("Content-Encoding"))
+				.andReturn().getResponse();
+		byte[] json = response.getContentAsByteArray();
+		assertEquals(gzipETag.replace("-gzip", ""), response.getHeader("ETag"));
+		assertArrayEquals(json, IOUtils.toByteArray(new GZIPInputStream(
+				new ByteArrayInputStream(gzip))));
+		// Each variant is revalidated by its own tag
+		mockMvc.perform(
+				get("/accounts/1/transactions").header("Accept-Encoding",
+						"gzip").header("If-None-Match", gzipETag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string("ETag", gzipETag));
+		mockMvc.perform(
+				get("/accounts/1/transactions").header("If-None-Match",
+						gzipETag)).andExpect(status().isOk());
+	}
+
+	@Test
+	public void writesInvalidateEntries() throws Exception {
+		String accounts = new String(body(get("/accounts")), "UTF-8");
+		String transactions = new String(
+				body(get("/accounts/1/transactions")), "UTF-8");
+		mockMvc.perform(
+				post("/accounts/1/transactions").contentType(
+						MediaType.APPLICATION_JSON).content(
+						"{\"number\":\"00000001\",\"balance\":23.02}"))
+				.andExpect(status().isCreated());
+
+		assertEquals(balance(accounts).add(new BigDecimal("23.02")),
+				balance(new String(body(get("/accounts")), "UTF-8")));
+		assertEquals(JsonPath.<Integer> read(transactions, "$.totalElements")
+				+ 1, (int) JsonPath.<Integer> read(new String(
+				body(get("/accounts/1/transactions")), "UTF-8"),
+				"$.totalElements"));
+	}
+
+	@Test
+	public void sizeIsBounded() throws Exception {
+		ResponseCache cache = new ResponseCache(new ObjectMapper(), 1000, 400,
+				true, 0, new LatencyTimers());
+		String value = String.join("", Collections.nCopies(100, "x"));
+		for (int i = 0; i < 20; i++) {
+			cache.get("key" + i, 0, () -> value);
+		}
+		assertTrue(cache.getBytes() <= 1000);
+		assertTrue(cache.getEvictions() > 0);
+		// Too large to be cached
+		String large = String.join("", Collections.nCopies(1000, "x"));
+		EncodedResponse response = cache.get("large", 0, () -> large);
+		assertNull(response.getGzip());
+		assertFalse(response == cache.get("large", 0, () -> large));
+		// A new version replaces the entry
+		EncodedResponse cached = cache.get("key19", 0, () -> value);
+		assertSame(cached, cache.get("key19", 0, () -> value));
+		assertFalse(cached == cache.get("key19", 1, () -> value));
+	}
+
+	@Test
+	public void recentlyReadEntriesAreKept() throws Exception {
+		ResponseCache cache = new ResponseCache(new ObjectMapper(), 1000, 400,
+				true, 0, new LatencyTimers());
+		String value = String.join("", Collections.nCopies(100, "x"));
+		EncodedResponse first = cache.get("key0", 0, () -> value);
+		EncodedResponse second = cache.get("key1", 0, () -> value);
+		for (int i = 2; i < 20; i++) {
+			cache.get("key" + i, 0, () -> value);
+			// Read after each insertion : never the least recently used
+			assertSame(first, cache.get("key0", 0, () -> value));
+		}
+		assertTrue(cache.getEvictions() > 0);
+		assertFalse(second == cache.get("key1", 0, () -> value));
+	}
+
+	@Test
+	public void smallBodiesAreNotGzipped() throws Exception {
+		ResponseCache cache = new ResponseCache(new ObjectMapper(), 100_000,
+				10_000, true, 1000, new LatencyTimers());
+		String small = String.join("", Collections.nCopies(900, "x"));
+		String large = String.join("", Collections.nCopies(1000, "x"));
+		assertNull(cache.get("small", 0, () -> small).getGzip());
+		assertNotNull(cache.get("large", 0, () -> large).getGzip());
+		ResponseCache disabled = new ResponseCache(new ObjectMapper(),
+				100_000, 10_000, false, 1000, new LatencyTimers());
+		assertNull(disabled.get("large", 0, () -> large).getGzip());
+	}
+
+	private byte[] body(RequestBuilder request) throws Exception {
+		return mockMvc.perform(request).andExpect(status().isOk()).andReturn()
+				.getResponse().getContentAsByteArray();
+	}
+
+	private static BigDecimal balance(String accounts) {
+		List<Object> balances = JsonPath.read(accounts,
+				"$.content[?(@.id == '1')].balance");
+		return new BigDecimal(balances.get(0).toString());
+	}
+}
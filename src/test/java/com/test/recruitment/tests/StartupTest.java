@@ -0,0 +1,112 @@
+package com.test.recruitment.tests;
+
+import static org.hamcrest.Matchers.hasKey;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.client.RestTemplate;
+
+import com.test.recruitment.StartBoot;
+import com.test.recruitment.dao.impl.AccountRepositoryImpl;
+import com.test.recruitment.dao.impl.TransactionRepositoryImpl;
+import com.test.recruitment.dao.journal.Journal;
+import com.test.recruitment.entity.Account;
+import com.test.recruitment.entity.Transaction;
+import com.test.recruitment.metrics.StartupReport;
+
+/**
+ * Startup test : the application starts from a large seed image, and the
+ * time to the first request is recorded with the startup report
+ *
+ * @author A525125
+ *
+ */
+@Slf4j
+public class StartupTest {
+
+	private static final int ACCOUNTS = 1_000;
+
+	private static final int TRANSACTIONS = 500_000;
+
+	@ClassRule
+	public static TemporaryFolder folder = new TemporaryFolder();
+
+	private static Path image;
+
+	private static int[] counts = new int[ACCOUNTS];
+
+	@BeforeClass
+	public static void writeImage() throws Exception {
+		AccountRepositoryImpl accountRepository = new AccountRepositoryImpl();
+		accountRepository.afterPropertiesSet();
+		TransactionRepositoryImpl transactionRepository = new TransactionRepositoryImpl();
+		transactionRepository.afterPropertiesSet();
+		for (int i = 0; i < ACCOUNTS; i++) {
+			Account account = new Account();
+			account.setId("S" + i);
+			account.setNumber(String.format("%011d", i));
+			account.setType("SAVING");
+			account.setBalance(BigDecimal.ZERO);
+			account.setActive(true);
+			accountRepository.save(account);
+		}
+		Random random = new Random(15);
+		List<Transaction> transactions = new ArrayList<>(TRANSACTIONS);
+		for (int i = 0; i < TRANSACTIONS; i++) {
+			int account = random.nextInt(ACCOUNTS);
+			counts[account]++;
+			Transaction transaction = new Transaction();
+			transaction.setAccountId("S" + account);
+			transaction.setNumber(String.valueOf(12151885120L + i));
+			transaction.setBalance(BigDecimal.valueOf(
+					random.nextInt(2_000_000) - 1_000_000, 2));
+			transactions.add(transaction);
+		}
+		transactionRepository.saveAll(transactions);
+		image = folder.getRoot().toPath().resolve("seed.bin");
+		Journal.writeImage(image, accountRepository, transactionRepository);
+	}
+
+	@Test
+	public void startFromSeedImage() throws Exception {
+		long start = System.nanoTime();
+		try (ConfigurableApplicationContext context = SpringApplication.run(
+				StartBoot.class, "--server.port=0",
+				"--recruitment.seed.image=" + image)) {
+			String url = "http://localhost:"
+					+ context.getEnvironment().getProperty("local.server.port")
+					+ "/api/accounts/S7/summary";
+			Map<?, ?> summary = new RestTemplate().getForObject(url,
+					Map.class);
+			long firstRequest = System.nanoTime() - start;
+			assertEquals(counts[7], summary.get("count"));
+
+			Map<String, Long> phases = context.getBean(StartupReport.class)
+					.getPhases();
+			log.info("First request after {} ms, startup phases : {}",
+					firstRequest / 1_000_000, phases);
+			for (String phase : new String[] { "launch", "context.refresh",
+					"context.beans", "data.load", "server.start", "ready" }) {
+				assertThat(phases, hasKey(phase));
+			}
+			Map<?, ?> report = new RestTemplate().getForObject(
+					url.replace("accounts/S7/summary", "startup"), Map.class);
+			assertThat((Map<?, ?>) report.get("phases"), hasKey("data.load"));
+		}
+	}
+}
@@ -0,0 +1,181 @@
+package com.test.recruitment.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.test.recruitment.dao.impl.AccountRepositoryImpl;
+import com.test.recruitment.dao.impl.TransactionRepositoryImpl;
+import com.test.recruitment.entity.Account;
+import com.test.recruitment.entity.Transaction;
+import com.test.recruitment.exception.ServiceException;
+import com.test.recruitment.json.TransactionRequest;
+import com.test.recruitment.json.TransactionResponse;
+import com.test.recruitment.metrics.LatencyTimers;
+import com.test.recruitment.service.AccountDetailsCache;
+import com.test.recruitment.service.AccountLocks;
+import com.test.recruitment.service.AccountService;
+import com.test.recruitment.service.AccountVersions;
+import com.test.recruitment.service.TransactionFeed;
+import com.test.recruitment.service.TransactionService;
+
+/**
+ * Transaction write stress test : parallel writes must not be lost and the
+ * account balances, cached or not, must follow their transactions
+ *
+ * @author A525125
+ *
+ */
+public class TransactionConcurrencyTest {
+
+	private static final int THREADS = 8;
+
+	private static final int OPERATIONS = 5_000;
+
+	private static final int ACCOUNTS = 4;
+
+	private AccountRepositoryImpl accountRepository;
+
+	private TransactionRepositoryImpl transactionRepository;
+
+	private AccountService accountService;
+
+	private TransactionService transactionService;
+
+	@Before
+	public void setup() throws Exception {
+		accountRepository = new AccountRepositoryImpl();
+		accountRepository.afterPropertiesSet();
+		transactionRepository = new TransactionRepositoryImpl();
+		transactionRepository.afterPropertiesSet();
+		for (int i = 0; i < ACCOUNTS; i++) {
+			Account account = new Account();
+			account.setId("A" + i);
+			account.setNumber(String.valueOf(i));
+			account.setType("CURRENT");
+			account.setBalance(BigDecimal.ZERO);
+			account.setCreationDate(new Date());
+			accountRepository.save(account);
+		}
+		accountService = new AccountService(accountRepository,
+				new AccountDetailsCache(ACCOUNTS, 60_000, System::nanoTime),
+				new AccountVersions(), new LatencyTimers());
+		transactionService = new TransactionService(accountService,
+				transactionRepository, new AccountLocks(),
+				new TransactionFeed());
+	}
+
+	@Test
+	public void parallelWritesAreNotLost() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<int[]>> results = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			results.add(executor.submit(writer(t, start)));
+		}
+		start.countDown();
+
+		int[] transactions = new int[ACCOUNTS];
+		for (Future<int[]> result : results) {
+			int[] counts = result.get();
+			for (int i = 0; i < ACCOUNTS; i++) {
+				transactions[i] += counts[i];
+			}
+		}
+		executor.shutdown();
+
+		for (int i = 0; i < ACCOUNTS; i++) {
+			String accountId = "A" + i;
+			List<Transaction> content = transactionRepository
+					.getTransactionsByAccount(accountId, null).getContent();
+			assertEquals(transactions[i], content.size());
+			BigDecimal sum = content.stream().map(Transaction::getBalance)
+					.reduce(BigDecimal.ZERO, BigDecimal::add);
+			assertEquals(0, sum.compareTo(accountRepository
+					.findById(accountId).get().getBalance()));
+			// No stale balance left in the cache
+			assertEquals(0, sum.compareTo(accountService.getAccountDetails(
+					accountId).getBalance()));
+		}
+	}
+
+	/**
+	 * A writer adding, updating and deleting transactions on random
+	 * accounts, including the transactions of the other writers
+	 *
+	 * @param seed
+	 *            the random seed
+	 * @param start
+	 *            the start signal
+	 * @return the number of transactions added minus the number of
+	 *         transactions deleted, by account
+	 */
+	private Callable<int[]> writer(int seed, CountDownLatch start) {
+		return () -> {
+			Random random = new Random(seed);
+			int[] counts = new int[ACCOUNTS];
+			List<TransactionResponse> created = new ArrayList<>();
+			start.await();
+			for (int i = 0; i < OPERATIONS; i++) {
+				int account = random.nextInt(ACCOUNTS);
+				String accountId = "A" + account;
+				TransactionRequest request = new TransactionRequest();
+				request.setNumber(String.valueOf(i));
+				request.setBalance(BigDecimal.valueOf(
+						random.nextInt(20_000) - 10_000, 2));
+				int operation = random.nextInt(5);
+				try {
+					if (operation == 4) {
+						accountService.getAccountDetails(accountId);
+					} else if (operation < 2 || created.isEmpty()) {
+						created.add(transactionService.addTransaction(
+								accountId, request));
+						counts[account]++;
+					} else if (operation == 2) {
+						String id = randomId(random);
+						Transaction transaction = transactionRepository
+								.findById(id);
+						if (null == transaction) {
+							// Not created yet, or already deleted
+							continue;
+						}
+						transactionService.updateTransaction(
+								transaction.getAccountId(), id, request);
+					} else {
+						String id = randomId(random);
+						Transaction transaction = transactionRepository
+								.findById(id);
+						if (null == transaction) {
+							// Not created yet, or already deleted
+							continue;
+						}
+						transactionService.deleteTransaction(
+								transaction.getAccountId(), id);
+						counts[Integer.parseInt(transaction.getAccountId()
+								.substring(1))]--;
+					}
+				} catch (ServiceException e) {
+					// Deleted meanwhile by another writer
+				}
+			}
+			return counts;
+		};
+	}
+
+	private String randomId(Random random) {
+		// Skip the initial transactions, which are not on the tested accounts
+		return String.valueOf(4 + random.nextInt(THREADS * OPERATIONS / 2));
+	}
+}
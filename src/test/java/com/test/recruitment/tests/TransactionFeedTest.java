@@ -0,0 +1,376 @@
+package com.test.recruitment.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.annotation.DirtiesContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import com.test.recruitment.entity.Transaction;
+import com.test.recruitment.json.TransactionEvent;
+import com.test.recruitment.service.TransactionFeed;
+
+/**
+ * Transaction feed test : the changes are pushed to every subscriber in
+ * order, and slow subscribers never block the writers
+ *
+ * @author A525125
+ *
+ */
+@DirtiesContext
+public class TransactionFeedTest extends AbstractTest {
+
+	private static final int SUBSCRIBERS = 10_000;
+
+	private static final int ACCOUNTS = 100;
+
+	private static final int EVENTS_PER_ACCOUNT = 20;
+
+	private static final int WRITERS = 4;
+
+	private static final int EVENTS_PER_WRITER = 50_000;
+
+	@Test
+	public void changesArePushed() throws Exception {
+		MockHttpServletResponse events = mockMvc
+				.perform(get("/accounts/2/transactions/events"))
+				.andExpect(request().asyncStarted()).andReturn()
+				.getResponse();
+		String created = mockMvc
+				.perform(
+						post("/accounts/2/transactions").contentType(
+								MediaType.APPLICATION_JSON).content(
+								"{\"number\":\"00000301\",\"balance\":12.5}"))
+				.andExpect(status().isCreated()).andReturn().getResponse()
+				.getContentAsString();
+		String id = JsonPath.read(created, "$.id");
+		mockMvc.perform(
+				put("/accounts/2/transactions/" + id).contentType(
+						MediaType.APPLICATION_JSON).content(
+						"{\"number\":\"00000301\",\"balance\":13}"))
+				.andExpect(status().isNoContent());
+		mockMvc.perform(delete("/accounts/2/transactions/" + id)).andExpect(
+				status().isNoContent());
+
+		String body = await(events, "event:deleted");
+		assertTrue(body, body.indexOf("event:created") < body
+				.indexOf("event:updated"));
+		assertTrue(body, body.indexOf("event:updated") < body
+				.indexOf("event:deleted"));
+		assertTrue(body, body.contains("data:{\"type\":\"UPDATED\","
+				+ "\"accountId\":\"2\",\"id\":\"" + id + "\","
+				+ "\"number\":\"00000301\",\"balance\":13}"));
+		assertTrue(MediaType.valueOf("text/event-stream").isCompatibleWith(
+				MediaType.valueOf(events.getContentType())));
+	}
+
+	@Test
+	public void importedRowsArePushed() throws Exception {
+		MockHttpServletResponse events = mockMvc
+				.perform(get("/accounts/2/transactions/events"))
+				.andExpect(request().asyncStarted()).andReturn()
+				.getResponse();
+		mockMvc.perform(
+				post("/imports/transactions").contentType("text/csv").content(
+						"accountId,number,balance\n2,00000401,4.5\n"
+								+ "1,00000402,1\n2,00000403,-1\n"))
+				.andExpect(status().isOk());
+
+		String body = await(events, "\"number\":\"00000403\"");
+		assertTrue(body, body.indexOf("\"number\":\"00000401\"") < body
+				.indexOf("\"number\":\"00000403\""));
+		assertTrue(body, body.contains("data:{\"type\":\"CREATED\","
+				+ "\"accountId\":\"2\",\"id\":\""));
+		assertFalse(body, body.contains("00000402"));
+	}
+
+	@Test
+	public void subscribeOnUnexistingAccount() throws Exception {
+		mockMvc.perform(get("/accounts/test/transactions/events"))
+				.andExpect(status().isNotFound())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON));
+	}
+
+	@Test
+	public void eventsReachAllSubscribers() throws Exception {
+		TransactionFeed feed = new TransactionFeed(new ObjectMapper(), 4,
+				1024, 64, 4);
+		feed.afterPropertiesSet();
+		try {
+			RecordingSink[] sinks = new RecordingSink[SUBSCRIBERS];
+			CountDownLatch received = new CountDownLatch(SUBSCRIBERS
+					* EVENTS_PER_ACCOUNT);
+			for (int i = 0; i < SUBSCRIBERS; i++) {
+				sinks[i] = new RecordingSink(received, null);
+				feed.subscribe("A" + i % ACCOUNTS, sinks[i]);
+			}
+			assertEquals(SUBSCRIBERS, feed.getSubscribers());
+			for (int n = 0; n < EVENTS_PER_ACCOUNT; n++) {
+				for (int a = 0; a < ACCOUNTS; a++) {
+					feed.publish(TransactionEvent.Type.CREATED, transaction(
+							"A" + a, n));
+				}
+			}
+			assertTrue(received.await(60, TimeUnit.SECONDS));
+			for (RecordingSink sink : sinks) {
+				assertEquals(EVENTS_PER_ACCOUNT, sink.events.size());
+				for (int n = 0; n < EVENTS_PER_ACCOUNT; n++) {
+					assertEquals("T" + n, JsonPath.read(sink.events.get(n),
+							"$.id"));
+				}
+			}
+			assertEquals(0, feed.getLagged());
+		} finally {
+			feed.destroy();
+		}
+		assertEquals(0, feed.getSubscribers());
+	}
+
+	@Test
+	public void slowSubscribersAreLagMarkedThenDropped() throws Exception {
+		// One partition : the events are dispatched in publication order
+		TransactionFeed feed = new TransactionFeed(new ObjectMapper(), 1,
+				1024, 4, 3);
+		feed.afterPropertiesSet();
+		try {
+			CountDownLatch release = new CountDownLatch(1);
+			RecordingSink slow = new RecordingSink(new CountDownLatch(0),
+					release);
+			feed.subscribe("A", slow);
+			RecordingSink stalled = new RecordingSink(new CountDownLatch(0),
+					new CountDownLatch(1));
+			feed.subscribe("B", stalled);
+
+			// The first event is being sent, 4 are queued, 1 is missed
+			feed.publish(TransactionEvent.Type.CREATED, transaction("A", 0));
+			assertTrue(slow.sending.await(10, TimeUnit.SECONDS));
+			for (int n = 1; n < 6; n++) {
+				feed.publish(TransactionEvent.Type.CREATED,
+						transaction("A", n));
+			}
+			// Far more than the outbox of B : B is dropped
+			long start = System.nanoTime();
+			for (int n = 0; n < 100; n++) {
+				feed.publish(TransactionEvent.Type.UPDATED,
+						transaction("B", n));
+			}
+			assertTrue("Writers must not wait for the subscribers", System
+					.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+			awaitDropped(feed, 1);
+			assertTrue(stalled.closed.await(10, TimeUnit.SECONDS));
+
+			release.countDown();
+			awaitEvents(slow, 5);
+			feed.publish(TransactionEvent.Type.DELETED, transaction("A", 6));
+			awaitEvents(slow, 7);
+			assertEquals("[created, created, created, created, created, lag, "
+					+ "deleted]", slow.names.toString());
+			assertEquals(1, (int) JsonPath.<Integer> read(slow.events.get(5),
+					"$.missed"));
+			assertEquals("T6", JsonPath.read(slow.events.get(6), "$.id"));
+			assertEquals(1, feed.getLagged());
+			assertEquals(1, feed.getSubscribers());
+		} finally {
+			feed.destroy();
+		}
+	}
+
+	@Test
+	public void overrunPartitionIsLagMarked() throws Exception {
+		TransactionFeed feed = new TransactionFeed(new ObjectMapper(), 1, 16,
+				64, 1);
+		RecordingSink sink = new RecordingSink(new CountDownLatch(0), null);
+		feed.subscribe("A", sink);
+		// Published before the dispatcher starts : the ring is overwritten
+		for (int n = 0; n < 40; n++) {
+			feed.publish(TransactionEvent.Type.CREATED, transaction("A", n));
+		}
+		feed.afterPropertiesSet();
+		try {
+			// The oldest events still in the ring, after a lag event
+			awaitEvents(sink, 16);
+			assertEquals("lag", sink.names.get(0));
+			assertEquals(25, (int) JsonPath.<Integer> read(sink.events.get(0),
+					"$.missed"));
+			assertEquals("T25", JsonPath.read(sink.events.get(1), "$.id"));
+			assertEquals("T39", JsonPath.read(sink.events.get(15), "$.id"));
+		} finally {
+			feed.destroy();
+		}
+	}
+
+	@Test
+	public void concurrentWritersOverrunTheRing() throws Exception {
+		// One small ring, lapped by writers running along the dispatcher
+		TransactionFeed feed = new TransactionFeed(new ObjectMapper(), 1, 16,
+				WRITERS * EVENTS_PER_WRITER, 1);
+		RecordingSink sink = new RecordingSink(new CountDownLatch(0), null);
+		feed.subscribe("A", sink);
+		feed.afterPropertiesSet();
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			ExecutorService writers = Executors.newFixedThreadPool(WRITERS);
+			for (int w = 0; w < WRITERS; w++) {
+				int writer = w;
+				writers.execute(() -> {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+					for (int n = 0; n < EVENTS_PER_WRITER; n++) {
+						Transaction transaction = transaction("A", n);
+						transaction.setId(writer + "-" + n);
+						feed.publish(TransactionEvent.Type.CREATED,
+								transaction);
+					}
+				});
+			}
+			start.countDown();
+			writers.shutdown();
+			assertTrue(writers.awaitTermination(60, TimeUnit.SECONDS));
+			assertTrue(feed.getLagged() > 0);
+
+			// Every event is either received whole, in order, or missed
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			long accounted = 0;
+			while (accounted < WRITERS * EVENTS_PER_WRITER
+					&& System.nanoTime() < deadline) {
+				Thread.sleep(10);
+				accounted = 0;
+				for (int i = 0; i < sink.events.size(); i++) {
+					accounted += "lag".equals(sink.names.get(i)) ? JsonPath
+							.<Integer> read(sink.events.get(i), "$.missed") : 1;
+				}
+			}
+			assertEquals(WRITERS * EVENTS_PER_WRITER, accounted);
+			int[] last = new int[WRITERS];
+			Arrays.fill(last, -1);
+			for (int i = 0; i < sink.events.size(); i++) {
+				if ("lag".equals(sink.names.get(i))) {
+					continue;
+				}
+				String event = sink.events.get(i);
+				String[] id = JsonPath.<String> read(event, "$.id").split("-");
+				int writer = Integer.parseInt(id[0]);
+				int n = Integer.parseInt(id[1]);
+				assertTrue(event, n > last[writer]);
+				last[writer] = n;
+				assertEquals(event, id[1], JsonPath.read(event, "$.number"));
+				assertEquals(event, 0, BigDecimal.valueOf(n, 2).compareTo(
+						new BigDecimal(JsonPath.read(event, "$.balance")
+								.toString())));
+			}
+			assertEquals(0, feed.getDropped());
+		} finally {
+			feed.destroy();
+		}
+	}
+
+	private static String await(MockHttpServletResponse response,
+			String expected) throws Exception {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		String body = response.getContentAsString();
+		while (!body.contains(expected) && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+			body = response.getContentAsString();
+		}
+		assertTrue(body, body.contains(expected));
+		return body;
+	}
+
+	private static void awaitDropped(TransactionFeed feed, long dropped)
+			throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (feed.getDropped() < dropped && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(dropped, feed.getDropped());
+	}
+
+	private static void awaitEvents(RecordingSink sink, int count)
+			throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (sink.events.size() < count && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(count, sink.events.size());
+	}
+
+	private static Transaction transaction(String accountId, int n) {
+		Transaction transaction = new Transaction();
+		transaction.setId("T" + n);
+		transaction.setAccountId(accountId);
+		transaction.setNumber(String.valueOf(n));
+		transaction.setBalance(BigDecimal.valueOf(n, 2));
+		return transaction;
+	}
+
+	/**
+	 * Records the events, optionally waiting for a latch before the first
+	 */
+	private static final class RecordingSink implements TransactionFeed.Sink {
+
+		// Read by the test thread
+		private final List<String> names = new CopyOnWriteArrayList<>();
+
+		private final List<String> events = new CopyOnWriteArrayList<>();
+
+		private final CountDownLatch received;
+
+		private final CountDownLatch release;
+
+		private final CountDownLatch sending = new CountDownLatch(1);
+
+		private final CountDownLatch closed = new CountDownLatch(1);
+
+		private RecordingSink(CountDownLatch received, CountDownLatch release) {
+			this.received = received;
+			this.release = release;
+		}
+
+		@Override
+		public void send(String id, String name, String data)
+				throws IOException {
+			sending.countDown();
+			if (null != release) {
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+			}
+			names.add(name);
+			events.add(data);
+			received.countDown();
+		}
+
+		@Override
+		public void close() {
+			closed.countDown();
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package com.test.recruitment.tests;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.jayway.jsonpath.JsonPath;
+import com.test.recruitment.StartBoot;
+
+/**
+ * Transaction id order test : numeric ids are listed in numeric order, by
+ * the pages and the cursors, whatever the repositories. The application is
+ * started once for each storage.
+ *
+ * @author A525125
+ *
+ */
+@RunWith(Parameterized.class)
+public class TransactionIdOrderTest {
+
+	private final String[] profiles;
+
+	/**
+	 * Command line arguments, which override application.yml unlike the
+	 * default properties of the builder
+	 */
+	private final String[] arguments;
+
+	private ConfigurableApplicationContext context;
+
+	private MockMvc mockMvc;
+
+	/**
+	 * @param storage
+	 *            the name of the storage
+	 * @param profiles
+	 *            the profiles of the storage
+	 * @param arguments
+	 *            the properties of the storage, as command line arguments
+	 */
+	public TransactionIdOrderTest(String storage, String[] profiles,
+			String[] arguments) {
+		this.profiles = profiles;
+		this.arguments = arguments;
+	}
+
+	@Parameters(name = "{0}")
+	public static Collection<Object[]> storages() {
+		return Arrays.asList(
+				new Object[] { "objects", new String[] { "tests" },
+						new String[0] },
+				new Object[] {
+						"columnar",
+						new String[] { "tests" },
+						new String[] { "--recruitment.repository.transaction-storage=columnar" } },
+				new Object[] {
+						"hsqldb",
+						new String[] { "tests", "hsqldb" },
+						new String[] { "--recruitment.hsqldb.url=jdbc:hsqldb:mem:id-order-test;hsqldb.tx=mvcc" } });
+	}
+
+	@Before
+	public void setup() {
+		context = new SpringApplicationBuilder(StartBoot.class)
+				.profiles(profiles).properties("server.port=0")
+				.run(arguments);
+		mockMvc = MockMvcBuilders.webAppContextSetup(
+				(WebApplicationContext) context).build();
+	}
+
+	@After
+	public void tearDown() {
+		context.close();
+	}
+
+	@Test
+	public void idsAreSortedAsNumbers() throws Exception {
+		// Enough transactions for ids of one, two and three digits
+		for (int i = 0; i < 100; i++) {
+			mockMvc.perform(
+					post("/accounts/2/transactions").contentType(
+							MediaType.APPLICATION_JSON).content(
+							"{\"number\":\"00000002\",\"balance\":0}"))
+					.andExpect(status().isCreated());
+		}
+		List<String> ids = idsByCursor("2", "id,asc");
+		assertTrue(ids.toString(), ids.contains("9"));
+		assertTrue(ids.toString(), ids.contains("100"));
+		List<String> sorted = ids.stream()
+				.sorted(Comparator.comparingLong(Long::parseLong))
+				.collect(Collectors.toList());
+		assertEquals(sorted, ids);
+		// Pages share the order of the cursors
+		mockMvc.perform(get("/accounts/2/transactions?sort=id&size=200"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.content[*].id", is(ids)));
+		// As do the ties of the other orders
+		mockMvc.perform(get("/accounts/2/transactions?sort=balance&size=200"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.content[*].id", is(ids)));
+		List<String> reversed = new ArrayList<>(ids);
+		Collections.reverse(reversed);
+		assertEquals(reversed, idsByCursor("2", "id,desc"));
+		assertEquals(ids, idsByCursor("2", "number"));
+	}
+
+	/**
+	 * @return the transaction ids of an account, read by cursor slices
+	 */
+	private List<String> idsByCursor(String accountId, String sort)
+			throws Exception {
+		List<String> ids = new ArrayList<>();
+		String cursor = "";
+		while (null != cursor) {
+			String content = mockMvc
+					.perform(
+							get("/accounts/" + accountId + "/transactions")
+									.param("size", "7").param("sort", sort)
+									.param("cursor", cursor))
+					.andExpect(status().isOk()).andReturn().getResponse()
+					.getContentAsString();
+			ids.addAll(JsonPath.<List<String>> read(content, "$.content[*].id"));
+			cursor = JsonPath.read(content, "$.next");
+		}
+		return ids;
+	}
+}
@@ -0,0 +1,184 @@
+package com.test.recruitment.tests;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Random;
+
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import com.test.recruitment.dao.TransactionSummary;
+import com.test.recruitment.dao.impl.AccountRepositoryImpl;
+import com.test.recruitment.dao.impl.TransactionRepositoryImpl;
+import com.test.recruitment.entity.Account;
+import com.test.recruitment.json.ImportResponse;
+import com.test.recruitment.metrics.LatencyTimers;
+import com.test.recruitment.service.AccountDetailsCache;
+import com.test.recruitment.service.AccountLocks;
+import com.test.recruitment.service.AccountService;
+import com.test.recruitment.service.AccountVersions;
+import com.test.recruitment.service.TransactionFeed;
+import com.test.recruitment.service.TransactionImporter;
+
+/**
+ * Bulk import test
+ *
+ * @author A525125
+ *
+ */
+@DirtiesContext
+public class TransactionImportTest extends AbstractTest {
+
+	private static final int ACCOUNTS = 100;
+
+	private static final int ROWS = 500_000;
+
+	@Test
+	public void importCsv() throws Exception {
+		int before = count("1");
+		mockMvc.perform(
+				post("/imports/transactions").contentType("text/csv").content(
+						"accountId,number,balance\n1,00000101,10.50\n"
+								+ "\"1\",\"00000102\",-2.25\n\n2,00000103,1\n"
+								+ "999,00000104,1\n1,00000105,abc\n"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.rows", is(5)))
+				.andExpect(jsonPath("$.imported", is(3)))
+				.andExpect(jsonPath("$.rejected", is(2)))
+				.andExpect(jsonPath("$.accounts", is(2)))
+				.andExpect(jsonPath("$.errors", hasSize(2)))
+				.andExpect(jsonPath("$.errors[0]", startsWith("row 5 :")))
+				.andExpect(jsonPath("$.errors[1]", startsWith("row 4 :")));
+		assertEquals(before + 2, count("1"));
+	}
+
+	@Test
+	public void importJson() throws Exception {
+		int before = count("1");
+		mockMvc.perform(
+				post("/imports/transactions").contentType(
+						MediaType.APPLICATION_JSON).content(
+						"[{\"accountId\":\"1\",\"number\":\"00000201\","
+								+ "\"balance\":3.10},{\"accountId\":\"1\","
+								+ "\"id\":\"1\",\"number\":\"00000202\","
+								+ "\"balance\":-1}]"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.imported", is(2)));
+		mockMvc.perform(
+				post("/imports/transactions").contentType(
+						"application/x-ndjson").content(
+						"{\"accountId\":\"1\",\"number\":\"00000203\","
+								+ "\"balance\":1}\n{\"accountId\":\"1\"}\n"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.imported", is(1)))
+				.andExpect(jsonPath("$.rejected", is(1)));
+		// The id of a row is ignored : transaction 1 is not replaced
+		assertEquals(before + 3, count("1"));
+	}
+
+	@Test
+	public void malformedJsonIsRejected() throws Exception {
+		mockMvc.perform(
+				post("/imports/transactions").contentType(
+						MediaType.APPLICATION_JSON).content(
+						"[{\"accountId\":\"1\",\"number\":"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.errorCode", is("BAD_REQUEST_IMPORT")));
+	}
+
+	@Test
+	public void largeImportIsApplied() throws Exception {
+		AccountRepositoryImpl accountRepository = new AccountRepositoryImpl();
+		accountRepository.afterPropertiesSet();
+		TransactionRepositoryImpl transactionRepository = new TransactionRepositoryImpl();
+		transactionRepository.afterPropertiesSet();
+		for (int i = 0; i < ACCOUNTS; i++) {
+			Account account = new Account();
+			account.setId("I" + i);
+			account.setNumber(String.format("%011d", i));
+			account.setType("SAVING");
+			account.setBalance(BigDecimal.ZERO);
+			accountRepository.save(account);
+		}
+		AccountService accountService = new AccountService(accountRepository,
+				new AccountDetailsCache(0, 60_000, System::nanoTime),
+				new AccountVersions(), new LatencyTimers());
+		TransactionImporter importer = new TransactionImporter(
+				accountRepository, transactionRepository, accountService,
+				new AccountLocks(), new TransactionFeed(), new ObjectMapper(),
+				10_000);
+
+		ImportResponse report = importer.importCsv(csv(new Random(18)));
+		assertEquals(ROWS, report.getImported());
+		assertEquals(ACCOUNTS, report.getAccounts());
+
+		// Same rows, same order
+		Random random = new Random(18);
+		int[] counts = new int[ACCOUNTS];
+		BigDecimal[] sums = new BigDecimal[ACCOUNTS];
+		Arrays.fill(sums, BigDecimal.ZERO);
+		for (int i = 0; i < ROWS; i++) {
+			int account = random.nextInt(ACCOUNTS);
+			counts[account]++;
+			sums[account] = sums[account].add(BigDecimal.valueOf(
+					random.nextInt(200_000) - 100_000, 2));
+		}
+		for (int i = 0; i < ACCOUNTS; i++) {
+			TransactionSummary summary = transactionRepository
+					.getSummary("I" + i);
+			assertEquals(counts[i], summary.getCount());
+			assertEquals(sums[i], summary.getSum());
+			assertEquals(sums[i], accountRepository.findById("I" + i).get()
+					.getBalance());
+		}
+	}
+
+	private int count(String accountId) throws Exception {
+		return JsonPath.read(mockMvc
+				.perform(get("/accounts/" + accountId + "/summary"))
+				.andExpect(status().isOk()).andReturn().getResponse()
+				.getContentAsString(), "$.count");
+	}
+
+	/**
+	 * Csv rows generated while they are read, never held in memory
+	 */
+	private static InputStream csv(Random random) {
+		return new SequenceInputStream(new Enumeration<InputStream>() {
+
+			private int row;
+
+			@Override
+			public boolean hasMoreElements() {
+				return row < ROWS;
+			}
+
+			@Override
+			public InputStream nextElement() {
+				String line = "I" + random.nextInt(ACCOUNTS) + ","
+						+ (12151885120L + row++) + ","
+						+ BigDecimal.valueOf(random.nextInt(200_000) - 100_000,
+								2) + "\n";
+				return new ByteArrayInputStream(
+						line.getBytes(StandardCharsets.UTF_8));
+			}
+		});
+	}
+}
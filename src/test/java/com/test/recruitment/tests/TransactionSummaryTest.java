@@ -0,0 +1,120 @@
+package com.test.recruitment.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.springframework.beans.factory.InitializingBean;
+
+import com.test.recruitment.dao.TransactionRepository;
+import com.test.recruitment.dao.TransactionSummary;
+import com.test.recruitment.dao.impl.ColumnarTransactionRepository;
+import com.test.recruitment.dao.impl.TransactionRepositoryImpl;
+import com.test.recruitment.entity.Transaction;
+
+/**
+ * Transaction aggregates test : the aggregates maintained on every write
+ * match a full recompute
+ *
+ * @author A525125
+ *
+ */
+public class TransactionSummaryTest {
+
+	private static final String[] ACCOUNTS = { "A0", "A1", "A2" };
+
+	@Test
+	public void objectRepositoryMatchesRecompute() throws Exception {
+		checkRandomMutations(new TransactionRepositoryImpl());
+	}
+
+	@Test
+	public void columnarRepositoryMatchesRecompute() throws Exception {
+		checkRandomMutations(new ColumnarTransactionRepository());
+	}
+
+	private static <T extends TransactionRepository & InitializingBean> void checkRandomMutations(
+			T repository) throws Exception {
+		repository.afterPropertiesSet();
+		Random random = new Random(13);
+		for (int i = 0; i < 3000; i++) {
+			String id = String.valueOf(random.nextInt(200));
+			String accountId = ACCOUNTS[random.nextInt(ACCOUNTS.length)];
+			switch (random.nextInt(8)) {
+			case 0:
+				repository.delete(id);
+				break;
+			case 1:
+				List<Transaction> batch = new ArrayList<>();
+				for (int j = random.nextInt(20); j > 0; j--) {
+					batch.add(transaction(random.nextBoolean() ? null : String
+							.valueOf(random.nextInt(200)), accountId, random));
+				}
+				repository.saveAll(batch);
+				break;
+			default:
+				// Insert, update, or move to another account
+				repository.save(transaction(random.nextBoolean() ? null : id,
+						accountId, random));
+				break;
+			}
+			for (String account : ACCOUNTS) {
+				assertSummary(repository, account);
+			}
+		}
+		assertSummary(repository, "1");
+		TransactionSummary none = repository.getSummary("B");
+		assertEquals(0, none.getCount());
+		assertEquals(0, BigDecimal.ZERO.compareTo(none.getSum()));
+		assertNull(none.getMin());
+		assertNull(none.getMax());
+	}
+
+	private static void assertSummary(TransactionRepository repository,
+			String accountId) {
+		List<BigDecimal> balances = repository
+				.streamTransactionsByAccount(accountId)
+				.map(Transaction::getBalance).collect(Collectors.toList());
+		TransactionSummary summary = repository.getSummary(accountId);
+		assertEquals(balances.size(), summary.getCount());
+		assertSameValue(
+				balances.stream().reduce(BigDecimal.ZERO, BigDecimal::add),
+				summary.getSum());
+		assertSameValue(
+				balances.stream().min(BigDecimal::compareTo).orElse(null),
+				summary.getMin());
+		assertSameValue(
+				balances.stream().max(BigDecimal::compareTo).orElse(null),
+				summary.getMax());
+	}
+
+	/**
+	 * Same value, whatever the scale
+	 */
+	private static void assertSameValue(BigDecimal expected,
+			BigDecimal actual) {
+		if (null == expected) {
+			assertNull(actual);
+		} else {
+			assertEquals(expected + " != " + actual, 0,
+					expected.compareTo(actual));
+		}
+	}
+
+	private static Transaction transaction(String id, String accountId,
+			Random random) {
+		Transaction transaction = new Transaction();
+		transaction.setId(id);
+		transaction.setAccountId(accountId);
+		transaction.setNumber(String.valueOf(random.nextInt(1000)));
+		transaction.setBalance(BigDecimal.valueOf(random.nextInt(20_000)
+				- 10_000, random.nextInt(3)));
+		return transaction;
+	}
+}
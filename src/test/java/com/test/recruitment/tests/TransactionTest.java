@@ -1,11 +1,19 @@
 package com.test.recruitment.tests;
 
 import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import org.junit.Test;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.jayway.jsonpath.JsonPath;
 
 /**
  * Account test
@@ -24,6 +32,122 @@ public class TransactionTest extends AbstractTest {
 				.andExpect(jsonPath("$.content[0].balance", is(42.12)));
 	}
 
+	@Test
+	public void getTransactionsNotModified() throws Exception {
+		String etag = mockMvc.perform(get("/accounts/1/transactions"))
+				.andExpect(status().isOk()).andReturn().getResponse()
+				.getHeader("ETag");
+		mockMvc.perform(
+				get("/accounts/1/transactions").header("If-None-Match", etag))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+		mockMvc.perform(
+				get("/accounts/1/transactions?cursor=").header(
+						"If-None-Match", etag)).andExpect(
+				status().isNotModified());
+	}
+
+	@Test
+	public void getTransactionsSecondPage() throws Exception {
+		mockMvc.perform(get("/accounts/1/transactions?page=1&size=2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.totalElements", is(3)))
+				.andExpect(jsonPath("$.totalPages", is(2)))
+				.andExpect(jsonPath("$.numberOfElements", is(1)))
+				.andExpect(jsonPath("$.content[0].number", is("12151885122")));
+	}
+
+	@Test
+	public void getTransactionsSortedByBalance() throws Exception {
+		mockMvc.perform(get("/accounts/1/transactions?sort=balance"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.content[0].balance", is(-12.12)))
+				.andExpect(jsonPath("$.content[2].balance", is(456.0)));
+		mockMvc.perform(
+				get("/accounts/1/transactions?sort=balance,desc&size=1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.totalElements", is(3)))
+				.andExpect(jsonPath("$.content[0].balance", is(456.0)));
+	}
+
+	@Test
+	public void getTransactionsSortedOnUnknownProperty() throws Exception {
+		mockMvc.perform(get("/accounts/1/transactions?sort=accountId"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.errorCode", is("BAD_REQUEST_SORT")));
+	}
+
+	@Test
+	public void getTransactionsSortedOnSeveralProperties() throws Exception {
+		mockMvc.perform(
+				get("/accounts/1/transactions?sort=number&sort=balance"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.errorCode", is("BAD_REQUEST_SORT")));
+		mockMvc.perform(
+				get("/accounts/1/transactions?cursor=&sort=number,balance"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.errorCode", is("BAD_REQUEST_SORT")));
+	}
+
+	@Test
+	public void getTransactionsWithCursor() throws Exception {
+		String content = mockMvc
+				.perform(get("/accounts/1/transactions?cursor=&size=2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.content.length()", is(2)))
+				.andExpect(jsonPath("$.content[0].id", is("1")))
+				.andExpect(jsonPath("$.content[1].id", is("2")))
+				.andReturn().getResponse().getContentAsString();
+		String next = JsonPath.read(content, "$.next");
+
+		mockMvc.perform(
+				get("/accounts/1/transactions?size=2&cursor=" + next))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.content.length()", is(1)))
+				.andExpect(jsonPath("$.content[0].id", is("3")))
+				.andExpect(jsonPath("$.next", nullValue()));
+	}
+
+	@Test
+	public void getTransactionsWithCursorSortedByBalance() throws Exception {
+		mockMvc.perform(
+				get("/accounts/1/transactions?cursor=&sort=balance,desc"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.content[0].balance", is(456.0)))
+				.andExpect(jsonPath("$.content[2].balance", is(-12.12)))
+				.andExpect(jsonPath("$.next", nullValue()));
+	}
+
+	@Test
+	public void getTransactionsWithInvalidCursor() throws Exception {
+		mockMvc.perform(get("/accounts/1/transactions?cursor=test"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.errorCode", is("BAD_REQUEST_CURSOR")));
+	}
+
+	@Test
+	public void exportTransactions() throws Exception {
+		MvcResult result = mockMvc
+				.perform(get("/accounts/1/transactions/export"))
+				.andExpect(request().asyncStarted())
+				.andExpect(content().contentType("application/x-ndjson"))
+				.andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+		// Streamed to the response of the initial request
+		String[] lines = result.getResponse().getContentAsString()
+				.split("\n");
+		assertEquals(3, lines.length);
+		assertEquals("12151885120", JsonPath.read(lines[0], "$.number"));
+		assertEquals(-12.12, JsonPath.<Double> read(lines[2], "$.balance"),
+				0);
+	}
+
+	@Test
+	public void exportTransactionsOnUnexistingAccount() throws Exception {
+		mockMvc.perform(get("/accounts/3/transactions/export"))
+				.andExpect(status().isNotFound());
+	}
+
 	@Test
 	public void getTransactionsNoContent() throws Exception {
 		mockMvc.perform(get("/accounts/2/transactions")).andExpect(